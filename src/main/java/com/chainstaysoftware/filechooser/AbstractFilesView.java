@@ -2,11 +2,13 @@ package com.chainstaysoftware.filechooser;
 
 import com.chainstaysoftware.filechooser.preview.PreviewPane;
 import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
 import javafx.scene.Cursor;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.input.KeyCode;
-import javafx.scene.layout.Pane;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.BorderPane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
@@ -22,11 +24,108 @@ abstract class AbstractFilesView implements FilesView {
    private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.AbstractFilesView");
 
    private final Stage parent;
+   private final PreviewPanePool previewPanePool;
+   private final ChangeListener<Boolean> updatingListener = (observable, oldValue, updating) -> {
+      if (updating) {
+         updateStarted();
+      } else {
+         updateFinished();
+      }
+   };
+   // The items of the model are replaced by paged items for very large directories.
+   private final ChangeListener<Boolean> pagedListener = (observable, oldValue, paged) -> reattachItems();
+
+   private final TypeAheadHandler typeAheadHandler = new TypeAheadHandler(this::find, this::select);
+
+   private DirectoryModel model;
 
-   AbstractFilesView(final Stage parent) {
+   AbstractFilesView(final Stage parent,
+                     final PreviewPanePool previewPanePool) {
       this.parent = parent;
+      this.previewPanePool = previewPanePool;
+   }
+
+   @Override
+   public void attach(final DirectoryModel directoryModel) {
+      detach();
+
+      model = directoryModel;
+      model.updatingProperty().addListener(updatingListener);
+      model.pagedProperty().addListener(pagedListener);
+      attachItems(model);
+
+      if (model.updatingProperty().get()) {
+         updateStarted();
+      } else {
+         updateFinished();
+      }
+   }
+
+   @Override
+   public void detach() {
+      if (model == null) {
+         return;
+      }
+
+      model.updatingProperty().removeListener(updatingListener);
+      model.pagedProperty().removeListener(pagedListener);
+      detachItems(model);
+      model = null;
+   }
+
+   private void reattachItems() {
+      detachItems(model);
+      attachItems(model);
+   }
+
+   /**
+    * Model the view is attached to, or null.
+    */
+   DirectoryModel getModel() {
+      return model;
+   }
+
+   /**
+    * Show the items of the passed in model, and follow changes to them.
+    * Called again, after {@link #detachItems(DirectoryModel)}, when the model
+    * switches to or from paged items.
+    * @param model Model of the current directory.
+    */
+   abstract void attachItems(DirectoryModel model);
+
+   /**
+    * Stop following the items of the model passed to {@link #attachItems(DirectoryModel)}.
+    */
+   abstract void detachItems(DirectoryModel model);
+
+   /**
+    * Find files by typing the start of their name while the passed in node
+    * has the focus.
+    */
+   void installTypeAhead(final Node node) {
+      node.addEventHandler(KeyEvent.KEY_TYPED, typeAheadHandler);
+   }
+
+   private Optional<DirectoryListItem> find(final String text) {
+      return model == null ? Optional.empty() : model.find(text);
    }
 
+   /**
+    * Select the passed in item, found by type-ahead.
+    */
+   abstract void select(DirectoryListItem item);
+
+   /**
+    * Called when the {@link DirectoryModel} starts reading or filtering the directory.
+    */
+   abstract void updateStarted();
+
+   /**
+    * Called when the {@link DirectoryModel} has finished reading or filtering
+    * the directory, or when attached to a model that is not updating.
+    */
+   abstract void updateFinished();
+
    /**
     * Create {@link Stage} to display {@link PreviewPane} and show the {@link Stage}
     * @param previewPaneClass {@link Node} to display the file within.
@@ -34,7 +133,7 @@ abstract class AbstractFilesView implements FilesView {
     */
    void showPreview(final Class<? extends PreviewPane> previewPaneClass,
                     final File file) {
-      final Optional<PreviewPane> previewPaneOpt = PreviewPaneFactory.create(previewPaneClass);
+      final Optional<PreviewPane> previewPaneOpt = previewPanePool.acquire(previewPaneClass);
       if (!previewPaneOpt.isPresent()) {
          logger.log(Level.SEVERE, "No PreviewPane created.");
          return;
@@ -42,7 +141,7 @@ abstract class AbstractFilesView implements FilesView {
 
       parent.getScene().setCursor(Cursor.WAIT);
 
-      Platform.runLater(() -> new FilesViewRunnable(previewPaneOpt.orElseThrow(IllegalStateException::new),
+      Platform.runLater(new FilesViewRunnable(previewPaneOpt.orElseThrow(IllegalStateException::new),
          file));
    }
 
@@ -59,15 +158,11 @@ abstract class AbstractFilesView implements FilesView {
       @Override
       public void run() {
          final Stage stage = new Stage();
-         final Pane pane = previewPane.getPane();
-         pane.prefWidthProperty().bind(stage.widthProperty());
-         pane.prefHeightProperty().bind(stage.heightProperty());
-         pane.maxWidthProperty().bind(stage.widthProperty());
-         pane.maxHeightProperty().bind(stage.heightProperty());
-         pane.minWidthProperty().bind(stage.widthProperty());
-         pane.minHeightProperty().bind(stage.heightProperty());
-
-         final Scene scene = new Scene(new Pane(pane));
+         // The pooled pane is placed in a BorderPane, instead of binding its size to
+         // the Stage, so that it is left unmodified when returned to the pool.
+         final BorderPane root = new BorderPane(previewPane.getPane());
+
+         final Scene scene = new Scene(root);
          scene.getStylesheets().add(new FileBrowserCss().getUrl());
          scene.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.ESCAPE) {
@@ -86,6 +181,10 @@ abstract class AbstractFilesView implements FilesView {
          stage.setWidth(1024);
          stage.setHeight(768);
          stage.setOnShown(windowEvent -> parent.getScene().setCursor(null));
+         stage.setOnHidden(windowEvent -> {
+            root.setCenter(null);
+            previewPanePool.release(previewPane);
+         });
          stage.show();
       }
 
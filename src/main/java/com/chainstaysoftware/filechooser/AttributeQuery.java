@@ -0,0 +1,336 @@
+package com.chainstaysoftware.filechooser;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Query on the attributes of directory entries, typed into the name filter
+ * field, e.g. "size>100MB modified<7d ext:log,txt". The text is parsed once
+ * into a tree of predicates, evaluated for each entry on the attributes read
+ * with the directory, so evaluating a query does not read from the file
+ * system.
+ * <ul>
+ *    <li>size&gt;100MB - size of a file, compared with &lt;, &lt;=, =, &gt;=
+ *    or &gt;. Units are B, KB, MB, GB and TB, in powers of 1024. Never
+ *    matches directories.</li>
+ *    <li>modified&lt;7d - age of the last modification, in s, m (minutes),
+ *    h, d or w. modified&lt;7d matches entries modified within the last 7
+ *    days.</li>
+ *    <li>modified&gt;2024-01-31 - last modification compared with a date.
+ *    modified=2024-01-31 matches entries modified on that day.</li>
+ *    <li>ext:log,txt - the extension is one of the list.</li>
+ *    <li>type:file or type:dir - the kind of entry.</li>
+ *    <li>name:text, or any other term - the name matches the term, as
+ *    typed into the name filter field without a query.</li>
+ * </ul>
+ * Terms separated by spaces must all match. OR between terms matches either
+ * side, and binds looser than the spaces. A leading '-' negates a term, and
+ * parentheses group terms. Keywords are not case sensitive.
+ * <p>
+ * Instances are immutable and may be used from any thread.
+ */
+final class AttributeQuery implements Predicate<EntryAttributes> {
+   private static final Pattern COMPARISON
+      = Pattern.compile("(?i)(size|modified)(<=|>=|<|>|=)(.+)");
+   private static final Pattern FIELD = Pattern.compile("(?i)(ext|type|name):(.*)");
+   private static final Pattern SIZE = Pattern.compile("(?i)(\\d+(?:\\.\\d+)?)\\s*(b|kb?|mb?|gb?|tb?)?");
+   private static final Pattern AGE = Pattern.compile("(?i)(\\d+)(s|m|h|d|w)");
+   private static final String OR = "OR";
+
+   private final Predicate<EntryAttributes> predicate;
+
+   private AttributeQuery(final Predicate<EntryAttributes> predicate) {
+      this.predicate = predicate;
+   }
+
+   /**
+    * Determine if the passed in text is a query, rather than a name filter.
+    * Text is a query if one of its terms is an attribute term.
+    */
+   static boolean isQuery(final String text) {
+      return tokenize(text).stream()
+         .map(token -> token.startsWith("-") ? token.substring(1) : token)
+         .anyMatch(token -> COMPARISON.matcher(token).matches() || FIELD.matcher(token).matches());
+   }
+
+   /**
+    * Parse the passed in query text.
+    * @throws IllegalArgumentException if the text is not a valid query.
+    */
+   static AttributeQuery parse(final String text) {
+      return parse(text, System.currentTimeMillis());
+   }
+
+   /**
+    * Parse the passed in query text, with ages relative to the passed in time.
+    * @throws IllegalArgumentException if the text is not a valid query.
+    */
+   static AttributeQuery parse(final String text,
+                               final long now) {
+      final Parser parser = new Parser(tokenize(text), now);
+      final Predicate<EntryAttributes> predicate = parser.parseOr();
+      if (parser.position < parser.tokens.size()) {
+         throw new IllegalArgumentException("Unexpected " + parser.tokens.get(parser.position));
+      }
+      return new AttributeQuery(predicate);
+   }
+
+   @Override
+   public boolean test(final EntryAttributes item) {
+      return predicate.test(item);
+   }
+
+   /**
+    * Split the text on spaces, with parentheses as tokens of their own.
+    */
+   private static List<String> tokenize(final String text) {
+      final List<String> tokens = new ArrayList<>();
+      for (String word : text.trim().split("\\s+")) {
+         int start = 0;
+         int end = word.length();
+         while (start < end && word.charAt(start) == '(') {
+            tokens.add("(");
+            start++;
+         }
+
+         int closing = 0;
+         while (end > start && word.charAt(end - 1) == ')') {
+            closing++;
+            end--;
+         }
+
+         if (start < end) {
+            tokens.add(word.substring(start, end));
+         }
+         for (int i = 0; i < closing; i++) {
+            tokens.add(")");
+         }
+      }
+      return tokens;
+   }
+
+   /**
+    * Recursive descent parser. OR binds looser than the implicit AND.
+    */
+   private static class Parser {
+      private final List<String> tokens;
+      private final long now;
+      private int position;
+
+      Parser(final List<String> tokens,
+             final long now) {
+         this.tokens = tokens;
+         this.now = now;
+      }
+
+      Predicate<EntryAttributes> parseOr() {
+         Predicate<EntryAttributes> predicate = parseAnd();
+         while (position < tokens.size() && OR.equalsIgnoreCase(tokens.get(position))) {
+            position++;
+            predicate = predicate.or(parseAnd());
+         }
+         return predicate;
+      }
+
+      private Predicate<EntryAttributes> parseAnd() {
+         Predicate<EntryAttributes> predicate = parseUnary();
+         while (position < tokens.size()
+            && !OR.equalsIgnoreCase(tokens.get(position))
+            && !")".equals(tokens.get(position))) {
+            predicate = predicate.and(parseUnary());
+         }
+         return predicate;
+      }
+
+      private Predicate<EntryAttributes> parseUnary() {
+         if (position >= tokens.size()) {
+            throw new IllegalArgumentException("Missing term");
+         }
+
+         final String token = tokens.get(position++);
+         if ("(".equals(token)) {
+            final Predicate<EntryAttributes> predicate = parseOr();
+            if (position >= tokens.size() || !")".equals(tokens.get(position))) {
+               throw new IllegalArgumentException("Missing )");
+            }
+            position++;
+            return predicate;
+         }
+
+         if (token.length() > 1 && token.startsWith("-")) {
+            return parseTerm(token.substring(1)).negate();
+         }
+
+         if (")".equals(token) || OR.equalsIgnoreCase(token)) {
+            throw new IllegalArgumentException("Unexpected " + token);
+         }
+
+         return parseTerm(token);
+      }
+
+      private Predicate<EntryAttributes> parseTerm(final String term) {
+         final Matcher comparison = COMPARISON.matcher(term);
+         if (comparison.matches()) {
+            final String attribute = comparison.group(1).toLowerCase(Locale.ROOT);
+            return "size".equals(attribute)
+               ? parseSize(comparison.group(2), comparison.group(3))
+               : parseModified(comparison.group(2), comparison.group(3));
+         }
+
+         final Matcher field = FIELD.matcher(term);
+         if (field.matches()) {
+            final String value = field.group(2);
+            switch (field.group(1).toLowerCase(Locale.ROOT)) {
+               case "ext":
+                  return parseExtensions(value);
+               case "type":
+                  return parseType(value);
+               default:
+                  return parseName(value);
+            }
+         }
+
+         return parseName(term);
+      }
+
+      private Predicate<EntryAttributes> parseSize(final String operator,
+                                                     final String value) {
+         final Matcher matcher = SIZE.matcher(value);
+         if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid size " + value);
+         }
+
+         final double number = Double.parseDouble(matcher.group(1));
+         final String unit = matcher.group(2) == null ? "b" : matcher.group(2).toLowerCase(Locale.ROOT);
+         final long bytes = (long) (number * unitBytes(unit.charAt(0)));
+
+         final LongPredicate comparison = compare(operator, bytes, bytes + 1);
+         return item -> !item.isDirectory() && comparison.test(item.length());
+      }
+
+      private long unitBytes(final char unit) {
+         switch (unit) {
+            case 'k':
+               return 1L << 10;
+            case 'm':
+               return 1L << 20;
+            case 'g':
+               return 1L << 30;
+            case 't':
+               return 1L << 40;
+            default:
+               return 1;
+         }
+      }
+
+      /**
+       * An age is compared with the time since the last modification, and a
+       * date with the last modification itself.
+       */
+      private Predicate<EntryAttributes> parseModified(final String operator,
+                                                         final String value) {
+         final Matcher age = AGE.matcher(value);
+         if (age.matches()) {
+            final long unitMs = unitMillis(Character.toLowerCase(age.group(2).charAt(0)));
+            final long ageMs = Long.parseLong(age.group(1)) * unitMs;
+            final LongPredicate comparison = compare(operator, ageMs, ageMs + unitMs);
+            return item -> comparison.test(now - item.lastModified());
+         }
+
+         try {
+            final LocalDate date = LocalDate.parse(value);
+            final ZoneId zone = ZoneId.systemDefault();
+            final long start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            final long end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            final LongPredicate comparison = compare(operator, start, end);
+            return item -> comparison.test(item.lastModified());
+         } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid age or date " + value, e);
+         }
+      }
+
+      private long unitMillis(final char unit) {
+         switch (unit) {
+            case 's':
+               return TimeUnit.SECONDS.toMillis(1);
+            case 'm':
+               return TimeUnit.MINUTES.toMillis(1);
+            case 'h':
+               return TimeUnit.HOURS.toMillis(1);
+            case 'd':
+               return TimeUnit.DAYS.toMillis(1);
+            default:
+               return TimeUnit.DAYS.toMillis(7);
+         }
+      }
+
+      /**
+       * Compare a value with the range [start, end), that '=' matches.
+       */
+      private LongPredicate compare(final String operator,
+                                    final long start,
+                                    final long end) {
+         switch (operator) {
+            case "<":
+               return value -> value < start;
+            case "<=":
+               return value -> value < end;
+            case ">":
+               return value -> value >= end;
+            case ">=":
+               return value -> value >= start;
+            default:
+               return value -> value >= start && value < end;
+         }
+      }
+
+      private Predicate<EntryAttributes> parseExtensions(final String value) {
+         final List<String> patterns = Arrays.stream(value.split(","))
+            .map(String::trim)
+            .map(extension -> extension.startsWith(".") ? extension.substring(1) : extension)
+            .filter(extension -> !extension.isEmpty())
+            .map(extension -> "*." + extension)
+            .collect(Collectors.toList());
+         if (patterns.isEmpty()) {
+            throw new IllegalArgumentException("Missing extension");
+         }
+
+         final ExtensionFilterMatcher matcher = new ExtensionFilterMatcher(patterns, false);
+         return item -> !item.isDirectory() && matcher.matches(item.getName());
+      }
+
+      private Predicate<EntryAttributes> parseType(final String value) {
+         switch (value.toLowerCase(Locale.ROOT)) {
+            case "file":
+            case "f":
+               return item -> !item.isDirectory();
+            case "dir":
+            case "d":
+            case "directory":
+               return EntryAttributes::isDirectory;
+            default:
+               throw new IllegalArgumentException("Invalid type " + value);
+         }
+      }
+
+      private Predicate<EntryAttributes> parseName(final String value) {
+         if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing name");
+         }
+
+         final NameFilter nameFilter = NameFilter.compileName(value);
+         return item -> nameFilter.test(item.getName());
+      }
+   }
+}
@@ -0,0 +1,37 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.File;
+
+/**
+ * A line of a file that contains the text of a {@link ContentSearch}.
+ */
+final class ContentMatch {
+   private final File file;
+   private final long lineNumber;
+   private final String preview;
+
+   /**
+    * @param file File containing the text.
+    * @param lineNumber Line number of the match, starting from 1.
+    * @param preview Text of the line, possibly cut short.
+    */
+   ContentMatch(final File file,
+                final long lineNumber,
+                final String preview) {
+      this.file = file;
+      this.lineNumber = lineNumber;
+      this.preview = preview;
+   }
+
+   File getFile() {
+      return file;
+   }
+
+   long getLineNumber() {
+      return lineNumber;
+   }
+
+   String getPreview() {
+      return preview;
+   }
+}
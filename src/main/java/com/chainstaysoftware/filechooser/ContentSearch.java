@@ -0,0 +1,438 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Searches the contents of the files under a directory for a text. The
+ * subtree is walked with a {@link RecursiveSearch}, and each file found is
+ * scanned on a bounded pool. Matches are passed on per file as they are
+ * found, one per line, with the text of the line as a preview.
+ * <p>
+ * Files are scanned as bytes, with a Boyer-Moore-Horspool search for the
+ * UTF-8 bytes of the text, case insensitive for ASCII letters. Small files are
+ * read, larger files are memory mapped a chunk at a time, with chunks
+ * overlapping by at least the length of the text so that no match is split.
+ * Files whose first bytes are the signature of a binary format (images,
+ * archives, executables, ...) or that contain a NUL byte are skipped.
+ * <p>
+ * The search stops after a time limit, or when cancelled. The callbacks are
+ * called from the worker threads.
+ */
+final class ContentSearch {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.ContentSearch");
+
+   static final int CHUNK_SIZE = 16 * 1024 * 1024;
+   // Smaller files are read, as mapping has a higher fixed cost.
+   private static final int MAP_THRESHOLD = 64 * 1024;
+   private static final int SNIFF_LENGTH = 8 * 1024;
+   private static final int MAX_PREVIEW_LENGTH = 200;
+   private static final int MAX_MATCHES_PER_FILE = 100;
+
+   // Bounded both ways, so a search does not flood the disk, and the walk
+   // scans files itself rather than queueing more while the pool is behind.
+   private static final int THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+   private static final int QUEUE_SIZE = 1024;
+   private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS,
+      0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), new DaemonThreadFactory(),
+      new ThreadPoolExecutor.CallerRunsPolicy());
+
+   private static final byte[][] BINARY_SIGNATURES = {
+      signature(0x89, 'P', 'N', 'G'),
+      signature(0xFF, 0xD8, 0xFF),
+      signature('G', 'I', 'F', '8'),
+      signature('%', 'P', 'D', 'F'),
+      signature('P', 'K', 0x03, 0x04),
+      signature(0x1F, 0x8B),
+      signature('B', 'Z', 'h'),
+      signature('7', 'z', 0xBC, 0xAF),
+      signature('R', 'a', 'r', '!'),
+      signature(0x7F, 'E', 'L', 'F'),
+      signature(0xCA, 0xFE, 0xBA, 0xBE),
+      signature('O', 'g', 'g', 'S'),
+      signature('R', 'I', 'F', 'F'),
+      signature('I', 'D', '3'),
+      signature('S', 'Q', 'L', 'i', 't', 'e'),
+      // UTF-16 text can not be matched against UTF-8 bytes.
+      signature(0xFE, 0xFF),
+      signature(0xFF, 0xFE)
+   };
+
+   private final Horspool horspool;
+   private final long deadline;
+   private final Consumer<List<ContentMatch>> found;
+   private final Consumer<RecursiveSearch.Outcome> finished;
+   private final RecursiveSearch walk;
+   // The walk, and each file being scanned. The search has finished when it is 0.
+   private final AtomicInteger outstanding = new AtomicInteger(1);
+
+   private volatile boolean cancelled;
+   private volatile boolean timedOut;
+
+   /**
+    * @param root Directory to search.
+    * @param text Text to find. Must not be empty.
+    * @param itemFilter Filter for the entries of each directory, e.g. hidden
+    *                   files. Directories rejected are not searched.
+    * @param ignoreRules Rules for the entries skipped, e.g. build output.
+    * @param maxDepth Maximum depth of subdirectories searched.
+    * @param timeoutMs Time limit of the search.
+    * @param found Called with the matches of each file.
+    * @param finished Called once when the search has stopped.
+    */
+   ContentSearch(final File root,
+                 final String text,
+                 final Predicate<DirectoryListItem> itemFilter,
+                 final IgnoreRules ignoreRules,
+                 final int maxDepth,
+                 final long timeoutMs,
+                 final Consumer<List<ContentMatch>> found,
+                 final Consumer<RecursiveSearch.Outcome> finished) {
+      this.horspool = new Horspool(text.getBytes(StandardCharsets.UTF_8));
+      this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+      this.found = found;
+      this.finished = finished;
+      this.walk = new RecursiveSearch(root, NameFilter.compile("*"), itemFilter, ignoreRules, maxDepth, timeoutMs,
+         this::walked, this::walkFinished);
+   }
+
+   void start() {
+      walk.start();
+   }
+
+   /**
+    * Stop the search. Files being scanned stop at their next chunk or match.
+    */
+   void cancel() {
+      cancelled = true;
+      walk.cancel();
+   }
+
+   /**
+    * Number of entries skipped so far because of the {@link IgnoreRules}.
+    */
+   long getIgnoredCount() {
+      return walk.getIgnoredCount();
+   }
+
+   private boolean isStopped() {
+      if (!timedOut && System.nanoTime() - deadline > 0) {
+         timedOut = true;
+      }
+
+      return cancelled || timedOut;
+   }
+
+   private void walked(final List<DirectoryListItem> items) {
+      for (DirectoryListItem item : items) {
+         if (item.isDirectory()) {
+            continue;
+         }
+
+         outstanding.incrementAndGet();
+         pool.execute(() -> {
+            try {
+               scan(item.getFile());
+            } finally {
+               done();
+            }
+         });
+      }
+   }
+
+   private void walkFinished(final RecursiveSearch.Outcome outcome) {
+      if (RecursiveSearch.Outcome.TimedOut.equals(outcome)) {
+         timedOut = true;
+      }
+
+      done();
+   }
+
+   private void done() {
+      if (outstanding.decrementAndGet() == 0) {
+         finished.accept(cancelled ? RecursiveSearch.Outcome.Cancelled
+            : timedOut ? RecursiveSearch.Outcome.TimedOut : RecursiveSearch.Outcome.Completed);
+      }
+   }
+
+   private void scan(final File file) {
+      if (isStopped()) {
+         return;
+      }
+
+      try {
+         final List<ContentMatch> matches = scan(file, horspool, CHUNK_SIZE, this::isStopped);
+         if (!matches.isEmpty() && !cancelled) {
+            found.accept(matches);
+         }
+      } catch (IOException | RuntimeException e) {
+         logger.log(Level.FINE, "Error scanning file - " + file, e);
+      }
+   }
+
+   /**
+    * Find the lines of the file that contain the text. Empty if the file is
+    * binary, or not a regular file: the walk follows links, and opening a
+    * FIFO with no writer would block the scanning thread for good.
+    * @param chunkSize Number of bytes mapped at a time.
+    * @param stopped True once the scan should stop.
+    */
+   static List<ContentMatch> scan(final File file,
+                                  final Horspool horspool,
+                                  final int chunkSize,
+                                  final BooleanSupplier stopped) throws IOException {
+      if (!Files.isRegularFile(file.toPath())) {
+         return Collections.emptyList();
+      }
+
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         final long size = channel.size();
+         final int patternLength = horspool.length();
+         if (size < patternLength) {
+            return Collections.emptyList();
+         }
+
+         // Chunks must be longer than the overlap to make progress.
+         final int chunk = Math.max(chunkSize, 2 * patternLength + MAX_PREVIEW_LENGTH);
+         final List<ContentMatch> matches = new ArrayList<>();
+         long lineNumber = 1;
+         // Newlines before this position have been counted.
+         long countedTo = 0;
+         long searchFrom = 0;
+         long position = 0;
+         while (!stopped.getAsBoolean()) {
+            final int length = (int) Math.min(chunk, size - position);
+            final ByteBuffer buffer = read(channel, position, length, size);
+            if (position == 0 && isBinary(buffer)) {
+               return Collections.emptyList();
+            }
+
+            int from = (int) (searchFrom - position);
+            int index;
+            while ((index = horspool.indexOf(buffer, from, length)) >= 0) {
+               lineNumber += countNewlines(buffer, (int) (countedTo - position), index);
+               countedTo = position + index;
+
+               final int lineEnd = lineEnd(buffer, index, length);
+               matches.add(new ContentMatch(file, lineNumber, preview(buffer, index, lineEnd)));
+               if (matches.size() == MAX_MATCHES_PER_FILE || stopped.getAsBoolean()) {
+                  return matches;
+               }
+
+               // One match per line.
+               from = lineEnd;
+            }
+            searchFrom = position + from;
+
+            if (position + length >= size) {
+               break;
+            }
+
+            // A match that starts before the boundary ends within this chunk. The
+            // next chunk also starts early enough to preview the line of a match.
+            final int boundary = length - (patternLength - 1);
+            final long nextPosition = position + lineStart(buffer, boundary);
+            lineNumber += countNewlines(buffer, (int) (countedTo - position), (int) (nextPosition - position));
+            countedTo = Math.max(countedTo, nextPosition);
+            searchFrom = Math.max(searchFrom, position + boundary);
+            position = nextPosition;
+         }
+
+         return matches;
+      }
+   }
+
+   /**
+    * Determine if the first bytes of a file are those of a binary file.
+    */
+   static boolean isBinary(final ByteBuffer buffer) {
+      for (byte[] signature : BINARY_SIGNATURES) {
+         if (startsWith(buffer, signature)) {
+            return true;
+         }
+      }
+
+      final int end = Math.min(buffer.limit(), SNIFF_LENGTH);
+      for (int i = 0; i < end; i++) {
+         if (buffer.get(i) == 0) {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
+   private static ByteBuffer read(final FileChannel channel,
+                                  final long position,
+                                  final int length,
+                                  final long size) throws IOException {
+      if (size > MAP_THRESHOLD) {
+         return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+      }
+
+      final ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+         // Keep reading until the buffer is full or the file ends.
+      }
+      buffer.flip();
+      return buffer;
+   }
+
+   private static int countNewlines(final ByteBuffer buffer,
+                                    final int from,
+                                    final int to) {
+      int count = 0;
+      for (int i = from; i < to; i++) {
+         if (buffer.get(i) == '\n') {
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Index of the start of the line containing index, looking back at most
+    * half of {@link #MAX_PREVIEW_LENGTH}.
+    */
+   private static int lineStart(final ByteBuffer buffer,
+                                final int index) {
+      int start = index;
+      final int minStart = Math.max(0, index - MAX_PREVIEW_LENGTH / 2);
+      while (start > minStart && buffer.get(start - 1) != '\n') {
+         start--;
+      }
+      return start;
+   }
+
+   /**
+    * Index of the newline ending the line containing index, or the end of the
+    * buffer.
+    */
+   private static int lineEnd(final ByteBuffer buffer,
+                              final int index,
+                              final int length) {
+      int end = index;
+      while (end < length && buffer.get(end) != '\n') {
+         end++;
+      }
+      return end;
+   }
+
+   /**
+    * Text of the line containing the match, cut to at most
+    * {@link #MAX_PREVIEW_LENGTH} bytes around the match.
+    */
+   private static String preview(final ByteBuffer buffer,
+                                 final int index,
+                                 final int lineEnd) {
+      final int start = lineStart(buffer, index);
+      final int end = Math.min(lineEnd, start + MAX_PREVIEW_LENGTH);
+
+      final byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) {
+         bytes[i] = buffer.get(start + i);
+      }
+      return new String(bytes, StandardCharsets.UTF_8).trim();
+   }
+
+   private static boolean startsWith(final ByteBuffer buffer,
+                                     final byte[] prefix) {
+      if (buffer.limit() < prefix.length) {
+         return false;
+      }
+
+      for (int i = 0; i < prefix.length; i++) {
+         if (buffer.get(i) != prefix[i]) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static byte[] signature(final int... bytes) {
+      final byte[] signature = new byte[bytes.length];
+      for (int i = 0; i < bytes.length; i++) {
+         signature[i] = (byte) bytes[i];
+      }
+      return signature;
+   }
+
+   private static byte toLowerAscii(final byte b) {
+      return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+   }
+
+   /**
+    * Boyer-Moore-Horspool search for a byte pattern, ignoring the case of
+    * ASCII letters. The shift table skips ahead by up to the pattern length
+    * on a mismatch, so most bytes are never compared.
+    */
+   static final class Horspool {
+      private final byte[] pattern;
+      private final int[] shift = new int[256];
+
+      /**
+       * @param pattern Bytes to find. Must not be empty.
+       */
+      Horspool(final byte[] pattern) {
+         this.pattern = new byte[pattern.length];
+         for (int i = 0; i < pattern.length; i++) {
+            this.pattern[i] = toLowerAscii(pattern[i]);
+         }
+
+         Arrays.fill(shift, pattern.length);
+         for (int i = 0; i < pattern.length - 1; i++) {
+            final int distance = pattern.length - 1 - i;
+            final byte b = this.pattern[i];
+            shift[b & 0xFF] = distance;
+            if (b >= 'a' && b <= 'z') {
+               shift[(b - ('a' - 'A')) & 0xFF] = distance;
+            }
+         }
+      }
+
+      int length() {
+         return pattern.length;
+      }
+
+      /**
+       * Index of the first match that starts at or after from, and ends at or
+       * before to, or -1 if none.
+       */
+      int indexOf(final ByteBuffer buffer,
+                  final int from,
+                  final int to) {
+         final int last = pattern.length - 1;
+         int i = from;
+         while (i + last < to) {
+            final byte b = buffer.get(i + last);
+            int j = last;
+            while (toLowerAscii(buffer.get(i + j)) == pattern[j]) {
+               if (j == 0) {
+                  return i;
+               }
+               j--;
+            }
+            i += shift[b & 0xFF];
+         }
+         return -1;
+      }
+   }
+}
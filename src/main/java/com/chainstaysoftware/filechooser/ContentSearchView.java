@@ -0,0 +1,213 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.BorderPane;
+
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Shows the results of a {@link ContentSearch} of the current directory: the
+ * path of each file relative to the searched directory, the line number, and
+ * the text of the line. Results are added while the search runs. Starting a
+ * new search cancels the previous one.
+ */
+class ContentSearchView {
+   private static final int MAX_DEPTH = 32;
+   private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(60);
+   private static final int FILE_COLUMN_PREF_WIDTH = 250;
+   private static final int LINE_COLUMN_PREF_WIDTH = 60;
+
+   private final ObservableList<ContentMatch> results = FXCollections.observableArrayList();
+   private final TableView<ContentMatch> tableView = new TableView<>();
+   private final Label statusLabel = new Label();
+   private final BorderPane pane = new BorderPane();
+   private final ResourceBundle resourceBundle = ResourceBundle.getBundle("filechooser");
+
+   private Search current;
+
+   ContentSearchView(final FilesViewCallback callback) {
+      final TableColumn<ContentMatch, String> fileColumn
+         = new TableColumn<>(resourceBundle.getString("contentsearch.file"));
+      fileColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(getRelativePath(param.getValue())));
+      fileColumn.setPrefWidth(FILE_COLUMN_PREF_WIDTH);
+
+      final TableColumn<ContentMatch, Number> lineColumn
+         = new TableColumn<>(resourceBundle.getString("contentsearch.line"));
+      lineColumn.setCellValueFactory(param -> new ReadOnlyLongWrapper(param.getValue().getLineNumber()));
+      lineColumn.setPrefWidth(LINE_COLUMN_PREF_WIDTH);
+
+      final TableColumn<ContentMatch, String> textColumn
+         = new TableColumn<>(resourceBundle.getString("contentsearch.text"));
+      textColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(param.getValue().getPreview()));
+      textColumn.setSortable(false);
+      textColumn.prefWidthProperty().bind(tableView.widthProperty()
+         .subtract(FILE_COLUMN_PREF_WIDTH + LINE_COLUMN_PREF_WIDTH));
+
+      final SortedList<ContentMatch> sortedResults = results.sorted();
+      sortedResults.comparatorProperty().bind(tableView.comparatorProperty());
+
+      tableView.setItems(sortedResults);
+      tableView.getColumns().addAll(Arrays.asList(fileColumn, lineColumn, textColumn));
+      tableView.setPlaceholder(new Label(""));
+      tableView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) ->
+         callback.setCurrentSelection(newValue == null ? null : newValue.getFile()));
+
+      statusLabel.setId("contentSearchStatusLabel");
+      statusLabel.getStyleClass().add("searchstatus");
+
+      pane.setId("contentSearchPane");
+      pane.setCenter(tableView);
+      pane.setBottom(statusLabel);
+   }
+
+   Node getNode() {
+      return pane;
+   }
+
+   /**
+    * True if a search has been started, and not cancelled since.
+    */
+   boolean isActive() {
+      return current != null;
+   }
+
+   /**
+    * Search the contents of the files in the subtree of the passed in
+    * directory, replacing the results of any previous search.
+    * @param directory Directory to search.
+    * @param text Text to find.
+    * @param itemFilter Filter for the entries of each directory.
+    * @param ignoreRules Rules for the entries skipped when walking.
+    */
+   void search(final File directory,
+               final String text,
+               final Predicate<DirectoryListItem> itemFilter,
+               final IgnoreRules ignoreRules) {
+      cancel();
+
+      current = new Search(directory, text, itemFilter, ignoreRules);
+      statusLabel.setText(resourceBundle.getString("searchresults.searching"));
+      tableView.setCursor(Cursor.WAIT);
+      current.start();
+   }
+
+   /**
+    * Cancel the search, and clear the results.
+    */
+   void cancel() {
+      if (current != null) {
+         current.cancel();
+         current = null;
+      }
+
+      results.clear();
+      statusLabel.setText("");
+      tableView.setCursor(null);
+   }
+
+   private String getRelativePath(final ContentMatch match) {
+      if (current == null) {
+         return match.getFile().getName();
+      }
+
+      return current.directory.toPath().relativize(match.getFile().toPath()).toString();
+   }
+
+   private void finished(final RecursiveSearch.Outcome outcome,
+                         final long ignored) {
+      tableView.setCursor(null);
+
+      if (RecursiveSearch.Outcome.TimedOut.equals(outcome)) {
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("searchresults.timedout"),
+            results.size(), TimeUnit.MILLISECONDS.toSeconds(TIMEOUT_MS)));
+      } else {
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("searchresults.found"),
+            results.size()));
+      }
+
+      if (ignored > 0) {
+         statusLabel.setText(statusLabel.getText() + " "
+            + MessageFormat.format(resourceBundle.getString("searchresults.ignored"), ignored));
+      }
+   }
+
+   /**
+    * A single search. Matches found by the worker threads are queued, and
+    * added to the results in one update per pulse of the JavaFx thread.
+    */
+   private class Search {
+      private final File directory;
+      private final ContentSearch search;
+      private final Queue<List<ContentMatch>> pending = new ConcurrentLinkedQueue<>();
+      private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+      Search(final File directory,
+             final String text,
+             final Predicate<DirectoryListItem> itemFilter,
+             final IgnoreRules ignoreRules) {
+         this.directory = directory;
+         this.search = new ContentSearch(directory, text, itemFilter, ignoreRules, MAX_DEPTH, TIMEOUT_MS,
+            this::found, this::finished);
+      }
+
+      void start() {
+         search.start();
+      }
+
+      void cancel() {
+         search.cancel();
+      }
+
+      private void found(final List<ContentMatch> matches) {
+         pending.add(matches);
+
+         if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+         }
+      }
+
+      private void drain() {
+         drainScheduled.set(false);
+
+         final List<ContentMatch> batch = new ArrayList<>();
+         List<ContentMatch> matches;
+         while ((matches = pending.poll()) != null) {
+            batch.addAll(matches);
+         }
+
+         // A newer search may have replaced this one since the drain was queued.
+         if (current == this) {
+            results.addAll(batch);
+         }
+      }
+
+      private void finished(final RecursiveSearch.Outcome outcome) {
+         Platform.runLater(() -> {
+            if (current == this) {
+               drain();
+               ContentSearchView.this.finished(outcome, search.getIgnoredCount());
+            }
+         });
+      }
+   }
+}
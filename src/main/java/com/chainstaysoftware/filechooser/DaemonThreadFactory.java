@@ -0,0 +1,30 @@
+package com.chainstaysoftware.filechooser;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link ThreadFactory} that creates daemon threads, so that background work
+ * never keeps the JVM alive after the application exits.
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+   private final int priority;
+
+   DaemonThreadFactory() {
+      this(Thread.NORM_PRIORITY);
+   }
+
+   /**
+    * @param priority Priority of the created threads.
+    */
+   DaemonThreadFactory(final int priority) {
+      this.priority = priority;
+   }
+
+   @Override
+   public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      thread.setPriority(priority);
+      return thread;
+   }
+}
@@ -1,19 +1,104 @@
 package com.chainstaysoftware.filechooser;
 
+import org.apache.commons.io.FilenameUtils;
+
 import java.io.Serializable;
 import java.util.Comparator;
 
+/**
+ * Comparator for {@link DirectoryListItem} that allows specification of the
+ * {@link OrderBy} to sort on. Orders the same as {@link FileMetaDataComparator},
+ * but uses the attributes cached on the items, so that sorting does not call
+ * the OS for every comparison.
+ */
 public class DirListItemComparator implements Comparator<DirectoryListItem>, Serializable {
    private static final long serialVersionUID = 6642373165691519041L;
 
-   private final FileMetaDataComparator fileMetaDataComparator;
+   private final OrderBy orderBy;
+   private final OrderDirection direction;
 
    public DirListItemComparator(final OrderBy orderBy, final OrderDirection direction) {
-      this.fileMetaDataComparator = new FileMetaDataComparator(orderBy, direction);
+      this.orderBy = orderBy;
+      this.direction = direction;
    }
 
    @Override
    public int compare(final DirectoryListItem o1, final DirectoryListItem o2) {
-      return fileMetaDataComparator.compare(o1.getFile(), o2.getFile());
+      if (OrderBy.ModificationDate.equals(orderBy)) {
+         return getAnswer(Long.compare(o1.lastModified(), o2.lastModified()));
+      }
+
+      if (OrderBy.Size.equals(orderBy)) {
+         return getAnswer(compareBySize(o1, o2));
+      }
+
+      if (OrderBy.Type.equals(orderBy)) {
+         return getAnswer(compareByType(o1, o2));
+      }
+
+      return getAnswer(compareByName(o1, o2));
+   }
+
+   private int compareByName(final DirectoryListItem o1, final DirectoryListItem o2) {
+      return o1.getFile().getName().compareTo(o2.getFile().getName());
+   }
+
+   private int compareByType(final DirectoryListItem o1, final DirectoryListItem o2) {
+      if (o1.isDirectory()) {
+         if (o2.isDirectory()) {
+            return o1.getFile().compareTo(o2.getFile());
+         }
+
+         return -1;
+      } else if (o2.isDirectory()) {
+         return 1;
+      }
+
+      final String extension1 = FilenameUtils.getExtension(o1.getFile().getName());
+      final String extension2 = FilenameUtils.getExtension(o2.getFile().getName());
+      return extension1.compareTo(extension2);
+   }
+
+   private int compareBySize(final DirectoryListItem o1, final DirectoryListItem o2) {
+      // Directories whose total size has been computed sort with the files.
+      // Other directories sort first, by name. The length method on file does
+      // not return the total size of the directory contents.
+      final Long size1 = getSize(o1);
+      final Long size2 = getSize(o2);
+
+      if (size1 == null) {
+         if (size2 == null) {
+            return compareByName(o1, o2);
+         }
+
+         return -1;
+      }
+
+      if (size2 == null) {
+         return 1;
+      }
+
+      return Long.compare(size1, size2);
+   }
+
+   /**
+    * Size of the file, or total size of the directory, or null if the total
+    * size of the directory is not known.
+    */
+   private Long getSize(final DirectoryListItem item) {
+      if (!item.isDirectory()) {
+         return item.length();
+      }
+
+      final DirectorySize directorySize = item.getDirectorySize();
+      return directorySize == null ? null : directorySize.getBytes();
+   }
+
+   private int getAnswer(final int ascending) {
+      if (OrderDirection.Ascending.equals(direction)) {
+         return ascending;
+      }
+
+      return -ascending;
    }
 }
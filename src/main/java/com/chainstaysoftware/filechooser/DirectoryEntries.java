@@ -0,0 +1,320 @@
+package com.chainstaysoftware.filechooser;
+
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * The entries of a very large directory, held in parallel arrays rather than
+ * as {@link DirectoryListItem} objects: the name, type and hidden flags, size
+ * and last modified time of each entry. Items are only created for the
+ * entries shown, see {@link PagedItems}, so a directory of millions of files
+ * takes little more heap than their names.
+ * <p>
+ * Entries are referred to by their index, in directory order. Entries are
+ * added by one thread. Once added, they may be read from any thread.
+ */
+final class DirectoryEntries {
+   private static final int INITIAL_CAPACITY = 1024;
+   private static final byte DIRECTORY = 1;
+   private static final byte HIDDEN = 2;
+
+   private final File directory;
+
+   private String[] names = new String[INITIAL_CAPACITY];
+   private byte[] flags = new byte[INITIAL_CAPACITY];
+   private long[] sizes = new long[INITIAL_CAPACITY];
+   private long[] modified = new long[INITIAL_CAPACITY];
+   private int count;
+
+   DirectoryEntries(final File directory) {
+      this.directory = directory;
+   }
+
+   File getDirectory() {
+      return directory;
+   }
+
+   /**
+    * Add the passed in entry of the directory. Only its name and attributes
+    * are kept.
+    */
+   void add(final DirectoryListItem item) {
+      if (count == names.length) {
+         final int capacity = count * 2;
+         names = Arrays.copyOf(names, capacity);
+         flags = Arrays.copyOf(flags, capacity);
+         sizes = Arrays.copyOf(sizes, capacity);
+         modified = Arrays.copyOf(modified, capacity);
+      }
+
+      names[count] = item.getFile().getName();
+      flags[count] = (byte) ((item.isDirectory() ? DIRECTORY : 0) | (item.isHidden() ? HIDDEN : 0));
+      sizes[count] = item.length();
+      modified[count] = item.lastModified();
+      count++;
+   }
+
+   int size() {
+      return count;
+   }
+
+   String getName(final int index) {
+      return names[index];
+   }
+
+   boolean isDirectory(final int index) {
+      return (flags[index] & DIRECTORY) != 0;
+   }
+
+   boolean isHidden(final int index) {
+      return (flags[index] & HIDDEN) != 0;
+   }
+
+   long getLength(final int index) {
+      return sizes[index];
+   }
+
+   long getLastModified(final int index) {
+      return modified[index];
+   }
+
+   File getFile(final int index) {
+      return new File(directory, names[index]);
+   }
+
+   /**
+    * Create an item for the entry. Each call creates a new item.
+    */
+   DirectoryListItem createItem(final int index) {
+      return new DirectoryListItem(getFile(index), isDirectory(index),
+         isHidden(index), modified[index], sizes[index]);
+   }
+
+   /**
+    * Predicate of entries by their index, that evaluates the passed in filter
+    * on the stored name and attributes, without creating items. Each thread
+    * testing entries reuses a single cursor, so the predicate may be used by
+    * a parallel stream.
+    */
+   IntPredicate filter(final Predicate<? super EntryAttributes> filter) {
+      final ThreadLocal<Cursor> cursors = ThreadLocal.withInitial(Cursor::new);
+      return index -> filter.test(cursors.get().moveTo(index));
+   }
+
+   /**
+    * The entries as a list, whose items are created when read. Each read
+    * creates a new item.
+    */
+   List<DirectoryListItem> asList() {
+      return new EntryList();
+   }
+
+   /**
+    * Comparator of entries by their index, that orders the same as
+    * {@link DirListItemComparator}. Directory sizes are not computed for
+    * large directories, so sorting by size orders directories first, by
+    * name.
+    */
+   IndexComparator comparator(final OrderBy orderBy,
+                              final OrderDirection direction) {
+      final IndexComparator ascending;
+      if (OrderBy.ModificationDate.equals(orderBy)) {
+         ascending = (i1, i2) -> Long.compare(modified[i1], modified[i2]);
+      } else if (OrderBy.Size.equals(orderBy)) {
+         ascending = this::compareBySize;
+      } else if (OrderBy.Type.equals(orderBy)) {
+         ascending = this::compareByType;
+      } else {
+         ascending = (i1, i2) -> names[i1].compareTo(names[i2]);
+      }
+
+      return OrderDirection.Descending.equals(direction)
+         ? (i1, i2) -> ascending.compare(i2, i1)
+         : ascending;
+   }
+
+   private int compareBySize(final int i1,
+                             final int i2) {
+      if (isDirectory(i1)) {
+         return isDirectory(i2) ? names[i1].compareTo(names[i2]) : -1;
+      }
+
+      return isDirectory(i2) ? 1 : Long.compare(sizes[i1], sizes[i2]);
+   }
+
+   private int compareByType(final int i1,
+                             final int i2) {
+      if (isDirectory(i1)) {
+         return isDirectory(i2) ? names[i1].compareTo(names[i2]) : -1;
+      }
+
+      return isDirectory(i2)
+         ? 1
+         : FilenameUtils.getExtension(names[i1]).compareTo(FilenameUtils.getExtension(names[i2]));
+   }
+
+   /**
+    * Sort the first length indexes of the array, in parallel. The sort is
+    * stable, as is the sort of a {@link javafx.collections.transformation.SortedList}.
+    */
+   static void sort(final int[] indexes,
+                    final int length,
+                    final IndexComparator comparator) {
+      ForkJoinPool.commonPool().invoke(new SortTask(indexes, new int[length], 0, length, comparator));
+   }
+
+   /**
+    * Compares entries by their index.
+    */
+   @FunctionalInterface
+   interface IndexComparator {
+      int compare(int index1, int index2);
+   }
+
+   /**
+    * Merge sort of a range of the indexes. The halves of large ranges are
+    * sorted in parallel.
+    */
+   private static class SortTask extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+      private static final int SEQUENTIAL_THRESHOLD = 8192;
+      private static final int INSERTION_THRESHOLD = 32;
+
+      private final int[] indexes;
+      private final int[] buffer;
+      private final int from;
+      private final int to;
+      private final IndexComparator comparator;
+
+      SortTask(final int[] indexes,
+               final int[] buffer,
+               final int from,
+               final int to,
+               final IndexComparator comparator) {
+         this.indexes = indexes;
+         this.buffer = buffer;
+         this.from = from;
+         this.to = to;
+         this.comparator = comparator;
+      }
+
+      @Override
+      protected void compute() {
+         if (to - from <= SEQUENTIAL_THRESHOLD) {
+            sort(from, to);
+            return;
+         }
+
+         final int middle = (from + to) >>> 1;
+         invokeAll(new SortTask(indexes, buffer, from, middle, comparator),
+            new SortTask(indexes, buffer, middle, to, comparator));
+         merge(from, middle, to);
+      }
+
+      private void sort(final int start,
+                        final int end) {
+         if (end - start <= INSERTION_THRESHOLD) {
+            for (int i = start + 1; i < end; i++) {
+               final int index = indexes[i];
+               int j = i;
+               while (j > start && comparator.compare(indexes[j - 1], index) > 0) {
+                  indexes[j] = indexes[j - 1];
+                  j--;
+               }
+               indexes[j] = index;
+            }
+            return;
+         }
+
+         final int middle = (start + end) >>> 1;
+         sort(start, middle);
+         sort(middle, end);
+         merge(start, middle, end);
+      }
+
+      private void merge(final int start,
+                         final int middle,
+                         final int end) {
+         // Already in order.
+         if (comparator.compare(indexes[middle - 1], indexes[middle]) <= 0) {
+            return;
+         }
+
+         System.arraycopy(indexes, start, buffer, start, end - start);
+         int left = start;
+         int right = middle;
+         for (int i = start; i < end; i++) {
+            if (right >= end || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+               indexes[i] = buffer[left++];
+            } else {
+               indexes[i] = buffer[right++];
+            }
+         }
+      }
+   }
+
+   /**
+    * The name and attributes of the entry at an index, that can be moved to
+    * another index. Filters must not keep a reference to it.
+    */
+   private class Cursor implements EntryAttributes {
+      private int index;
+
+      Cursor moveTo(final int index) {
+         this.index = index;
+         return this;
+      }
+
+      @Override
+      public String getName() {
+         return names[index];
+      }
+
+      @Override
+      public boolean isDirectory() {
+         return DirectoryEntries.this.isDirectory(index);
+      }
+
+      @Override
+      public boolean isHidden() {
+         return DirectoryEntries.this.isHidden(index);
+      }
+
+      @Override
+      public long lastModified() {
+         return modified[index];
+      }
+
+      @Override
+      public long length() {
+         return sizes[index];
+      }
+   }
+
+   private class EntryList extends AbstractList<DirectoryListItem> implements RandomAccess {
+      // The entries added so far. Entries are not added once the list is read.
+      private final int size = count;
+
+      @Override
+      public DirectoryListItem get(final int index) {
+         if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+         }
+         return createItem(index);
+      }
+
+      @Override
+      public int size() {
+         return size;
+      }
+   }
+}
@@ -1,25 +1,85 @@
 package com.chainstaysoftware.filechooser;
 
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
 import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * Wraps a File instance to be rendered in a
  * Grid, List, or TableView.
  */
-class DirectoryListItem {
+class DirectoryListItem implements EntryAttributes {
    private final File file;
 
-   // Cache isDir to minimize calls to OS.
+   // Cache isDir, isHidden, lastModified and length to minimize calls to OS.
+   // Items are shared by all views, so each value is read at most once.
    private Boolean isDirectory;
+   private Boolean isHidden;
+   private Long lastModified;
+   private Long length;
+   // Total size of the contents of a directory. Created when first needed.
+   private ObjectProperty<DirectorySize> directorySize;
 
    public DirectoryListItem(final File file) {
+      this(file, (Boolean) null);
+   }
+
+   /**
+    * @param file File to wrap.
+    * @param isDirectory True if the file is a directory, or null if not yet
+    *                    known. Passing a flag the caller already read saves a
+    *                    call to the OS.
+    */
+   DirectoryListItem(final File file,
+                     final Boolean isDirectory) {
+      this.file = file;
+      this.isDirectory = isDirectory;
+   }
+
+   /**
+    * @param file File to wrap.
+    * @param attributes Attributes of the file the caller already read, so
+    *                   that the type, size and last modified time are known
+    *                   without a call to the OS. Filters that run off of the
+    *                   JavaFx thread rely on this to not read them again.
+    */
+   DirectoryListItem(final File file,
+                     final BasicFileAttributes attributes) {
       this.file = file;
+      this.isDirectory = attributes.isDirectory();
+      this.lastModified = attributes.lastModifiedTime().toMillis();
+      this.length = attributes.size();
+   }
+
+   /**
+    * @param file File to wrap.
+    * Remaining parameters are values the caller already holds, e.g. from the
+    * compact storage of {@link DirectoryEntries}, so that none is read again.
+    */
+   DirectoryListItem(final File file,
+                     final boolean isDirectory,
+                     final boolean isHidden,
+                     final long lastModified,
+                     final long length) {
+      this.file = file;
+      this.isDirectory = isDirectory;
+      this.isHidden = isHidden;
+      this.lastModified = lastModified;
+      this.length = length;
    }
 
    public File getFile() {
       return file;
    }
 
+   @Override
+   public String getName() {
+      return file.getName();
+   }
+
+   @Override
    public boolean isDirectory() {
       if (isDirectory == null) {
          isDirectory = file.isDirectory();
@@ -27,4 +87,50 @@ class DirectoryListItem {
 
       return isDirectory;
    }
+
+   @Override
+   public boolean isHidden() {
+      if (isHidden == null) {
+         isHidden = file.isHidden();
+      }
+
+      return isHidden;
+   }
+
+   @Override
+   public long lastModified() {
+      if (lastModified == null) {
+         lastModified = file.lastModified();
+      }
+
+      return lastModified;
+   }
+
+   @Override
+   public long length() {
+      if (length == null) {
+         length = file.length();
+      }
+
+      return length;
+   }
+
+   /**
+    * Total size of the contents of the directory, or null until computed by
+    * {@link DirectorySizes}. Only set on the JavaFx thread.
+    */
+   ObjectProperty<DirectorySize> directorySizeProperty() {
+      if (directorySize == null) {
+         directorySize = new SimpleObjectProperty<>(this, "directorySize");
+      }
+
+      return directorySize;
+   }
+
+   /**
+    * Total size of the contents of the directory, or null if not computed.
+    */
+   DirectorySize getDirectorySize() {
+      return directorySize == null ? null : directorySize.get();
+   }
 }
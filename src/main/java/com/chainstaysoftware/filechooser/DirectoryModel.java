@@ -0,0 +1,753 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Contents of the current directory. The directory is read from the OS once,
+ * and all of its entries are kept in memory. The items shown by the
+ * {@link FilesView} implementations are a projection of the entries through
+ * the extension filter and the hidden file settings, so changing the filter
+ * only re-evaluates the entries already in memory.
+ * <p>
+ * Reading and filtering run off of the JavaFx thread. While reading, matching
+ * items are added in batches so that large directories are shown progressively.
+ * A re-filter replaces the items in a single update. The name filter does not
+ * change the items. It sets the predicate of a {@link FilteredList} over them,
+ * with the names (or the attributes, for an {@link AttributeQuery}) matched in
+ * parallel beforehand for large directories, so the views see a projection of
+ * the items rather than a copy. The size and last modified time are read with
+ * each entry, so queries on them do not call the OS again. One model is shared
+ * by all of the views of a dialog, so switching views does not read the
+ * directory again, and the items (with their cached attributes) are held once.
+ * <p>
+ * A directory with more than {@link #PAGED_THRESHOLD} entries is paged: its
+ * entries are moved to a compact {@link DirectoryEntries} as they are read,
+ * and once read the items become a {@link PagedItems} list that only creates
+ * items for the rows the views show. The model then filters and sorts the
+ * entries itself, off of the JavaFx thread, in the order set by
+ * {@link #setOrder(OrderBy, OrderDirection)}. The views show the paged
+ * items as they are, rather than sorting them.
+ * This class must only be used from the JavaFx thread.
+ */
+final class DirectoryModel {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.DirectoryModel");
+
+   // Directories with at least this many entries are filtered in parallel.
+   private static final int PARALLEL_THRESHOLD = 10000;
+   private static final int BATCH_SIZE = 100;
+   // Directories with more entries than this are paged.
+   private static final int PAGED_THRESHOLD = 100000;
+
+   private final ObservableList<DirectoryListItem> items = FXCollections.observableArrayList();
+   private final FilteredList<DirectoryListItem> filteredItems = new FilteredList<>(items);
+   private final PagedItems pagedItems = new PagedItems();
+   private final ReadOnlyBooleanWrapper paged = new ReadOnlyBooleanWrapper(this, "paged", false);
+   private final ReadOnlyBooleanWrapper updating = new ReadOnlyBooleanWrapper(this, "updating", false);
+   private final BooleanProperty showHiddenFiles;
+   private final BooleanProperty shouldHideFiles;
+   private final ReadService readService = new ReadService();
+   private final FilterService filterService = new FilterService();
+   private final NameFilterService nameFilterService = new NameFilterService();
+   private final PageService pageService = new PageService();
+   // One thread per service, so that a read blocked on the file system does not hold up filtering.
+   private final List<ExecutorService> executors = new ArrayList<>();
+   // Index of the items, for type-ahead find.
+   private PrefixIndex prefixIndex = new PrefixIndex();
+
+   private File directory;
+   // Incremented on every change to the items.
+   private long version;
+   private ExtensionFilterMatcher matcher = new ExtensionFilterMatcher(Collections.emptyList(), true);
+   // All entries of the directory. Empty until the directory has been read.
+   private List<DirectoryListItem> entries = Collections.emptyList();
+   // Compiled text of the name filter, or null if there is no name filter.
+   private NameFilter nameFilter;
+   // Entries of a paged directory, or null.
+   private DirectoryEntries pagedEntries;
+   private OrderBy orderBy = OrderBy.Name;
+   private OrderDirection orderDirection = OrderDirection.Ascending;
+   private boolean disposed;
+
+   /**
+    * @param showHiddenFiles True if hidden files are shown.
+    * @param shouldHideFiles True if only directories are shown.
+    */
+   DirectoryModel(final BooleanProperty showHiddenFiles,
+                  final BooleanProperty shouldHideFiles) {
+      this.showHiddenFiles = showHiddenFiles;
+      this.shouldHideFiles = shouldHideFiles;
+
+      filteredItems.addListener((ListChangeListener<DirectoryListItem>) change -> version++);
+      pagedItems.addListener((ListChangeListener<DirectoryListItem>) change -> version++);
+
+      readService.setExecutor(createExecutor());
+      filterService.setExecutor(createExecutor());
+      nameFilterService.setExecutor(createExecutor());
+      pageService.setExecutor(createExecutor());
+   }
+
+   private ExecutorService createExecutor() {
+      final ExecutorService executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+      executors.add(executor);
+      return executor;
+   }
+
+   /**
+    * Cancel any read or filter in progress and stop the threads of the
+    * model, e.g. when the dialog is hidden. The model does nothing once
+    * disposed.
+    */
+   void dispose() {
+      disposed = true;
+      readService.cancel();
+      filterService.cancel();
+      nameFilterService.cancel();
+      pageService.cancel();
+      executors.forEach(ExecutorService::shutdownNow);
+   }
+
+   /**
+    * Read the passed in directory from the OS, replacing the current items.
+    * Any read or filter in progress is cancelled.
+    * @param directory Directory to read.
+    * @param matcher Matcher for the extension filter.
+    */
+   void load(final File directory,
+             final ExtensionFilterMatcher matcher) {
+      if (disposed) {
+         return;
+      }
+
+      this.directory = directory;
+      this.matcher = matcher;
+
+      filterService.cancel();
+      pageService.cancel();
+      entries = Collections.emptyList();
+      pagedEntries = null;
+      prefixIndex = new PrefixIndex();
+      items.clear();
+      pagedItems.reset();
+      paged.set(false);
+      updating.set(true);
+      readService.restart();
+   }
+
+   /**
+    * Change the extension filter. The entries already in memory are filtered
+    * again, without reading the directory.
+    */
+   void setMatcher(final ExtensionFilterMatcher matcher) {
+      this.matcher = matcher;
+      refilter();
+   }
+
+   /**
+    * Filter the entries already in memory again, e.g. after the hidden file
+    * settings have changed.
+    */
+   void refilter() {
+      if (directory == null || disposed) {
+         return;
+      }
+
+      if (readService.isRunning()) {
+         // Entries are not complete yet. Restart the read with the new filter.
+         load(directory, matcher);
+         return;
+      }
+
+      updating.set(true);
+      if (pagedEntries != null) {
+         pageService.restart();
+      } else {
+         filterService.restart();
+      }
+   }
+
+   /**
+    * Narrow the items to the names that match the passed in filter. Called on
+    * every keystroke in the name filter field. Any evaluation of a previous
+    * filter still running is cancelled.
+    * @param nameFilter Filter compiled from the typed text, or null to show
+    *                   all items.
+    */
+   void setNameFilter(final NameFilter nameFilter) {
+      nameFilterService.cancel();
+      this.nameFilter = nameFilter;
+      if (disposed) {
+         return;
+      }
+
+      if (pagedEntries != null) {
+         pageService.restart();
+      } else if (nameFilter == null) {
+         filteredItems.setPredicate(null);
+      } else if (items.size() < PARALLEL_THRESHOLD) {
+         filteredItems.setPredicate(new NamePredicate(nameFilter, Collections.emptyMap()));
+      } else {
+         nameFilterService.restart();
+      }
+   }
+
+   /**
+    * Set the order of the items of a paged directory. The items of other
+    * directories are sorted by the views.
+    */
+   void setOrder(final OrderBy orderBy,
+                 final OrderDirection orderDirection) {
+      if (orderBy == this.orderBy && orderDirection == this.orderDirection) {
+         return;
+      }
+
+      this.orderBy = orderBy;
+      this.orderDirection = orderDirection;
+
+      if (pagedEntries != null && !disposed) {
+         pageService.restart();
+      }
+   }
+
+   /**
+    * Currently read directory, or null.
+    */
+   File getDirectory() {
+      return directory;
+   }
+
+   /**
+    * Items that pass the filters, in directory order. The list is a filtered
+    * projection of the items, and must not be modified. For a paged
+    * directory, the {@link PagedItems} instead, in the order set by
+    * {@link #setOrder(OrderBy, OrderDirection)}.
+    */
+   ObservableList<DirectoryListItem> getItems() {
+      return paged.get() ? pagedItems : filteredItems;
+   }
+
+   /**
+    * True if the directory is paged. The list returned by {@link #getItems()}
+    * changes when this does.
+    */
+   boolean isPaged() {
+      return paged.get();
+   }
+
+   ReadOnlyBooleanProperty pagedProperty() {
+      return paged.getReadOnlyProperty();
+   }
+
+   /**
+    * Index in {@link #getItems()} of the item of the passed in file, or -1.
+    * For a paged directory, the names of the entries are searched, without
+    * creating items.
+    */
+   int indexOf(final File file) {
+      if (file == null) {
+         return -1;
+      }
+
+      if (paged.get()) {
+         return file.getParentFile() != null && file.getParentFile().equals(pagedEntries.getDirectory())
+            ? pagedItems.indexOfName(file.getName())
+            : -1;
+      }
+
+      for (int i = 0; i < filteredItems.size(); i++) {
+         if (filteredItems.get(i).getFile().equals(file)) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Aggregator of the disk usage of the items. For a paged directory, the
+    * entries are read without creating their items.
+    */
+   UsageAggregator createUsageAggregator() {
+      return paged.get() ? pagedItems.createUsageAggregator() : new UsageAggregator(filteredItems);
+   }
+
+   /**
+    * All entries of the directory, unfiltered. Empty until the directory has
+    * been read. For a paged directory, the items of the list are created when
+    * read.
+    */
+   List<DirectoryListItem> getEntries() {
+      return entries;
+   }
+
+   /**
+    * Entries of the directory if it is paged, otherwise null.
+    */
+   DirectoryEntries getPagedEntries() {
+      return pagedEntries;
+   }
+
+   /**
+    * Find the item to select for type-ahead text. O(log n) in the number of
+    * items when an item name starts with the text.
+    * @see PrefixIndex#find(String)
+    */
+   Optional<DirectoryListItem> find(final String text) {
+      if (paged.get()) {
+         return pagedItems.find(text);
+      }
+
+      final Predicate<? super DirectoryListItem> predicate = filteredItems.getPredicate();
+      return predicate == null
+         ? prefixIndex.find(text)
+         : prefixIndex.find(text, predicate::test);
+   }
+
+   /**
+    * Version of the items. Changes whenever the items change, so that a view
+    * can tell whether state it derived from the items is still current.
+    */
+   long getVersion() {
+      return version;
+   }
+
+   /**
+    * True while the directory is being read or filtered.
+    */
+   ReadOnlyBooleanProperty updatingProperty() {
+      return updating.getReadOnlyProperty();
+   }
+
+   /**
+    * Filter for the extension filter and the hidden file settings, as applied
+    * to the entries of the directory.
+    */
+   Predicate<DirectoryListItem> createFilter() {
+      return createItemFilter();
+   }
+
+   private ItemFilter createItemFilter() {
+      return new ItemFilter(matcher, showHiddenFiles.get(), shouldHideFiles.get());
+   }
+
+   /**
+    * Reads all entries of the directory, adding the entries that pass the
+    * filter to the items as they are found.
+    */
+   private class ReadService extends Service<ReadResult> {
+      @Override
+      protected Task<ReadResult> createTask() {
+         return new ReadTask(directory, createFilter());
+      }
+
+      /**
+       * A paged directory stays updating until its entries have been filtered
+       * and sorted.
+       */
+      @Override
+      protected void succeeded() {
+         final ReadResult result = getValue();
+         if (result.pagedEntries == null) {
+            entries = result.items;
+            updating.set(false);
+            return;
+         }
+
+         pagedEntries = result.pagedEntries;
+         entries = pagedEntries.asList();
+         prefixIndex = new PrefixIndex();
+         items.clear();
+         paged.set(true);
+         pageService.restart();
+      }
+
+      @Override
+      protected void failed() {
+         logger.log(Level.WARNING, "Error reading directory - " + directory, getException());
+         updating.set(false);
+      }
+   }
+
+   /**
+    * Entries of a directory read. Either the items, or the entries of a
+    * paged directory.
+    */
+   private static class ReadResult {
+      private final List<DirectoryListItem> items;
+      private final DirectoryEntries pagedEntries;
+
+      ReadResult(final List<DirectoryListItem> items,
+                 final DirectoryEntries pagedEntries) {
+         this.items = items;
+         this.pagedEntries = pagedEntries;
+      }
+   }
+
+   private class ReadTask extends Task<ReadResult> {
+      private final File directory;
+      private final Predicate<DirectoryListItem> filter;
+
+      ReadTask(final File directory,
+               final Predicate<DirectoryListItem> filter) {
+         this.directory = directory;
+         this.filter = filter;
+      }
+
+      /**
+       * Once the directory has more than {@link #PAGED_THRESHOLD} entries,
+       * the entries read are moved to a {@link DirectoryEntries}, and no more
+       * items are published.
+       */
+      @Override
+      protected ReadResult call() throws Exception {
+         final List<DirectoryListItem> all = new ArrayList<>();
+         List<DirectoryListItem> batch = new ArrayList<>();
+         DirectoryEntries compactEntries = null;
+
+         try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+            for (Path path : stream) {
+               if (isCancelled()) {
+                  return new ReadResult(all, compactEntries);
+               }
+
+               final DirectoryListItem item = createItem(path);
+               if (compactEntries != null) {
+                  compactEntries.add(item);
+                  continue;
+               }
+
+               all.add(item);
+               if (all.size() > PAGED_THRESHOLD) {
+                  compactEntries = new DirectoryEntries(directory);
+                  all.forEach(compactEntries::add);
+                  all.clear();
+                  continue;
+               }
+
+               if (filter.test(item)) {
+                  batch.add(item);
+
+                  if (batch.size() == BATCH_SIZE) {
+                     publish(batch);
+                     batch = new ArrayList<>();
+                  }
+               }
+            }
+         }
+
+         if (compactEntries == null) {
+            publish(batch);
+         }
+         return new ReadResult(all, compactEntries);
+      }
+
+      /**
+       * Read the attributes with the entry, in the same call to the OS that
+       * a check for a directory would make, so that filters on the size and
+       * last modified time do not read them again.
+       */
+      private DirectoryListItem createItem(final Path path) {
+         try {
+            return new DirectoryListItem(path.toFile(), Files.readAttributes(path, BasicFileAttributes.class));
+         } catch (IOException e) {
+            // E.g. a broken link.
+            return new DirectoryListItem(path.toFile(), Files.isDirectory(path));
+         }
+      }
+
+      private void publish(final List<DirectoryListItem> batch) {
+         if (batch.isEmpty()) {
+            return;
+         }
+
+         Platform.runLater(() -> {
+            // A newer load may have cleared the items since this batch was queued.
+            if (!isCancelled()) {
+               prefixIndex.addAll(batch);
+               items.addAll(batch);
+            }
+         });
+      }
+   }
+
+   /**
+    * Filters the entries in memory, in parallel for large directories, and
+    * replaces the items with the result in a single update.
+    */
+   private class FilterService extends Service<FilterResult> {
+      @Override
+      protected Task<FilterResult> createTask() {
+         return new FilterTask(entries, createFilter());
+      }
+
+      @Override
+      protected void succeeded() {
+         prefixIndex = getValue().prefixIndex;
+         items.setAll(getValue().items);
+         updating.set(false);
+      }
+
+      @Override
+      protected void failed() {
+         logger.log(Level.WARNING, "Error filtering directory - " + directory, getException());
+         updating.set(false);
+      }
+   }
+
+   private static class FilterTask extends Task<FilterResult> {
+      private final List<DirectoryListItem> entries;
+      private final Predicate<DirectoryListItem> filter;
+
+      FilterTask(final List<DirectoryListItem> entries,
+                 final Predicate<DirectoryListItem> filter) {
+         this.entries = entries;
+         this.filter = filter;
+      }
+
+      @Override
+      protected FilterResult call() {
+         final Stream<DirectoryListItem> stream = entries.size() >= PARALLEL_THRESHOLD
+            ? entries.parallelStream()
+            : entries.stream();
+
+         final List<DirectoryListItem> filtered = stream
+            .filter(item -> !isCancelled() && filter.test(item))
+            .collect(Collectors.toList());
+
+         final PrefixIndex prefixIndex = new PrefixIndex();
+         if (!isCancelled()) {
+            prefixIndex.addAll(filtered);
+         }
+
+         return new FilterResult(filtered, prefixIndex);
+      }
+   }
+
+   private static class FilterResult {
+      private final List<DirectoryListItem> items;
+      private final PrefixIndex prefixIndex;
+
+      FilterResult(final List<DirectoryListItem> items,
+                   final PrefixIndex prefixIndex) {
+         this.items = items;
+         this.prefixIndex = prefixIndex;
+      }
+   }
+
+   /**
+    * Filters and sorts the entries of a paged directory, and replaces the
+    * paged items with the result in a single update.
+    */
+   private class PageService extends Service<PageResult> {
+      private DirectoryEntries taskEntries;
+
+      @Override
+      protected Task<PageResult> createTask() {
+         taskEntries = pagedEntries;
+         return new PageTask(taskEntries, createItemFilter(), nameFilter,
+            taskEntries.comparator(orderBy, orderDirection));
+      }
+
+      @Override
+      protected void succeeded() {
+         final PageResult result = getValue();
+         pagedItems.setAll(taskEntries, result.order, result.order.length, result.nameIndex);
+         updating.set(false);
+      }
+
+      @Override
+      protected void failed() {
+         logger.log(Level.WARNING, "Error sorting directory - " + directory, getException());
+         updating.set(false);
+      }
+   }
+
+   private static class PageTask extends Task<PageResult> {
+      private final DirectoryEntries entries;
+      private final ItemFilter filter;
+      private final NameFilter nameFilter;
+      private final DirectoryEntries.IndexComparator comparator;
+
+      PageTask(final DirectoryEntries entries,
+               final ItemFilter filter,
+               final NameFilter nameFilter,
+               final DirectoryEntries.IndexComparator comparator) {
+         this.entries = entries;
+         this.filter = filter;
+         this.nameFilter = nameFilter;
+         this.comparator = comparator;
+      }
+
+      /**
+       * The filters are evaluated on the stored names and attributes, so no
+       * item is created. Items are only created by the {@link PagedItems}
+       * pages shown.
+       */
+      @Override
+      protected PageResult call() {
+         final IntPredicate accept = entries.filter(this::accept);
+         final int[] order = IntStream.range(0, entries.size())
+            .parallel()
+            .filter(index -> !isCancelled() && accept.test(index))
+            .toArray();
+
+         if (isCancelled()) {
+            return new PageResult(order, new int[0]);
+         }
+
+         DirectoryEntries.sort(order, order.length, comparator);
+         return new PageResult(order, PagedItems.createNameIndex(entries, order, order.length));
+      }
+
+      private boolean accept(final EntryAttributes entry) {
+         return filter.accept(entry) && (nameFilter == null || nameFilter.test(entry));
+      }
+   }
+
+   private static class PageResult {
+      private final int[] order;
+      private final int[] nameIndex;
+
+      PageResult(final int[] order,
+                 final int[] nameIndex) {
+         this.order = order;
+         this.nameIndex = nameIndex;
+      }
+   }
+
+   /**
+    * Matches the names, or the attributes read with the directory, of a
+    * snapshot of the items in parallel, so that setting the predicate of the
+    * {@link FilteredList} on the JavaFx thread is a lookup per item.
+    */
+   private class NameFilterService extends Service<Map<DirectoryListItem, Boolean>> {
+      private NameFilter taskNameFilter;
+
+      @Override
+      protected Task<Map<DirectoryListItem, Boolean>> createTask() {
+         taskNameFilter = nameFilter;
+         return new NameFilterTask(new ArrayList<>(items), taskNameFilter);
+      }
+
+      @Override
+      protected void succeeded() {
+         filteredItems.setPredicate(new NamePredicate(taskNameFilter, getValue()));
+      }
+
+      @Override
+      protected void failed() {
+         logger.log(Level.WARNING, "Error filtering names - " + directory, getException());
+      }
+   }
+
+   private static class NameFilterTask extends Task<Map<DirectoryListItem, Boolean>> {
+      private final List<DirectoryListItem> snapshot;
+      private final NameFilter nameFilter;
+
+      NameFilterTask(final List<DirectoryListItem> snapshot,
+                     final NameFilter nameFilter) {
+         this.snapshot = snapshot;
+         this.nameFilter = nameFilter;
+      }
+
+      @Override
+      protected Map<DirectoryListItem, Boolean> call() {
+         // DirectoryListItem does not override equals, so the map is keyed on identity.
+         return snapshot.parallelStream()
+            .filter(item -> !isCancelled())
+            .collect(Collectors.toMap(Function.identity(),
+               item -> nameFilter.test(item),
+               (v1, v2) -> v1,
+               HashMap::new));
+      }
+   }
+
+   /**
+    * Accepts items that match the name filter. Items matched in
+    * advance are looked up. Items added since, e.g. while the directory is
+    * still read, are matched when tested.
+    */
+   private static class NamePredicate implements Predicate<DirectoryListItem> {
+      private final NameFilter nameFilter;
+      private final Map<DirectoryListItem, Boolean> matches;
+
+      NamePredicate(final NameFilter nameFilter,
+                    final Map<DirectoryListItem, Boolean> matches) {
+         this.nameFilter = nameFilter;
+         this.matches = matches;
+      }
+
+      @Override
+      public boolean test(final DirectoryListItem item) {
+         final Boolean matched = matches.get(item);
+         return matched != null
+            ? matched
+            : nameFilter.test(item);
+      }
+   }
+
+   /**
+    * Directories are always accepted, unless hidden. Files are accepted if
+    * they match the extension filter, and files are not hidden.
+    */
+   private static class ItemFilter implements Predicate<DirectoryListItem> {
+      private final ExtensionFilterMatcher matcher;
+      private final boolean showHiddenFiles;
+      private final boolean shouldHideFiles;
+
+      ItemFilter(final ExtensionFilterMatcher matcher,
+                 final boolean showHiddenFiles,
+                 final boolean shouldHideFiles) {
+         this.matcher = matcher;
+         this.showHiddenFiles = showHiddenFiles;
+         this.shouldHideFiles = shouldHideFiles;
+      }
+
+      @Override
+      public boolean test(final DirectoryListItem item) {
+         return accept(item);
+      }
+
+      boolean accept(final EntryAttributes entry) {
+         if (!showHiddenFiles && entry.isHidden()) {
+            return false;
+         }
+
+         if (entry.isDirectory()) {
+            return true;
+         }
+
+         return !shouldHideFiles && matcher.matches(entry.getName());
+      }
+   }
+}
@@ -0,0 +1,155 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checks whether directories (e.g. favorites on network mounts) are reachable,
+ * off of the calling thread and with a timeout, and caches the results. A
+ * directory that does not respond within the timeout is reported, and cached,
+ * as unreachable, so that later requests fail fast instead of waiting on the
+ * mount again. Only one check per directory is outstanding at a time; when a
+ * hung check eventually completes its result replaces the cached value.
+ * <p>
+ * Reachable results are cached for longer than unreachable results, so that a
+ * directory that comes back (e.g. a remounted share) is noticed quickly.
+ */
+final class DirectoryReachability {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.DirectoryReachability");
+
+   private static final long REACHABLE_TTL_MS = 30 * 1000;
+   private static final long UNREACHABLE_TTL_MS = 5 * 1000;
+
+   // Cached pool, so that a hung mount does not delay checking the other directories.
+   private static final ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory());
+   private static final ScheduledExecutorService timeoutScheduler
+      = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+
+   private static final Map<File, Result> cache = new ConcurrentHashMap<>();
+   private static final Map<File, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+   private DirectoryReachability() {}
+
+   /**
+    * Determine if the directory is reachable. A cached result is returned
+    * immediately if it has not expired. Otherwise the directory is checked on a
+    * background thread.
+    * @param directory Directory to check.
+    * @param timeoutMs Time to wait for the file system to respond before
+    *                  considering the directory unreachable.
+    * @return future completed with true if the directory exists and responded
+    * within the timeout. The future is never completed exceptionally.
+    */
+   static CompletableFuture<Boolean> check(final File directory,
+                                           final long timeoutMs) {
+      return check(directory, timeoutMs, DirectoryReachability::probe);
+   }
+
+   /**
+    * Same as {@link #check(File, long)}, checking the directory with the
+    * passed in probe, which caches its result.
+    */
+   static CompletableFuture<Boolean> check(final File directory,
+                                           final long timeoutMs,
+                                           final Predicate<File> prober) {
+      final Optional<Boolean> cached = getCached(directory);
+      if (cached.isPresent()) {
+         return CompletableFuture.completedFuture(cached.get());
+      }
+
+      final CompletableFuture<Boolean> probe = inFlight.computeIfAbsent(directory, dir -> {
+         final CompletableFuture<Boolean> future = CompletableFuture.supplyAsync(() -> prober.test(dir), executor);
+         future.whenComplete((reachable, throwable) -> inFlight.remove(dir));
+         return future;
+      });
+
+      final CompletableFuture<Boolean> result = new CompletableFuture<>();
+      final ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+         if (result.isDone()) {
+            return;
+         }
+
+         // Cached before completing, so that callers see the result. Replaces an
+         // expired result, e.g. a reachable result of a mount that has since hung,
+         // but not the result of a probe that just completed.
+         final long now = System.currentTimeMillis();
+         cache.compute(directory, (dir, existing) ->
+            existing == null || existing.isExpired(now) ? new Result(false, now) : existing);
+         if (result.complete(false)) {
+            logger.log(Level.INFO, "Directory not responding - " + directory);
+         }
+      }, timeoutMs, TimeUnit.MILLISECONDS);
+
+      probe.whenComplete((reachable, throwable) -> {
+         timeout.cancel(false);
+         result.complete(reachable != null && reachable);
+      });
+
+      return result;
+   }
+
+   /**
+    * Retrieve the cached result for the directory, if it has not expired.
+    * Does not access the file system.
+    */
+   static Optional<Boolean> getCached(final File directory) {
+      final Result result = cache.get(directory);
+      if (result == null || result.isExpired(System.currentTimeMillis())) {
+         return Optional.empty();
+      }
+
+      return Optional.of(result.reachable);
+   }
+
+   /**
+    * Check the directory on the calling thread and cache the result. This may
+    * block on unreachable file systems.
+    */
+   static boolean probe(final File directory) {
+      boolean reachable;
+      try {
+         reachable = directory.isDirectory();
+      } catch (SecurityException e) {
+         logger.log(Level.FINE, "Unable to access - " + directory, e);
+         reachable = false;
+      }
+
+      cache(directory, reachable, System.currentTimeMillis());
+      return reachable;
+   }
+
+   /**
+    * Cache the result of checking the directory at the passed in time.
+    */
+   static void cache(final File directory,
+                     final boolean reachable,
+                     final long timestamp) {
+      cache.put(directory, new Result(reachable, timestamp));
+   }
+
+   private static final class Result {
+      private final boolean reachable;
+      private final long timestamp;
+
+      Result(final boolean reachable,
+             final long timestamp) {
+         this.reachable = reachable;
+         this.timestamp = timestamp;
+      }
+
+      boolean isExpired(final long now) {
+         return now - timestamp > (reachable ? REACHABLE_TTL_MS : UNREACHABLE_TTL_MS);
+      }
+   }
+}
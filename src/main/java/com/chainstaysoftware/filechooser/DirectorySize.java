@@ -0,0 +1,29 @@
+package com.chainstaysoftware.filechooser;
+
+/**
+ * Total size of the files under a directory, and the number of files.
+ */
+final class DirectorySize {
+   static final DirectorySize EMPTY = new DirectorySize(0, 0);
+
+   private final long bytes;
+   private final long files;
+
+   DirectorySize(final long bytes,
+                 final long files) {
+      this.bytes = bytes;
+      this.files = files;
+   }
+
+   long getBytes() {
+      return bytes;
+   }
+
+   long getFiles() {
+      return files;
+   }
+
+   DirectorySize plus(final DirectorySize other) {
+      return new DirectorySize(bytes + other.bytes, files + other.files);
+   }
+}
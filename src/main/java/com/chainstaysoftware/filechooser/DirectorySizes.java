@@ -0,0 +1,352 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the total size and file count of the directories in the current
+ * directory in the background, and sets them on the items as they complete,
+ * so that the views update in place.
+ * <p>
+ * Each directory of a subtree is a fork/join task, so the threads of the
+ * pool steal work from each other and a single large subtree is shared
+ * between them. Symbolic links are counted, but not followed.
+ * <p>
+ * The size of every directory walked is cached by its path and last
+ * modified time, so that revisiting a directory, or opening a subdirectory
+ * of one already computed, does not walk the tree again. A directory's last
+ * modified time only changes with its own entries, so a cached size can miss
+ * a change deeper in the tree. Cached sizes expire after
+ * {@link #MAX_AGE_MS} to bound how stale they get.
+ */
+final class DirectorySizes {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.DirectorySizes");
+
+   private static final int MAX_CACHED = 50000;
+   private static final long MAX_AGE_MS = TimeUnit.MINUTES.toMillis(10);
+
+   private static final ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+   // Least recently used. Guarded by itself.
+   private static final Map<Path, CacheEntry> cache = new LinkedHashMap<Path, CacheEntry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Path, CacheEntry> eldest) {
+         return size() > MAX_CACHED;
+      }
+   };
+
+   private final Runnable finished;
+
+   private Batch current;
+
+   /**
+    * @param finished Called on the JavaFx thread once the sizes of all the
+    *                 directories of a computation have been set.
+    */
+   DirectorySizes(final Runnable finished) {
+      this.finished = finished;
+   }
+
+   /**
+    * Compute the sizes of the directories among the passed in items,
+    * cancelling any computation in progress. Call on the JavaFx thread.
+    */
+   void compute(final List<DirectoryListItem> items) {
+      cancel();
+
+      current = new Batch(items.stream()
+         .filter(DirectoryListItem::isDirectory)
+         .collect(Collectors.toList()), finished);
+      current.start();
+   }
+
+   /**
+    * Cancel the computation in progress. Sizes already set are kept.
+    */
+   void cancel() {
+      if (current != null) {
+         current.cancelled = true;
+         current = null;
+      }
+   }
+
+   /**
+    * Total size of the passed in directory. Blocks until computed.
+    * @param cancelled True once the computation should stop.
+    * @return the size, or null if cancelled.
+    */
+   static DirectorySize computeSize(final Path directory,
+                                    final BooleanSupplier cancelled) {
+      return computeSize(directory, cancelled, null);
+   }
+
+   /**
+    * Total size of the passed in directory. Blocks until computed.
+    * @param cancelled True once the computation should stop.
+    * @param progress Receives the partial totals as each directory is read,
+    *                 or null.
+    * @return the size, or null if cancelled.
+    */
+   static DirectorySize computeSize(final Path directory,
+                                    final BooleanSupplier cancelled,
+                                    final Progress progress) {
+      final BasicFileAttributes attributes = readAttributes(directory);
+      if (attributes == null || !attributes.isDirectory()) {
+         return DirectorySize.EMPTY;
+      }
+
+      final SizeTask task = new SizeTask(directory, attributes.lastModifiedTime().toMillis(), cancelled, progress);
+      // Run in place on a worker of the pool, so that its subtasks are forked to this worker.
+      return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+   }
+
+   /**
+    * Run the passed in task on the pool that computes the sizes, so that
+    * work related to sizes shares its bound on threads.
+    */
+   static void execute(final Runnable task) {
+      pool.execute(task);
+   }
+
+   private static DirectorySize getCached(final Path directory,
+                                          final long lastModified) {
+      synchronized (cache) {
+         final CacheEntry entry = cache.get(directory);
+         if (entry == null) {
+            return null;
+         }
+
+         if (entry.lastModified != lastModified
+            || System.currentTimeMillis() - entry.computedAt > MAX_AGE_MS) {
+            cache.remove(directory);
+            return null;
+         }
+
+         return entry.size;
+      }
+   }
+
+   private static void putCached(final Path directory,
+                                 final long lastModified,
+                                 final DirectorySize size) {
+      synchronized (cache) {
+         cache.put(directory, new CacheEntry(lastModified, System.currentTimeMillis(), size));
+      }
+   }
+
+   /**
+    * Attributes of the path itself, not following links, or null if they can
+    * not be read.
+    */
+   private static BasicFileAttributes readAttributes(final Path path) {
+      try {
+         return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      } catch (IOException e) {
+         return null;
+      }
+   }
+
+   /**
+    * Sizes of the directories of one listing. Sizes computed by the pool are
+    * queued, and set on the items in one update per pulse of the JavaFx thread.
+    */
+   private static class Batch {
+      private final List<DirectoryListItem> directories;
+      private final Runnable finished;
+      private final Queue<Map.Entry<DirectoryListItem, DirectorySize>> pending = new ConcurrentLinkedQueue<>();
+      private final AtomicBoolean drainScheduled = new AtomicBoolean();
+      // Sizes not yet set on their item. Only used on the JavaFx thread.
+      private int remaining;
+      private volatile boolean cancelled;
+
+      Batch(final List<DirectoryListItem> directories,
+            final Runnable finished) {
+         this.directories = directories;
+         this.finished = finished;
+         this.remaining = directories.size();
+      }
+
+      void start() {
+         for (DirectoryListItem item : directories) {
+            pool.execute(() -> {
+               if (cancelled) {
+                  return;
+               }
+
+               final DirectorySize size = computeSize(item.getFile().toPath(), () -> cancelled);
+               if (size != null) {
+                  pending.add(new AbstractMap.SimpleImmutableEntry<>(item, size));
+                  if (drainScheduled.compareAndSet(false, true)) {
+                     Platform.runLater(this::drain);
+                  }
+               }
+            });
+         }
+      }
+
+      private void drain() {
+         drainScheduled.set(false);
+
+         Map.Entry<DirectoryListItem, DirectorySize> entry;
+         while ((entry = pending.poll()) != null) {
+            if (!cancelled) {
+               entry.getKey().directorySizeProperty().set(entry.getValue());
+               remaining--;
+            }
+         }
+
+         if (!cancelled && remaining == 0) {
+            finished.run();
+         }
+      }
+   }
+
+   /**
+    * Partial totals of a computation in progress, for showing the size while
+    * it grows. Added to by the worker threads once per directory read.
+    */
+   static final class Progress {
+      private final LongAdder bytes = new LongAdder();
+      private final LongAdder files = new LongAdder();
+
+      void add(final long bytes,
+               final long files) {
+         this.bytes.add(bytes);
+         this.files.add(files);
+      }
+
+      long getBytes() {
+         return bytes.sum();
+      }
+
+      long getFiles() {
+         return files.sum();
+      }
+   }
+
+   private static class SizeTask extends RecursiveTask<DirectorySize> {
+      private static final long serialVersionUID = 1L;
+
+      private final Path directory;
+      private final long lastModified;
+      private final BooleanSupplier cancelled;
+      // Null if partial totals are not needed.
+      private final Progress progress;
+
+      SizeTask(final Path directory,
+               final long lastModified,
+               final BooleanSupplier cancelled,
+               final Progress progress) {
+         this.directory = directory;
+         this.lastModified = lastModified;
+         this.cancelled = cancelled;
+         this.progress = progress;
+      }
+
+      /**
+       * @return the size, or null if cancelled.
+       */
+      @Override
+      protected DirectorySize compute() {
+         if (cancelled.getAsBoolean()) {
+            return null;
+         }
+
+         final DirectorySize cached = getCached(directory, lastModified);
+         if (cached != null) {
+            if (progress != null) {
+               progress.add(cached.getBytes(), cached.getFiles());
+            }
+            return cached;
+         }
+
+         long bytes = 0;
+         long files = 0;
+         final List<SizeTask> subtasks = new ArrayList<>();
+         try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+               if (cancelled.getAsBoolean()) {
+                  return null;
+               }
+
+               final BasicFileAttributes attributes = readAttributes(path);
+               if (attributes == null) {
+                  continue;
+               }
+
+               if (attributes.isDirectory()) {
+                  final SizeTask subtask
+                     = new SizeTask(path, attributes.lastModifiedTime().toMillis(), cancelled, progress);
+                  subtask.fork();
+                  subtasks.add(subtask);
+               } else {
+                  bytes += attributes.size();
+                  files++;
+               }
+            }
+         } catch (IOException | DirectoryIteratorException e) {
+            logger.log(Level.FINE, "Error reading directory - " + directory, e);
+         }
+
+         if (progress != null) {
+            progress.add(bytes, files);
+         }
+
+         DirectorySize total = new DirectorySize(bytes, files);
+         boolean complete = true;
+         for (SizeTask subtask : subtasks) {
+            final DirectorySize size = subtask.join();
+            if (size == null) {
+               complete = false;
+            } else {
+               total = total.plus(size);
+            }
+         }
+
+         if (!complete) {
+            return null;
+         }
+
+         putCached(directory, lastModified, total);
+         return total;
+      }
+   }
+
+   private static class CacheEntry {
+      private final long lastModified;
+      private final long computedAt;
+      private final DirectorySize size;
+
+      CacheEntry(final long lastModified,
+                 final long computedAt,
+                 final DirectorySize size) {
+         this.lastModified = lastModified;
+         this.computedAt = computedAt;
+         this.size = size;
+      }
+   }
+}
@@ -17,29 +17,46 @@ class DirectoryTreeItem extends TreeItem<File> {
    private final FilesViewCallback callback;
    private final PopulateTreeItemRunnableFactory factory;
 
-   // Cache isLeaf, lastModified and length so that sorting by either field is performant on slow filesystems.
-   private Boolean isLeaf;
-   private Long lastModified;
-   private Long length;
+   // Caches isLeaf, lastModified and length so that sorting by either field is performant on slow filesystems.
+   private final DirectoryListItem listItem;
 
    private boolean directoryListLoaded = false;
 
    DirectoryTreeItem(final File value,
                      final FilesViewCallback callback,
                      final PopulateTreeItemRunnableFactory factory) {
-      super(value, null);
+      this(value, null, callback, factory);
+   }
+
+   /**
+    * @param isDirectory True if the value is a directory, or null if not yet
+    *                    known. Passing a flag the caller already read saves a
+    *                    call to the OS.
+    */
+   DirectoryTreeItem(final File value,
+                     final Boolean isDirectory,
+                     final FilesViewCallback callback,
+                     final PopulateTreeItemRunnableFactory factory) {
+      this(new DirectoryListItem(value, isDirectory), callback, factory);
+   }
+
+   /**
+    * @param listItem Item to show. The cached attributes of the item are
+    *                 shared with the other views of the item.
+    */
+   DirectoryTreeItem(final DirectoryListItem listItem,
+                     final FilesViewCallback callback,
+                     final PopulateTreeItemRunnableFactory factory) {
+      super(listItem.getFile(), null);
 
+      this.listItem = listItem;
       this.callback = callback;
       this.factory = factory;
    }
 
    @Override
    public boolean isLeaf() {
-      if (isLeaf == null) {
-         isLeaf = !getValue().isDirectory();
-      }
-
-      return isLeaf;
+      return !listItem.isDirectory();
    }
 
    @Override
@@ -69,19 +86,15 @@ class DirectoryTreeItem extends TreeItem<File> {
       }
    }
 
-   long length() {
-      if (length == null) {
-         length = getValue().length();
-      }
+   DirectoryListItem getListItem() {
+      return listItem;
+   }
 
-      return length;
+   long length() {
+      return listItem.length();
    }
 
    long lastModified() {
-      if (lastModified == null) {
-         lastModified = getValue().lastModified();
-      }
-
-      return lastModified;
+      return listItem.lastModified();
    }
 }
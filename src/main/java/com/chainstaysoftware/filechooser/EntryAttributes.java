@@ -0,0 +1,22 @@
+package com.chainstaysoftware.filechooser;
+
+/**
+ * Name and attributes of a directory entry, that the filters of the
+ * directory are evaluated on. Implemented by {@link DirectoryListItem}, and by
+ * the cursor of {@link DirectoryEntries}, so that the entries of a very large
+ * directory are filtered without creating an item for each entry.
+ */
+interface EntryAttributes {
+   /**
+    * Name of the entry, without its directory.
+    */
+   String getName();
+
+   boolean isDirectory();
+
+   boolean isHidden();
+
+   long lastModified();
+
+   long length();
+}
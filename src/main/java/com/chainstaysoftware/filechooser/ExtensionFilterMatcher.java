@@ -0,0 +1,200 @@
+package com.chainstaysoftware.filechooser;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches file names against the wildcard patterns of a
+ * {@link javafx.stage.FileChooser.ExtensionFilter}, with the same results as
+ * commons-io {@link org.apache.commons.io.filefilter.WildcardFileFilter}. The
+ * patterns are compiled once, so that matching a directory entry does not
+ * allocate. Simple extension patterns (e.g. *.txt) are looked up in a hash
+ * table on the extension of the name. Any other pattern is matched as a glob.
+ * <p>
+ * Instances are immutable and may be used from any thread.
+ */
+final class ExtensionFilterMatcher {
+   // Extensions keyed on their hash. Null slots are empty. Size is a power of 2.
+   private final String[] extensions;
+   private final char[][] globs;
+   private final boolean caseSensitive;
+
+   /**
+    * @param patterns Wildcard patterns. * matches zero or more characters and
+    *                 ? matches exactly one character.
+    * @param caseSensitive True if names are matched case sensitively.
+    */
+   ExtensionFilterMatcher(final List<String> patterns,
+                          final boolean caseSensitive) {
+      this.caseSensitive = caseSensitive;
+
+      final List<String> simpleExtensions = new ArrayList<>();
+      final List<char[]> globPatterns = new ArrayList<>();
+      for (String pattern : patterns) {
+         if (isSimpleExtension(pattern)) {
+            simpleExtensions.add(pattern.substring(2));
+         } else {
+            globPatterns.add(pattern.toCharArray());
+         }
+      }
+
+      extensions = new String[tableSize(simpleExtensions.size())];
+      simpleExtensions.forEach(this::add);
+      globs = globPatterns.toArray(new char[globPatterns.size()][]);
+   }
+
+   /**
+    * Determine if the file name of the passed in path matches one of the patterns.
+    */
+   boolean matches(final Path path) {
+      final Path fileName = path.getFileName();
+      return fileName != null && matches(fileName.toString());
+   }
+
+   /**
+    * Determine if the file name of the passed in path matches one of the
+    * patterns, or the path is a directory. The directory flag is passed in, so
+    * that a flag already read by the caller is not read from the file system again.
+    */
+   boolean matches(final Path path,
+                   final boolean isDirectory) {
+      return isDirectory || matches(path);
+   }
+
+   /**
+    * Determine if the passed in file name matches one of the patterns.
+    */
+   boolean matches(final String name) {
+      return matchesExtension(name) || matchesGlob(name);
+   }
+
+   private boolean matchesExtension(final String name) {
+      final int dot = name.lastIndexOf('.');
+      if (dot < 0 || extensions.length == 0) {
+         return false;
+      }
+
+      final int start = dot + 1;
+      final int length = name.length() - start;
+      final int mask = extensions.length - 1;
+      for (int i = hash(name, start, name.length()) & mask; extensions[i] != null; i = (i + 1) & mask) {
+         final String extension = extensions[i];
+         if (extension.length() == length && name.regionMatches(!caseSensitive, start, extension, 0, length)) {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
+   private boolean matchesGlob(final String name) {
+      for (char[] glob : globs) {
+         if (globMatches(glob, name)) {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
+   /**
+    * Match the name against a glob with backtracking to the most recent *, so
+    * that matching is linear for the common single * pattern.
+    */
+   private boolean globMatches(final char[] glob,
+                               final String name) {
+      int g = 0;
+      int n = 0;
+      int starG = -1;
+      int starN = 0;
+
+      while (n < name.length()) {
+         if (g < glob.length && glob[g] == '*') {
+            starG = g++;
+            starN = n;
+         } else if (g < glob.length && (glob[g] == '?' || charsMatch(glob[g], name.charAt(n)))) {
+            g++;
+            n++;
+         } else if (starG >= 0) {
+            g = starG + 1;
+            n = ++starN;
+         } else {
+            return false;
+         }
+      }
+
+      while (g < glob.length && glob[g] == '*') {
+         g++;
+      }
+
+      return g == glob.length;
+   }
+
+   private boolean charsMatch(final char c1,
+                              final char c2) {
+      return c1 == c2 || !caseSensitive && foldCase(c1) == foldCase(c2);
+   }
+
+   private void add(final String extension) {
+      final int mask = extensions.length - 1;
+      int i = hash(extension, 0, extension.length()) & mask;
+      while (extensions[i] != null) {
+         if (extensions[i].length() == extension.length()
+            && extensions[i].regionMatches(!caseSensitive, 0, extension, 0, extension.length())) {
+            return;
+         }
+         i = (i + 1) & mask;
+      }
+
+      extensions[i] = extension;
+   }
+
+   private int hash(final String str,
+                    final int start,
+                    final int end) {
+      int hash = 0;
+      for (int i = start; i < end; i++) {
+         final char c = str.charAt(i);
+         hash = 31 * hash + (caseSensitive ? c : foldCase(c));
+      }
+
+      return hash ^ (hash >>> 16);
+   }
+
+   /**
+    * Case fold consistent with {@link String#regionMatches(boolean, int, String, int, int)}.
+    */
+   private static char foldCase(final char c) {
+      return Character.toLowerCase(Character.toUpperCase(c));
+   }
+
+   /**
+    * True for patterns of the form *.ext, where ext contains no wildcards or dots.
+    */
+   private static boolean isSimpleExtension(final String pattern) {
+      if (pattern.length() < 3 || !pattern.startsWith("*.")) {
+         return false;
+      }
+
+      for (int i = 2; i < pattern.length(); i++) {
+         final char c = pattern.charAt(i);
+         if (c == '*' || c == '?' || c == '.') {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Power of 2 table size that keeps the load factor at or below 0.5.
+    */
+   private static int tableSize(final int count) {
+      if (count == 0) {
+         return 0;
+      }
+
+      return Integer.highestOneBit(count * 2 - 1) << 1;
+   }
+}
@@ -3,6 +3,8 @@ package com.chainstaysoftware.filechooser;
 import com.chainstaysoftware.filechooser.icons.Icons;
 import com.chainstaysoftware.filechooser.preview.PreviewPane;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.LongProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.StringProperty;
@@ -155,12 +157,109 @@ public interface FileChooserFx {
     */
    BooleanProperty showMountPointsProperty();
 
+   /**
+    * Set the maximum number of bytes of decoded file previews to keep in memory,
+    * including previews preloaded in the background. Set to 0 to disable caching
+    * and preloading. Takes effect when the dialog is shown. Defaults to 32MB.
+    */
+   void setPreviewMemoryBudget(long bytes);
+
+   /**
+    * Maximum number of bytes of decoded file previews to keep in memory.
+    */
+   long getPreviewMemoryBudget();
+
+   /**
+    * Maximum number of bytes of decoded file previews to keep in memory.
+    */
+   LongProperty previewMemoryBudgetProperty();
+
    /**
     * List of directories to show in the Favorites list. As favorites are add and removed
     * by the user, the list is updated.
     */
    ObservableList<File> favoriteDirsProperty();
 
+   /**
+    * Set the file that an index of the file names under the favorite
+    * directories is kept in. Searching the subfolders of a favorite then
+    * queries the index instead of walking the directories. The index is built
+    * and kept current in the background while the dialog is shown. Each
+    * rebuild is written next to the file, to a file named after it with a
+    * generation number appended. Set to null to disable the index. Takes
+    * effect when the dialog is shown. Defaults to null.
+    */
+   void setSearchIndexFile(File file);
+
+   /**
+    * File the search index is kept in, or null if there is no search index.
+    */
+   File getSearchIndexFile();
+
+   /**
+    * File the search index is kept in, or null if there is no search index.
+    */
+   ObjectProperty<File> searchIndexFileProperty();
+
+   /**
+    * Patterns of the entries skipped when searching subfolders, searching
+    * contents and building the search index, in the .gitignore syntax, e.g.
+    * "node_modules/". Defaults to the version control directories and
+    * node_modules. Takes effect at the next search.
+    */
+   ObservableList<String> ignorePatternsProperty();
+
+   /**
+    * Enable/disable also skipping the entries matched by .gitignore files when
+    * searching subfolders, searching contents and building the search index.
+    * Defaults to true.
+    */
+   void setUseGitIgnore(boolean value);
+
+   /**
+    * Skipping/not skipping the entries matched by .gitignore files.
+    */
+   boolean useGitIgnore();
+
+   /**
+    * Enable/disable also skipping the entries matched by .gitignore files.
+    */
+   BooleanProperty useGitIgnoreProperty();
+
+   /**
+    * Enable/disable computing the total size of the directories in the
+    * current directory in the background. The sizes are shown in the size
+    * column of the list view, and used when sorting by size. Defaults to false.
+    */
+   void setComputeDirectorySizes(boolean value);
+
+   /**
+    * Computing/not computing the total size of directories.
+    */
+   boolean computeDirectorySizes();
+
+   /**
+    * Enable/disable computing the total size of directories.
+    */
+   BooleanProperty computeDirectorySizesProperty();
+
+   /**
+    * Sets the maximum depth of the subfolders listed by the flattened
+    * listing, that lists every file under the current directory in one
+    * list. 0 only lists the current directory. Defaults to 10.
+    */
+   void setFlattenDepth(int value);
+
+   /**
+    * Maximum depth of the subfolders listed by the flattened listing.
+    */
+   int getFlattenDepth();
+
+   /**
+    * Maximum depth of the subfolders listed by the flattened listing.
+    */
+   IntegerProperty flattenDepthProperty();
+
    /**
     * Sets callbacks for when user wants to add and/or remove director favorites.
     * This method MUST be called with non-null {@link FavoritesCallback} instances
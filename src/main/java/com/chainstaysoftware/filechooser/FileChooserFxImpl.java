@@ -2,18 +2,28 @@ package com.chainstaysoftware.filechooser;
 
 import com.chainstaysoftware.filechooser.icons.Icons;
 import com.chainstaysoftware.filechooser.icons.IconsImpl;
+import com.chainstaysoftware.filechooser.preview.PreviewCache;
 import com.chainstaysoftware.filechooser.preview.PreviewPane;
 import impl.org.controlsfx.skin.BreadCrumbBarSkin;
+import javafx.animation.PauseTransition;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.LongProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import javafx.concurrent.Service;
@@ -34,35 +44,40 @@ import javafx.scene.control.SplitPane;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.ToolBar;
 import javafx.scene.control.Tooltip;
 import javafx.scene.control.TreeItem;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.scene.shape.Rectangle;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.Window;
 import javafx.util.Callback;
+import javafx.util.Duration;
 import org.apache.commons.io.IOCase;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.lang3.StringUtils;
 import org.controlsfx.control.BreadCrumbBar;
 import org.controlsfx.control.spreadsheet.StringConverterWithFormat;
 
 import javax.swing.filechooser.FileSystemView;
 import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.LinkedList;
@@ -70,7 +85,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -81,6 +95,14 @@ public final class FileChooserFxImpl implements FileChooserFx {
    private static final int SCENE_HEIGHT = 600;
    private static final double PLACES_DIVIDER_POSITION = 0.25;
    private static final double PREVIEW_DIVIDER_POSITION = 0.25;
+   private static final long PREVIEW_MEMORY_BUDGET = 32 * 1024 * 1024;
+   private static final int NAME_FILTER_COLUMNS = 15;
+   private static final int FLATTEN_DEPTH = 10;
+   private static final String INVALID_STYLE_CLASS = "invalid";
+   private static final Duration CONTENT_SEARCH_DELAY = Duration.millis(400);
+   private static final List<String> DEFAULT_IGNORE_PATTERNS
+      = Arrays.asList(".git/", ".hg/", ".svn/", "node_modules/");
+   private static final KeyCombination GO_TO_FILE_KEY = new KeyCodeCombination(KeyCode.P, KeyCombination.SHORTCUT_DOWN);
 
    private final DoubleProperty heightProperty = new SimpleDoubleProperty(SCENE_HEIGHT);
    private final DoubleProperty widthProperty = new SimpleDoubleProperty(SCENE_WIDTH);
@@ -93,6 +115,22 @@ public final class FileChooserFxImpl implements FileChooserFx {
    private final ObjectProperty<File> currentSelection = new SimpleObjectProperty<>();
    private final DirectoryWatchingService dirWatchingService = new DirectoryWatchingService(new FilesViewCallbackImpl());
    private final BooleanProperty hideFiles = new SimpleBooleanProperty(this, "shouldHideFiles", false);
+   private final PreviewPanePool previewPanePool = new PreviewPanePool();
+   private final LongProperty previewMemoryBudget
+      = new SimpleLongProperty(this, "previewMemoryBudget", PREVIEW_MEMORY_BUDGET);
+   private final ObjectProperty<File> searchIndexFile = new SimpleObjectProperty<>(this, "searchIndexFile");
+   private final ListChangeListener<File> favoriteDirsListener = this::favoriteDirsChanged;
+   private final ObservableList<String> ignorePatterns = FXCollections.observableArrayList(DEFAULT_IGNORE_PATTERNS);
+   private final BooleanProperty useGitIgnore = new SimpleBooleanProperty(this, "useGitIgnore", true);
+   private final BooleanProperty computeDirectorySizes
+      = new SimpleBooleanProperty(this, "computeDirectorySizes", false);
+   private final DirectorySizes directorySizes = new DirectorySizes(this::directorySizesComputed);
+   private final ChangeListener<Boolean> computeDirectorySizesListener = this::computeDirectorySizesChanged;
+   // The model sorts the items of paged directories.
+   private final InvalidationListener orderListener = observable -> updateModelOrder();
+   private final PreviewCache previewCache = new PreviewCache(PREVIEW_MEMORY_BUDGET);
+   private final PreviewPreloader previewPreloader = new PreviewPreloader(previewHandlers, previewCache);
+   private final IntegerProperty flattenDepth = new SimpleIntegerProperty(this, "flattenDepth", FLATTEN_DEPTH);
 
    private double placesDivider = PLACES_DIVIDER_POSITION;
    private double previewDivider = PREVIEW_DIVIDER_POSITION;
@@ -109,9 +147,11 @@ public final class FileChooserFxImpl implements FileChooserFx {
    private Button backButton;
    private BreadCrumbBar<File> breadCrumbBar;
    private FilesView currentView;
+   private DirectoryModel directoryModel;
    private IconsFilesView iconsFilesView;
    private ListFilesView listFilesView;
    private ListFilesWithPreviewView listFilesWithPreviewView;
+   private UsageFilesView usageFilesView;
    private SplitPane splitPane;
    private FileChooserCallback fileChooserCallback;
    private HelpCallback helpCallback;
@@ -123,8 +163,22 @@ public final class FileChooserFxImpl implements FileChooserFx {
    private ToggleButton viewIconsButton;
    private ToggleButton viewListButton;
    private ToggleButton viewListWithPreviewButton;
+   private ToggleButton viewUsageButton;
    private TextField fileNameField;
+   private TextField nameFilterField;
+   private ToggleButton searchSubfoldersButton;
+   private ToggleButton searchContentsButton;
+   private ToggleButton flattenButton;
+   private SearchResultsView searchResultsView;
+   private ContentSearchView contentSearchView;
+   private FlatListView flatListView;
+   private final PauseTransition contentSearchDebounce = new PauseTransition(CONTENT_SEARCH_DELAY);
+   // Null unless a search index file is set.
+   private SearchIndex searchIndex;
    private ComboBox<FileChooser.ExtensionFilter> extensionsComboBox;
+   // Compiled matcher for the selected extensions, and the extensions it was compiled from.
+   private ExtensionFilterMatcher extensionFilterMatcher;
+   private List<String> extensionFilterMatcherExtensions;
    private Button addFavoriteButton;
    private Button removeFavoriteButton;
    private Button doneButton;
@@ -390,6 +444,32 @@ public final class FileChooserFxImpl implements FileChooserFx {
       return title;
    }
 
+   /**
+    * Set the maximum number of bytes of decoded file previews to keep in memory,
+    * including previews preloaded in the background. Set to 0 to disable caching
+    * and preloading. Takes effect when the dialog is shown. Defaults to 32MB.
+    */
+   @Override
+   public void setPreviewMemoryBudget(final long bytes) {
+      previewMemoryBudget.set(bytes);
+   }
+
+   /**
+    * Maximum number of bytes of decoded file previews to keep in memory.
+    */
+   @Override
+   public long getPreviewMemoryBudget() {
+      return previewMemoryBudget.get();
+   }
+
+   /**
+    * Maximum number of bytes of decoded file previews to keep in memory.
+    */
+   @Override
+   public LongProperty previewMemoryBudgetProperty() {
+      return previewMemoryBudget;
+   }
+
    /**
     * Disable/enable the display of mount points on Linux/OSX.
     */
@@ -423,6 +503,160 @@ public final class FileChooserFxImpl implements FileChooserFx {
       return favoriteDirs;
    }
 
+   /**
+    * The favorites are the roots of the search index.
+    */
+   private void favoriteDirsChanged(final ListChangeListener.Change<? extends File> change) {
+      if (searchIndex != null) {
+         searchIndex.setRoots(favoriteDirs);
+      }
+   }
+
+   private void computeDirectorySizesChanged(final ObservableValue<? extends Boolean> observable,
+                                             final Boolean oldValue,
+                                             final Boolean compute) {
+      if (!compute) {
+         directorySizes.cancel();
+      } else if (directoryModel != null && !directoryModel.updatingProperty().get() && !directoryModel.isPaged()) {
+         directorySizes.compute(directoryModel.getEntries());
+      }
+   }
+
+   private void updateModelOrder() {
+      if (directoryModel != null) {
+         directoryModel.setOrder(getOrderBy(), getOrderDirection());
+      }
+   }
+
+   /**
+    * Sort again once the sizes are in, as the views do not follow changes to
+    * the values they are sorted by.
+    */
+   private void directorySizesComputed() {
+      if (OrderBy.Size.equals(orderByProperty().get()) && currentView != null) {
+         currentView.resort();
+      }
+   }
+
+   /**
+    * Set the file that an index of the file names under the favorite
+    * directories is kept in. Searching the subfolders of a favorite then
+    * queries the index instead of walking the directories. The index is built
+    * and kept current in the background while the dialog is shown. Each
+    * rebuild is written next to the file, to a file named after it with a
+    * generation number appended. Set to null to disable the index. Takes
+    * effect when the dialog is shown. Defaults to null.
+    */
+   @Override
+   public void setSearchIndexFile(final File file) {
+      searchIndexFile.set(file);
+   }
+
+   /**
+    * File the search index is kept in, or null if there is no search index.
+    */
+   @Override
+   public File getSearchIndexFile() {
+      return searchIndexFile.get();
+   }
+
+   /**
+    * File the search index is kept in, or null if there is no search index.
+    */
+   @Override
+   public ObjectProperty<File> searchIndexFileProperty() {
+      return searchIndexFile;
+   }
+
+   /**
+    * Patterns of the entries skipped when searching subfolders, searching
+    * contents and building the search index, in the .gitignore syntax, e.g.
+    * "node_modules/". Defaults to the version control directories and
+    * node_modules. Takes effect at the next search.
+    */
+   @Override
+   public ObservableList<String> ignorePatternsProperty() {
+      return ignorePatterns;
+   }
+
+   /**
+    * Enable/disable also skipping the entries matched by .gitignore files when
+    * searching subfolders, searching contents and building the search index.
+    * Defaults to true.
+    */
+   @Override
+   public void setUseGitIgnore(final boolean value) {
+      useGitIgnore.set(value);
+   }
+
+   /**
+    * Skipping/not skipping the entries matched by .gitignore files.
+    */
+   @Override
+   public boolean useGitIgnore() {
+      return useGitIgnore.get();
+   }
+
+   /**
+    * Enable/disable also skipping the entries matched by .gitignore files.
+    */
+   @Override
+   public BooleanProperty useGitIgnoreProperty() {
+      return useGitIgnore;
+   }
+
+   /**
+    * Enable/disable computing the total size of the directories in the
+    * current directory in the background. The sizes are shown in the size
+    * column of the list view, and used when sorting by size. Defaults to false.
+    */
+   @Override
+   public void setComputeDirectorySizes(final boolean value) {
+      computeDirectorySizes.set(value);
+   }
+
+   /**
+    * Computing/not computing the total size of directories.
+    */
+   @Override
+   public boolean computeDirectorySizes() {
+      return computeDirectorySizes.get();
+   }
+
+   /**
+    * Enable/disable computing the total size of directories.
+    */
+   @Override
+   public BooleanProperty computeDirectorySizesProperty() {
+      return computeDirectorySizes;
+   }
+
+   /**
+    * Sets the maximum depth of the subfolders listed by the flattened
+    * listing, that lists every file under the current directory in one
+    * list. 0 only lists the current directory. Defaults to 10.
+    */
+   @Override
+   public void setFlattenDepth(final int value) {
+      flattenDepth.set(value);
+   }
+
+   /**
+    * Maximum depth of the subfolders listed by the flattened listing.
+    */
+   @Override
+   public int getFlattenDepth() {
+      return flattenDepth.get();
+   }
+
+   /**
+    * Maximum depth of the subfolders listed by the flattened listing.
+    */
+   @Override
+   public IntegerProperty flattenDepthProperty() {
+      return flattenDepth;
+   }
+
    /**
     * Sets callbacks for when user wants to add and/or remove director favorites.
     * This method MUST be called with non-null {@link FavoritesCallback} instances
@@ -503,11 +737,39 @@ public final class FileChooserFxImpl implements FileChooserFx {
       this.fileChooserCallback = fileChooserCallback;
 
       stage = new Stage();
+      directoryModel = new DirectoryModel(showHiddenFilesProperty(), shouldHideFilesProperty());
+      directoryModel.updatingProperty().addListener((observable, oldValue, updating) -> {
+         if (!updating && searchIndex != null && directoryModel.getDirectory() != null) {
+            if (directoryModel.isPaged()) {
+               searchIndex.update(directoryModel.getDirectory(), directoryModel.getPagedEntries());
+            } else {
+               searchIndex.update(directoryModel.getDirectory(), directoryModel.getEntries());
+            }
+         }
+
+         // Directory sizes are not computed for paged directories, as that would create all of their items.
+         if (updating) {
+            directorySizes.cancel();
+         } else if (computeDirectorySizes.get() && !directoryModel.isPaged()) {
+            directorySizes.compute(directoryModel.getEntries());
+         }
+      });
+      computeDirectorySizes.addListener(computeDirectorySizesListener);
+      orderByProperty().addListener(orderListener);
+      orderDirectionProperty().addListener(orderListener);
+      updateModelOrder();
 
       final VBox topVbox = createTopVBox();
       splitPane = createSplitPane();
       final VBox bottomVbox = createBottomVBox();
 
+      if (searchIndexFile.get() != null) {
+         searchIndex = new SearchIndex(searchIndexFile.get(), createIgnoreRules());
+         searchIndex.start(favoriteDirs);
+         favoriteDirs.addListener(favoriteDirsListener);
+      }
+      searchResultsView.setSearchIndex(searchIndex);
+
       final BorderPane borderPane = new BorderPane();
       borderPane.setTop(topVbox);
       borderPane.setCenter(splitPane);
@@ -524,7 +786,28 @@ public final class FileChooserFxImpl implements FileChooserFx {
       stage.initOwner(ownerWindow);
       stage.initModality(Modality.APPLICATION_MODAL);
       stage.setOnShown(event -> updateWatchDirectory());
-      stage.setOnHidden(event -> dirWatchingService.cancel());
+      previewCache.setCapacity(getPreviewMemoryBudget());
+      stage.setOnHidden(event -> {
+         dirWatchingService.cancel();
+         searchResultsView.cancel();
+         contentSearchDebounce.stop();
+         contentSearchView.cancel();
+         flatListView.cancel();
+         computeDirectorySizes.removeListener(computeDirectorySizesListener);
+         orderByProperty().removeListener(orderListener);
+         orderDirectionProperty().removeListener(orderListener);
+         directorySizes.cancel();
+         directoryModel.dispose();
+         if (searchIndex != null) {
+            favoriteDirs.removeListener(favoriteDirsListener);
+            searchIndex.stop();
+            searchIndex = null;
+         }
+         placesView.stopWatching();
+         previewPanePool.clear();
+         previewPreloader.clear();
+         previewCache.clear();
+      });
       stage.setOnCloseRequest(event -> fileChooserCallback.fileChosen(Optional.empty()));
       stage.show();
 
@@ -545,6 +828,10 @@ public final class FileChooserFxImpl implements FileChooserFx {
       iconsFilesView = createIconsFilesView();
       listFilesView = createListFilesView();
       listFilesWithPreviewView = createListFilesWithPreviewView();
+      usageFilesView = createUsageFilesView();
+      searchResultsView = new SearchResultsView(icons, new FilesViewCallbackImpl());
+      contentSearchView = new ContentSearchView(new FilesViewCallbackImpl());
+      flatListView = new FlatListView(new FilesViewCallbackImpl());
 
       placesView = createPlacesView();
 
@@ -559,14 +846,20 @@ public final class FileChooserFxImpl implements FileChooserFx {
 
    private IconsFilesView createIconsFilesView() {
       final IconsFilesView view = new IconsFilesView(stage, previewHandlers, icons,
-            new FilesViewCallbackImpl());
+            previewPanePool, new FilesViewCallbackImpl());
+      view.setOnKeyPressed(new KeyEventHandler());
+      return view;
+   }
+
+   private UsageFilesView createUsageFilesView() {
+      final UsageFilesView view = new UsageFilesView(stage, previewPanePool, new FilesViewCallbackImpl());
       view.setOnKeyPressed(new KeyEventHandler());
       return view;
    }
 
    private ListFilesView createListFilesView() {
       final ListFilesView view = new ListFilesView(stage, previewHandlers,
-            icons, new FilesViewCallbackImpl());
+            icons, previewPanePool, new FilesViewCallbackImpl());
       view.setOnKeyPressed(new KeyEventHandler());
       return view;
    }
@@ -574,7 +867,7 @@ public final class FileChooserFxImpl implements FileChooserFx {
    private ListFilesWithPreviewView createListFilesWithPreviewView() {
       final ListFilesWithPreviewView view
             = new ListFilesWithPreviewView(stage, previewHandlers, icons,
-               previewDivider, new FilesViewCallbackImpl());
+               previewPanePool, previewPreloader, previewDivider, new FilesViewCallbackImpl());
       view.setOnKeyPressed(new KeyEventHandler());
       return view;
    }
@@ -636,6 +929,21 @@ public final class FileChooserFxImpl implements FileChooserFx {
          viewListWithPreviewButton = createViewListWithPreviewButton();
       }
       viewIconsButton = createViewIconsButton();
+      viewUsageButton = createViewUsageButton();
+      nameFilterField = createNameFilterField();
+      searchSubfoldersButton = createSearchSubfoldersButton();
+      searchContentsButton = createSearchContentsButton();
+      flattenButton = createFlattenButton();
+
+      // Searching subfolders, searching contents and flattening are exclusive, but all may be off.
+      final ToggleGroup searchToggleGroup = new ToggleGroup();
+      searchSubfoldersButton.setToggleGroup(searchToggleGroup);
+      searchContentsButton.setToggleGroup(searchToggleGroup);
+      flattenButton.setToggleGroup(searchToggleGroup);
+
+      // Pushes the name filter field to the right end of the toolbar.
+      final Pane spacer = new Pane();
+      HBox.setHgrow(spacer, Priority.ALWAYS);
 
       final ToolBar toolBar = new ToolBar();
       toolBar.setId("Toolbar");
@@ -646,9 +954,15 @@ public final class FileChooserFxImpl implements FileChooserFx {
          items.add(viewListWithPreviewButton);
       }
       items.add(viewIconsButton);
+      items.add(viewUsageButton);
       items.add(new Separator());
       items.add(backButton);
       items.add(breadCrumbHBox);
+      items.add(spacer);
+      items.add(nameFilterField);
+      items.add(searchSubfoldersButton);
+      items.add(searchContentsButton);
+      items.add(flattenButton);
 
       return toolBar;
    }
@@ -710,6 +1024,204 @@ public final class FileChooserFxImpl implements FileChooserFx {
       return vBox;
    }
 
+   /**
+    * Create the field that narrows the files shown to the names matching the
+    * typed text, or to the files matching an attribute query. See
+    * {@link NameFilter} and {@link AttributeQuery} for the syntax.
+    */
+   private TextField createNameFilterField() {
+      final TextField field = new TextField();
+      field.setId("nameFilterField");
+      field.setPromptText(resourceBundle.getString("namefilter.prompt"));
+      field.setTooltip(new Tooltip(resourceBundle.getString("namefilter.tooltip")));
+      field.setPrefColumnCount(NAME_FILTER_COLUMNS);
+      field.textProperty().addListener((observable, oldValue, newValue) -> {
+         if (searchContentsButton.isSelected()) {
+            // The text is searched for as is.
+            field.getStyleClass().remove(INVALID_STYLE_CLASS);
+            contentSearchDebounce.setOnFinished(event -> updateContentSearch());
+            contentSearchDebounce.playFromStart();
+            return;
+         }
+
+         applyNameFilter(newValue);
+      });
+      field.setOnKeyPressed(event -> {
+         if (event.getCode() == KeyCode.ESCAPE && !field.getText().isEmpty()) {
+            field.clear();
+            event.consume();
+         }
+      });
+
+      return field;
+   }
+
+   /**
+    * Filter the current directory, or search its subdirectories, for names
+    * matching the passed in text. An invalid regex or query marks the name
+    * filter field, and keeps the current filter.
+    */
+   private void applyNameFilter(final String text) {
+      final NameFilter nameFilter;
+      try {
+         nameFilter = text.isEmpty() ? null : NameFilter.compile(text);
+         nameFilterField.getStyleClass().remove(INVALID_STYLE_CLASS);
+      } catch (IllegalArgumentException e) {
+         // Keep the current filter until the regex compiles, or the query parses.
+         if (!nameFilterField.getStyleClass().contains(INVALID_STYLE_CLASS)) {
+            nameFilterField.getStyleClass().add(INVALID_STYLE_CLASS);
+         }
+         return;
+      }
+
+      directoryModel.setNameFilter(nameFilter);
+      updateSearch(nameFilter);
+   }
+
+   /**
+    * Create the button that switches the name filter field between filtering
+    * the current directory and searching its subdirectories.
+    */
+   private ToggleButton createSearchSubfoldersButton() {
+      final ToggleButton button = new ToggleButton(resourceBundle.getString("searchbutton.text"));
+      button.setId("searchSubfoldersButton");
+      button.getStyleClass().add("toolbartogglebutton");
+      button.setTooltip(new Tooltip(resourceBundle.getString("searchbutton.tooltip")));
+      button.setFocusTraversable(false);
+      button.selectedProperty().addListener((observable, oldValue, newValue) -> {
+         // While searching contents, the text is not a name filter.
+         if (!searchContentsButton.isSelected()) {
+            applyNameFilter(nameFilterField.getText());
+         }
+      });
+
+      return button;
+   }
+
+   /**
+    * Create the button that switches to listing every file under the current
+    * directory in one list, narrowed by the name filter field.
+    */
+   private ToggleButton createFlattenButton() {
+      final ToggleButton button = new ToggleButton(resourceBundle.getString("flattenbutton.text"));
+      button.setId("flattenButton");
+      button.getStyleClass().add("toolbartogglebutton");
+      button.setTooltip(new Tooltip(resourceBundle.getString("flattenbutton.tooltip")));
+      button.setFocusTraversable(false);
+      button.selectedProperty().addListener((observable, oldValue, newValue) -> {
+         if (!searchContentsButton.isSelected()) {
+            applyNameFilter(nameFilterField.getText());
+         }
+      });
+
+      return button;
+   }
+
+   /**
+    * Create the button that switches the name filter field to searching the
+    * contents of the files under the current directory. While selected, the
+    * names in the current directory are not filtered.
+    */
+   private ToggleButton createSearchContentsButton() {
+      final ToggleButton button = new ToggleButton(resourceBundle.getString("contentsbutton.text"));
+      button.setId("searchContentsButton");
+      button.getStyleClass().add("toolbartogglebutton");
+      button.setTooltip(new Tooltip(resourceBundle.getString("contentsbutton.tooltip")));
+      button.setFocusTraversable(false);
+      button.selectedProperty().addListener((observable, oldValue, newValue) -> {
+         contentSearchDebounce.stop();
+         if (newValue) {
+            nameFilterField.getStyleClass().remove(INVALID_STYLE_CLASS);
+            directoryModel.setNameFilter(null);
+            updateSearch(null);
+            updateContentSearch();
+         } else {
+            updateContentSearch();
+            applyNameFilter(nameFilterField.getText());
+         }
+      });
+
+      return button;
+   }
+
+   /**
+    * Search the contents of the files under the current directory for the
+    * text of the name filter field, if searching contents is selected.
+    * Otherwise, or if the text is empty, cancel any content search and show
+    * the current view again.
+    */
+   private void updateContentSearch() {
+      final String text = nameFilterField.getText();
+      if (text.isEmpty() || !searchContentsButton.isSelected()) {
+         if (contentSearchView.isActive()) {
+            contentSearchView.cancel();
+            showFilesNode();
+         }
+         return;
+      }
+
+      contentSearchView.search(currentDirectory, text, directoryModel.createFilter(), createIgnoreRules());
+      showFilesNode();
+   }
+
+   /**
+    * List the files under the current directory matching the passed in
+    * filter, if flattening is selected. Otherwise search the subdirectories
+    * of the current directory for names matching the passed in filter, if
+    * searching subdirectories is selected. Otherwise, or if the filter is
+    * null, cancel any search and show the current view again.
+    */
+   private void updateSearch(final NameFilter nameFilter) {
+      if (flattenButton.isSelected()) {
+         searchResultsView.cancel();
+         flatListView.list(currentDirectory, nameFilter == null ? NameFilter.compile("*") : nameFilter,
+            directoryModel.createFilter(), createIgnoreRules(), flattenDepth.get());
+         showFilesNode();
+         return;
+      }
+
+      if (flatListView.isActive()) {
+         flatListView.cancel();
+         showFilesNode();
+      }
+
+      if (nameFilter == null || !searchSubfoldersButton.isSelected()) {
+         if (searchResultsView.isActive()) {
+            searchResultsView.cancel();
+            showFilesNode();
+         }
+         return;
+      }
+
+      searchResultsView.search(currentDirectory, nameFilter, directoryModel.createFilter(), createIgnoreRules());
+      showFilesNode();
+   }
+
+   /**
+    * Rules for the entries skipped by recursive operations, from the current
+    * ignore settings.
+    */
+   private IgnoreRules createIgnoreRules() {
+      return new IgnoreRules(ignorePatterns, useGitIgnore.get());
+   }
+
+   /**
+    * Show the search results while searching, the flattened listing while
+    * flattening, otherwise the current view.
+    */
+   private void showFilesNode() {
+      final Node filesNode = contentSearchView.isActive()
+         ? contentSearchView.getNode()
+         : searchResultsView.isActive()
+            ? searchResultsView.getNode()
+            : flatListView.isActive()
+               ? flatListView.getNode()
+               : currentView.getNode();
+      if (splitPane.getItems().size() < 2 || splitPane.getItems().get(1) != filesNode) {
+         splitPane.getItems().setAll(placesView.toPane(), filesNode);
+      }
+   }
+
    private String getBreadCrumbButtonText(final TreeItem<File> param) {
       final String text = param.getValue() != null
             ? "".equals(param.getValue().getName())
@@ -787,6 +1299,40 @@ public final class FileChooserFxImpl implements FileChooserFx {
       return viewButton;
    }
 
+   private ToggleButton createViewUsageButton() {
+      final ToggleButton viewButton = new ToggleButton();
+      viewButton.setId("viewUsageButton");
+      viewButton.getStyleClass().add("toolbartogglebutton");
+      viewButton.setGraphic(createUsageIcon());
+      viewButton.setTooltip(new Tooltip(resourceBundle.getString("usageview.tooltip")));
+      viewButton.setFocusTraversable(false);
+      viewButton.selectedProperty().addListener((observable, oldValue, selected) -> {
+         if (!selected) {
+            return;
+         }
+
+         setCurrentView(ViewType.Usage);
+      });
+
+      return viewButton;
+   }
+
+   /**
+    * Bar chart icon, drawn to match the size of the other view icons.
+    */
+   private Node createUsageIcon() {
+      final VBox bars = new VBox(3);
+      bars.setAlignment(Pos.CENTER_LEFT);
+      bars.setPrefSize(24, 24);
+      bars.setMaxSize(24, 24);
+      for (int width : new int[] {20, 13, 7}) {
+         final Rectangle bar = new Rectangle(width, 4);
+         bar.getStyleClass().add("usageicon-bar");
+         bars.getChildren().add(bar);
+      }
+      return bars;
+   }
+
    private PlacesView createPlacesView() {
       final PlacesView view = new PlacesView(new FilesViewCallbackImpl(), icons);
       view.toPane().setOnKeyPressed(new KeyEventHandler());
@@ -915,7 +1461,7 @@ public final class FileChooserFxImpl implements FileChooserFx {
          extensionsComboBox.setButtonCell(new ExtensionsCell());
          extensionsComboBox.setOnAction(v -> {
             setSelectedExtensionFilter(extensionsComboBox.getSelectionModel().getSelectedItem());
-            updateFiles(currentDirectory, false);
+            directoryModel.setMatcher(getExtensionFilterMatcher());
          });
          extensionsComboBox.setEditable(true);
          extensionsComboBox.setConverter(new StringConverterWithFormat<FileChooser.ExtensionFilter>() {
@@ -1101,6 +1647,11 @@ public final class FileChooserFxImpl implements FileChooserFx {
          return;
       }
 
+      if (ViewType.Usage.equals(view)) {
+         setUsageView();
+         return;
+      }
+
       setIconsView();
    }
 
@@ -1110,6 +1661,7 @@ public final class FileChooserFxImpl implements FileChooserFx {
       setCurrentView(listFilesView);
       viewListButton.setSelected(true);
       viewIconsButton.setSelected(false);
+      viewUsageButton.setSelected(false);
       if (viewListWithPreviewButton != null) {
          viewListWithPreviewButton.setSelected(false);
       }
@@ -1122,6 +1674,7 @@ public final class FileChooserFxImpl implements FileChooserFx {
       viewListButton.setSelected(false);
       viewListWithPreviewButton.setSelected(true);
       viewIconsButton.setSelected(false);
+      viewUsageButton.setSelected(false);
    }
 
    private void setIconsView() {
@@ -1133,14 +1686,36 @@ public final class FileChooserFxImpl implements FileChooserFx {
          viewListWithPreviewButton.setSelected(false);
       }
       viewIconsButton.setSelected(true);
+      viewUsageButton.setSelected(false);
+   }
+
+   private void setUsageView() {
+      viewTypeProperty.set(ViewType.Usage);
+
+      setCurrentView(usageFilesView);
+      viewListButton.setSelected(false);
+      if (viewListWithPreviewButton != null) {
+         viewListWithPreviewButton.setSelected(false);
+      }
+      viewIconsButton.setSelected(false);
+      viewUsageButton.setSelected(true);
    }
 
    private void setCurrentView(final FilesView filesView) {
+      if (currentView != null) {
+         currentView.detach();
+      }
+
       currentView = filesView;
+      currentView.attach(directoryModel);
 
-      splitPane.getItems().setAll(placesView.toPane(), currentView.getNode());
+      showFilesNode();
 
-      updateFiles(currentDirectory);
+      // The views share the directory model, so the directory is only read
+      // if the model does not already hold it.
+      if (!currentDirectory.equals(directoryModel.getDirectory())) {
+         updateFiles(currentDirectory);
+      }
    }
 
    /**
@@ -1169,11 +1744,15 @@ public final class FileChooserFxImpl implements FileChooserFx {
          updateDirBreadCrumbBar(currentDirectory);
       }
 
-      try {
-         currentView.setFiles(getFilteredDirStream(directory), getNegatedFilteredDirStream(directory));
-      } catch (IOException e) {
-         logger.log(Level.WARNING, "Error settings files on view", e);
+      if (!directory.equals(directoryModel.getDirectory())) {
+         // The name filter applies to the directory it was typed in.
+         nameFilterField.clear();
+         if (flattenButton.isSelected()) {
+            updateSearch(null);
+         }
       }
+
+      directoryModel.load(directory, getExtensionFilterMatcher());
    }
 
    /**
@@ -1234,8 +1813,8 @@ public final class FileChooserFxImpl implements FileChooserFx {
     * may be filtered out.
     */
    private DirectoryStream<Path> getFilteredDirStream(final File directory) throws IOException {
-      final FileFilter filter = getFileFilter();
-      return Files.newDirectoryStream(directory.toPath(), entry -> filter.accept(entry.toFile()));
+      final ExtensionFilterMatcher matcher = getExtensionFilterMatcher();
+      return Files.newDirectoryStream(directory.toPath(), matcher::matches);
    }
 
    /**
@@ -1245,19 +1824,26 @@ public final class FileChooserFxImpl implements FileChooserFx {
     * filtered out by getFilteredDirStream.
     */
    private DirectoryStream<Path> getNegatedFilteredDirStream(final File directory) throws IOException {
-      final FileFilter filter = getFileFilter();
-      return Files.newDirectoryStream(directory.toPath(), entry -> !filter.accept(entry.toFile()));
+      final ExtensionFilterMatcher matcher = getExtensionFilterMatcher();
+      return Files.newDirectoryStream(directory.toPath(), entry -> !matcher.matches(entry));
    }
 
    /**
-    * Build a FileFilter to filter based on the selected value in
-    * the extensionsComboBox.
+    * Get the matcher to filter based on the selected value in the
+    * extensionsComboBox. The matcher is only compiled again when the
+    * selected extensions change.
     */
-   private WildcardFileFilter getFileFilter() {
+   private ExtensionFilterMatcher getExtensionFilterMatcher() {
       final List<String> extensionFilter = extensionsComboBox == null || extensionsComboBox.getValue() == null
          ? Collections.emptyList()
          : extensionsComboBox.getValue().getExtensions();
-      return new WildcardFileFilter(extensionFilter, IOCase.SYSTEM);
+
+      if (extensionFilterMatcher == null || !extensionFilter.equals(extensionFilterMatcherExtensions)) {
+         extensionFilterMatcher = new ExtensionFilterMatcher(extensionFilter, IOCase.SYSTEM.isCaseSensitive());
+         extensionFilterMatcherExtensions = extensionFilter;
+      }
+
+      return extensionFilterMatcher;
    }
 
    /**
@@ -1420,17 +2006,42 @@ public final class FileChooserFxImpl implements FileChooserFx {
       }
    }
 
-   private static final class DaemonThreadFactory implements ThreadFactory {
-      @Override
-      public Thread newThread(Runnable runnable) {
-         Thread thread = new Thread(runnable);
-         thread.setDaemon(true);
-         return thread;
+   /**
+    * Show the "Go to file" dialog for the current directory.
+    */
+   private void showGoToFile() {
+      if (currentDirectory == null) {
+         return;
       }
+
+      new GoToFileDialog(stage, currentDirectory, searchIndex, directoryModel.createFilter(),
+         createIgnoreRules(), this::goToFile).show();
    }
 
    /**
-    * EventHandler to watch keyboard for ESC key presses.
+    * Show the passed in file, chosen in the "Go to file" dialog. A directory
+    * is opened. A file is selected in its directory.
+    */
+   private void goToFile(final File file) {
+      if (file.isDirectory()) {
+         changeDirectory(file);
+         return;
+      }
+
+      final File parent = file.getParentFile();
+      if (parent.equals(currentDirectory)) {
+         currentSelection.setValue(null);
+         updateFiles();
+      } else {
+         changeDirectory(parent);
+      }
+      // The views select the current selection once the directory is loaded.
+      currentSelection.setValue(file);
+   }
+
+   /**
+    * EventHandler to watch keyboard for ESC key presses, and the "Go to file"
+    * shortcut.
     */
    private class KeyEventHandler implements EventHandler<KeyEvent> {
       @Override
@@ -1439,6 +2050,9 @@ public final class FileChooserFxImpl implements FileChooserFx {
             stage.close();
             fileChooserCallback.fileChosen(Optional.empty());
             event.consume();
+         } else if (GO_TO_FILE_KEY.match(event)) {
+            showGoToFile();
+            event.consume();
          }
       }
    }
@@ -2,20 +2,24 @@ package com.chainstaysoftware.filechooser;
 
 import javafx.scene.Node;
 
-import java.nio.file.DirectoryStream;
-import java.nio.file.Path;
-
 interface FilesView {
    Node getNode();
 
    /**
-    * sets the files on the view.
-    * @param directoryStream Filtered stream of files to show in view.
-    * @param remainingDirectoryStream This stream contains the files not to
-    *                                 show in the view. But, may include
-    *                                 directories that should be shown in the
-    *                                 view but were filtered out in the directoryStream.
+    * Show the items of the passed in {@link DirectoryModel}. The view follows
+    * changes to the model until {@link #detach()} is called.
+    * @param model Model of the current directory.
+    */
+   void attach(DirectoryModel model);
+
+   /**
+    * Stop following the model passed to {@link #attach(DirectoryModel)}.
+    */
+   void detach();
+
+   /**
+    * Sort the items again, after values they are sorted by have changed in
+    * place, e.g. computed directory sizes.
     */
-   void setFiles(DirectoryStream<Path> directoryStream,
-                 DirectoryStream<Path> remainingDirectoryStream);
+   void resort();
 }
@@ -0,0 +1,417 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.ObservableListBase;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.BorderPane;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Lists every file under the current directory, down to a maximum depth, in
+ * one table that can be sorted by name, folder, size or date, e.g. to find
+ * the newest or largest files of a project. The files are found by a
+ * {@link RecursiveSearch} and kept in a {@link FlatListing}. The rows of the
+ * table are the indexes of the files, so only the rows shown are turned into
+ * text. Files are added as they are found, and sorted once the walk has
+ * finished. The rows are sorted off of the JavaFx thread. Starting a new
+ * listing cancels the previous one.
+ */
+class FlatListView {
+   private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+   // Bounds the heap held by a listing of a huge tree.
+   private static final int MAX_FILES = 1000000;
+   private static final int FOLDER_COLUMN_PREF_WIDTH = 250;
+   private static final int SIZE_COLUMN_PREF_WIDTH = 90;
+   private static final int DATE_MODIFIED_COLUMN_PREF_WIDTH = 150;
+
+   private static final ExecutorService sortExecutor
+      = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+
+   private final TableView<Integer> tableView = new TableView<>();
+   private final Label statusLabel = new Label();
+   private final BorderPane pane = new BorderPane();
+   private final ResourceBundle resourceBundle = ResourceBundle.getBundle("filechooser");
+   private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+
+   private Listing current;
+
+   FlatListView(final FilesViewCallback callback) {
+      final TableColumn<Integer, String> nameColumn
+         = new TableColumn<>(resourceBundle.getString("listfilesview.name"));
+      nameColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(getListing().getName(param.getValue())));
+      nameColumn.prefWidthProperty().bind(tableView.widthProperty()
+         .subtract(FOLDER_COLUMN_PREF_WIDTH + SIZE_COLUMN_PREF_WIDTH + DATE_MODIFIED_COLUMN_PREF_WIDTH));
+
+      final TableColumn<Integer, String> folderColumn
+         = new TableColumn<>(resourceBundle.getString("searchresults.folder"));
+      folderColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(getListing().getFolder(param.getValue())));
+      folderColumn.setPrefWidth(FOLDER_COLUMN_PREF_WIDTH);
+
+      final TableColumn<Integer, Long> sizeColumn
+         = new TableColumn<>(resourceBundle.getString("listfilesview.size"));
+      sizeColumn.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(getListing().getSize(param.getValue())));
+      sizeColumn.setCellFactory(param -> new FormattedCell(FileUtils::byteCountToDisplaySize));
+      sizeColumn.setPrefWidth(SIZE_COLUMN_PREF_WIDTH);
+
+      final TableColumn<Integer, Long> dateModifiedColumn
+         = new TableColumn<>(resourceBundle.getString("listfilesview.datemodified"));
+      dateModifiedColumn.setCellValueFactory(param ->
+         new ReadOnlyObjectWrapper<>(getListing().getLastModified(param.getValue())));
+      dateModifiedColumn.setCellFactory(param -> new FormattedCell(lastModified ->
+         dateFormatter.format(Instant.ofEpochMilli(lastModified).atZone(ZoneId.systemDefault()))));
+      dateModifiedColumn.setPrefWidth(DATE_MODIFIED_COLUMN_PREF_WIDTH);
+
+      tableView.getColumns().addAll(Arrays.asList(nameColumn, folderColumn, sizeColumn, dateModifiedColumn));
+      tableView.setPlaceholder(new Label(""));
+      // The rows are indexes, so sort them on the values of the listing.
+      tableView.setSortPolicy(table -> {
+         sort();
+         return true;
+      });
+      tableView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) ->
+         callback.setCurrentSelection(newValue == null || current == null ? null : current.listing.getFile(newValue)));
+      tableView.setRowFactory(param -> {
+         final TableRow<Integer> row = new TableRow<>();
+         row.setOnMouseClicked(event -> {
+            if (!row.isEmpty() && event.getButton().equals(MouseButton.PRIMARY) && event.getClickCount() == 2) {
+               callback.fireDoneButton();
+            }
+         });
+         return row;
+      });
+
+      statusLabel.setId("flatListStatusLabel");
+      statusLabel.getStyleClass().add("searchstatus");
+
+      pane.setId("flatListPane");
+      pane.setCenter(tableView);
+      pane.setBottom(statusLabel);
+   }
+
+   Node getNode() {
+      return pane;
+   }
+
+   /**
+    * True if a listing has been started, and not cancelled since.
+    */
+   boolean isActive() {
+      return current != null;
+   }
+
+   /**
+    * List the files in the subtree of the passed in directory, replacing any
+    * previous listing.
+    * @param directory Directory to list.
+    * @param nameFilter Filter for the files listed.
+    * @param itemFilter Filter for the entries of each directory.
+    * @param ignoreRules Rules for the entries skipped when walking.
+    * @param maxDepth Maximum depth of the subdirectories listed.
+    */
+   void list(final File directory,
+             final NameFilter nameFilter,
+             final Predicate<DirectoryListItem> itemFilter,
+             final IgnoreRules ignoreRules,
+             final int maxDepth) {
+      cancel();
+
+      current = new Listing(new FlatListing(directory), nameFilter, itemFilter, ignoreRules, maxDepth);
+      tableView.setItems(current.rows);
+      statusLabel.setText(resourceBundle.getString("searchresults.searching"));
+      tableView.setCursor(Cursor.WAIT);
+      current.start();
+   }
+
+   /**
+    * Cancel the listing, and clear the files.
+    */
+   void cancel() {
+      if (current != null) {
+         current.cancel();
+         current = null;
+      }
+
+      tableView.setItems(null);
+      statusLabel.setText("");
+      tableView.setCursor(null);
+   }
+
+   private FlatListing getListing() {
+      return current.listing;
+   }
+
+   /**
+    * Sort the rows on the first column of the sort order of the table. The
+    * listing is only sorted once complete, as files are no longer added to
+    * it while the sort runs.
+    */
+   private void sort() {
+      if (current == null || !current.listing.isComplete() || tableView.getSortOrder().isEmpty()) {
+         return;
+      }
+
+      final TableColumn<Integer, ?> column = tableView.getSortOrder().get(0);
+      final FlatListing listing = current.listing;
+      final int index = tableView.getColumns().indexOf(column);
+      final DirectoryEntries.IndexComparator ascending;
+      switch (index) {
+         case 1:
+            ascending = (i1, i2) -> String.CASE_INSENSITIVE_ORDER.compare(listing.getFolder(i1),
+               listing.getFolder(i2));
+            break;
+         case 2:
+            ascending = (i1, i2) -> Long.compare(listing.getSize(i1), listing.getSize(i2));
+            break;
+         case 3:
+            ascending = (i1, i2) -> Long.compare(listing.getLastModified(i1), listing.getLastModified(i2));
+            break;
+         default:
+            ascending = (i1, i2) -> String.CASE_INSENSITIVE_ORDER.compare(listing.getName(i1),
+               listing.getName(i2));
+            break;
+      }
+
+      current.sort(column.getSortType() == TableColumn.SortType.DESCENDING
+         ? (i1, i2) -> ascending.compare(i2, i1)
+         : ascending);
+   }
+
+   private void finished(final RecursiveSearch.Outcome outcome,
+                         final long ignored) {
+      tableView.setCursor(null);
+      current.listing.complete();
+      sort();
+
+      final int count = current.listing.size();
+      if (count >= MAX_FILES) {
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("flatlist.limit"), count));
+      } else if (RecursiveSearch.Outcome.TimedOut.equals(outcome)) {
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("searchresults.timedout"),
+            count, TimeUnit.MILLISECONDS.toSeconds(TIMEOUT_MS)));
+      } else {
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("flatlist.count"), count));
+      }
+
+      if (ignored > 0) {
+         statusLabel.setText(statusLabel.getText() + " "
+            + MessageFormat.format(resourceBundle.getString("searchresults.ignored"), ignored));
+      }
+   }
+
+   /**
+    * A single listing. Files found by the worker threads are queued, and
+    * added to the listing in one update per pulse of the JavaFx thread.
+    */
+   private class Listing {
+      private final FlatListing listing;
+      private final Rows rows = new Rows();
+      private final RecursiveSearch search;
+      private final Queue<List<DirectoryListItem>> pending = new ConcurrentLinkedQueue<>();
+      private final AtomicBoolean drainScheduled = new AtomicBoolean();
+      // Files found, including those still queued.
+      private final AtomicInteger found = new AtomicInteger();
+      // Incremented by each sort, so that only the latest sort is applied.
+      private int sorts;
+
+      Listing(final FlatListing listing,
+              final NameFilter nameFilter,
+              final Predicate<DirectoryListItem> itemFilter,
+              final IgnoreRules ignoreRules,
+              final int maxDepth) {
+         this.listing = listing;
+         this.search = new RecursiveSearch(listing.getRoot(), nameFilter, itemFilter, ignoreRules, maxDepth,
+            TIMEOUT_MS, this::found, this::finished);
+      }
+
+      void start() {
+         search.start();
+      }
+
+      void cancel() {
+         search.cancel();
+      }
+
+      /**
+       * Sort a copy of the rows off of the JavaFx thread, and reorder the
+       * rows once sorted.
+       */
+      void sort(final DirectoryEntries.IndexComparator comparator) {
+         final int sort = ++sorts;
+         final int[] sorted = rows.getOrder();
+         tableView.setCursor(Cursor.WAIT);
+         sortExecutor.execute(() -> {
+            DirectoryEntries.sort(sorted, sorted.length, comparator);
+            Platform.runLater(() -> {
+               if (current == this && sorts == sort) {
+                  rows.setOrder(sorted);
+                  tableView.setCursor(null);
+               }
+            });
+         });
+      }
+
+      private void found(final List<DirectoryListItem> matches) {
+         pending.add(matches);
+         if (found.addAndGet(matches.size()) >= MAX_FILES) {
+            search.cancel();
+         }
+
+         if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+         }
+      }
+
+      private void drain() {
+         drainScheduled.set(false);
+
+         // A newer listing may have replaced this one since the drain was
+         // queued, or this one may have completed.
+         if (current != this || listing.isComplete()) {
+            pending.clear();
+            return;
+         }
+
+         final int start = listing.size();
+         List<DirectoryListItem> matches;
+         while ((matches = pending.poll()) != null) {
+            for (DirectoryListItem item : matches) {
+               if (!item.isDirectory() && listing.size() < MAX_FILES) {
+                  listing.add(item);
+               }
+            }
+         }
+
+         rows.append(start, listing.size());
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("flatlist.listing"), listing.size()));
+      }
+
+      private void finished(final RecursiveSearch.Outcome outcome) {
+         Platform.runLater(() -> {
+            if (current == this) {
+               drain();
+               FlatListView.this.finished(outcome, search.getIgnoredCount());
+            }
+         });
+      }
+   }
+
+   /**
+    * Rows of the table, in display order. Each row is the index of a file in
+    * the listing, held in an int array.
+    */
+   private static class Rows extends ObservableListBase<Integer> {
+      private int[] order = new int[1024];
+      private int size;
+
+      @Override
+      public Integer get(final int index) {
+         if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+         }
+         return order[index];
+      }
+
+      @Override
+      public int size() {
+         return size;
+      }
+
+      /**
+       * Add the files of the listing from start to end, at the end.
+       */
+      void append(final int start,
+                  final int end) {
+         if (start == end) {
+            return;
+         }
+
+         if (size + end - start > order.length) {
+            order = Arrays.copyOf(order, Math.max(order.length * 2, size + end - start));
+         }
+
+         final int from = size;
+         for (int file = start; file < end; file++) {
+            order[size++] = file;
+         }
+
+         beginChange();
+         nextAdd(from, size);
+         endChange();
+      }
+
+      /**
+       * Copy of the rows.
+       */
+      int[] getOrder() {
+         return Arrays.copyOf(order, size);
+      }
+
+      /**
+       * Reorder the rows.
+       * @param sorted The rows in their new order.
+       */
+      void setOrder(final int[] sorted) {
+         // Position of each file before the sort, to report the permutation.
+         final int[] oldPositions = new int[order.length];
+         for (int i = 0; i < size; i++) {
+            oldPositions[order[i]] = i;
+         }
+
+         final int[] permutation = new int[size];
+         for (int i = 0; i < size; i++) {
+            order[i] = sorted[i];
+            permutation[oldPositions[sorted[i]]] = i;
+         }
+
+         beginChange();
+         nextPermutation(0, size, permutation);
+         endChange();
+      }
+   }
+
+   /**
+    * Shows a long value as text.
+    */
+   private static class FormattedCell extends TableCell<Integer, Long> {
+      private final LongFunction<String> format;
+
+      FormattedCell(final LongFunction<String> format) {
+         this.format = format;
+      }
+
+      @Override
+      protected void updateItem(final Long item,
+                                final boolean empty) {
+         super.updateItem(item, empty);
+         setText(empty || item == null ? "" : format.apply(item));
+      }
+   }
+}
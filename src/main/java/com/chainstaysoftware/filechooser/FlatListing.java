@@ -0,0 +1,163 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The files under a directory, for the flattened listing. Files are held in
+ * parallel arrays rather than as objects: each file is the index of its
+ * folder, its name, size and last modified time, and each folder is the index
+ * of its parent folder and its name. Full paths are only built for the rows
+ * shown, so a listing of hundreds of thousands of files takes little more
+ * heap than their names.
+ * <p>
+ * Files are referred to by their index, in the order they were added. This
+ * class must only be used from one thread until {@link #complete()} is
+ * called. The completed listing is read only, and may be read from any
+ * thread, e.g. to sort the files off of the JavaFx thread.
+ */
+final class FlatListing {
+   private static final int INITIAL_CAPACITY = 1024;
+   private static final int ROOT = 0;
+
+   private final File root;
+
+   // Folder 0 is the root. Its parent is -1.
+   private int[] folderParents = new int[INITIAL_CAPACITY];
+   private String[] folderNames = new String[INITIAL_CAPACITY];
+   // Path relative to the root, built when first needed.
+   private String[] folderPaths = new String[INITIAL_CAPACITY];
+   private int folderCount;
+   // Folder indexes by absolute path. Only folders, which are few compared to files.
+   private final Map<String, Integer> folderIndexes = new HashMap<>();
+
+   private int[] fileFolders = new int[INITIAL_CAPACITY];
+   private String[] fileNames = new String[INITIAL_CAPACITY];
+   private long[] fileSizes = new long[INITIAL_CAPACITY];
+   private long[] fileModified = new long[INITIAL_CAPACITY];
+   private int fileCount;
+   private boolean complete;
+
+   FlatListing(final File root) {
+      this.root = root;
+
+      folderParents[ROOT] = -1;
+      folderNames[ROOT] = "";
+      folderPaths[ROOT] = ".";
+      folderCount = 1;
+      folderIndexes.put(root.getPath(), ROOT);
+   }
+
+   File getRoot() {
+      return root;
+   }
+
+   /**
+    * Add the passed in file, an entry in the subtree of the root. Only the
+    * name and attributes are kept.
+    * @return the index of the file.
+    */
+   int add(final DirectoryListItem item) {
+      if (complete) {
+         throw new IllegalStateException("Listing is complete");
+      }
+
+      final File file = item.getFile();
+      if (fileCount == fileNames.length) {
+         final int capacity = fileCount * 2;
+         fileFolders = Arrays.copyOf(fileFolders, capacity);
+         fileNames = Arrays.copyOf(fileNames, capacity);
+         fileSizes = Arrays.copyOf(fileSizes, capacity);
+         fileModified = Arrays.copyOf(fileModified, capacity);
+      }
+
+      fileFolders[fileCount] = getFolderIndex(file.getParentFile());
+      fileNames[fileCount] = file.getName();
+      fileSizes[fileCount] = item.length();
+      fileModified[fileCount] = item.lastModified();
+      return fileCount++;
+   }
+
+   /**
+    * Mark the listing as complete. Builds the path of every folder, so that
+    * reading the listing no longer writes to it.
+    */
+   void complete() {
+      for (int folder = 0; folder < folderCount; folder++) {
+         getFolderPath(folder);
+      }
+      complete = true;
+   }
+
+   boolean isComplete() {
+      return complete;
+   }
+
+   int size() {
+      return fileCount;
+   }
+
+   String getName(final int index) {
+      return fileNames[index];
+   }
+
+   /**
+    * Path of the folder of the file, relative to the root. "." for the root.
+    */
+   String getFolder(final int index) {
+      return getFolderPath(fileFolders[index]);
+   }
+
+   long getSize(final int index) {
+      return fileSizes[index];
+   }
+
+   long getLastModified(final int index) {
+      return fileModified[index];
+   }
+
+   File getFile(final int index) {
+      final int folder = fileFolders[index];
+      return new File(folder == ROOT ? root : new File(root, getFolderPath(folder)), fileNames[index]);
+   }
+
+   private String getFolderPath(final int folder) {
+      String path = folderPaths[folder];
+      if (path == null) {
+         final int parent = folderParents[folder];
+         path = parent == ROOT
+            ? folderNames[folder]
+            : getFolderPath(parent) + File.separator + folderNames[folder];
+         folderPaths[folder] = path;
+      }
+      return path;
+   }
+
+   /**
+    * Index of the passed in folder, adding it and any of its ancestors under
+    * the root not yet known.
+    */
+   private int getFolderIndex(final File folder) {
+      final Integer known = folderIndexes.get(folder.getPath());
+      if (known != null) {
+         return known;
+      }
+
+      final File parent = folder.getParentFile();
+      final int parentIndex = parent == null ? ROOT : getFolderIndex(parent);
+
+      if (folderCount == folderNames.length) {
+         final int capacity = folderCount * 2;
+         folderParents = Arrays.copyOf(folderParents, capacity);
+         folderNames = Arrays.copyOf(folderNames, capacity);
+         folderPaths = Arrays.copyOf(folderPaths, capacity);
+      }
+
+      folderParents[folderCount] = parentIndex;
+      folderNames[folderCount] = folder.getName();
+      folderIndexes.put(folder.getPath(), folderCount);
+      return folderCount++;
+   }
+}
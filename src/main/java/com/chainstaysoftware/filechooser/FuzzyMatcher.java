@@ -0,0 +1,296 @@
+package com.chainstaysoftware.filechooser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Ranks candidate paths against a fuzzy query, where the characters of the
+ * query appear in the path in order, e.g. "srcmainfcfx" matches
+ * src/main/java/.../FileChooserFxImpl.java. The candidates are held in
+ * primitive arrays (all lower cased chars in one array, with the offset of
+ * each candidate), so that scoring is a tight loop without allocation.
+ * Candidates are scored in parallel chunks, each keeping its best matches in
+ * a bounded heap, and the heaps are merged.
+ * <p>
+ * A match scores a point per matched character, with bonuses for characters
+ * matched consecutively, at the start of a word (after a separator or at a
+ * lower to upper case change), and in the file name rather than the
+ * directories. Shorter paths win ties.
+ * <p>
+ * Instances are immutable and may be used from any thread.
+ */
+final class FuzzyMatcher {
+   static final int NO_MATCH = Integer.MIN_VALUE;
+
+   private static final int MATCH_SCORE = 1;
+   private static final int CONSECUTIVE_BONUS = 4;
+   private static final int WORD_START_BONUS = 6;
+   private static final int NAME_BONUS = 2;
+   private static final int CHUNKS_PER_CORE = 4;
+
+   private static final byte WORD_START = 1;
+   private static final byte IN_NAME = 2;
+
+   private final List<String> candidates;
+   // Lower cased chars of all candidates, and flags for each char.
+   private final char[] chars;
+   private final byte[] flags;
+   // Start of each candidate in chars. offsets[size] is the end of the last.
+   private final int[] offsets;
+
+   /**
+    * @param candidates Paths to match. Relative paths rank better, as the
+    *                   query is matched against the whole string.
+    */
+   FuzzyMatcher(final List<String> candidates) {
+      this.candidates = candidates;
+
+      int length = 0;
+      for (String candidate : candidates) {
+         length += candidate.length();
+      }
+
+      chars = new char[length];
+      flags = new byte[length];
+      offsets = new int[candidates.size() + 1];
+
+      int offset = 0;
+      for (int id = 0; id < candidates.size(); id++) {
+         final String candidate = candidates.get(id);
+         offsets[id] = offset;
+
+         final int nameStart = Math.max(candidate.lastIndexOf('/'), candidate.lastIndexOf('\\')) + 1;
+         for (int i = 0; i < candidate.length(); i++) {
+            final char c = candidate.charAt(i);
+            chars[offset + i] = Character.toLowerCase(c);
+
+            byte flag = i >= nameStart ? IN_NAME : 0;
+            if (i == 0 || isWordStart(candidate.charAt(i - 1), c)) {
+               flag |= WORD_START;
+            }
+            flags[offset + i] = flag;
+         }
+
+         offset += candidate.length();
+      }
+      offsets[candidates.size()] = offset;
+   }
+
+   int size() {
+      return candidates.size();
+   }
+
+   String get(final int id) {
+      return candidates.get(id);
+   }
+
+   /**
+    * Ids of the best matches of the query, best first.
+    * @param query Query. Matched case insensitively. Spaces are ignored.
+    * @param k Maximum number of matches returned.
+    */
+   int[] topK(final String query,
+              final int k) {
+      final char[] queryChars = toQueryChars(query);
+      if (queryChars.length == 0 || k <= 0 || candidates.isEmpty()) {
+         return new int[0];
+      }
+
+      final int size = candidates.size();
+      final int chunks = Math.min(size, Runtime.getRuntime().availableProcessors() * CHUNKS_PER_CORE);
+      final TopK top = IntStream.range(0, chunks)
+         .parallel()
+         .mapToObj(chunk -> {
+            final TopK chunkTop = new TopK(k);
+            final int end = (int) ((long) size * (chunk + 1) / chunks);
+            for (int id = (int) ((long) size * chunk / chunks); id < end; id++) {
+               final int score = score(id, queryChars);
+               if (score != NO_MATCH) {
+                  chunkTop.offer(id, score);
+               }
+            }
+            return chunkTop;
+         })
+         .reduce(TopK::merge)
+         .orElseGet(() -> new TopK(k));
+
+      return top.sorted();
+   }
+
+   /**
+    * Score of the candidate for the query, or {@link #NO_MATCH} if the query
+    * characters do not all appear in the candidate in order.
+    */
+   private int score(final int id,
+                     final char[] query) {
+      final int start = offsets[id];
+      final int end = offsets[id + 1];
+      if (end - start < query.length) {
+         return NO_MATCH;
+      }
+
+      int score = 0;
+      int q = 0;
+      boolean previousMatched = false;
+      for (int i = start; i < end && q < query.length; i++) {
+         if (chars[i] == query[q]) {
+            final byte flag = flags[i];
+            score += MATCH_SCORE;
+            if (previousMatched) {
+               score += CONSECUTIVE_BONUS;
+            }
+            if ((flag & WORD_START) != 0) {
+               score += WORD_START_BONUS;
+            }
+            if ((flag & IN_NAME) != 0) {
+               score += NAME_BONUS;
+            }
+            q++;
+            previousMatched = true;
+         } else {
+            previousMatched = false;
+         }
+      }
+
+      return q == query.length ? score : NO_MATCH;
+   }
+
+   /**
+    * Lower cased chars of the query, without spaces. Lower cased the same
+    * way as the candidates.
+    */
+   private static char[] toQueryChars(final String query) {
+      final StringBuilder builder = new StringBuilder(query.length());
+      for (int i = 0; i < query.length(); i++) {
+         final char c = query.charAt(i);
+         if (c != ' ') {
+            builder.append(Character.toLowerCase(c));
+         }
+      }
+      return builder.toString().toCharArray();
+   }
+
+   private static boolean isWordStart(final char previous,
+                                      final char c) {
+      if (previous == '/' || previous == '\\' || previous == '.' || previous == '_'
+         || previous == '-' || previous == ' ') {
+         return true;
+      }
+
+      return Character.isUpperCase(c) && Character.isLowerCase(previous);
+   }
+
+   /**
+    * Length of the candidate, to break ties.
+    */
+   private int length(final int id) {
+      return offsets[id + 1] - offsets[id];
+   }
+
+   /**
+    * Bounded min-heap of the best scored ids, the worst at the root.
+    */
+   private final class TopK {
+      private final int[] ids;
+      private final int[] scores;
+      private int size;
+
+      TopK(final int k) {
+         ids = new int[k];
+         scores = new int[k];
+      }
+
+      void offer(final int id,
+                 final int score) {
+         if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+         } else if (isBetter(id, score, ids[0], scores[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+         }
+      }
+
+      TopK merge(final TopK other) {
+         for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+         }
+         return this;
+      }
+
+      /**
+       * Ids, best first.
+       */
+      int[] sorted() {
+         final Integer[] order = new Integer[size];
+         for (int i = 0; i < size; i++) {
+            order[i] = i;
+         }
+         Arrays.sort(order, (i1, i2) ->
+            isBetter(ids[i1], scores[i1], ids[i2], scores[i2]) ? -1
+               : isBetter(ids[i2], scores[i2], ids[i1], scores[i1]) ? 1 : 0);
+
+         final int[] result = new int[size];
+         for (int i = 0; i < size; i++) {
+            result[i] = ids[order[i]];
+         }
+         return result;
+      }
+
+      private boolean isBetter(final int id1,
+                               final int score1,
+                               final int id2,
+                               final int score2) {
+         if (score1 != score2) {
+            return score1 > score2;
+         }
+
+         final int length1 = length(id1);
+         final int length2 = length(id2);
+         return length1 != length2 ? length1 < length2 : id1 < id2;
+      }
+
+      private void siftUp(int i) {
+         while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (!isBetter(ids[parent], scores[parent], ids[i], scores[i])) {
+               return;
+            }
+            swap(i, parent);
+            i = parent;
+         }
+      }
+
+      private void siftDown(int i) {
+         while (true) {
+            final int left = 2 * i + 1;
+            final int right = left + 1;
+            int worst = i;
+            if (left < size && isBetter(ids[worst], scores[worst], ids[left], scores[left])) {
+               worst = left;
+            }
+            if (right < size && isBetter(ids[worst], scores[worst], ids[right], scores[right])) {
+               worst = right;
+            }
+            if (worst == i) {
+               return;
+            }
+            swap(i, worst);
+            i = worst;
+         }
+      }
+
+      private void swap(final int i,
+                        final int j) {
+         final int id = ids[i];
+         final int score = scores[i];
+         ids[i] = ids[j];
+         scores[i] = scores[j];
+         ids[j] = id;
+         scores[j] = score;
+      }
+   }
+}
@@ -0,0 +1,226 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * "Go to file" dialog. Lists the files under a directory that best match a
+ * fuzzy query, e.g. "srcmainfcfx" for src/main/java/.../FileChooserFxImpl.java.
+ * The paths under the directory are read once when the dialog opens, from the
+ * {@link SearchIndex} if it covers the directory, otherwise by walking the
+ * directory. Each keystroke then ranks all of the paths with a
+ * {@link FuzzyMatcher}. Queries are run in order on a background thread, and
+ * a query that is stale by the time it runs is skipped.
+ */
+class GoToFileDialog {
+   private static final int MAX_RESULTS = 50;
+   private static final int MAX_PATHS = 2000000;
+   private static final int MAX_DEPTH = 32;
+   private static final long WALK_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+   private static final int DIALOG_WIDTH = 500;
+   private static final int DIALOG_HEIGHT = 400;
+
+   private static final ExecutorService executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+
+   private final File directory;
+   private final SearchIndex searchIndex;
+   private final Predicate<DirectoryListItem> itemFilter;
+   private final IgnoreRules ignoreRules;
+   private final Consumer<File> onChosen;
+   private final ResourceBundle resourceBundle = ResourceBundle.getBundle("filechooser");
+   private final Stage stage = new Stage();
+   private final TextField queryField = new TextField();
+   private final ListView<String> resultsList = new ListView<>();
+   private final Label statusLabel = new Label();
+
+   private RecursiveSearch walk;
+   // Set on the FX thread once the paths are read.
+   private FuzzyMatcher matcher;
+   // Incremented on every query, so that stale queries are skipped.
+   private volatile long queryGeneration;
+
+   /**
+    * @param owner Owner of the dialog.
+    * @param directory Directory whose files are listed.
+    * @param searchIndex Index to read the paths from, or null.
+    * @param itemFilter Filter for the entries of each directory walked.
+    * @param ignoreRules Rules for the entries skipped when walking.
+    * @param onChosen Called with the chosen file.
+    */
+   GoToFileDialog(final Window owner,
+                  final File directory,
+                  final SearchIndex searchIndex,
+                  final Predicate<DirectoryListItem> itemFilter,
+                  final IgnoreRules ignoreRules,
+                  final Consumer<File> onChosen) {
+      this.directory = directory;
+      this.searchIndex = searchIndex;
+      this.itemFilter = itemFilter;
+      this.ignoreRules = ignoreRules;
+      this.onChosen = onChosen;
+
+      queryField.setId("goToFileField");
+      queryField.setPromptText(resourceBundle.getString("gotofile.prompt"));
+      queryField.textProperty().addListener((observable, oldValue, newValue) -> query());
+      queryField.setOnKeyPressed(event -> {
+         if (event.getCode() == KeyCode.DOWN) {
+            resultsList.getSelectionModel().selectNext();
+            event.consume();
+         } else if (event.getCode() == KeyCode.UP) {
+            resultsList.getSelectionModel().selectPrevious();
+            event.consume();
+         } else if (event.getCode() == KeyCode.ENTER) {
+            choose();
+            event.consume();
+         }
+      });
+
+      resultsList.setId("goToFileList");
+      resultsList.setOnMouseClicked(event -> {
+         if (event.getButton().equals(MouseButton.PRIMARY) && event.getClickCount() == 2) {
+            choose();
+         }
+      });
+      VBox.setVgrow(resultsList, Priority.ALWAYS);
+
+      statusLabel.getStyleClass().add("searchstatus");
+
+      final VBox vBox = new VBox(queryField, resultsList, statusLabel);
+      vBox.setId("goToFileVbox");
+
+      final Scene scene = new Scene(vBox, DIALOG_WIDTH, DIALOG_HEIGHT);
+      scene.getStylesheets().add(new FileBrowserCss().getUrl());
+      scene.setOnKeyPressed(event -> {
+         if (event.getCode() == KeyCode.ESCAPE) {
+            stage.close();
+            event.consume();
+         }
+      });
+
+      stage.setTitle(resourceBundle.getString("gotofile.title"));
+      stage.setScene(scene);
+      stage.initOwner(owner);
+      stage.initModality(Modality.WINDOW_MODAL);
+      stage.setOnHidden(event -> {
+         queryGeneration++;
+         if (walk != null) {
+            walk.cancel();
+         }
+      });
+   }
+
+   void show() {
+      statusLabel.setText(resourceBundle.getString("gotofile.reading"));
+      readPaths().thenAccept(paths -> {
+         final FuzzyMatcher pathsMatcher = new FuzzyMatcher(paths);
+         Platform.runLater(() -> {
+            matcher = pathsMatcher;
+            statusLabel.setText(MessageFormat.format(resourceBundle.getString("gotofile.count"), paths.size()));
+            query();
+         });
+      });
+
+      stage.show();
+      queryField.requestFocus();
+   }
+
+   /**
+    * Paths of the files under the directory, relative to the directory.
+    */
+   private CompletableFuture<List<String>> readPaths() {
+      if (searchIndex != null && searchIndex.covers(directory)) {
+         return CompletableFuture.supplyAsync(() ->
+            searchIndex.getRelativePaths(directory, MAX_PATHS).orElseGet(ArrayList::new), executor);
+      }
+
+      final int prefixLength = directory.getAbsolutePath().endsWith(File.separator)
+         ? directory.getAbsolutePath().length()
+         : directory.getAbsolutePath().length() + 1;
+      final Queue<String> paths = new ConcurrentLinkedQueue<>();
+      // Paths found, as the size of the queue is not constant time.
+      final AtomicInteger found = new AtomicInteger();
+      final CompletableFuture<List<String>> future = new CompletableFuture<>();
+      walk = new RecursiveSearch(directory, NameFilter.compile("*"), itemFilter, ignoreRules,
+         MAX_DEPTH, WALK_TIMEOUT_MS,
+         matches -> {
+            if (found.get() >= MAX_PATHS) {
+               return;
+            }
+
+            matches.forEach(item -> paths.add(item.getFile().getAbsolutePath().substring(prefixLength)));
+            if (found.addAndGet(matches.size()) >= MAX_PATHS) {
+               walk.cancel();
+            }
+         },
+         outcome -> future.complete(new ArrayList<>(paths)));
+      walk.start();
+      return future;
+   }
+
+   /**
+    * Rank the paths against the query text in the background, and show the
+    * best matches.
+    */
+   private void query() {
+      final long generation = ++queryGeneration;
+      final FuzzyMatcher currentMatcher = matcher;
+      final String text = queryField.getText();
+      if (currentMatcher == null) {
+         return;
+      }
+
+      executor.execute(() -> {
+         if (generation != queryGeneration) {
+            return;
+         }
+
+         final int[] ids = currentMatcher.topK(text, MAX_RESULTS);
+         final List<String> results = new ArrayList<>(ids.length);
+         for (int id : ids) {
+            results.add(currentMatcher.get(id));
+         }
+
+         Platform.runLater(() -> {
+            if (generation == queryGeneration) {
+               resultsList.getItems().setAll(results);
+               resultsList.getSelectionModel().selectFirst();
+            }
+         });
+      });
+   }
+
+   private void choose() {
+      final String selected = resultsList.getSelectionModel().getSelectedItem();
+      if (selected == null) {
+         return;
+      }
+
+      stage.close();
+      onChosen.accept(new File(directory, selected));
+   }
+}
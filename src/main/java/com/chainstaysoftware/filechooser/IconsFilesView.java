@@ -10,8 +10,6 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.SortedList;
-import javafx.concurrent.Service;
-import javafx.concurrent.Task;
 import javafx.event.EventHandler;
 import javafx.scene.Cursor;
 import javafx.scene.Node;
@@ -30,13 +28,9 @@ import javafx.stage.Stage;
 import org.controlsfx.control.GridView;
 
 import java.io.File;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.concurrent.CountDownLatch;
-import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.stream.IntStream;
 
@@ -62,8 +56,9 @@ class IconsFilesView extends AbstractFilesView {
    IconsFilesView(final Stage parent,
                   final Map<String, Class<? extends PreviewPane>> previewHandlers,
                   final Icons icons,
+                  final PreviewPanePool previewPanePool,
                   final FilesViewCallback callback) {
-      super(parent);
+      super(parent, previewPanePool);
 
       this.previewHandlers = previewHandlers;
       this.callback = callback;
@@ -82,6 +77,7 @@ class IconsFilesView extends AbstractFilesView {
       gridView.setVerticalCellSpacing(CELL_SPACING);
       gridView.setOnMouseClicked(new MouseClickHandler());
       gridView.setOnKeyPressed(new KeyClickHandler());
+      installTypeAhead(gridView);
    }
 
    @Override
@@ -90,97 +86,51 @@ class IconsFilesView extends AbstractFilesView {
    }
 
    /**
-    * sets the files on the view.
-    * @param directoryStream Filtered stream of files to show in view.
-    * @param remainingDirectoryStream This stream contains the files not to
-    *                                 show in the view. But, may include
-    *                                 directories that should be shown in the
-    *                                 view but were filtered out in the directoryStream.
+    * The items of a paged model are already sorted by the model.
     */
    @Override
-   public void setFiles(final DirectoryStream<Path> directoryStream,
-                        final DirectoryStream<Path> remainingDirectoryStream) {
-      selectedCellIndex.setValue(NOT_SELECTED);
-
+   void attachItems(final DirectoryModel model) {
       // Disable event listeners in gridView while being updated programmatically
       disableListeners = true;
-      final ObservableList<DirectoryListItem> directoryListItems = FXCollections.observableArrayList();
-      final SortedList<DirectoryListItem> items
-         = directoryListItems.sorted(new DirListItemComparator(callback.orderByProperty().get(),
-            callback.orderDirectionProperty().get()));
-      gridView.setItems(items);
+      gridView.setItems(model.isPaged()
+         ? model.getItems()
+         : model.getItems().sorted(new DirListItemComparator(callback.orderByProperty().get(),
+            callback.orderDirectionProperty().get())));
       disableListeners = false;
-
-      // Update the GridView from Services so that the UI is not blocked on OS calls.
-      final UpdateDirectoryList updateDirectoryListService = new UpdateDirectoryList(directoryStream, remainingDirectoryStream,
-         directoryListItems);
-
-      final Predicate<File> shouldHideFile
-         = new ShowHiddenFilesPredicate(callback.showHiddenFilesProperty(), callback.shouldHideFilesProperty());
-      final FilterHiddenFromDirList filterListService = new FilterHiddenFromDirList(directoryListItems, shouldHideFile);
-
-      final SelectCurrentService selectCurrentService = new SelectCurrentService();
-
-      filterListService.setOnSucceeded(event -> selectCurrentService.start());
-
-      updateDirectoryListService.setOnSucceeded(event -> {
-         gridView.setCursor(null);
-         filterListService.start();
-      });
-      updateDirectoryListService.setOnRunning(event -> gridView.setCursor(Cursor.WAIT));
-      setServiceFailureHandlers(updateDirectoryListService);
-      updateDirectoryListService.start();
    }
 
-   /**
-    * Sets up event handlers to reset wait icon when service fails or is cancelled.
-    */
-   private void setServiceFailureHandlers(final Service<Void> service) {
-      service.setOnCancelled(event -> {
-         logger.warning("Service cancelled - " + service.getClass().getCanonicalName());
-         gridView.setCursor(null);
+   @Override
+   void detachItems(final DirectoryModel model) {
+      gridView.setItems(FXCollections.observableArrayList());
+   }
 
-      });
-      service.setOnFailed(event -> {
-         logger.warning("Service failed - " + service.getClass().getCanonicalName());
-         gridView.setCursor(null);
-      });
+   @Override
+   void updateStarted() {
+      selectedCellIndex.setValue(NOT_SELECTED);
+      gridView.setCursor(Cursor.WAIT);
    }
 
    /**
     * If there is a currently selected file, then update the GridView with
     * the selection.
     */
-   private class SelectCurrentService extends Service<Void> {
-
-      protected Task<Void> createTask() {
-         return new SelectTask();
-      }
-
-      private class SelectTask extends Task<Void> {
-         private final CountDownLatch latch = new CountDownLatch(1);
-
-         @Override
-         protected Void call() throws Exception {
-            Platform.runLater(() -> {
-               // HACK!! Force repaint of GridView. The GridView was
-               // not repainting when file filter was changed on a huge directory.
-               ((GridViewSkin)gridView.getSkin()).updateGridViewItems();
-
-               selectCurrent();
-
-               latch.countDown();
-            });
-
-            latch.await();
-
-            return null;
-         }
-      }
+   @Override
+   void updateFinished() {
+      gridView.setCursor(null);
+      selectCurrent();
    }
 
    private void selectCurrent() {
       final File currentSelection = callback.getCurrentSelection();
+      final DirectoryModel model = getModel();
+      if (model != null && model.isPaged()) {
+         final int index = model.indexOf(currentSelection);
+         if (index != -1) {
+            selectedCellIndex.setValue(index);
+         }
+         return;
+      }
+
       final List<DirectoryListItem> items = gridView.getItems();
       IntStream.range(0, items.size())
          .filter(i -> compareFilePaths(items.get(i).getFile(), currentSelection))
@@ -188,6 +138,22 @@ class IconsFilesView extends AbstractFilesView {
          .ifPresent(selectedCellIndex::setValue);
    }
 
+   @Override
+   void select(final DirectoryListItem item) {
+      final int index = gridView.getItems().indexOf(item);
+      if (index == -1) {
+         return;
+      }
+
+      selectedCellIndex.setValue(index);
+      callback.setCurrentSelection(item.getFile());
+   }
+
+   @Override
+   public void resort() {
+      sort();
+   }
+
    /**
     * Sort the existing view contents.
     */
@@ -208,19 +174,24 @@ class IconsFilesView extends AbstractFilesView {
          final ContextMenu contextMenu = createContextMenu();
 
          final File file = item.getFile();
-         if (file.isDirectory()) {
+         if (item.isDirectory()) {
             return contextMenu;
          }
 
-         final Class<? extends PreviewPane> previewPaneClass = PreviewPaneQuery.query(previewHandlers, file);
-         if (previewPaneClass == null) {
-            return contextMenu;
-         }
+         // The Preview item is added once the mimetype lookup completes, so that
+         // opening the menu does not wait on the file system.
+         PreviewPaneQuery.queryAsync(previewHandlers, file)
+            .thenAccept(previewPaneClass -> Platform.runLater(() -> {
+               if (previewPaneClass == null) {
+                  return;
+               }
+
+               final MenuItem imagePreviewItem = new MenuItem("Preview");
+               imagePreviewItem.setOnAction(v -> showPreview(previewPaneClass, file));
 
-         final MenuItem imagePreviewItem = new MenuItem("Preview");
-         imagePreviewItem.setOnAction(v -> showPreview(previewPaneClass, file));
+               contextMenu.getItems().addAll(new SeparatorMenuItem(), imagePreviewItem);
+            }));
 
-         contextMenu.getItems().addAll(new SeparatorMenuItem(), imagePreviewItem);
          return contextMenu;
       }
 
@@ -0,0 +1,306 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Rules for the entries that recursive operations (searching subfolders,
+ * content search, the search index) skip, e.g. node_modules and build output.
+ * Patterns use the .gitignore syntax: '#' comments, '!' to re-include, a
+ * trailing '/' to only match directories, a leading or inner '/' to match
+ * the path relative to the directory the pattern applies to rather than any
+ * name, and '*', '?', '[...]' and '**' wildcards.
+ * <p>
+ * The global patterns apply to the whole tree. If enabled, the .gitignore
+ * file of each directory walked adds patterns for its subtree, as do the
+ * .gitignore files of the ancestors of the walked directory up to the top of
+ * its repository. As in git, the patterns of the deepest directory that has a
+ * match decide, and within a directory, the last matching pattern decides.
+ * Operations check entries as they read a directory, so an ignored directory
+ * is never opened, and nothing under it can be re-included.
+ * <p>
+ * Instances are immutable and may be used from any thread.
+ */
+final class IgnoreRules {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.IgnoreRules");
+
+   static final String GIT_IGNORE = ".gitignore";
+   private static final String GIT_DIR = ".git";
+
+   /**
+    * Rules that ignore nothing.
+    */
+   static final IgnoreRules NONE = new IgnoreRules(Collections.emptyList(), false);
+
+   private final List<Rule> globalRules;
+   private final boolean useGitIgnore;
+
+   /**
+    * @param globalPatterns Patterns that apply to the whole tree. Patterns
+    *                       with a '/' are relative to the walked directory.
+    * @param useGitIgnore True to also apply .gitignore files.
+    */
+   IgnoreRules(final Collection<String> globalPatterns,
+               final boolean useGitIgnore) {
+      this.globalRules = compile(globalPatterns);
+      this.useGitIgnore = useGitIgnore;
+   }
+
+   boolean usesGitIgnore() {
+      return useGitIgnore;
+   }
+
+   /**
+    * Scope for walking the passed in directory. Includes the .gitignore
+    * files of its ancestors, but not its own, which is read with its
+    * entries like that of any other walked directory.
+    */
+   Scope forRoot(final Path root) {
+      Scope scope = new Scope(null, root.toAbsolutePath(), globalRules);
+      if (!useGitIgnore || Files.isDirectory(root.resolve(GIT_DIR))) {
+         return scope;
+      }
+
+      // Ancestors up to the top of the repository, the top first.
+      final Deque<Path> ancestors = new ArrayDeque<>();
+      boolean inRepository = false;
+      for (Path directory = root.toAbsolutePath().getParent(); directory != null && !inRepository;
+           directory = directory.getParent()) {
+         ancestors.push(directory);
+         inRepository = Files.isDirectory(directory.resolve(GIT_DIR));
+      }
+
+      if (inRepository) {
+         for (Path directory : ancestors) {
+            if (Files.isRegularFile(directory.resolve(GIT_IGNORE))) {
+               scope = scope.enter(directory);
+            }
+         }
+      }
+      return scope;
+   }
+
+   /**
+    * Compile the patterns, skipping comments and invalid patterns.
+    */
+   static List<Rule> compile(final Collection<String> patterns) {
+      final List<Rule> rules = new ArrayList<>();
+      for (String pattern : patterns) {
+         try {
+            final Rule rule = Rule.compile(pattern);
+            if (rule != null) {
+               rules.add(rule);
+            }
+         } catch (PatternSyntaxException e) {
+            logger.log(Level.FINE, "Invalid ignore pattern - " + pattern, e);
+         }
+      }
+      return rules;
+   }
+
+   private static List<Rule> readGitIgnore(final Path directory) {
+      try {
+         return compile(Files.readAllLines(directory.resolve(GIT_IGNORE), StandardCharsets.UTF_8));
+      } catch (IOException e) {
+         logger.log(Level.FINE, "Unable to read " + GIT_IGNORE + " - " + directory, e);
+         return Collections.emptyList();
+      }
+   }
+
+   /**
+    * Rules in effect for a directory: its own patterns, then those of its
+    * ancestors.
+    */
+   final class Scope {
+      private final Scope parent;
+      // Absolute path of the directory the rules apply to.
+      private final Path base;
+      private final List<Rule> rules;
+
+      private Scope(final Scope parent,
+                    final Path base,
+                    final List<Rule> rules) {
+         this.parent = parent;
+         this.base = base;
+         this.rules = rules;
+      }
+
+      /**
+       * Scope for the entries of the passed in directory, a child of the
+       * directory of this scope. Reads the .gitignore file of the directory,
+       * so only call if it has one.
+       */
+      Scope enter(final Path directory) {
+         if (!useGitIgnore) {
+            return this;
+         }
+
+         final List<Rule> gitIgnoreRules = readGitIgnore(directory);
+         return gitIgnoreRules.isEmpty() ? this : new Scope(this, directory.toAbsolutePath(), gitIgnoreRules);
+      }
+
+      /**
+       * Determine if the path, an entry of a directory under this scope,
+       * is ignored.
+       */
+      boolean isIgnored(final Path path,
+                        final boolean directory) {
+         final String name = path.getFileName().toString();
+
+         for (Scope scope = this; scope != null; scope = scope.parent) {
+            String relativePath = null;
+            for (int i = scope.rules.size() - 1; i >= 0; i--) {
+               final Rule rule = scope.rules.get(i);
+               if (rule.directoryOnly && !directory) {
+                  continue;
+               }
+
+               final boolean matches;
+               if (rule.anchored) {
+                  if (relativePath == null) {
+                     relativePath = toRelativePath(scope.base, path);
+                  }
+                  matches = rule.pattern.matcher(relativePath).matches();
+               } else {
+                  matches = rule.pattern.matcher(name).matches();
+               }
+
+               if (matches) {
+                  return !rule.negated;
+               }
+            }
+         }
+
+         return false;
+      }
+
+      private String toRelativePath(final Path base,
+                                    final Path path) {
+         final String relative = base.relativize(path.isAbsolute() ? path : path.toAbsolutePath()).toString();
+         return path.getFileSystem().getSeparator().equals("/")
+            ? relative
+            : relative.replace(path.getFileSystem().getSeparator(), "/");
+      }
+   }
+
+   /**
+    * A compiled pattern.
+    */
+   static final class Rule {
+      private final Pattern pattern;
+      private final boolean negated;
+      private final boolean directoryOnly;
+      // Matched against the relative path, rather than the name.
+      private final boolean anchored;
+
+      private Rule(final Pattern pattern,
+                   final boolean negated,
+                   final boolean directoryOnly,
+                   final boolean anchored) {
+         this.pattern = pattern;
+         this.negated = negated;
+         this.directoryOnly = directoryOnly;
+         this.anchored = anchored;
+      }
+
+      /**
+       * Compile a line of a .gitignore file. Null for blank lines and comments.
+       */
+      static Rule compile(final String line) {
+         String text = trimTrailingSpaces(line);
+         if (text.isEmpty() || text.startsWith("#")) {
+            return null;
+         }
+
+         final boolean negated = text.startsWith("!");
+         if (negated) {
+            text = text.substring(1);
+         } else if (text.startsWith("\\!") || text.startsWith("\\#")) {
+            text = text.substring(1);
+         }
+
+         final boolean directoryOnly = text.endsWith("/");
+         if (directoryOnly) {
+            text = text.substring(0, text.length() - 1);
+         }
+
+         final boolean anchored = text.contains("/");
+         if (text.startsWith("/")) {
+            text = text.substring(1);
+         }
+
+         if (text.isEmpty()) {
+            return null;
+         }
+
+         return new Rule(Pattern.compile(toRegex(text)), negated, directoryOnly, anchored);
+      }
+
+      /**
+       * Trailing spaces are ignored, unless escaped with a backslash.
+       */
+      private static String trimTrailingSpaces(final String line) {
+         int end = line.length();
+         while (end > 0 && line.charAt(end - 1) == ' '
+            && !(end > 1 && line.charAt(end - 2) == '\\')) {
+            end--;
+         }
+         return line.substring(0, end);
+      }
+
+      private static String toRegex(final String glob) {
+         final StringBuilder regex = new StringBuilder();
+         int i = 0;
+         while (i < glob.length()) {
+            final char c = glob.charAt(i);
+            if (glob.startsWith("**/", i) && (i == 0 || glob.charAt(i - 1) == '/')) {
+               // Zero or more directories.
+               regex.append("(?:.*/)?");
+               i += 3;
+            } else if (glob.startsWith("**", i) && i + 2 == glob.length() && (i == 0 || glob.charAt(i - 1) == '/')) {
+               // Everything inside.
+               regex.append(".*");
+               i += 2;
+            } else if (c == '*') {
+               regex.append("[^/]*");
+               i++;
+            } else if (c == '?') {
+               regex.append("[^/]");
+               i++;
+            } else if (c == '[') {
+               final int close = glob.indexOf(']', i + 2);
+               if (close < 0) {
+                  regex.append("\\[");
+                  i++;
+               } else {
+                  String set = glob.substring(i + 1, close);
+                  if (set.startsWith("!")) {
+                     set = "^" + set.substring(1);
+                  }
+                  regex.append('[').append(set.replace("[", "\\[")).append(']');
+                  i = close + 1;
+               }
+            } else if (c == '\\' && i + 1 < glob.length()) {
+               regex.append(Pattern.quote(String.valueOf(glob.charAt(i + 1))));
+               i += 2;
+            } else {
+               regex.append(Pattern.quote(String.valueOf(c)));
+               i++;
+            }
+         }
+         return regex.toString();
+      }
+   }
+}
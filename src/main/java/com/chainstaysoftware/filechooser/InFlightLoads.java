@@ -0,0 +1,107 @@
+package com.chainstaysoftware.filechooser;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Loads values that read from the file system off of the calling thread, at
+ * most one load per key at a time, and stops waiting on a load after a
+ * timeout. A load blocked on a hung network mount can not be cancelled, so
+ * it keeps its thread, and later requests for the same key wait on that load
+ * rather than blocking another thread. Use with a bounded executor, so that
+ * loads of many keys on a hung mount can not take an unbounded number of
+ * threads.
+ * <p>
+ * Instances may be used from any thread.
+ *
+ * @param <K> Key of a load, e.g. the file read.
+ * @param <V> Value loaded.
+ */
+final class InFlightLoads<K, V> {
+   private final Executor executor;
+   private final ScheduledExecutorService timeoutScheduler;
+   private final long timeoutMs;
+   private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+   /**
+    * @param executor Executor to load on.
+    * @param timeoutScheduler Scheduler of the timeouts.
+    * @param timeoutMs Time to wait on a load before completing the future
+    *                  returned by {@link #load(Object, Function)} with a
+    *                  {@link TimeoutException}.
+    */
+   InFlightLoads(final Executor executor,
+                 final ScheduledExecutorService timeoutScheduler,
+                 final long timeoutMs) {
+      this.executor = executor;
+      this.timeoutScheduler = timeoutScheduler;
+      this.timeoutMs = timeoutMs;
+   }
+
+   /**
+    * Load the value for the key, or wait on the load already running for the
+    * key.
+    * @param key Key of the load.
+    * @param loader Loads the value on the executor.
+    * @return future completed with the value, or exceptionally with the
+    * exception of the load, or with a {@link TimeoutException}. Completing
+    * the future does not affect the load.
+    */
+   CompletableFuture<V> load(final K key,
+                             final Function<K, V> loader) {
+      final CompletableFuture<V> load = start(key, loader);
+      final CompletableFuture<V> result = new CompletableFuture<>();
+      final ScheduledFuture<?> timeout = timeoutScheduler.schedule(
+         () -> result.completeExceptionally(new TimeoutException()), timeoutMs, TimeUnit.MILLISECONDS);
+      load.whenComplete((value, throwable) -> {
+         timeout.cancel(false);
+         if (throwable == null) {
+            result.complete(value);
+         } else {
+            result.completeExceptionally(throwable);
+         }
+      });
+      return result;
+   }
+
+   /**
+    * Start the load for the key, or return the load already running for the
+    * key, without a timeout. The future is shared by the callers for the
+    * key, so callers must not complete it.
+    * @param key Key of the load.
+    * @param loader Loads the value on the executor.
+    */
+   CompletableFuture<V> start(final K key,
+                              final Function<K, V> loader) {
+      final CompletableFuture<V> created = new CompletableFuture<>();
+      final CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+      if (existing != null) {
+         return existing;
+      }
+
+      CompletableFuture.supplyAsync(() -> loader.apply(key), executor)
+         .whenComplete((value, throwable) -> {
+            inFlight.remove(key, created);
+            if (throwable == null) {
+               created.complete(value);
+            } else {
+               created.completeExceptionally(throwable);
+            }
+         });
+      return created;
+   }
+
+   /**
+    * Number of loads running.
+    */
+   int size() {
+      return inFlight.size();
+   }
+}
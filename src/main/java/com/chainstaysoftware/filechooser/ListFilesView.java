@@ -5,11 +5,14 @@ import com.chainstaysoftware.filechooser.icons.IconsImpl;
 import com.chainstaysoftware.filechooser.preview.PreviewPane;
 import com.chainstaysoftware.filechooser.preview.PreviewPaneQuery;
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
 import javafx.event.EventHandler;
@@ -27,6 +30,7 @@ import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 import javafx.util.Callback;
 import org.apache.commons.io.FileUtils;
@@ -39,6 +43,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +55,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
 
+/**
+ * View files as a tree table, whose subdirectories expand in place. The
+ * items of a paged {@link DirectoryModel} are shown in a flat
+ * {@link PagedFilesTable} instead.
+ */
 class ListFilesView extends AbstractFilesView {
    private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.ListFilesView");
 
@@ -65,14 +75,29 @@ class ListFilesView extends AbstractFilesView {
    private final TreeTableColumn<File, ZonedDateTime> dateModifiedColumn;
    private final TreeTableColumn<File, Long> sizeColumn;
    private final FilesViewCallback callback;
+   private final ListChangeListener<DirectoryListItem> rootItemsListener = this::rootItemsChanged;
+   private final PagedFilesTable pagedTable;
+   private final BorderPane pane = new BorderPane() {
+      // Focus the tree or table shown.
+      @Override
+      public void requestFocus() {
+         getCenter().requestFocus();
+      }
+   };
 
    private EventHandler<? super KeyEvent> keyEventHandler;
+   private ObservableList<DirectoryListItem> rootItems;
+   // Root kept while detached, and the model and version it was built from.
+   private TreeItem<File> detachedRoot;
+   private DirectoryModel detachedModel;
+   private long detachedVersion;
 
    public ListFilesView(final Stage parent,
                         final Map<String, Class<? extends PreviewPane>> previewHandlers,
                         final Icons icons,
+                        final PreviewPanePool previewPanePool,
                         final FilesViewCallback callback) {
-      super(parent);
+      super(parent, previewPanePool);
 
       this.previewHandlers = previewHandlers;
       this.icons = icons;
@@ -90,6 +115,13 @@ class ListFilesView extends AbstractFilesView {
       filesTreeView.getColumns().setAll(nameColumn, dateModifiedColumn, sizeColumn);
       filesTreeView.setRowFactory(new RowFactory());
       filesTreeView.setOnKeyPressed(event -> {if (keyEventHandler != null) {keyEventHandler.handle(event);}});
+      installTypeAhead(filesTreeView);
+
+      pagedTable = new PagedFilesTable(icons, callback);
+      pagedTable.getTableView().setOnKeyPressed(event -> {if (keyEventHandler != null) {keyEventHandler.handle(event);}});
+      installTypeAhead(pagedTable.getTableView());
+
+      pane.setCenter(filesTreeView);
 
       initializeSort();
    }
@@ -144,7 +176,7 @@ class ListFilesView extends AbstractFilesView {
             final TreeItem treeItem = row.getTreeItem();
             if (getTreeTableRow().getTreeItem() instanceof DirectoryTreeItem) {
                final File file = ((File)treeItem.getValue()).getAbsoluteFile();
-               final ImageView graphic = file.isDirectory()
+               final ImageView graphic = !treeItem.isLeaf()
                   ? new ImageView(treeItem.isExpanded() ? icons.getIcon(IconsImpl.OPEN_FOLDER_64) : icons.getIcon(IconsImpl.FOLDER_64))
                   : new ImageView(icons.getIconForFile(file));
                graphic.setFitWidth(IconsImpl.SMALL_ICON_WIDTH);
@@ -218,10 +250,21 @@ class ListFilesView extends AbstractFilesView {
       final TreeTableColumn<File, Long> column
             = new TreeTableColumn<>(resourceBundle.getString("listfilesview.size"));
 
-      column.setCellValueFactory(param ->
-            param.getValue().getValue().isDirectory()
-               ? null
-               : new ReadOnlyObjectWrapper<>(((DirectoryTreeItem)param.getValue()).length()));
+      column.setCellValueFactory(param -> {
+         if (param.getValue().isLeaf()) {
+            return new ReadOnlyObjectWrapper<>(((DirectoryTreeItem)param.getValue()).length());
+         }
+
+         // Total size of the directory contents, once computed.
+         if (param.getValue() instanceof DirectoryTreeItem) {
+            final ObjectProperty<DirectorySize> directorySize
+               = ((DirectoryTreeItem)param.getValue()).getListItem().directorySizeProperty();
+            return Bindings.createObjectBinding(() ->
+               directorySize.get() == null ? null : directorySize.get().getBytes(), directorySize);
+         }
+
+         return null;
+      });
 
       column.setCellFactory(param -> new TreeTableCell<File, Long>() {
          @Override
@@ -253,19 +296,19 @@ class ListFilesView extends AbstractFilesView {
                setContextMenu(null);
 
                if (!empty) {
-                  if (file.isDirectory()) {
-                     return;
-                  }
-
-                  final Class<? extends PreviewPane> previewPaneClass = PreviewPaneQuery.query(previewHandlers, file);
-                  if (previewPaneClass == null) {
-                     return;
-                  }
-
-                  final MenuItem imagePreviewItem = new MenuItem("Preview");
-                  imagePreviewItem.setOnAction(v -> showPreview(previewPaneClass, file));
-
-                  setContextMenu(new ContextMenu(imagePreviewItem));
+                  // Lookup the PreviewPane off of the JavaFx thread. The row may have
+                  // been reused for another file by the time the lookup completes.
+                  PreviewPaneQuery.queryAsync(previewHandlers, file)
+                     .thenAccept(previewPaneClass -> Platform.runLater(() -> {
+                        if (previewPaneClass == null || !file.equals(getItem())) {
+                           return;
+                        }
+
+                        final MenuItem imagePreviewItem = new MenuItem("Preview");
+                        imagePreviewItem.setOnAction(v -> showPreview(previewPaneClass, file));
+
+                        setContextMenu(new ContextMenu(imagePreviewItem));
+                     }));
                }
             }
          };
@@ -274,26 +317,113 @@ class ListFilesView extends AbstractFilesView {
 
    @Override
    public Node getNode() {
-      return filesTreeView;
+      return pane;
    }
 
    /**
-    * sets the files on the view.
-    * @param directoryStream Filtered stream of files to show in view.
-    * @param remainingDirectoryStream This stream contains the files not to
-    *                                 show in the view. But, may include
-    *                                 directories that should be shown in the
-    *                                 view but were filtered out in the directoryStream.
+    * Reattaching to a model whose items have not changed since the view was
+    * detached reuses the TreeItems built before.
     */
    @Override
-   public void setFiles(final DirectoryStream<Path> directoryStream,
-                        final DirectoryStream<Path> remainingDirectoryStream) {
+   void attachItems(final DirectoryModel model) {
+      if (model.isPaged()) {
+         pagedTable.setItems(model.getItems());
+         pane.setCenter(pagedTable.getNode());
+         return;
+      }
+
+      rootItems = model.getItems();
+      rootItems.addListener(rootItemsListener);
+
+      if (detachedRoot != null && detachedModel == model && detachedVersion == model.getVersion()) {
+         filesTreeView.setRoot(detachedRoot);
+      } else {
+         rebuildRoot();
+      }
+
+      detachedRoot = null;
+      detachedModel = null;
+   }
+
+   @Override
+   void detachItems(final DirectoryModel model) {
+      if (rootItems == null) {
+         // Sort the tree as the table was last sorted.
+         final TreeTableColumn<File, ?> sortColumn = orderByToColumn(callback.orderByProperty().get());
+         sortColumn.setSortType(orderDirectionToSortType(callback.orderDirectionProperty().get()));
+         sortOrder.clear();
+         sortOrder.add(sortColumn);
+
+         pagedTable.clear();
+         pane.setCenter(filesTreeView);
+         return;
+      }
+
       saveSortOrder();
+      rootItems.removeListener(rootItemsListener);
+      rootItems = null;
 
+      detachedRoot = filesTreeView.getRoot();
+      detachedModel = model;
+      detachedVersion = model.getVersion();
+      filesTreeView.setRoot(new TreeItem<>());
+   }
+
+   /**
+    * While paged, the order is kept by the {@link FilesViewCallback}.
+    */
+   @Override
+   void updateStarted() {
+      if (rootItems != null) {
+         saveSortOrder();
+      }
+      filesTreeView.setCursor(Cursor.WAIT);
+      pagedTable.getNode().setCursor(Cursor.WAIT);
+   }
+
+   @Override
+   void updateFinished() {
+      filesTreeView.setCursor(null);
+      pagedTable.getNode().setCursor(null);
+      if (rootItems == null) {
+         pagedTable.select(getModel().indexOf(callback.getCurrentSelection()));
+         return;
+      }
+
+      selectCurrent();
+   }
+
+   /**
+    * Mirror changes of the model items into the children of the root. Items
+    * added while the directory is read are appended. Any other change (e.g. a
+    * new filter) rebuilds the root.
+    */
+   private void rootItemsChanged(final ListChangeListener.Change<? extends DirectoryListItem> change) {
+      final List<TreeItem<File>> added = new ArrayList<>();
+      while (change.next()) {
+         if (change.wasRemoved() || change.wasPermutated() || change.wasUpdated()) {
+            rebuildRoot();
+            return;
+         }
+
+         added.addAll(toTreeItems(change.getAddedSubList()));
+      }
+
+      filesTreeView.getRoot().getChildren().addAll(added);
+   }
+
+   private void rebuildRoot() {
       final TreeItem<File> rootItem = new TreeItem<>();
+      rootItem.getChildren().setAll(toTreeItems(rootItems));
       filesTreeView.setRoot(rootItem);
+   }
 
-      new PopulateTreeItemRunnable(directoryStream, remainingDirectoryStream, rootItem).run();
+   private List<TreeItem<File>> toTreeItems(final List<? extends DirectoryListItem> items) {
+      final PopulateFactory populateFactory = new PopulateFactory();
+      final List<TreeItem<File>> treeItems = new ArrayList<>(items.size());
+      items.forEach(item ->
+         treeItems.add(new DirectoryTreeItem(item, callback, populateFactory)));
+      return treeItems;
    }
 
    private class PopulateTreeItemRunnable implements Runnable {
@@ -372,8 +502,8 @@ class ListFilesView extends AbstractFilesView {
    }
 
    /**
-    * If there is a currently selected file, then update the GridView with
-    * the selection.
+    * If there is a currently selected file, then update the TreeTableView with
+    * the selection. Runs after subdirectories are populated.
     */
    private class SelectCurrentService extends Service<Void> {
 
@@ -387,17 +517,7 @@ class ListFilesView extends AbstractFilesView {
          @Override
          protected Void call() throws Exception {
             Platform.runLater(() -> {
-               restoreSortOrder();
-
-               final File currentSelectedFile = callback.getCurrentSelection();
-               filesTreeView.getRoot().getChildren()
-                  .stream()
-                  .filter(item -> compareFilePaths(item.getValue(), currentSelectedFile))
-                  .findFirst()
-                  .ifPresent(item -> filesTreeView.getSelectionModel().select(item));
-
-
-               filesTreeView.refresh();
+               selectCurrent();
 
                latch.countDown();
             });
@@ -406,15 +526,61 @@ class ListFilesView extends AbstractFilesView {
 
             return null;
          }
+      }
+   }
 
-         /**
-          * Reapply the sort order of the filesTreeView
-          */
-         private void restoreSortOrder() {
-            filesTreeView.getSortOrder().clear();
-            filesTreeView.getSortOrder().addAll(sortOrder);
-            sortOrder.get(0).setSortable(true); // This performs a sort
-         }
+   /**
+    * If there is a currently selected file, then update the TreeTableView with
+    * the selection.
+    */
+   private void selectCurrent() {
+      restoreSortOrder();
+
+      final File currentSelectedFile = callback.getCurrentSelection();
+      filesTreeView.getRoot().getChildren()
+         .stream()
+         .filter(item -> compareFilePaths(item.getValue(), currentSelectedFile))
+         .findFirst()
+         .ifPresent(item -> filesTreeView.getSelectionModel().select(item));
+
+      filesTreeView.refresh();
+   }
+
+   /**
+    * Select the top level row of the item. Expanded subdirectories are not
+    * searched, as type-ahead finds items of the current directory.
+    */
+   @Override
+   void select(final DirectoryListItem item) {
+      if (rootItems == null) {
+         pagedTable.select(pagedTable.getTableView().getItems().indexOf(item));
+         return;
+      }
+
+      filesTreeView.getRoot().getChildren()
+         .stream()
+         .filter(treeItem -> treeItem instanceof DirectoryTreeItem
+            && ((DirectoryTreeItem) treeItem).getListItem() == item)
+         .findFirst()
+         .ifPresent(treeItem -> {
+            filesTreeView.getSelectionModel().select(treeItem);
+            filesTreeView.scrollTo(filesTreeView.getRow(treeItem));
+         });
+   }
+
+   /**
+    * Reapply the sort order of the filesTreeView
+    */
+   private void restoreSortOrder() {
+      filesTreeView.getSortOrder().clear();
+      filesTreeView.getSortOrder().addAll(sortOrder);
+      sortOrder.get(0).setSortable(true); // This performs a sort
+   }
+
+   @Override
+   public void resort() {
+      if (!filesTreeView.getSortOrder().isEmpty() && filesTreeView.getScene() != null) {
+         filesTreeView.sort();
       }
    }
 
@@ -2,15 +2,12 @@ package com.chainstaysoftware.filechooser;
 
 import com.chainstaysoftware.filechooser.icons.Icons;
 import com.chainstaysoftware.filechooser.preview.PreviewPane;
-import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.SortedList;
-import javafx.concurrent.Service;
-import javafx.concurrent.Task;
 import javafx.event.EventHandler;
 import javafx.geometry.Pos;
 import javafx.scene.Cursor;
@@ -26,14 +23,10 @@ import javafx.scene.layout.Priority;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.concurrent.CountDownLatch;
-import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 /**
@@ -55,11 +48,14 @@ class ListFilesWithPreviewView extends AbstractFilesView {
    ListFilesWithPreviewView(final Stage parent,
                             final Map<String, Class<? extends PreviewPane>> previewHandlers,
                             final Icons icons,
+                            final PreviewPanePool previewPanePool,
+                            final PreviewPreloader previewPreloader,
                             final double dividerPosition,
                             final FilesViewCallback callback) {
-      super(parent);
+      super(parent, previewPanePool);
 
-      propertiesPreviewPane = new PropertiesPreviewPane(previewHandlers, icons);
+      propertiesPreviewPane = new PropertiesPreviewPane(previewHandlers, icons, previewPanePool,
+         previewPreloader);
       this.callback = callback;
 
       previewHbox = new HBox();
@@ -81,6 +77,9 @@ class ListFilesWithPreviewView extends AbstractFilesView {
       tableView.setOnKeyPressed(new KeyPressedHandler());
       tableView.getSelectionModel().selectedItemProperty().addListener(new SelectedItemChanged());
       tableView.setPlaceholder(new Label(""));
+      // The model sorts the items of a paged directory, following the order direction.
+      tableView.setSortPolicy(table -> isPaged() || TableView.DEFAULT_SORT_POLICY.call(table));
+      installTypeAhead(tableView);
       sortOrder = new LinkedList<>();
       sortOrder.add(nameColumn);
 
@@ -95,57 +94,77 @@ class ListFilesWithPreviewView extends AbstractFilesView {
       return splitPane;
    }
 
-   /**
-    * sets the files on the view.
-    * @param directoryStream Filtered stream of files to show in view.
-    * @param remainingDirectoryStream This stream contains the files not to
-    *                                 show in the view. But, may include
-    *                                 directories that should be shown in the
-    *                                 view but were filtered out in the directoryStream.
-    */
    @Override
-   public void setFiles(final DirectoryStream<Path> directoryStream,
-                        final DirectoryStream<Path> remainingDirectoryStream) {
-      saveSortOrder();
+   void attachItems(final DirectoryModel model) {
+      if (model.isPaged()) {
+         // Only name sort is supported.
+         callback.orderByProperty().setValue(OrderBy.Name);
+         tableView.setItems(model.getItems());
+         return;
+      }
 
-      final ObservableList<DirectoryListItem> directoryListItems = FXCollections.observableArrayList();
-      final SortedList<DirectoryListItem> items = directoryListItems.sorted();
-      items.comparatorProperty().bind(tableView.comparatorProperty());
-      tableView.setItems(items);
+      final SortedList<DirectoryListItem> sortedItems = model.getItems().sorted();
+      sortedItems.comparatorProperty().bind(tableView.comparatorProperty());
+      tableView.setItems(sortedItems);
+   }
 
-      // Update the TableView from Services so that the UI is not blocked on OS calls.
-      final UpdateDirectoryList updateDirectoryListService = new UpdateDirectoryList(directoryStream, remainingDirectoryStream, directoryListItems);
+   @Override
+   void detachItems(final DirectoryModel model) {
+      saveSortOrder();
+      tableView.setItems(FXCollections.observableArrayList());
+   }
 
-      final Predicate<File> shouldHideFile
-         = new ShowHiddenFilesPredicate(callback.showHiddenFilesProperty(), callback.shouldHideFilesProperty());
-      final FilterHiddenFromDirList filterListService = new FilterHiddenFromDirList(directoryListItems, shouldHideFile);
+   @Override
+   void updateStarted() {
+      saveSortOrder();
+      tableView.setCursor(Cursor.WAIT);
+   }
 
-      final SelectCurrentService selectCurrentService = new SelectCurrentService();
+   /**
+    * If there is a currently selected file, then update the TableView with
+    * the selection.
+    */
+   @Override
+   void updateFinished() {
+      tableView.setCursor(null);
+      restoreSortOrder();
+
+      final File currentSelectedFile = callback.getCurrentSelection();
+      if (isPaged()) {
+         final int index = getModel().indexOf(currentSelectedFile);
+         if (index != -1) {
+            tableView.getSelectionModel().select(index);
+         }
+         return;
+      }
 
-      filterListService.setOnSucceeded(event -> selectCurrentService.start());
+      tableView.getItems()
+         .stream()
+         .filter(item -> compareFilePaths(item.getFile(), currentSelectedFile))
+         .findFirst()
+         .ifPresent(item -> tableView.getSelectionModel().select(item));
+   }
 
-      updateDirectoryListService.setOnSucceeded(event -> {
-         filterListService.start();
-         tableView.setCursor(null);
-      });
-      updateDirectoryListService.setOnRunning(event -> tableView.setCursor(Cursor.WAIT));
-      setServiceFailureHandlers(updateDirectoryListService);
-      updateDirectoryListService.start();
+   @Override
+   public void resort() {
+      tableView.sort();
    }
 
    /**
-    * Sets up event handlers to reset wait icon when service fails or is cancelled.
+    * Selects by index, as selecting an item compares it with every item,
+    * which would create all of the items of a paged directory.
     */
-   private void setServiceFailureHandlers(final Service<Void> service) {
-      service.setOnCancelled(event -> {
-         logger.warning("Service cancelled - " + service.getClass().getCanonicalName());
-         tableView.setCursor(null);
-
-      });
-      service.setOnFailed(event -> {
-         logger.warning("Service failed - " + service.getClass().getCanonicalName());
-         tableView.setCursor(null);
-      });
+   @Override
+   void select(final DirectoryListItem item) {
+      final int index = tableView.getItems().indexOf(item);
+      if (index != -1) {
+         tableView.getSelectionModel().select(index);
+         tableView.scrollTo(index);
+      }
+   }
+
+   private boolean isPaged() {
+      return getModel() != null && getModel().isPaged();
    }
 
    /**
@@ -162,48 +181,13 @@ class ListFilesWithPreviewView extends AbstractFilesView {
    }
 
    /**
-    * If there is a currently selected file, then update the TableView with
-    * the selection.
+    * Reapply the sort order of the filesTreeView
     */
-   private class SelectCurrentService extends Service<Void> {
-
-      protected Task<Void> createTask() {
-         return new SelectTask();
-      }
-
-      private class SelectTask extends Task<Void> {
-         private final CountDownLatch latch = new CountDownLatch(1);
-
-         @Override
-         protected Void call() throws Exception {
-            Platform.runLater(() -> {
-               restoreSortOrder();
-
-               final File currentSelectedFile = callback.getCurrentSelection();
-               tableView.getItems()
-                  .stream()
-                  .filter(item -> compareFilePaths(item.getFile(), currentSelectedFile))
-                  .findFirst()
-                  .ifPresent(item -> tableView.getSelectionModel().select(item));
-
-               latch.countDown();
-            });
-
-            latch.await();
-
-            return null;
-         }
-
-         /**
-          * Reapply the sort order of the filesTreeView
-          */
-         private void restoreSortOrder() {
-            if (sortOrder != null) {
-               tableView.getSortOrder().clear();
-               tableView.getSortOrder().addAll(sortOrder);
-               sortOrder.get(0).setSortable(true); // This performs a sort
-            }
-         }
+   private void restoreSortOrder() {
+      if (sortOrder != null) {
+         tableView.getSortOrder().clear();
+         tableView.getSortOrder().addAll(sortOrder);
+         sortOrder.get(0).setSortable(true); // This performs a sort
       }
    }
 
@@ -251,30 +235,50 @@ class ListFilesWithPreviewView extends AbstractFilesView {
       }
    }
 
+   /**
+    * Updates the current selection and the preview. {@link PropertiesPreviewPane}
+    * debounces the preview load, so the listener does no file IO itself.
+    */
    private class SelectedItemChanged implements ChangeListener<DirectoryListItem> {
       @Override
       public void changed(ObservableValue<? extends DirectoryListItem> observable,
                           DirectoryListItem oldValue,
                           DirectoryListItem newValue) {
-         previewHbox.getChildren().clear();
+         final File newFile = newValue == null ? null : newValue.getFile();
 
-         File newFile = newValue == null ? null : newValue.getFile();
+         callback.setCurrentSelection(newFile);
 
-         ListFilesWithPreviewView.this.getNode().getScene().setCursor(Cursor.WAIT);
-         Platform.runLater(() -> {
-            callback.setCurrentSelection(newFile);
-            ListFilesWithPreviewView.this.getNode().getScene().setCursor(null);
-
-            if (newFile != null) {
-               preview(newFile);
-            }
-         });
-       }
+         if (newFile == null) {
+            previewHbox.getChildren().clear();
+         } else {
+            preview(newFile);
+         }
+      }
 
       private void preview(final File file) {
-         previewHbox.getChildren().setAll(propertiesPreviewPane.getPane());
-         propertiesPreviewPane.setFile(file);
-         HBox.setHgrow(propertiesPreviewPane.getPane(), Priority.ALWAYS);
+         if (previewHbox.getChildren().isEmpty()) {
+            previewHbox.getChildren().setAll(propertiesPreviewPane.getPane());
+            HBox.setHgrow(propertiesPreviewPane.getPane(), Priority.ALWAYS);
+         }
+
+         propertiesPreviewPane.setFile(file, getAdjacentFiles());
+      }
+
+      /**
+       * Files before and after the selection in the current sort order. The
+       * next file is first, as walking down the list is most common.
+       */
+      private List<File> getAdjacentFiles() {
+         final int index = tableView.getSelectionModel().getSelectedIndex();
+         final List<DirectoryListItem> items = tableView.getItems();
+         final List<File> files = new LinkedList<>();
+         if (index + 1 < items.size()) {
+            files.add(items.get(index + 1).getFile());
+         }
+         if (index > 0) {
+            files.add(items.get(index - 1).getFile());
+         }
+         return files;
       }
    }
 }
@@ -0,0 +1,136 @@
+package com.chainstaysoftware.filechooser;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Predicate on file names for the text typed into the name filter field. The
+ * text is compiled once, and the resulting predicate is evaluated for each
+ * name. Names are always matched case insensitively.
+ * <ul>
+ *    <li>/regex/ - the name contains a match of the regular expression.</li>
+ *    <li>Text with * or ? - the whole name matches the glob.</li>
+ *    <li>Any other text - the name contains the text.</li>
+ * </ul>
+ * Text with attribute terms, e.g. "size&gt;100MB ext:log", is an
+ * {@link AttributeQuery}, which is evaluated on the entries rather than
+ * their names. See {@link #test(EntryAttributes)}.
+ * <p>
+ * Instances are immutable and may be used from any thread.
+ */
+final class NameFilter implements Predicate<String> {
+   private final Predicate<String> predicate;
+   private final String literal;
+   // Null unless the text is an attribute query.
+   private final AttributeQuery query;
+
+   private NameFilter(final Predicate<String> predicate,
+                      final String literal) {
+      this(predicate, literal, null);
+   }
+
+   private NameFilter(final Predicate<String> predicate,
+                      final String literal,
+                      final AttributeQuery query) {
+      this.predicate = predicate;
+      this.literal = literal;
+      this.query = query;
+   }
+
+   /**
+    * Compile the passed in filter text.
+    * @throws java.util.regex.PatternSyntaxException if the text is a regex that
+    *                                                does not compile.
+    * @throws IllegalArgumentException if the text is an attribute query that
+    *                                  does not parse.
+    */
+   static NameFilter compile(final String text) {
+      if (AttributeQuery.isQuery(text)) {
+         // Names alone can not rule out an entry.
+         return new NameFilter(name -> true, null, AttributeQuery.parse(text));
+      }
+
+      return compileName(text);
+   }
+
+   /**
+    * Compile the passed in filter text as a name filter, even if it looks
+    * like an attribute query.
+    */
+   static NameFilter compileName(final String text) {
+      if (isRegex(text)) {
+         final Pattern pattern = Pattern.compile(text.substring(1, text.length() - 1),
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+         return new NameFilter(name -> pattern.matcher(name).find(), null);
+      }
+
+      if (isGlob(text)) {
+         final ExtensionFilterMatcher matcher
+            = new ExtensionFilterMatcher(Collections.singletonList(text), false);
+         return new NameFilter(matcher::matches, getLongestLiteral(text));
+      }
+
+      return new NameFilter(name -> StringUtils.containsIgnoreCase(name, text), text);
+   }
+
+   /**
+    * Determine if the name may match. Always true for an attribute query,
+    * whose terms need the entry. Use {@link #test(EntryAttributes)} where
+    * the entry is at hand.
+    */
+   @Override
+   public boolean test(final String name) {
+      return predicate.test(name);
+   }
+
+   /**
+    * Determine if the entry matches, on its name or, for an attribute query,
+    * on its attributes.
+    */
+   boolean test(final EntryAttributes item) {
+      return query == null
+         ? predicate.test(item.getName())
+         : query.test(item);
+   }
+
+   /**
+    * True if the text is an attribute query.
+    */
+   boolean isQuery() {
+      return query != null;
+   }
+
+   /**
+    * Text that every matching name contains, ignoring case, if known. Used to
+    * narrow the candidates with an index before testing them.
+    */
+   Optional<String> getLiteral() {
+      return Optional.ofNullable(literal);
+   }
+
+   /**
+    * Longest run of characters in the glob without wildcards.
+    */
+   private static String getLongestLiteral(final String glob) {
+      String longest = "";
+      for (String run : glob.split("[*?]")) {
+         if (run.length() > longest.length()) {
+            longest = run;
+         }
+      }
+
+      return longest;
+   }
+
+   private static boolean isRegex(final String text) {
+      return text.length() > 1 && text.startsWith("/") && text.endsWith("/");
+   }
+
+   private static boolean isGlob(final String text) {
+      return text.indexOf('*') != -1 || text.indexOf('?') != -1;
+   }
+}
@@ -0,0 +1,152 @@
+package com.chainstaysoftware.filechooser;
+
+import com.chainstaysoftware.filechooser.icons.Icons;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import org.apache.commons.io.FileUtils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ResourceBundle;
+import java.util.function.LongFunction;
+
+/**
+ * Table of the {@link PagedItems} of a very large directory, shown by
+ * {@link ListFilesView} in place of its tree, which would hold a TreeItem
+ * for every entry. Subdirectories are opened rather than expanded. Clicking
+ * a column header sets the order of the {@link FilesViewCallback}, that the
+ * {@link DirectoryModel} sorts the items in, so the table does not sort.
+ */
+class PagedFilesTable {
+   private static final int DATE_MODIFIED_COL_PREF_WIDTH = 175;
+   private static final int SIZE_COLUMN_PREF_WIDTH = 100;
+
+   private final TableView<DirectoryListItem> tableView = new TableView<>();
+   private final TableColumn<DirectoryListItem, DirectoryListItem> nameColumn;
+   private final TableColumn<DirectoryListItem, Long> dateModifiedColumn;
+   private final TableColumn<DirectoryListItem, Long> sizeColumn;
+   private final FilesViewCallback callback;
+
+   PagedFilesTable(final Icons icons,
+                   final FilesViewCallback callback) {
+      this.callback = callback;
+
+      final ResourceBundle resourceBundle = ResourceBundle.getBundle("filechooser");
+      final DateTimeFormatter dateFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+
+      nameColumn = new TableColumn<>(resourceBundle.getString("listfilesview.name"));
+      nameColumn.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
+      nameColumn.setCellFactory(new DirListNameColumnCellFactory(true, callback, icons));
+      nameColumn.prefWidthProperty().bind(tableView.widthProperty()
+         .subtract(DATE_MODIFIED_COL_PREF_WIDTH)
+         .subtract(SIZE_COLUMN_PREF_WIDTH));
+
+      dateModifiedColumn = new TableColumn<>(resourceBundle.getString("listfilesview.datemodified"));
+      dateModifiedColumn.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue().lastModified()));
+      dateModifiedColumn.setCellFactory(param -> new FormattedCell(lastModified ->
+         dateFormatter.format(Instant.ofEpochMilli(lastModified).atZone(ZoneId.systemDefault()))));
+      dateModifiedColumn.setPrefWidth(DATE_MODIFIED_COL_PREF_WIDTH);
+
+      // Directory sizes are not computed for large directories.
+      sizeColumn = new TableColumn<>(resourceBundle.getString("listfilesview.size"));
+      sizeColumn.setCellValueFactory(param ->
+         new ReadOnlyObjectWrapper<>(param.getValue().isDirectory() ? null : param.getValue().length()));
+      sizeColumn.setCellFactory(param -> new FormattedCell(FileUtils::byteCountToDisplaySize));
+      sizeColumn.setPrefWidth(SIZE_COLUMN_PREF_WIDTH);
+
+      tableView.getColumns().setAll(Arrays.asList(nameColumn, dateModifiedColumn, sizeColumn));
+      tableView.setPlaceholder(new Label(""));
+      tableView.setSortPolicy(table -> {
+         setOrder();
+         return true;
+      });
+      tableView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) ->
+         callback.setCurrentSelection(newValue == null ? null : newValue.getFile()));
+   }
+
+   Node getNode() {
+      return tableView;
+   }
+
+   /**
+    * Show the passed in items, with the column sorted on matching the order
+    * of the {@link FilesViewCallback}.
+    */
+   void setItems(final ObservableList<DirectoryListItem> items) {
+      final TableColumn<DirectoryListItem, ?> column = orderByToColumn(callback.orderByProperty().get());
+      column.setSortType(OrderDirection.Descending.equals(callback.orderDirectionProperty().get())
+         ? TableColumn.SortType.DESCENDING
+         : TableColumn.SortType.ASCENDING);
+      tableView.getSortOrder().setAll(Collections.singletonList(column));
+      tableView.setItems(items);
+   }
+
+   void clear() {
+      tableView.setItems(FXCollections.observableArrayList());
+   }
+
+   void select(final int index) {
+      if (index != -1) {
+         tableView.getSelectionModel().select(index);
+         tableView.scrollTo(index);
+      }
+   }
+
+   TableView<DirectoryListItem> getTableView() {
+      return tableView;
+   }
+
+   private void setOrder() {
+      if (tableView.getSortOrder().isEmpty()) {
+         return;
+      }
+
+      final TableColumn<DirectoryListItem, ?> column = tableView.getSortOrder().get(0);
+      callback.orderByProperty().setValue(column == dateModifiedColumn
+         ? OrderBy.ModificationDate
+         : column == sizeColumn ? OrderBy.Size : OrderBy.Name);
+      callback.orderDirectionProperty().setValue(TableColumn.SortType.DESCENDING.equals(column.getSortType())
+         ? OrderDirection.Descending
+         : OrderDirection.Ascending);
+   }
+
+   private TableColumn<DirectoryListItem, ?> orderByToColumn(final OrderBy orderBy) {
+      if (OrderBy.ModificationDate.equals(orderBy)) {
+         return dateModifiedColumn;
+      }
+
+      if (OrderBy.Size.equals(orderBy)) {
+         return sizeColumn;
+      }
+
+      return nameColumn;
+   }
+
+   /**
+    * Shows a long value as text.
+    */
+   private static class FormattedCell extends TableCell<DirectoryListItem, Long> {
+      private final LongFunction<String> format;
+
+      FormattedCell(final LongFunction<String> format) {
+         this.format = format;
+      }
+
+      @Override
+      protected void updateItem(final Long item,
+                                final boolean empty) {
+         super.updateItem(item, empty);
+         setText(empty || item == null ? "" : format.apply(item));
+      }
+   }
+}
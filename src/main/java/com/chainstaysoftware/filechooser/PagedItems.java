@@ -0,0 +1,272 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Items of a very large directory, in display order. The list holds the
+ * indexes of the entries of a {@link DirectoryEntries} that pass the filters,
+ * in sorted order. Items are created a page at a time when a row of the page
+ * is read, which the virtualized cells of the views only do for the rows
+ * shown, and the most recently read pages are kept so that an item stays
+ * the same object while it is shown.
+ * <p>
+ * The indexes are only replaced on the JavaFx thread. Items may be read from
+ * any thread.
+ */
+final class PagedItems extends ObservableListBase<DirectoryListItem> {
+   private static final int PAGE_SIZE = 256;
+   private static final int MAX_PAGES = 64;
+
+   private Window window = new Window(null, new int[0], 0, new int[0]);
+
+   @Override
+   public DirectoryListItem get(final int index) {
+      return getWindow().get(index);
+   }
+
+   @Override
+   public int size() {
+      return getWindow().size();
+   }
+
+   /**
+    * Only looks for the passed in item among the items created, as items not
+    * created yet cannot be the same object.
+    */
+   @Override
+   public int indexOf(final Object o) {
+      return getWindow().indexOf(o);
+   }
+
+   @Override
+   public int lastIndexOf(final Object o) {
+      return indexOf(o);
+   }
+
+   @Override
+   public boolean contains(final Object o) {
+      return indexOf(o) >= 0;
+   }
+
+   /**
+    * Replace the items with the passed in entries, in the order of the passed
+    * in indexes.
+    * @param entries Entries of the directory.
+    * @param order Indexes of the entries to show, in display order.
+    * @param size Number of indexes used.
+    * @param nameIndex Index for {@link #find(String)}, from
+    *                  {@link #createNameIndex(DirectoryEntries, int[], int)}.
+    */
+   void setAll(final DirectoryEntries entries,
+               final int[] order,
+               final int size,
+               final int[] nameIndex) {
+      replace(new Window(entries, order, size, nameIndex));
+   }
+
+   /**
+    * Remove all items.
+    */
+   void reset() {
+      replace(new Window(null, new int[0], 0, new int[0]));
+   }
+
+   /**
+    * Index of the item for the file with the passed in name, or -1. Searches
+    * the names of the entries, without creating items.
+    */
+   int indexOfName(final String name) {
+      final Window current = getWindow();
+      for (int i = 0; i < current.size; i++) {
+         if (current.entries.getName(current.order[i]).equals(name)) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * First item, ordered by case insensitive name, whose name starts with the
+    * passed in text, ignoring case, as {@link PrefixIndex#find(String)}. A
+    * binary search of the name index, so O(log n) in the number of items.
+    */
+   Optional<DirectoryListItem> find(final String text) {
+      if (text.isEmpty()) {
+         return Optional.empty();
+      }
+
+      final String prefix = toLowerCase(text);
+      final Window current = getWindow();
+      int low = 0;
+      int high = current.nameIndex.length;
+      while (low < high) {
+         final int middle = (low + high) >>> 1;
+         if (toLowerCase(current.getName(current.nameIndex[middle])).compareTo(prefix) < 0) {
+            low = middle + 1;
+         } else {
+            high = middle;
+         }
+      }
+
+      return low < current.nameIndex.length
+         && toLowerCase(current.getName(current.nameIndex[low])).startsWith(prefix)
+         ? Optional.of(current.get(current.nameIndex[low]))
+         : Optional.empty();
+   }
+
+   /**
+    * Create the index for {@link #find(String)} of the passed in items: their
+    * positions in display order, sorted by case insensitive name. Sorts all
+    * of the names, so call it off of the JavaFx thread.
+    * @param entries Entries of the directory.
+    * @param order Indexes of the entries to show, in display order.
+    * @param size Number of indexes used.
+    */
+   static int[] createNameIndex(final DirectoryEntries entries,
+                                final int[] order,
+                                final int size) {
+      final String[] lowerCaseNames = new String[size];
+      IntStream.range(0, size)
+         .parallel()
+         .forEach(position -> lowerCaseNames[position] = toLowerCase(entries.getName(order[position])));
+
+      // Names differing only in case are ordered by name, as in a PrefixIndex.
+      final int[] nameIndex = IntStream.range(0, size).toArray();
+      DirectoryEntries.sort(nameIndex, size, (p1, p2) -> {
+         final int result = lowerCaseNames[p1].compareTo(lowerCaseNames[p2]);
+         return result == 0 ? entries.getName(order[p1]).compareTo(entries.getName(order[p2])) : result;
+      });
+      return nameIndex;
+   }
+
+   /**
+    * Aggregator of the disk usage of the items, that reads the entries
+    * without creating their items.
+    */
+   UsageAggregator createUsageAggregator() {
+      final Window current = getWindow();
+      return current.entries == null
+         ? new UsageAggregator(current)
+         : new UsageAggregator(current.entries, current.order, current.size);
+   }
+
+   private static String toLowerCase(final String str) {
+      return str.toLowerCase(Locale.ROOT);
+   }
+
+   private synchronized Window getWindow() {
+      return window;
+   }
+
+   private void replace(final Window replacement) {
+      final Window removed;
+      synchronized (this) {
+         removed = window;
+         window = replacement;
+      }
+
+      if (removed.size == 0 && replacement.size == 0) {
+         return;
+      }
+
+      beginChange();
+      if (removed.size > 0) {
+         nextRemove(0, removed);
+      }
+      if (replacement.size > 0) {
+         nextAdd(0, replacement.size);
+      }
+      endChange();
+   }
+
+   /**
+    * One set of indexes, and the pages of items created for them. Also the
+    * list of removed items of a change, so that listeners looking for an
+    * item among them do not create the items.
+    */
+   private static class Window extends AbstractList<DirectoryListItem> {
+      private final DirectoryEntries entries;
+      private final int[] order;
+      private final int size;
+      // Positions of the items, sorted by case insensitive name.
+      private final int[] nameIndex;
+      // Pages of items, by page number. The least recently read page is dropped first.
+      private final Map<Integer, DirectoryListItem[]> pages
+         = new LinkedHashMap<Integer, DirectoryListItem[]>(MAX_PAGES, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, DirectoryListItem[]> eldest) {
+               return size() > MAX_PAGES;
+            }
+         };
+
+      Window(final DirectoryEntries entries,
+             final int[] order,
+             final int size,
+             final int[] nameIndex) {
+         this.entries = entries;
+         this.order = order;
+         this.size = size;
+         this.nameIndex = nameIndex;
+      }
+
+      String getName(final int position) {
+         return entries.getName(order[position]);
+      }
+
+      @Override
+      public synchronized DirectoryListItem get(final int index) {
+         if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+         }
+
+         final int pageNumber = index / PAGE_SIZE;
+         DirectoryListItem[] page = pages.get(pageNumber);
+         if (page == null) {
+            final int start = pageNumber * PAGE_SIZE;
+            page = new DirectoryListItem[Math.min(PAGE_SIZE, size - start)];
+            for (int i = 0; i < page.length; i++) {
+               page[i] = entries.createItem(order[start + i]);
+            }
+            pages.put(pageNumber, page);
+         }
+         return page[index % PAGE_SIZE];
+      }
+
+      @Override
+      public int size() {
+         return size;
+      }
+
+      @Override
+      public synchronized int indexOf(final Object o) {
+         for (Map.Entry<Integer, DirectoryListItem[]> entry : pages.entrySet()) {
+            final DirectoryListItem[] page = entry.getValue();
+            for (int i = 0; i < page.length; i++) {
+               if (page[i] == o) {
+                  return entry.getKey() * PAGE_SIZE + i;
+               }
+            }
+         }
+         return -1;
+      }
+
+      @Override
+      public int lastIndexOf(final Object o) {
+         return indexOf(o);
+      }
+
+      @Override
+      public boolean contains(final Object o) {
+         return indexOf(o) >= 0;
+      }
+   }
+}
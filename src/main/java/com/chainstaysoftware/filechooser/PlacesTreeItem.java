@@ -14,15 +14,49 @@ class PlacesTreeItem {
    private final Optional<File> file;
    private final Image icon;
    private final boolean isFavorite;
+   private final boolean isStale;
+   private final Optional<StoreSpace> space;
 
    public PlacesTreeItem(final Optional<String> text,
                          final Optional<File> file,
                          final Image icon,
                          final boolean isFavorite) {
+      this(text, file, icon, isFavorite, false, Optional.empty());
+   }
+
+   private PlacesTreeItem(final Optional<String> text,
+                          final Optional<File> file,
+                          final Image icon,
+                          final boolean isFavorite,
+                          final boolean isStale,
+                          final Optional<StoreSpace> space) {
       this.text = text;
       this.file = file;
       this.icon = icon;
       this.isFavorite = isFavorite;
+      this.isStale = isStale;
+      this.space = space;
+   }
+
+   /**
+    * Copy of this item with the display name resolved from the file system.
+    */
+   public PlacesTreeItem resolved(final String displayName) {
+      return new PlacesTreeItem(Optional.of(displayName), file, icon, isFavorite, false, space);
+   }
+
+   /**
+    * Copy of this item marked as not responding.
+    */
+   public PlacesTreeItem stale() {
+      return new PlacesTreeItem(text, file, icon, isFavorite, true, space);
+   }
+
+   /**
+    * Copy of this item with the capacity and free space of its file store.
+    */
+   public PlacesTreeItem withSpace(final StoreSpace storeSpace) {
+      return new PlacesTreeItem(text, file, icon, isFavorite, isStale, Optional.of(storeSpace));
    }
 
    public Optional<String> getText() {
@@ -41,6 +75,20 @@ class PlacesTreeItem {
       return isFavorite;
    }
 
+   /**
+    * True if the file system of the item did not respond in time.
+    */
+   public boolean isStale() {
+      return isStale;
+   }
+
+   /**
+    * Capacity and free space of the file store of the item, if known.
+    */
+   public Optional<StoreSpace> getSpace() {
+      return space;
+   }
+
    @Override
    public String toString() {
       return "PlacesTreeItem{" +
@@ -48,6 +96,8 @@ class PlacesTreeItem {
             ", file=" + file +
             ", icon=" + icon +
             ", isFavorite=" + isFavorite +
+            ", isStale=" + isStale +
+            ", space=" + space +
             '}';
    }
 }
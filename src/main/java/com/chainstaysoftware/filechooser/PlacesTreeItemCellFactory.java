@@ -4,6 +4,7 @@ import com.chainstaysoftware.filechooser.icons.IconsImpl;
 import javafx.collections.ObservableList;
 import javafx.event.EventHandler;
 import javafx.scene.SnapshotParameters;
+import javafx.scene.control.Tooltip;
 import javafx.scene.control.TreeCell;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
@@ -16,13 +17,15 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.input.TransferMode;
 import javafx.scene.paint.Color;
 import javafx.util.Callback;
+import org.apache.commons.io.FileUtils;
 
-import javax.swing.filechooser.FileSystemView;
 import java.io.File;
+import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.ResourceBundle;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +33,10 @@ import java.util.stream.Collectors;
  * {@link TreeView}
  */
 public class PlacesTreeItemCellFactory implements Callback<TreeView<PlacesTreeItem>, TreeCell<PlacesTreeItem>> {
+   private static final String STALE_STYLE_CLASS = "places-stale";
+   private static final double STALE_ICON_OPACITY = 0.4;
+
+   private final ResourceBundle resourceBundle = ResourceBundle.getBundle("filechooser");
    private final ObservableList<File> favoriteDirs;
 
    public PlacesTreeItemCellFactory(final ObservableList<File> favoriteDirs) {
@@ -50,10 +57,17 @@ public class PlacesTreeItemCellFactory implements Callback<TreeView<PlacesTreeIt
          setOnDragDropped(new DragDroppedHandler());
       }
 
+      /**
+       * Note that the display name of file items is resolved off of the JavaFx
+       * thread by {@link PlacesView}, as it may hang on unreachable network mounts.
+       */
       @Override
       protected void updateItem(PlacesTreeItem item, boolean empty) {
          super.updateItem(item, empty);
 
+         getStyleClass().remove(STALE_STYLE_CLASS);
+         setTooltip(null);
+
          if (empty || item == null) {
             setText(null);
             setGraphic(null);
@@ -62,9 +76,18 @@ public class PlacesTreeItemCellFactory implements Callback<TreeView<PlacesTreeIt
             setGraphic(toGraphic(item.getIcon()));
          } else {
             final File file = item.getFile().orElseThrow(IllegalStateException::new);
-            final String systemDisplayName = FileSystemView.getFileSystemView().getSystemDisplayName(file);
-            setText("".equals(systemDisplayName) ? file.toString() : systemDisplayName);
+            setText(item.getText().orElse(file.toString()));
             setGraphic(toGraphic(item.getIcon()));
+
+            if (item.isStale()) {
+               getStyleClass().add(STALE_STYLE_CLASS);
+               if (getGraphic() != null) {
+                  getGraphic().setOpacity(STALE_ICON_OPACITY);
+               }
+               setTooltip(new Tooltip(resourceBundle.getString("placeslist.stale")));
+            } else {
+               item.getSpace().ifPresent(space -> setTooltip(new Tooltip(toSpaceText(space))));
+            }
          }
       }
 
@@ -227,6 +250,16 @@ public class PlacesTreeItemCellFactory implements Callback<TreeView<PlacesTreeIt
          }
       }
 
+      /**
+       * Format the capacity and free space of a file store for display.
+       */
+      private String toSpaceText(final StoreSpace space) {
+         return MessageFormat.format(resourceBundle.getString("placeslist.space"),
+            FileUtils.byteCountToDisplaySize(space.getUsableSpace()),
+            FileUtils.byteCountToDisplaySize(space.getTotalSpace()),
+            Math.round(space.getUsedFraction() * 100));
+      }
+
       /**
        * Create an {@link ImageView} from an {@link Image}
        */
@@ -5,24 +5,56 @@ import com.chainstaysoftware.filechooser.icons.IconsImpl;
 import com.chainstaysoftware.filechooser.os.Place;
 import com.chainstaysoftware.filechooser.os.PlaceType;
 import com.chainstaysoftware.filechooser.os.Places;
+import javafx.application.Platform;
 import javafx.beans.Observable;
 import javafx.scene.control.TitledPane;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
 import javafx.scene.image.Image;
 
+import javax.swing.filechooser.FileSystemView;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
  * Places - JavaFx node creation and logic.
  */
 class PlacesView {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.PlacesView");
+
+   // Time to wait for a place to respond before marking it as stale.
+   private static final long RESOLVE_TIMEOUT_MS = 3000;
+   // Time to wait for a place to respond when navigating to it, before giving up.
+   private static final long NAVIGATE_TIMEOUT_MS = 2000;
+
+   // Threads resolving places, so that a hung mount does not delay resolving the other places.
+   private static final int RESOLVE_THREADS = 4;
+
+   // Bounded, as resolving a place on a hung mount keeps its thread until the mount responds.
+   private static final ExecutorService executor
+      = Executors.newFixedThreadPool(RESOLVE_THREADS, new DaemonThreadFactory());
+   private static final ScheduledExecutorService timeoutScheduler
+      = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+   // Places being resolved, so that refreshing the places does not resolve a hung place again.
+   private static final InFlightLoads<File, Optional<String>> displayNameLoads
+      = new InFlightLoads<>(executor, timeoutScheduler, RESOLVE_TIMEOUT_MS);
+
    private static final Map<PlaceType, String> placeToIcon = new EnumMap<>(PlaceType.class);
    static {
       placeToIcon.put(PlaceType.Cd, IconsImpl.CD_64);
@@ -42,6 +74,16 @@ class PlacesView {
    private final TreeView<PlacesTreeItem> placesTreeView;
    private final TreeItem<PlacesTreeItem> defaultPlacesNode;
    private final TreeItem<PlacesTreeItem> favoritesPlacesNode;
+   private final Places places = new Places();
+   // TreeItems of the current default places, in display order.
+   private final Map<Place, TreeItem<PlacesTreeItem>> placeItems = new LinkedHashMap<>();
+   private final Runnable mountsChangedListener = this::mountsChanged;
+   private final StoreSpaceRefresher storeSpaceRefresher = new StoreSpaceRefresher();
+
+   private TreeItem<PlacesTreeItem> homeItem;
+   // Incremented on each navigation request, so that a slow reachability check
+   // for an earlier click does not change the directory.
+   private int navigation;
 
    PlacesView(final FilesViewCallback callback,
               final Icons icons) {
@@ -53,7 +95,7 @@ class PlacesView {
       placesTreeView = createPlacesView();
       placesPane = createPlacesPane(placesTreeView);
 
-      this.callback.favoriteDirsProperty().addListener((Observable o) -> updatePlaces());
+      this.callback.favoriteDirsProperty().addListener((Observable o) -> updateFavorites());
    }
 
    TitledPane toPane() {
@@ -120,7 +162,7 @@ class PlacesView {
          }
 
          final File currentDir = selectedItem.getValue().getFile().get();
-         callback.requestChangeDirectory(currentDir);
+         navigate(selectedItem, currentDir);
 
          callback.disableRemoveFavoritieButton(!callback.favoriteDirsProperty().contains(currentDir));
       });
@@ -129,37 +171,210 @@ class PlacesView {
    }
 
    /**
-    * Update the Places View with drives, home dir and favorites.
+    * Change to the directory of the passed in item once it is known to be
+    * reachable. The reachability check runs off of the JavaFx thread, so that
+    * an unreachable mount does not block the dialog. If the directory is
+    * unreachable, or does not respond within {@link #NAVIGATE_TIMEOUT_MS}, then
+    * the directory is not changed and the item is marked as stale. A stale item
+    * that has become reachable again is resolved again.
+    */
+   private void navigate(final TreeItem<PlacesTreeItem> item,
+                         final File directory) {
+      final int request = ++navigation;
+      DirectoryReachability.check(directory, NAVIGATE_TIMEOUT_MS)
+         .thenAccept(reachable -> Platform.runLater(() -> {
+            if (request != navigation) {
+               return;
+            }
+
+            if (reachable) {
+               if (item.getValue().isStale()) {
+                  resolve(item);
+               }
+               callback.requestChangeDirectory(directory);
+            } else {
+               logger.log(Level.INFO, "Not changing to unreachable directory - " + directory);
+               item.setValue(item.getValue().stale());
+            }
+         }));
+   }
+
+   /**
+    * Update the Places View with drives, home dir and favorites. The view
+    * then follows mounts and unmounts until {@link #stopWatching()} is called.
+    * The list of places and the display name of each place are retrieved off of
+    * the JavaFx thread, so that unreachable mounts do not block the dialog.
     */
    void updatePlaces() {
       final TreeItem<PlacesTreeItem> rootNode = placesTreeView.getRoot();
-      rootNode.getChildren().clear();
-      rootNode.getChildren().add(defaultPlacesNode);
+      rootNode.getChildren().setAll(Collections.singletonList(defaultPlacesNode));
 
+      final String homeDirStr = System.getProperty("user.home");
+      homeItem = homeDirStr == null
+         ? null
+         : new TreeItem<>(new PlacesTreeItem(Optional.empty(),
+               Optional.of(new File(homeDirStr)), icons.getIcon(IconsImpl.USER_HOME_64), false), null);
+      if (homeItem != null) {
+         resolve(homeItem);
+      }
+
+      storeSpaceRefresher.stop();
+      placeItems.clear();
       defaultPlacesNode.getChildren().clear();
-      favoritesPlacesNode.getChildren().clear();
+      setDefaultPlaces(Collections.emptyList());
 
-      final List<Place> defaultPlaces = new Places().getDefaultPlaces(callback.showMountPointsProperty().get());
-      defaultPlaces.forEach(place ->
-            defaultPlacesNode.getChildren().add(new TreeItem<>(new PlacesTreeItem(Optional.empty(),
-                  Optional.of(place.getPath()), toIcon(place), false), null)));
+      refreshDefaultPlaces();
+      updateFavorites();
 
-      final String homeDirStr = System.getProperty("user.home");
-      if (homeDirStr != null) {
-         defaultPlacesNode.getChildren().add(new TreeItem<>(new PlacesTreeItem(Optional.empty(),
-               Optional.of(new File(homeDirStr)), icons.getIcon(IconsImpl.USER_HOME_64), false), null));
+      // Mounts are only followed while they are shown.
+      places.removeListener(mountsChangedListener);
+      if (callback.showMountPointsProperty().get()) {
+         places.addListener(mountsChangedListener);
       }
 
-      if (!callback.favoriteDirsProperty().isEmpty()) {
+      callback.disableAddFavoriteButton(true);
+      callback.disableRemoveFavoritieButton(true);
+   }
+
+   /**
+    * Stop following mounts and unmounts, and stop refreshing the free space of places.
+    */
+   void stopWatching() {
+      places.removeListener(mountsChangedListener);
+      storeSpaceRefresher.stop();
+   }
+
+   /**
+    * Called on a background thread when the mount points may have changed.
+    */
+   private void mountsChanged() {
+      Platform.runLater(this::refreshDefaultPlaces);
+   }
+
+   /**
+    * Retrieve the default places off of the JavaFx thread, and then update
+    * the default places node. Called on the JavaFx thread.
+    */
+   private void refreshDefaultPlaces() {
+      final boolean showMountPoints = callback.showMountPointsProperty().get();
+      CompletableFuture.supplyAsync(() -> places.getDefaultPlaces(showMountPoints), executor)
+         .whenComplete((defaultPlaces, throwable) -> {
+            if (throwable != null) {
+               logger.log(Level.WARNING, "Error retrieving places", throwable);
+               return;
+            }
+
+            Platform.runLater(() -> setDefaultPlaces(defaultPlaces));
+         });
+   }
+
+   /**
+    * Update the default places node to show the passed in places followed by
+    * the home dir. Only the TreeItems for places that were added or removed are
+    * changed. The TreeItems for unchanged places are kept.
+    */
+   private void setDefaultPlaces(final List<Place> defaultPlaces) {
+      placeItems.keySet().stream()
+         .filter(place -> !defaultPlaces.contains(place))
+         .forEach(place -> storeSpaceRefresher.unwatch(place.getPath()));
+
+      final Map<Place, TreeItem<PlacesTreeItem>> updatedItems = new LinkedHashMap<>();
+      defaultPlaces.forEach(place -> {
+         final TreeItem<PlacesTreeItem> existing = placeItems.get(place);
+         if (existing != null) {
+            updatedItems.put(place, existing);
+         } else {
+            final TreeItem<PlacesTreeItem> item = new TreeItem<>(new PlacesTreeItem(Optional.empty(),
+               Optional.of(place.getPath()), toIcon(place), false), null);
+            resolve(item);
+            storeSpaceRefresher.watch(place.getPath(), PlaceType.Network.equals(place.getType()),
+               space -> item.setValue(item.getValue().withSpace(space)));
+            updatedItems.put(place, item);
+         }
+      });
+
+      final List<TreeItem<PlacesTreeItem>> updated = new ArrayList<>(updatedItems.values());
+      if (homeItem != null) {
+         updated.add(homeItem);
+      }
+
+      placeItems.clear();
+      placeItems.putAll(updatedItems);
+
+      final List<TreeItem<PlacesTreeItem>> children = defaultPlacesNode.getChildren();
+      children.retainAll(updated);
+      for (int i = 0; i < updated.size(); i++) {
+         if (i >= children.size() || children.get(i) != updated.get(i)) {
+            children.add(i, updated.get(i));
+         }
+      }
+   }
+
+   /**
+    * Rebuild the favorites node from the favoriteDirs property.
+    */
+   private void updateFavorites() {
+      final TreeItem<PlacesTreeItem> rootNode = placesTreeView.getRoot();
+      favoritesPlacesNode.getChildren().clear();
+
+      if (callback.favoriteDirsProperty().isEmpty()) {
+         rootNode.getChildren().remove(favoritesPlacesNode);
+         return;
+      }
+
+      if (!rootNode.getChildren().contains(favoritesPlacesNode)) {
          rootNode.getChildren().add(favoritesPlacesNode);
+      }
 
-         callback.favoriteDirsProperty().forEach(file ->
-               favoritesPlacesNode.getChildren().add(new TreeItem<>(new PlacesTreeItem(Optional.empty(),
-                     Optional.of(file), icons.getIcon(IconsImpl.FOLDER_64), true), null)));
+      callback.favoriteDirsProperty().forEach(file -> {
+         final TreeItem<PlacesTreeItem> item = new TreeItem<>(new PlacesTreeItem(Optional.empty(),
+               Optional.of(file), icons.getIcon(IconsImpl.FOLDER_64), true), null);
+         resolve(item);
+         favoritesPlacesNode.getChildren().add(item);
+      });
+   }
+
+   /**
+    * Resolve the display name of the item's file off of the JavaFx thread. Until
+    * resolved the path is displayed. If the file system does not respond within
+    * {@link #RESOLVE_TIMEOUT_MS}, then the item is marked as stale. A stale item
+    * is still updated if the file system responds later. A place still being
+    * resolved, e.g. on a hung mount, is waited on rather than resolved again.
+    */
+   private void resolve(final TreeItem<PlacesTreeItem> item) {
+      final File file = item.getValue().getFile().orElseThrow(IllegalStateException::new);
+
+      final CompletableFuture<Optional<String>> future = displayNameLoads.start(file, PlacesView::getDisplayName);
+
+      final ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> Platform.runLater(() -> {
+         if (!future.isDone()) {
+            logger.log(Level.INFO, "Place not responding - " + file);
+            item.setValue(item.getValue().stale());
+         }
+      }), RESOLVE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+      future.whenComplete((displayName, throwable) -> {
+         timeout.cancel(false);
+         Platform.runLater(() -> item.setValue(displayName != null && displayName.isPresent()
+            ? item.getValue().resolved(displayName.get())
+            : item.getValue().stale()));
+      });
+   }
+
+   /**
+    * Retrieve the name to display for the file. This may block on unreachable
+    * file systems. The reachability of the file is cached by
+    * {@link DirectoryReachability}, so that navigating to the place does not
+    * check it again.
+    * @return the display name, or empty if the file is not reachable.
+    */
+   private static Optional<String> getDisplayName(final File file) {
+      if (!DirectoryReachability.probe(file)) {
+         return Optional.empty();
       }
 
-      callback.disableAddFavoriteButton(true);
-      callback.disableRemoveFavoritieButton(true);
+      final String systemDisplayName = FileSystemView.getFileSystemView().getSystemDisplayName(file);
+      return Optional.of("".equals(systemDisplayName) ? file.toString() : systemDisplayName);
    }
 
    /**
@@ -0,0 +1,97 @@
+package com.chainstaysoftware.filechooser;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Index of {@link DirectoryListItem} sorted on the case insensitive file name,
+ * used for type-ahead find. Items can be added as a directory is read, and a
+ * prefix lookup is O(log n). If no name starts with the typed text, the
+ * first name that contains the typed characters in order is returned instead.
+ * <p>
+ * Not thread safe.
+ */
+final class PrefixIndex {
+   private final NavigableMap<String, DirectoryListItem> index = new TreeMap<>();
+
+   void add(final DirectoryListItem item) {
+      final String name = item.getFile().getName();
+      // The name is appended so that names differing only in case have different keys.
+      index.put(toLowerCase(name) + '\0' + name, item);
+   }
+
+   void addAll(final Collection<DirectoryListItem> items) {
+      items.forEach(this::add);
+   }
+
+   void clear() {
+      index.clear();
+   }
+
+   int size() {
+      return index.size();
+   }
+
+   /**
+    * Find the first item, ordered by case insensitive name, whose name starts
+    * with the passed in text. Or, if there is none, the first item whose name
+    * contains the characters of the text in order.
+    * @param text Typed text. Matched case insensitively.
+    */
+   Optional<DirectoryListItem> find(final String text) {
+      return find(text, item -> true);
+   }
+
+   /**
+    * Same as {@link #find(String)}, but only items accepted by the passed in
+    * predicate are returned, e.g. to skip items hidden by a filter.
+    */
+   Optional<DirectoryListItem> find(final String text,
+                                    final Predicate<DirectoryListItem> accept) {
+      if (text.isEmpty()) {
+         return Optional.empty();
+      }
+
+      final String prefix = toLowerCase(text);
+      for (Map.Entry<String, DirectoryListItem> entry : index.tailMap(prefix, true).entrySet()) {
+         if (!entry.getKey().startsWith(prefix)) {
+            break;
+         }
+
+         if (accept.test(entry.getValue())) {
+            return Optional.of(entry.getValue());
+         }
+      }
+
+      return index.entrySet().stream()
+         .filter(e -> isSubsequence(prefix, e.getKey()))
+         .map(Map.Entry::getValue)
+         .filter(accept)
+         .findFirst();
+   }
+
+   /**
+    * True if the characters of text appear in order in the name part of the key.
+    */
+   private static boolean isSubsequence(final String text,
+                                        final String key) {
+      final int end = key.indexOf('\0');
+      int t = 0;
+      for (int k = 0; k < end && t < text.length(); k++) {
+         if (key.charAt(k) == text.charAt(t)) {
+            t++;
+         }
+      }
+
+      return t == text.length();
+   }
+
+   private static String toLowerCase(final String str) {
+      return str.toLowerCase(Locale.ROOT);
+   }
+}
@@ -0,0 +1,61 @@
+package com.chainstaysoftware.filechooser;
+
+import com.chainstaysoftware.filechooser.preview.PreviewPane;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Pool of {@link PreviewPane} instances, keyed on the {@link PreviewPane} class.
+ * Reusing instances avoids rebuilding the preview scene graph each time the
+ * previewed file changes. This class is not thread safe and must only be used
+ * from the JavaFx thread.
+ */
+final class PreviewPanePool {
+   // Number of idle instances to keep per PreviewPane class.
+   private static final int MAX_IDLE_PER_CLASS = 2;
+
+   private final Map<Class<? extends PreviewPane>, Deque<PreviewPane>> idle = new HashMap<>();
+
+   /**
+    * Retrieve an idle {@link PreviewPane} of the passed in class. If there are no
+    * idle instances, then a new instance is created.
+    * @param previewPaneClass Class to retrieve an instance for.
+    * @return {@link Optional} that contains the {@link PreviewPane} instance. Or, empty on error.
+    */
+   Optional<PreviewPane> acquire(final Class<? extends PreviewPane> previewPaneClass) {
+      final Deque<PreviewPane> panes = idle.get(previewPaneClass);
+      if (panes != null && !panes.isEmpty()) {
+         return Optional.of(panes.pop());
+      }
+
+      return PreviewPaneFactory.create(previewPaneClass);
+   }
+
+   /**
+    * Reset the passed in {@link PreviewPane} and return it to the pool. If the pool
+    * for the class is full, then the instance is dropped.
+    */
+   void release(final PreviewPane previewPane) {
+      if (previewPane == null) {
+         return;
+      }
+
+      previewPane.reset();
+
+      final Deque<PreviewPane> panes = idle.computeIfAbsent(previewPane.getClass(), c -> new ArrayDeque<>());
+      if (panes.size() < MAX_IDLE_PER_CLASS) {
+         panes.push(previewPane);
+      }
+   }
+
+   /**
+    * Drop all idle instances.
+    */
+   void clear() {
+      idle.clear();
+   }
+}
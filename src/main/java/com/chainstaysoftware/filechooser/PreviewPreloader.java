@@ -0,0 +1,153 @@
+package com.chainstaysoftware.filechooser;
+
+import com.chainstaysoftware.filechooser.preview.LoadablePreviewPane;
+import com.chainstaysoftware.filechooser.preview.PreviewCache;
+import com.chainstaysoftware.filechooser.preview.PreviewPane;
+import com.chainstaysoftware.filechooser.preview.PreviewPaneQuery;
+import javafx.application.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Speculatively loads the previews of files the user is likely to view next
+ * (e.g. the files before and after the current selection) into the
+ * {@link PreviewCache}, so that they can be shown without waiting on the file
+ * system. Loading runs on a single low priority thread. This class must only be
+ * used from the JavaFx thread.
+ */
+final class PreviewPreloader {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.PreviewPreloader");
+
+   private static final ExecutorService executor
+      = Executors.newSingleThreadExecutor(new DaemonThreadFactory(Thread.MIN_PRIORITY));
+
+   private final Map<String, Class<? extends PreviewPane>> previewHandlers;
+   private final PreviewCache previewCache;
+
+   // Instances only used to call load(), never displayed. Accessed from the JavaFx thread.
+   private final Map<Class<? extends PreviewPane>, LoadablePreviewPane<?>> loaders = new HashMap<>();
+   // Accessed from the JavaFx thread.
+   private final List<Future<?>> pending = new ArrayList<>();
+
+   // Incremented on each cancel, so that background work for an earlier request is dropped.
+   private volatile int generation;
+
+   /**
+    * @param previewHandlers Map of configured {@link PreviewPane} keyed on MimeType.
+    * @param previewCache Cache to preload into.
+    */
+   PreviewPreloader(final Map<String, Class<? extends PreviewPane>> previewHandlers,
+                    final PreviewCache previewCache) {
+      this.previewHandlers = previewHandlers;
+      this.previewCache = previewCache;
+   }
+
+   /**
+    * Cache the content is preloaded into, that previews are loaded through.
+    */
+   PreviewCache getPreviewCache() {
+      return previewCache;
+   }
+
+   /**
+    * Start preloading the passed in files, in order. Preloading for any previous
+    * call is cancelled.
+    * @param files Files to preload.
+    */
+   void preload(final List<File> files) {
+      cancel();
+
+      if (previewCache.getCapacity() <= 0) {
+         return;
+      }
+
+      final int requestGeneration = generation;
+      files.stream()
+         .filter(file -> !isPreloaded(file))
+         .forEach(file -> pending.add(executor.submit(() -> resolve(file, requestGeneration))));
+   }
+
+   /**
+    * Stop any preloading in progress. Already preloaded content is kept.
+    */
+   void cancel() {
+      generation++;
+      pending.forEach(future -> future.cancel(true));
+      pending.clear();
+   }
+
+   /**
+    * Cancel preloading and release the instances used for loading.
+    */
+   void clear() {
+      cancel();
+      loaders.clear();
+   }
+
+   /**
+    * Determine if there is preloaded content for the passed in file. The
+    * modification time of the file is not checked, so this does not access the
+    * file system.
+    */
+   boolean isPreloaded(final File file) {
+      return previewCache.contains(file);
+   }
+
+   /**
+    * Determine the {@link PreviewPane} for the file, and if it supports loading
+    * in the background, then queue the load. Runs on the preload thread.
+    */
+   private void resolve(final File file,
+                        final int requestGeneration) {
+      final Class<? extends PreviewPane> previewPaneClass = PreviewPaneQuery.query(previewHandlers, file);
+      if (previewPaneClass == null || !LoadablePreviewPane.class.isAssignableFrom(previewPaneClass)) {
+         return;
+      }
+
+      Platform.runLater(() -> {
+         if (requestGeneration != generation) {
+            return;
+         }
+
+         getLoader(previewPaneClass)
+            .ifPresent(loader -> pending.add(executor.submit(() -> load(loader, file, requestGeneration))));
+      });
+   }
+
+   private Optional<LoadablePreviewPane<?>> getLoader(final Class<? extends PreviewPane> previewPaneClass) {
+      if (!loaders.containsKey(previewPaneClass)) {
+         PreviewPaneFactory.create(previewPaneClass)
+            .ifPresent(previewPane -> loaders.put(previewPaneClass, (LoadablePreviewPane<?>) previewPane));
+      }
+
+      return Optional.ofNullable(loaders.get(previewPaneClass));
+   }
+
+   /**
+    * Load the file content into the {@link PreviewCache}. Runs on the preload thread.
+    */
+   private void load(final LoadablePreviewPane<?> loader,
+                     final File file,
+                     final int requestGeneration) {
+      if (requestGeneration != generation) {
+         return;
+      }
+
+      try {
+         previewCache.load(loader, file);
+      } catch (IOException e) {
+         logger.log(Level.FINE, "Error preloading - " + file, e);
+      }
+   }
+}
@@ -2,11 +2,15 @@ package com.chainstaysoftware.filechooser;
 
 import com.chainstaysoftware.filechooser.icons.Icons;
 import com.chainstaysoftware.filechooser.icons.IconsImpl;
+import com.chainstaysoftware.filechooser.preview.LoadablePreviewPane;
+import com.chainstaysoftware.filechooser.preview.PreviewCache;
 import com.chainstaysoftware.filechooser.preview.PreviewPane;
 import com.chainstaysoftware.filechooser.preview.PreviewPaneQuery;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
 import javafx.geometry.Pos;
-import javafx.scene.Cursor;
 import javafx.scene.control.Label;
 import javafx.scene.control.OverrunStyle;
 import javafx.scene.image.Image;
@@ -17,20 +21,26 @@ import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -60,9 +70,30 @@ public class PropertiesPreviewPane {
    private static final int SIZE_VAL_COL = 1;
    private static final int SIZE_VAL_ROW = 3;
 
+   // Time the selection must be stable before the preview is loaded.
+   private static final Duration DEBOUNCE_DELAY = Duration.millis(150);
+   // Time to wait on file attributes and mimetype before giving up (e.g. on a hung network mount).
+   private static final long LOAD_TIMEOUT_MS = 5000;
+
+   private static final DateTimeFormatter DATE_TIME_FORMATTER
+      = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.LONG).withZone(ZoneId.systemDefault());
+
+   // Threads of the lookups, so that a file stuck on a slow file system does not delay lookups for other files.
+   private static final int LOAD_THREADS = 4;
+
+   // Bounded, as a lookup stuck on a hung mount keeps its thread after it has timed out.
+   private static final ExecutorService executor
+      = Executors.newFixedThreadPool(LOAD_THREADS, new DaemonThreadFactory());
+   private static final ScheduledExecutorService timeoutScheduler
+      = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+   private static final InFlightLoads<File, BasicFileAttributes> attributeLoads
+      = new InFlightLoads<>(executor, timeoutScheduler, LOAD_TIMEOUT_MS);
+
    private final ResourceBundle resourceBundle = ResourceBundle.getBundle("filechooser");
    private final Icons icons;
    private final Map<String, Class<? extends PreviewPane>> previewHandlers;
+   private final PreviewPanePool previewPanePool;
+   private final PreviewPreloader previewPreloader;
 
    private final VBox vBox;
    private final Label nameLabel = createNameValueLabel();
@@ -73,11 +104,29 @@ public class PropertiesPreviewPane {
    private final HBox previewPaneContainerPane = createPreviewContainerPane();
    private final ImageView imageView = createImageView();
 
+   private final PauseTransition debounce = new PauseTransition(DEBOUNCE_DELAY);
+   private final LoadPreviewService loadPreviewService = new LoadPreviewService();
+   private final InFlightLoads<File, PreviewInfo> previewInfoLoads
+      = new InFlightLoads<>(executor, timeoutScheduler, LOAD_TIMEOUT_MS);
+
+   private File currentFile;
+   private PreviewPane currentPreviewPane;
+
    public PropertiesPreviewPane(final Map<String, Class<? extends PreviewPane>> previewHandlers,
                                 final Icons icons)
+   {
+      this(previewHandlers, icons, new PreviewPanePool(), new PreviewPreloader(previewHandlers, new PreviewCache()));
+   }
+
+   PropertiesPreviewPane(final Map<String, Class<? extends PreviewPane>> previewHandlers,
+                         final Icons icons,
+                         final PreviewPanePool previewPanePool,
+                         final PreviewPreloader previewPreloader)
    {
       this.previewHandlers = previewHandlers;
       this.icons = icons;
+      this.previewPanePool = previewPanePool;
+      this.previewPreloader = previewPreloader;
 
       final GridPane gridPane = createGridPane();
 
@@ -91,6 +140,10 @@ public class PropertiesPreviewPane {
       previewPaneContainerPane.maxWidthProperty().bind(vBox.maxWidthProperty());
       previewPaneContainerPane.prefWidthProperty().bind(vBox.prefWidthProperty());
       VBox.setVgrow(previewPaneContainerPane, Priority.ALWAYS);
+
+      loadPreviewService.setOnFailed(event ->
+         logger.log(Level.WARNING, "Error loading preview - " + loadPreviewService.getFile(),
+            loadPreviewService.getException()));
    }
 
    /**
@@ -140,71 +193,248 @@ public class PropertiesPreviewPane {
    }
 
    /**
-    * Sets the file to display within the Pane.
+    * Sets the file to display within the Pane. The preview is only loaded once
+    * no other file has been set for {@link #DEBOUNCE_DELAY}, so that rapidly
+    * changing the selection (e.g. holding down an arrow key) does not queue up
+    * loads for files that are immediately replaced. Any preview load in
+    * progress for a previous file is cancelled.
     *
     * @param file
     */
    public void setFile(final File file) {
-      vBox.getScene().setCursor(Cursor.WAIT);
+      setFile(file, Collections.emptyList());
+   }
+
+   /**
+    * Sets the file to display within the Pane, and the files that are likely to
+    * be displayed next. Once the file is displayed, the previews of the next files
+    * are preloaded in the background. If the file was preloaded, it is shown
+    * without waiting for the selection to settle.
+    *
+    * @param file File to display.
+    * @param nextFiles Files to preload, in order of likelihood.
+    */
+   void setFile(final File file,
+                final List<File> nextFiles) {
+      currentFile = file;
+      previewPreloader.cancel();
+      loadPreviewService.cancel();
+      if (currentPreviewPane != null) {
+         currentPreviewPane.reset();
+      }
+
+      nameLabel.setText(file.getName());
+      setAttributeLabels(resourceBundle.getString("propertiespreview.loading"));
 
-      Platform.runLater(() ->  {
-         try {
-            setContainerNode(file);
+      if (previewPreloader.isPreloaded(file)) {
+         debounce.stop();
+         update(file, nextFiles);
+      } else {
+         debounce.setOnFinished(event -> update(file, nextFiles));
+         debounce.playFromStart();
+      }
+   }
 
-            nameLabel.setText(file.getName());
+   /**
+    * Read the file attributes and determine the {@link PreviewPane} for the
+    * passed in file off of the JavaFx thread, and then update the Pane. Results
+    * are dropped if another file was set in the meantime. A lookup still
+    * running for the file, e.g. stuck on a hung mount, is waited on rather
+    * than started again.
+    */
+   private void update(final File file,
+                       final List<File> nextFiles) {
+      attributeLoads.load(file, PropertiesPreviewPane::readAttributes)
+         .whenComplete((attr, throwable) -> Platform.runLater(() -> {
+            if (file.equals(currentFile)) {
+               setAttributes(file, attr, throwable);
+            }
+         }));
+
+      previewInfoLoads.load(file, PreviewInfo::new)
+         .whenComplete((previewInfo, throwable) -> Platform.runLater(() -> {
+            if (!file.equals(currentFile)) {
+               return;
+            }
+
+            if (throwable == null) {
+               setContainerNode(file, previewInfo);
+            } else {
+               logger.log(Level.WARNING, "Could not determine preview for - " + file, throwable);
+               setContainerNode(file, new PreviewInfo(false, null));
+            }
+         }));
+
+      previewPreloader.preload(nextFiles);
+   }
 
-            final BasicFileAttributes attr = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+   private static BasicFileAttributes readAttributes(final File file) {
+      try {
+         return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
 
-            createdValLabel.setText(formatTime(attr.creationTime()));
-            modifiedValLabel.setText(formatTime(attr.lastModifiedTime()));
-            lastOpenedLabel.setText(formatTime(attr.lastAccessTime()));
-            sizeLabel.setText(FileUtils.byteCountToDisplaySize(attr.size()));
-         } catch (IOException e) {
-            logger.log(Level.WARNING, "Could not retrieve file attributes for - " + file, e);
+   private void setAttributes(final File file,
+                              final BasicFileAttributes attr,
+                              final Throwable throwable) {
+      if (throwable != null) {
+         logger.log(Level.WARNING, "Could not retrieve file attributes for - " + file, throwable);
+         setAttributeLabels(resourceBundle.getString("propertiespreview.unavailable"));
+         return;
+      }
 
-            imageView.setImage(null);
-            nameLabel.setText(null);
-            createdValLabel.setText(null);
-            modifiedValLabel.setText(null);
-            lastOpenedLabel.setText(null);
-            sizeLabel.setText(null);
-         }
+      createdValLabel.setText(formatTime(attr.creationTime()));
+      modifiedValLabel.setText(formatTime(attr.lastModifiedTime()));
+      lastOpenedLabel.setText(formatTime(attr.lastAccessTime()));
+      sizeLabel.setText(FileUtils.byteCountToDisplaySize(attr.size()));
+   }
+
+   private void setAttributeLabels(final String text) {
+      createdValLabel.setText(text);
+      modifiedValLabel.setText(text);
+      lastOpenedLabel.setText(text);
+      sizeLabel.setText(text);
+   }
+
+   /**
+    * Result of the background lookup of the preview to show for a file.
+    */
+   private final class PreviewInfo {
+      private final boolean directory;
+      private final Class<? extends PreviewPane> previewPaneClass;
+
+      /**
+       * Lookup the preview for the file. This reads from the file system.
+       */
+      PreviewInfo(final File file) {
+         this(file.isDirectory(), PreviewPaneQuery.query(previewHandlers, file));
+      }
 
-         vBox.getScene().setCursor(null);
-      });
+      PreviewInfo(final boolean directory,
+                  final Class<? extends PreviewPane> previewPaneClass) {
+         this.directory = directory;
+         this.previewPaneClass = previewPaneClass;
+      }
    }
 
    /**
-    * Update the preview node with the preview of the passed in file.
+    * Update the preview node with the preview of the passed in file. If the
+    * currently displayed {@link PreviewPane} is of the needed class, then it is
+    * reused and only its content is updated. Otherwise, it is returned to the pool.
     */
-   private void setContainerNode(final File file) {
-      final Class<? extends PreviewPane> previewPaneClass = PreviewPaneQuery.query(previewHandlers, file);
+   private void setContainerNode(final File file,
+                                 final PreviewInfo previewInfo) {
+      final Class<? extends PreviewPane> previewPaneClass = previewInfo.previewPaneClass;
       if (previewPaneClass == null) {
-         final Image image = file.isDirectory()
+         releasePreviewPane();
+
+         final Image image = previewInfo.directory
             ? icons.getIcon(IconsImpl.FOLDER_64)
             : icons.getIconForFile(file);
          imageView.setImage(image);
          previewPaneContainerPane.getChildren().setAll(imageView);
       } else {
-         final Optional<PreviewPane> previewPaneOpt = PreviewPaneFactory.create(previewPaneClass);
-         if (!previewPaneOpt.isPresent()) {
-            logger.log(Level.SEVERE, "No PreviewPane created.");
-            return;
+         if (currentPreviewPane == null || !previewPaneClass.equals(currentPreviewPane.getClass())) {
+            releasePreviewPane();
+
+            final Optional<PreviewPane> previewPaneOpt = previewPanePool.acquire(previewPaneClass);
+            if (!previewPaneOpt.isPresent()) {
+               logger.log(Level.SEVERE, "No PreviewPane created.");
+               return;
+            }
+
+            currentPreviewPane = previewPaneOpt.get();
+            previewPaneContainerPane.getChildren().setAll(currentPreviewPane.getPane());
+            HBox.setHgrow(currentPreviewPane.getPane(), Priority.ALWAYS);
          }
 
-         final PreviewPane previewPane = previewPaneOpt.get();
-         previewPaneContainerPane.getChildren().setAll(previewPane.getPane());
-         previewPane.setFile(file);
-         HBox.setHgrow(previewPane.getPane(), Priority.ALWAYS);
+         loadPreview(file);
       }
    }
 
-   private String formatTime(final FileTime fileTime) {
-      final ZonedDateTime zonedDateTime = ZonedDateTime.ofInstant(fileTime.toInstant(),
-            ZoneId.systemDefault());
+   /**
+    * Load the file into the current {@link PreviewPane}. {@link LoadablePreviewPane}
+    * instances are loaded off of the JavaFx thread. Other implementations are
+    * set directly.
+    */
+   private void loadPreview(final File file) {
+      if (currentPreviewPane instanceof LoadablePreviewPane) {
+         loadPreviewService.setPreview((LoadablePreviewPane<?>) currentPreviewPane, file);
+         loadPreviewService.restart();
+      } else {
+         currentPreviewPane.setFile(file);
+      }
+   }
+
+   /**
+    * Return the currently displayed {@link PreviewPane} (if any) to the pool.
+    */
+   private void releasePreviewPane() {
+      if (currentPreviewPane == null) {
+         return;
+      }
+
+      loadPreviewService.cancel();
+      previewPaneContainerPane.getChildren().remove(currentPreviewPane.getPane());
+      previewPanePool.release(currentPreviewPane);
+      currentPreviewPane = null;
+   }
+
+   /**
+    * Service to run {@link LoadablePreviewPane#load(File)}. Restarting the Service
+    * cancels the load in progress.
+    */
+   private class LoadPreviewService extends Service<Void> {
+      private LoadablePreviewPane<?> previewPane;
+      private File file;
+
+      void setPreview(final LoadablePreviewPane<?> previewPane,
+                      final File file) {
+         this.previewPane = previewPane;
+         this.file = file;
+      }
+
+      File getFile() {
+         return file;
+      }
 
-      return DateTimeFormatter.ofLocalizedDateTime(FormatStyle.LONG)
-            .format(zonedDateTime);
+      @Override
+      protected Task<Void> createTask() {
+         return new LoadPreviewTask<>(previewPane, file);
+      }
+   }
+
+   private class LoadPreviewTask<T> extends Task<Void> {
+      private final LoadablePreviewPane<T> previewPane;
+      private final File file;
+
+      private T content;
+
+      LoadPreviewTask(final LoadablePreviewPane<T> previewPane,
+                      final File file) {
+         this.previewPane = previewPane;
+         this.file = file;
+      }
+
+      @Override
+      protected Void call() throws Exception {
+         content = previewPreloader.getPreviewCache().load(previewPane, file);
+         return null;
+      }
+
+      @Override
+      protected void succeeded() {
+         // Drop the result if the selection or PreviewPane changed while loading.
+         if (file.equals(currentFile) && previewPane == currentPreviewPane) {
+            previewPane.show(file, content);
+         }
+      }
+   }
+
+   private String formatTime(final FileTime fileTime) {
+      return DATE_TIME_FORMATTER.format(fileTime.toInstant());
    }
 
    public Pane getPane() {
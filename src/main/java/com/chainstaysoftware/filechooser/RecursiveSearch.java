@@ -0,0 +1,247 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Searches the subtree of a directory for entries that match a {@link NameFilter}.
+ * Each directory is read by its own fork/join task, so sibling directories are
+ * read in parallel. Matches are passed on per directory as they are found.
+ * <p>
+ * Symbolic links to directories are followed, but a directory is only read
+ * once, so that link loops end. The search stops at a maximum depth, after a
+ * time limit, or when cancelled. Entries are checked against the same item
+ * filter as the current directory, so hidden files and the extension filter
+ * apply to the results too. Entries matching the {@link IgnoreRules} are
+ * skipped, and ignored directories are not read at all.
+ * <p>
+ * The callbacks are called from the worker threads.
+ */
+final class RecursiveSearch {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.RecursiveSearch");
+
+   // Reading directories mostly waits on the file system, so use more threads than cores.
+   private static final ForkJoinPool pool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+   enum Outcome {
+      Completed, Cancelled, TimedOut
+   }
+
+   private final File root;
+   private final NameFilter nameFilter;
+   private final Predicate<DirectoryListItem> itemFilter;
+   private final IgnoreRules ignoreRules;
+   private final int maxDepth;
+   private final long deadline;
+   private final Consumer<List<DirectoryListItem>> found;
+   private final Consumer<Outcome> finished;
+   // Keys of the directories read so far, to not follow link loops.
+   private final Set<Object> visited = ConcurrentHashMap.newKeySet();
+   private final LongAdder ignored = new LongAdder();
+
+   private volatile boolean cancelled;
+   private volatile boolean timedOut;
+
+   /**
+    * @param root Directory to search.
+    * @param nameFilter Filter for the names of the results.
+    * @param itemFilter Filter for the entries of each directory, e.g. hidden
+    *                   files. Directories rejected are not searched.
+    * @param ignoreRules Rules for the entries skipped, e.g. build output.
+    * @param maxDepth Maximum depth of subdirectories searched. 0 only searches
+    *                 the root.
+    * @param timeoutMs Time limit of the search.
+    * @param found Called with the matches of each directory.
+    * @param finished Called once when the search has stopped.
+    */
+   RecursiveSearch(final File root,
+                   final NameFilter nameFilter,
+                   final Predicate<DirectoryListItem> itemFilter,
+                   final IgnoreRules ignoreRules,
+                   final int maxDepth,
+                   final long timeoutMs,
+                   final Consumer<List<DirectoryListItem>> found,
+                   final Consumer<Outcome> finished) {
+      this.root = root;
+      this.nameFilter = nameFilter;
+      this.itemFilter = itemFilter;
+      this.ignoreRules = ignoreRules;
+      this.maxDepth = maxDepth;
+      this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+      this.found = found;
+      this.finished = finished;
+   }
+
+   void start() {
+      pool.execute(() -> {
+         try {
+            final Path rootPath = root.toPath();
+            final BasicFileAttributes attributes = readAttributes(rootPath);
+            if (attributes != null && visit(rootPath, attributes)) {
+               new DirectoryTask(rootPath, 0, ignoreRules.forRoot(rootPath)).invoke();
+            }
+         } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Error searching - " + root, e);
+         } finally {
+            finished.accept(cancelled ? Outcome.Cancelled : timedOut ? Outcome.TimedOut : Outcome.Completed);
+         }
+      });
+   }
+
+   /**
+    * Stop the search. Tasks still running stop at their next entry.
+    */
+   void cancel() {
+      cancelled = true;
+   }
+
+   boolean isCancelled() {
+      return cancelled;
+   }
+
+   /**
+    * Number of entries skipped so far because of the {@link IgnoreRules}. The
+    * contents of an ignored directory are not counted, as they are not read.
+    */
+   long getIgnoredCount() {
+      return ignored.sum();
+   }
+
+   private boolean isStopped() {
+      if (!timedOut && System.nanoTime() - deadline > 0) {
+         timedOut = true;
+      }
+
+      return cancelled || timedOut;
+   }
+
+   /**
+    * Mark the directory as read. False if it has been read before, through
+    * another path.
+    */
+   private boolean visit(final Path directory,
+                         final BasicFileAttributes attributes) {
+      Object key = attributes.fileKey();
+      if (key == null) {
+         // No file key on this platform. The real path resolves links instead.
+         try {
+            key = directory.toRealPath();
+         } catch (IOException e) {
+            return false;
+         }
+      }
+
+      return visited.add(key);
+   }
+
+   /**
+    * Attributes of the path, following links. Attributes of the link itself
+    * if it is broken, or null if neither can be read.
+    */
+   private static BasicFileAttributes readAttributes(final Path path) {
+      try {
+         return Files.readAttributes(path, BasicFileAttributes.class);
+      } catch (IOException e) {
+         try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+         } catch (IOException e1) {
+            return null;
+         }
+      }
+   }
+
+   private class DirectoryTask extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+
+      private final Path directory;
+      private final int depth;
+      // Ignore rules of the parent directory.
+      private final IgnoreRules.Scope scope;
+
+      DirectoryTask(final Path directory,
+                    final int depth,
+                    final IgnoreRules.Scope scope) {
+         this.directory = directory;
+         this.depth = depth;
+         this.scope = scope;
+      }
+
+      @Override
+      protected void compute() {
+         if (isStopped()) {
+            return;
+         }
+
+         final List<Path> paths = new ArrayList<>();
+         boolean hasGitIgnore = false;
+         try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+               if (isStopped()) {
+                  break;
+               }
+
+               paths.add(path);
+               hasGitIgnore |= IgnoreRules.GIT_IGNORE.equals(path.getFileName().toString());
+            }
+         } catch (IOException | DirectoryIteratorException e) {
+            logger.log(Level.FINE, "Error reading directory - " + directory, e);
+         }
+
+         final IgnoreRules.Scope entryScope = hasGitIgnore ? scope.enter(directory) : scope;
+         final List<DirectoryListItem> matches = new ArrayList<>();
+         final List<DirectoryTask> subtasks = new ArrayList<>();
+         for (Path path : paths) {
+            if (isStopped()) {
+               break;
+            }
+
+            final BasicFileAttributes attributes = readAttributes(path);
+            if (attributes == null) {
+               continue;
+            }
+
+            if (entryScope.isIgnored(path, attributes.isDirectory())) {
+               ignored.increment();
+               continue;
+            }
+
+            final DirectoryListItem item = new DirectoryListItem(path.toFile(), attributes);
+            if (!itemFilter.test(item)) {
+               continue;
+            }
+
+            if (nameFilter.test(item)) {
+               matches.add(item);
+            }
+
+            if (attributes.isDirectory() && depth < maxDepth && visit(path, attributes)) {
+               subtasks.add(new DirectoryTask(path, depth + 1, entryScope));
+            }
+         }
+
+         if (!matches.isEmpty() && !cancelled) {
+            found.accept(matches);
+         }
+
+         invokeAll(subtasks);
+      }
+   }
+}
@@ -0,0 +1,412 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Optional index of the file names under a set of root directories (the
+ * favorites), kept in a {@link TrigramIndex} file, so that searching the
+ * subfolders of an indexed directory does not walk the tree.
+ * <p>
+ * Each rebuild writes a new generation of the index file, named after the
+ * index file with the generation number appended, as a mapped file can not be
+ * replaced on Windows. Older generations are deleted when they can be.
+ * <p>
+ * The newest index file is mapped when the dialog is shown, and rebuilt in the
+ * background if it is missing, was built from other roots, or is older than
+ * {@link #REBUILD_INTERVAL_MS}. While the dialog is open the index is rebuilt
+ * on that interval. Between rebuilds, changes are applied as deltas: names
+ * seen when a directory under a root is read are added, indexed children
+ * of the directory no longer listed are dropped, and indexed paths found
+ * missing when a query confirms its results are dropped.
+ */
+final class SearchIndex {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.SearchIndex");
+
+   private static final long REBUILD_INTERVAL_MS = TimeUnit.MINUTES.toMillis(30);
+   private static final int MAX_DEPTH = 64;
+   private static final long WALK_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+   // Minimum literal length that the trigram index can look up.
+   private static final int MIN_QUERY_LENGTH = 3;
+
+   private static final ScheduledExecutorService executor
+      = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory(Thread.MIN_PRIORITY));
+   // Separate from the executor, so that deltas are not held up by a rebuild.
+   private static final ExecutorService deltaExecutor
+      = Executors.newSingleThreadExecutor(new DaemonThreadFactory(Thread.MIN_PRIORITY));
+
+   private final File indexFile;
+   private final IgnoreRules ignoreRules;
+   // Paths added, and indexed paths removed, since the index was built.
+   private final Set<String> added = ConcurrentHashMap.newKeySet();
+   private final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+   private volatile TrigramIndex index;
+   // Generation the index was mapped from, or null.
+   private volatile File generationFile;
+   private volatile List<String> roots = Collections.emptyList();
+   private volatile RecursiveSearch walk;
+   private ScheduledFuture<?> rebuildFuture;
+   private boolean stopped;
+
+   /**
+    * @param indexFile File the index is stored in. Generations of the index
+    *                  are stored next to it.
+    * @param ignoreRules Rules for the entries not indexed.
+    */
+   SearchIndex(final File indexFile,
+               final IgnoreRules ignoreRules) {
+      this.indexFile = indexFile;
+      this.ignoreRules = ignoreRules;
+   }
+
+   /**
+    * Map the index file, and rebuild it now if it is not current for the
+    * passed in roots. Then rebuild it periodically until {@link #stop()}.
+    */
+   synchronized void start(final Collection<File> roots) {
+      this.roots = toPaths(roots);
+      stopped = false;
+
+      executor.execute(() -> {
+         final List<File> generations = TrigramIndex.generationFiles(indexFile);
+         if (!generations.isEmpty()) {
+            final File newest = generations.get(generations.size() - 1);
+            try {
+               index = TrigramIndex.open(newest);
+               generationFile = newest;
+            } catch (IOException e) {
+               logger.log(Level.WARNING, "Unable to open search index - " + newest, e);
+            }
+         }
+
+         synchronized (this) {
+            if (!stopped && rebuildFuture == null) {
+               scheduleRebuild(isCurrent() ? REBUILD_INTERVAL_MS : 0);
+            }
+         }
+      });
+   }
+
+   /**
+    * Change the indexed roots, e.g. when a favorite is added or removed. The
+    * index is rebuilt.
+    */
+   synchronized void setRoots(final Collection<File> roots) {
+      this.roots = toPaths(roots);
+
+      if (!stopped) {
+         scheduleRebuild(0);
+      }
+   }
+
+   /**
+    * Stop rebuilding the index. Any rebuild in progress is cancelled.
+    */
+   synchronized void stop() {
+      stopped = true;
+
+      if (rebuildFuture != null) {
+         rebuildFuture.cancel(false);
+         rebuildFuture = null;
+      }
+
+      final RecursiveSearch currentWalk = walk;
+      if (currentWalk != null) {
+         currentWalk.cancel();
+      }
+   }
+
+   /**
+    * Determine if the passed in directory is under one of the indexed roots,
+    * and the index has been built from the current roots.
+    */
+   boolean covers(final File directory) {
+      final TrigramIndex currentIndex = index;
+      if (currentIndex == null || !currentIndex.getRoots().equals(roots)) {
+         return false;
+      }
+
+      final String path = directory.getAbsolutePath();
+      return roots.stream().anyMatch(root -> isUnder(path, root));
+   }
+
+   /**
+    * Apply the entries read from a directory as a delta to the index, in the
+    * background.
+    */
+   void update(final File directory,
+               final List<DirectoryListItem> entries) {
+      if (!covers(directory)) {
+         return;
+      }
+
+      deltaExecutor.execute(() -> applyDelta(directory, entries.stream()
+         .filter(item -> !item.isHidden())
+         .map(DirectoryListItem::getName)
+         .toArray(String[]::new)));
+   }
+
+   /**
+    * Apply the entries of a very large directory as a delta to the index, in
+    * the background. The names are read without creating items.
+    */
+   void update(final File directory,
+               final DirectoryEntries entries) {
+      if (!covers(directory)) {
+         return;
+      }
+
+      deltaExecutor.execute(() -> applyDelta(directory, IntStream.range(0, entries.size())
+         .filter(index -> !entries.isHidden(index))
+         .mapToObj(entries::getName)
+         .toArray(String[]::new)));
+   }
+
+   /**
+    * Merge the sorted names listed in the directory with the sorted names of
+    * its indexed children. Listed names not indexed are added, and indexed
+    * names no longer listed are removed. Runs on the delta executor.
+    */
+   private void applyDelta(final File directory,
+                           final String[] names) {
+      final TrigramIndex currentIndex = index;
+      final String directoryPath = directory.getAbsolutePath();
+      final String prefix = directoryPath.endsWith(File.separator)
+         ? directoryPath
+         : directoryPath + File.separator;
+      final List<String> indexed = currentIndex.getChildNames(directoryPath);
+      Arrays.parallelSort(names);
+
+      int n = 0;
+      int i = 0;
+      while (n < names.length || i < indexed.size()) {
+         final int compare = n == names.length
+            ? 1
+            : i == indexed.size() ? -1 : names[n].compareTo(indexed.get(i));
+         if (compare < 0) {
+            final String path = prefix + names[n++];
+            added.add(path);
+            removed.remove(path);
+         } else if (compare > 0) {
+            removed.add(prefix + indexed.get(i++));
+         } else {
+            removed.remove(prefix + names[n]);
+            n++;
+            i++;
+         }
+      }
+
+      // Paths added by an earlier delta that are no longer listed.
+      added.removeIf(path -> path.startsWith(prefix)
+         && path.indexOf(File.separatorChar, prefix.length()) == -1
+         && Arrays.binarySearch(names, path.substring(prefix.length())) < 0);
+   }
+
+   /**
+    * Find the files under the passed in directory whose name matches the
+    * passed in filter. Empty if the index does not cover the directory, or the
+    * filter has no literal text long enough to look up, in which case the
+    * directory has to be walked instead. Paths that no longer exist are not
+    * returned. Blocks while the results are confirmed, so call from a
+    * background thread.
+    * @param limit Maximum number of files returned.
+    */
+   Optional<List<File>> query(final File directory,
+                              final NameFilter nameFilter,
+                              final int limit) {
+      final TrigramIndex currentIndex = index;
+      final Optional<String> literal = nameFilter.getLiteral();
+      if (!covers(directory) || !literal.isPresent() || literal.get().length() < MIN_QUERY_LENGTH) {
+         return Optional.empty();
+      }
+
+      final String directoryPath = directory.getAbsolutePath();
+      final List<String> candidates = new ArrayList<>(
+         currentIndex.query(directoryPath, literal.get(), limit));
+      added.stream()
+         .filter(path -> isUnder(path, directoryPath) && !path.equals(directoryPath))
+         .forEach(candidates::add);
+
+      final List<File> files = new ArrayList<>();
+      for (String path : candidates) {
+         if (files.size() == limit) {
+            break;
+         }
+
+         final File file = new File(path);
+         if (removed.contains(path) || !nameFilter.test(file.getName())) {
+            continue;
+         }
+
+         if (!file.exists()) {
+            removed.add(path);
+            continue;
+         }
+
+         files.add(file);
+      }
+
+      return Optional.of(files);
+   }
+
+   /**
+    * All files under the passed in directory, as paths relative to the
+    * directory. Empty if the index does not cover the directory. Includes the
+    * paths added since the index was built, and not those found removed.
+    * @param limit Maximum number of paths returned.
+    */
+   Optional<List<String>> getRelativePaths(final File directory,
+                                           final int limit) {
+      final TrigramIndex currentIndex = index;
+      if (!covers(directory)) {
+         return Optional.empty();
+      }
+
+      final String directoryPath = directory.getAbsolutePath();
+      final int prefixLength = directoryPath.endsWith(File.separator)
+         ? directoryPath.length()
+         : directoryPath.length() + 1;
+
+      final List<String> paths = new ArrayList<>();
+      final Consumer<String> addRelative = path -> {
+         if (paths.size() < limit && !removed.contains(path)) {
+            paths.add(path.substring(prefixLength));
+         }
+      };
+      currentIndex.getPaths(directoryPath, limit).forEach(addRelative);
+      added.stream()
+         .filter(path -> isUnder(path, directoryPath) && !path.equals(directoryPath))
+         .forEach(addRelative);
+
+      return Optional.of(paths);
+   }
+
+   private boolean isCurrent() {
+      final TrigramIndex currentIndex = index;
+      final File currentFile = generationFile;
+      return currentIndex != null
+         && currentIndex.getRoots().equals(roots)
+         && System.currentTimeMillis() - currentFile.lastModified() < REBUILD_INTERVAL_MS;
+   }
+
+   private void scheduleRebuild(final long delayMs) {
+      if (rebuildFuture != null) {
+         rebuildFuture.cancel(false);
+      }
+
+      rebuildFuture = executor.scheduleWithFixedDelay(this::rebuild, delayMs, REBUILD_INTERVAL_MS,
+         TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Walk the roots, and write and map a new index. Runs on the executor.
+    */
+   private void rebuild() {
+      final List<String> rebuildRoots = roots;
+      final Queue<String> paths = new ConcurrentLinkedQueue<>();
+      long ignored = 0;
+
+      for (String root : rebuildRoots) {
+         final CompletableFuture<RecursiveSearch.Outcome> finished = new CompletableFuture<>();
+         walk = new RecursiveSearch(new File(root), NameFilter.compile("*"), item -> !item.isHidden(),
+            ignoreRules, MAX_DEPTH, WALK_TIMEOUT_MS,
+            matches -> matches.forEach(item -> paths.add(item.getFile().getAbsolutePath())),
+            finished::complete);
+         walk.start();
+
+         final RecursiveSearch.Outcome outcome = finished.join();
+         ignored += walk.getIgnoredCount();
+         if (RecursiveSearch.Outcome.Cancelled.equals(outcome)) {
+            return;
+         }
+
+         if (RecursiveSearch.Outcome.TimedOut.equals(outcome)) {
+            logger.log(Level.INFO, "Search index of " + root + " is incomplete. Walk timed out.");
+         }
+      }
+
+      final File nextFile = TrigramIndex.generationFile(indexFile, nextGeneration());
+      try {
+         TrigramIndex.write(nextFile, rebuildRoots, paths);
+         index = TrigramIndex.open(nextFile);
+         generationFile = nextFile;
+         added.clear();
+         removed.clear();
+         logger.log(Level.FINE, "Search index rebuilt with " + index.size() + " paths. "
+            + ignored + " ignored.");
+      } catch (IOException e) {
+         logger.log(Level.WARNING, "Unable to write search index - " + nextFile, e);
+         return;
+      }
+
+      deleteOlderGenerations(nextFile);
+   }
+
+   /**
+    * Number of the next generation. Generations are numbered by the time
+    * they are written, so that dialogs sharing the index file do not write
+    * the same generation.
+    */
+   private long nextGeneration() {
+      final List<File> generations = TrigramIndex.generationFiles(indexFile);
+      final long newest = generations.isEmpty()
+         ? 0
+         : TrigramIndex.getGeneration(indexFile, generations.get(generations.size() - 1));
+      return Math.max(newest + 1, System.currentTimeMillis());
+   }
+
+   /**
+    * Delete the generations older than the passed in one. A generation still
+    * mapped, by this or another dialog, can not be deleted on Windows, so a
+    * failure is ignored, and the file is deleted after a later rebuild.
+    */
+   private void deleteOlderGenerations(final File newest) {
+      final long generation = TrigramIndex.getGeneration(indexFile, newest);
+      for (File file : TrigramIndex.generationFiles(indexFile)) {
+         if (TrigramIndex.getGeneration(indexFile, file) < generation) {
+            try {
+               Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+               logger.log(Level.FINE, "Unable to delete old search index - " + file, e);
+            }
+         }
+      }
+   }
+
+   private static List<String> toPaths(final Collection<File> roots) {
+      return roots.stream()
+         .map(File::getAbsolutePath)
+         .distinct()
+         .sorted()
+         .collect(Collectors.toList());
+   }
+
+   private static boolean isUnder(final String path,
+                                  final String directory) {
+      return path.equals(directory)
+         || path.startsWith(directory.endsWith(File.separator) ? directory : directory + File.separator);
+   }
+}
@@ -0,0 +1,265 @@
+package com.chainstaysoftware.filechooser;
+
+import com.chainstaysoftware.filechooser.icons.Icons;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.BorderPane;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Shows the results of a {@link RecursiveSearch} of the current directory,
+ * with the folder of each result relative to the searched directory. Results
+ * are added while the search runs. Starting a new search cancels the
+ * previous one. If a {@link SearchIndex} covers the directory, it is queried
+ * instead of walking the directory.
+ */
+class SearchResultsView {
+   private static final int MAX_DEPTH = 32;
+   private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+   private static final int FOLDER_COLUMN_PREF_WIDTH = 250;
+   private static final int MAX_INDEX_RESULTS = 10000;
+
+   private static final ExecutorService indexQueryExecutor
+      = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+
+   private final ObservableList<DirectoryListItem> results = FXCollections.observableArrayList();
+   private final TableView<DirectoryListItem> tableView = new TableView<>();
+   private final Label statusLabel = new Label();
+   private final BorderPane pane = new BorderPane();
+   private final ResourceBundle resourceBundle = ResourceBundle.getBundle("filechooser");
+
+   private Search current;
+   private SearchIndex searchIndex;
+
+   SearchResultsView(final Icons icons,
+                     final FilesViewCallback callback) {
+      final TableColumn<DirectoryListItem, DirectoryListItem> nameColumn
+         = new TableColumn<>(resourceBundle.getString("listfilesview.name"));
+      nameColumn.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
+      nameColumn.setCellFactory(new DirListNameColumnCellFactory(true, callback, icons));
+      nameColumn.setComparator((o1, o2) -> String.CASE_INSENSITIVE_ORDER.compare(o1.getFile().getName(), o2.getFile().getName()));
+      nameColumn.prefWidthProperty().bind(tableView.widthProperty().subtract(FOLDER_COLUMN_PREF_WIDTH));
+
+      final TableColumn<DirectoryListItem, String> folderColumn
+         = new TableColumn<>(resourceBundle.getString("searchresults.folder"));
+      folderColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(getFolder(param.getValue())));
+      folderColumn.setPrefWidth(FOLDER_COLUMN_PREF_WIDTH);
+
+      final SortedList<DirectoryListItem> sortedResults = results.sorted();
+      sortedResults.comparatorProperty().bind(tableView.comparatorProperty());
+
+      tableView.setItems(sortedResults);
+      tableView.getColumns().addAll(Arrays.asList(nameColumn, folderColumn));
+      tableView.setPlaceholder(new Label(""));
+      tableView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) ->
+         callback.setCurrentSelection(newValue == null ? null : newValue.getFile()));
+
+      statusLabel.setId("searchStatusLabel");
+      statusLabel.getStyleClass().add("searchstatus");
+
+      pane.setId("searchResultsPane");
+      pane.setCenter(tableView);
+      pane.setBottom(statusLabel);
+   }
+
+   Node getNode() {
+      return pane;
+   }
+
+   /**
+    * Index to query before walking a directory, or null to always walk.
+    */
+   void setSearchIndex(final SearchIndex searchIndex) {
+      this.searchIndex = searchIndex;
+   }
+
+   /**
+    * True if a search has been started, and not cancelled since.
+    */
+   boolean isActive() {
+      return current != null;
+   }
+
+   /**
+    * Search the subtree of the passed in directory, replacing the results of
+    * any previous search.
+    * @param directory Directory to search.
+    * @param nameFilter Filter for the names of the results.
+    * @param itemFilter Filter for the entries of each directory.
+    * @param ignoreRules Rules for the entries skipped when walking.
+    */
+   void search(final File directory,
+               final NameFilter nameFilter,
+               final Predicate<DirectoryListItem> itemFilter,
+               final IgnoreRules ignoreRules) {
+      cancel();
+
+      current = new Search(directory, nameFilter, itemFilter, ignoreRules);
+      statusLabel.setText(resourceBundle.getString("searchresults.searching"));
+      tableView.setCursor(Cursor.WAIT);
+      current.start(searchIndex);
+   }
+
+   /**
+    * Cancel the search, and clear the results.
+    */
+   void cancel() {
+      if (current != null) {
+         current.cancel();
+         current = null;
+      }
+
+      results.clear();
+      statusLabel.setText("");
+      tableView.setCursor(null);
+   }
+
+   private String getFolder(final DirectoryListItem item) {
+      if (current == null) {
+         return "";
+      }
+
+      final Path parent = item.getFile().toPath().getParent();
+      final Path relative = current.directory.toPath().relativize(parent);
+      return relative.toString().isEmpty() ? "." : relative.toString();
+   }
+
+   private void finished(final RecursiveSearch.Outcome outcome,
+                         final boolean indexed,
+                         final long ignored) {
+      tableView.setCursor(null);
+
+      if (indexed) {
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("searchresults.foundinindex"),
+            results.size()));
+      } else if (RecursiveSearch.Outcome.TimedOut.equals(outcome)) {
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("searchresults.timedout"),
+            results.size(), TimeUnit.MILLISECONDS.toSeconds(TIMEOUT_MS)));
+      } else {
+         statusLabel.setText(MessageFormat.format(resourceBundle.getString("searchresults.found"),
+            results.size()));
+      }
+
+      if (ignored > 0) {
+         statusLabel.setText(statusLabel.getText() + " "
+            + MessageFormat.format(resourceBundle.getString("searchresults.ignored"), ignored));
+      }
+   }
+
+   /**
+    * A single search. Matches found by the worker threads are queued, and
+    * added to the results in one update per pulse of the JavaFx thread.
+    */
+   private class Search {
+      private final File directory;
+      private final NameFilter nameFilter;
+      private final Predicate<DirectoryListItem> itemFilter;
+      private final RecursiveSearch search;
+      private final Queue<List<DirectoryListItem>> pending = new ConcurrentLinkedQueue<>();
+      private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+      Search(final File directory,
+             final NameFilter nameFilter,
+             final Predicate<DirectoryListItem> itemFilter,
+             final IgnoreRules ignoreRules) {
+         this.directory = directory;
+         this.nameFilter = nameFilter;
+         this.itemFilter = itemFilter;
+         this.search = new RecursiveSearch(directory, nameFilter, itemFilter, ignoreRules, MAX_DEPTH, TIMEOUT_MS,
+            this::found, outcome -> finished(outcome, false));
+      }
+
+      /**
+       * Query the index if it covers the directory, otherwise walk the directory.
+       */
+      void start(final SearchIndex index) {
+         // The index only holds names, so an attribute query walks the directory.
+         if (index == null || nameFilter.isQuery() || !index.covers(directory)) {
+            search.start();
+            return;
+         }
+
+         indexQueryExecutor.execute(() -> {
+            if (search.isCancelled()) {
+               return;
+            }
+
+            final Optional<List<File>> files = index.query(directory, nameFilter, MAX_INDEX_RESULTS);
+            if (!files.isPresent()) {
+               search.start();
+               return;
+            }
+
+            final List<DirectoryListItem> matches = files.get().stream()
+               .map(DirectoryListItem::new)
+               .filter(itemFilter)
+               .collect(Collectors.toList());
+            found(matches);
+            finished(search.isCancelled() ? RecursiveSearch.Outcome.Cancelled : RecursiveSearch.Outcome.Completed,
+               true);
+         });
+      }
+
+      void cancel() {
+         search.cancel();
+      }
+
+      private void found(final List<DirectoryListItem> matches) {
+         pending.add(matches);
+
+         if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+         }
+      }
+
+      private void drain() {
+         drainScheduled.set(false);
+
+         final List<DirectoryListItem> batch = new ArrayList<>();
+         List<DirectoryListItem> matches;
+         while ((matches = pending.poll()) != null) {
+            batch.addAll(matches);
+         }
+
+         // A newer search may have replaced this one since the drain was queued.
+         if (current == this) {
+            results.addAll(batch);
+         }
+      }
+
+      private void finished(final RecursiveSearch.Outcome outcome,
+                            final boolean indexed) {
+         Platform.runLater(() -> {
+            if (current == this) {
+               drain();
+               SearchResultsView.this.finished(outcome, indexed, indexed ? 0 : search.getIgnoredCount());
+            }
+         });
+      }
+   }
+}
@@ -0,0 +1,43 @@
+package com.chainstaysoftware.filechooser;
+
+/**
+ * Capacity and free space of a file store.
+ */
+final class StoreSpace {
+   private final long totalSpace;
+   private final long usableSpace;
+
+   StoreSpace(final long totalSpace,
+              final long usableSpace) {
+      this.totalSpace = totalSpace;
+      this.usableSpace = usableSpace;
+   }
+
+   long getTotalSpace() {
+      return totalSpace;
+   }
+
+   /**
+    * Number of bytes available to this JVM.
+    */
+   long getUsableSpace() {
+      return usableSpace;
+   }
+
+   /**
+    * Fraction of the store that is in use, between 0 and 1.
+    */
+   double getUsedFraction() {
+      return totalSpace <= 0
+         ? 0
+         : (double) (totalSpace - usableSpace) / totalSpace;
+   }
+
+   @Override
+   public String toString() {
+      return "StoreSpace{" +
+            "totalSpace=" + totalSpace +
+            ", usableSpace=" + usableSpace +
+            '}';
+   }
+}
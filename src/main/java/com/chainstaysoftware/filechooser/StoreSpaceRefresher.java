@@ -0,0 +1,150 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically retrieves the capacity and free space of the file stores of
+ * watched paths. The file store calls (statvfs on Unix) are made on background
+ * threads, never on the JavaFx thread. Each path is refreshed at most once per
+ * interval, with network stores refreshed less often than local stores, and a
+ * path is not queried again while a previous query is still outstanding (e.g.
+ * on a hung network mount). Results are cached across instances, so a reopened
+ * dialog shows the last known values immediately.
+ * <p>
+ * This class must only be used from the JavaFx thread.
+ */
+final class StoreSpaceRefresher {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.StoreSpaceRefresher");
+
+   private static final long LOCAL_INTERVAL_MS = 10 * 1000;
+   private static final long NETWORK_INTERVAL_MS = 60 * 1000;
+   private static final Duration TICK = Duration.seconds(1);
+
+   private static final ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory());
+   private static final Map<File, CachedSpace> cache = new ConcurrentHashMap<>();
+
+   private final Map<File, Watched> watched = new HashMap<>();
+   private final Timeline timeline = new Timeline(new KeyFrame(TICK, event -> refreshDue()));
+
+   StoreSpaceRefresher() {
+      timeline.setCycleCount(Animation.INDEFINITE);
+   }
+
+   /**
+    * Start refreshing the space of the passed in path. The consumer is called on
+    * the JavaFx thread with each new value (and immediately, if a cached value
+    * is available).
+    * @param path Path on the file store to query.
+    * @param network True if the file store is a network store.
+    * @param consumer Receives the space values.
+    */
+   void watch(final File path,
+              final boolean network,
+              final Consumer<StoreSpace> consumer) {
+      final Watched entry = new Watched(path, network ? NETWORK_INTERVAL_MS : LOCAL_INTERVAL_MS, consumer);
+
+      final CachedSpace cached = cache.get(path);
+      if (cached != null) {
+         consumer.accept(cached.space);
+         entry.nextRefresh = cached.timestamp + entry.interval;
+      }
+
+      watched.put(path, entry);
+
+      if (timeline.getStatus() != Animation.Status.RUNNING) {
+         timeline.play();
+      }
+
+      refreshDue();
+   }
+
+   void unwatch(final File path) {
+      watched.remove(path);
+   }
+
+   /**
+    * Stop refreshing all paths.
+    */
+   void stop() {
+      timeline.stop();
+      watched.clear();
+   }
+
+   private void refreshDue() {
+      final long now = System.currentTimeMillis();
+      watched.values().stream()
+         .filter(entry -> !entry.inFlight && entry.nextRefresh <= now)
+         .forEach(this::refresh);
+   }
+
+   private void refresh(final Watched entry) {
+      entry.inFlight = true;
+
+      executor.execute(() -> {
+         try {
+            final FileStore fileStore = Files.getFileStore(entry.path.toPath());
+            final StoreSpace space = new StoreSpace(fileStore.getTotalSpace(), fileStore.getUsableSpace());
+            cache.put(entry.path, new CachedSpace(space, System.currentTimeMillis()));
+
+            Platform.runLater(() -> {
+               if (watched.get(entry.path) == entry) {
+                  entry.consumer.accept(space);
+               }
+            });
+         } catch (IOException | RuntimeException e) {
+            logger.log(Level.FINE, "Unable to retrieve space for - " + entry.path, e);
+         } finally {
+            Platform.runLater(() -> {
+               entry.inFlight = false;
+               entry.nextRefresh = System.currentTimeMillis() + entry.interval;
+            });
+         }
+      });
+   }
+
+   private static final class Watched {
+      private final File path;
+      private final long interval;
+      private final Consumer<StoreSpace> consumer;
+
+      // Accessed from the JavaFx thread.
+      private boolean inFlight;
+      private long nextRefresh;
+
+      Watched(final File path,
+              final long interval,
+              final Consumer<StoreSpace> consumer) {
+         this.path = path;
+         this.interval = interval;
+         this.consumer = consumer;
+      }
+   }
+
+   private static final class CachedSpace {
+      private final StoreSpace space;
+      private final long timestamp;
+
+      CachedSpace(final StoreSpace space,
+                  final long timestamp) {
+         this.space = space;
+         this.timestamp = timestamp;
+      }
+   }
+}
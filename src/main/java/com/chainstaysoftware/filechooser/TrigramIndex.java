@@ -0,0 +1,474 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read only index of file paths on the trigrams of their file names, stored in
+ * a file that is memory mapped, so that opening an index does not read it.
+ * A query for a substring of at least 3 characters looks up the posting list
+ * of each trigram of the substring, intersects them, and confirms the
+ * candidates against the name, since trigrams only narrow the candidates.
+ * <p>
+ * File layout. All numbers are big endian. Paths are sorted, so the paths
+ * under a directory are a contiguous range of ids.
+ * <pre>
+ *    int magic, int version
+ *    int rootCount, int pathCount, int trigramCount, int postingCount, int pathBytes
+ *    int[rootCount] root lengths, root UTF-8 bytes
+ *    int[pathCount + 1] offsets of the paths in the path bytes
+ *    byte[pathBytes] UTF-8 paths
+ *    long[trigramCount] sorted trigrams, each 3 lower case chars
+ *    int[trigramCount + 1] offsets of the posting lists
+ *    int[postingCount] posting lists of ascending path ids
+ * </pre>
+ * Instances are immutable and may be used from any thread.
+ */
+final class TrigramIndex {
+   private static final int MAGIC = 0x46435449;
+   private static final int VERSION = 1;
+   private static final int HEADER_INTS = 7;
+
+   private final ByteBuffer buffer;
+   private final List<String> roots;
+   private final int pathCount;
+   private final int trigramCount;
+   private final int pathOffsetsStart;
+   private final int pathBytesStart;
+   private final int trigramsStart;
+   private final int postingOffsetsStart;
+   private final int postingsStart;
+
+   private TrigramIndex(final ByteBuffer buffer) throws IOException {
+      this.buffer = buffer;
+
+      if (buffer.capacity() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+         throw new IOException("Not a search index, or an unsupported version");
+      }
+
+      final int rootCount = buffer.getInt(8);
+      pathCount = buffer.getInt(12);
+      trigramCount = buffer.getInt(16);
+      final int postingCount = buffer.getInt(20);
+      final int pathBytes = buffer.getInt(24);
+
+      final int position = HEADER_INTS * 4;
+      final List<String> rootList = new ArrayList<>(rootCount);
+      int rootBytesStart = position + rootCount * 4;
+      for (int i = 0; i < rootCount; i++) {
+         final int length = buffer.getInt(position + i * 4);
+         rootList.add(decode(rootBytesStart, length));
+         rootBytesStart += length;
+      }
+      roots = Collections.unmodifiableList(rootList);
+
+      pathOffsetsStart = rootBytesStart;
+      pathBytesStart = pathOffsetsStart + (pathCount + 1) * 4;
+      trigramsStart = pathBytesStart + pathBytes;
+      postingOffsetsStart = trigramsStart + trigramCount * 8;
+      postingsStart = postingOffsetsStart + (trigramCount + 1) * 4;
+
+      if (postingsStart + (long) postingCount * 4 > buffer.capacity()) {
+         throw new IOException("Truncated search index");
+      }
+   }
+
+   /**
+    * Map an index file written by {@link #write(File, Collection, Collection)}.
+    */
+   static TrigramIndex open(final File file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         return new TrigramIndex(buffer);
+      }
+   }
+
+   /**
+    * Write an index of the passed in paths. The index is written to a
+    * temporary file that is then moved into place, so a partially written
+    * index is never mapped. A mapped file can not be replaced on Windows, so
+    * write each index to a new file, see {@link #generationFile(File, long)}.
+    * @param file Index file.
+    * @param roots Directories the paths were collected from.
+    * @param paths Absolute paths to index.
+    */
+   static void write(final File file,
+                     final Collection<String> roots,
+                     final Collection<String> paths) throws IOException {
+      final String[] sorted = paths.toArray(new String[paths.size()]);
+      Arrays.sort(sorted);
+
+      final Map<Long, IntList> postingLists = new HashMap<>();
+      for (int id = 0; id < sorted.length; id++) {
+         final String name = lowerCase(getName(sorted[id]));
+         for (int i = 0; i + 3 <= name.length(); i++) {
+            final IntList postings = postingLists.computeIfAbsent(trigram(name, i), k -> new IntList());
+            // A name may contain the same trigram twice. Ids are added in order.
+            if (postings.size == 0 || postings.values[postings.size - 1] != id) {
+               postings.add(id);
+            }
+         }
+      }
+
+      final long[] trigrams = new long[postingLists.size()];
+      int t = 0;
+      for (Long trigram : postingLists.keySet()) {
+         trigrams[t++] = trigram;
+      }
+      Arrays.sort(trigrams);
+
+      final File parent = file.getAbsoluteFile().getParentFile();
+      Files.createDirectories(parent.toPath());
+      final File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+      try {
+         try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            final List<byte[]> rootBytes = new ArrayList<>();
+            roots.forEach(root -> rootBytes.add(root.getBytes(StandardCharsets.UTF_8)));
+            final byte[][] pathBytes = new byte[sorted.length][];
+            long totalPathBytes = 0;
+            for (int i = 0; i < sorted.length; i++) {
+               pathBytes[i] = sorted[i].getBytes(StandardCharsets.UTF_8);
+               totalPathBytes += pathBytes[i].length;
+            }
+            long postingCount = 0;
+            for (IntList postings : postingLists.values()) {
+               postingCount += postings.size;
+            }
+            if (totalPathBytes > Integer.MAX_VALUE || postingCount > Integer.MAX_VALUE) {
+               throw new IOException("Too many paths for a search index");
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rootBytes.size());
+            out.writeInt(sorted.length);
+            out.writeInt(trigrams.length);
+            out.writeInt((int) postingCount);
+            out.writeInt((int) totalPathBytes);
+
+            for (byte[] bytes : rootBytes) {
+               out.writeInt(bytes.length);
+            }
+            for (byte[] bytes : rootBytes) {
+               out.write(bytes);
+            }
+
+            int offset = 0;
+            for (byte[] bytes : pathBytes) {
+               out.writeInt(offset);
+               offset += bytes.length;
+            }
+            out.writeInt(offset);
+            for (byte[] bytes : pathBytes) {
+               out.write(bytes);
+            }
+
+            for (long trigram : trigrams) {
+               out.writeLong(trigram);
+            }
+
+            offset = 0;
+            for (long trigram : trigrams) {
+               out.writeInt(offset);
+               offset += postingLists.get(trigram).size;
+            }
+            out.writeInt(offset);
+            for (long trigram : trigrams) {
+               final IntList postings = postingLists.get(trigram);
+               for (int i = 0; i < postings.size; i++) {
+                  out.writeInt(postings.values[i]);
+               }
+            }
+         }
+
+         Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+         Files.deleteIfExists(tmp.toPath());
+      }
+   }
+
+   /**
+    * File that a generation of the index with the passed in base file is
+    * written to. The generation number is appended to the name of the base
+    * file.
+    */
+   static File generationFile(final File baseFile,
+                              final long generation) {
+      return new File(baseFile.getAbsoluteFile().getParentFile(), baseFile.getName() + "." + generation);
+   }
+
+   /**
+    * Generations of the index with the passed in base file that exist, as
+    * written by {@link #generationFile(File, long)}, oldest first.
+    */
+   static List<File> generationFiles(final File baseFile) {
+      final String prefix = baseFile.getName() + ".";
+      final File[] files = baseFile.getAbsoluteFile().getParentFile()
+         .listFiles((dir, name) -> name.startsWith(prefix) && isGeneration(name.substring(prefix.length())));
+      if (files == null) {
+         return Collections.emptyList();
+      }
+
+      final List<File> generations = new ArrayList<>(Arrays.asList(files));
+      generations.sort(Comparator.comparingLong(file -> getGeneration(baseFile, file)));
+      return generations;
+   }
+
+   /**
+    * Generation number of a file returned by {@link #generationFiles(File)}.
+    */
+   static long getGeneration(final File baseFile,
+                             final File generationFile) {
+      return Long.parseLong(generationFile.getName().substring(baseFile.getName().length() + 1));
+   }
+
+   private static boolean isGeneration(final String suffix) {
+      return !suffix.isEmpty() && suffix.length() < 19 && suffix.chars().allMatch(Character::isDigit);
+   }
+
+   /**
+    * Directories the index was built from.
+    */
+   List<String> getRoots() {
+      return roots;
+   }
+
+   int size() {
+      return pathCount;
+   }
+
+   /**
+    * Determine if the index contains the passed in path. O(log n).
+    */
+   boolean contains(final String path) {
+      final int id = lowerBound(path);
+      return id < pathCount && getPath(id).equals(path);
+   }
+
+   /**
+    * Names of the paths directly in the passed in directory, sorted. The
+    * paths further down are skipped with a search per child, rather than
+    * read.
+    * @param directory Absolute path of the directory.
+    */
+   List<String> getChildNames(final String directory) {
+      final String prefix = directory.endsWith(File.separator) ? directory : directory + File.separator;
+      final int end = getIdRange(directory)[1];
+      final List<String> names = new ArrayList<>();
+      int id = lowerBound(prefix);
+      while (id < end) {
+         final String name = getPath(id).substring(prefix.length());
+         final int separator = name.indexOf(File.separatorChar);
+         if (separator == -1) {
+            names.add(name);
+            id++;
+         } else {
+            // Skip the paths under the child.
+            id = lowerBound(prefix + name.substring(0, separator) + (char) (File.separatorChar + 1));
+         }
+      }
+
+      return names;
+   }
+
+   /**
+    * Find the paths under the passed in directory whose file name contains
+    * the passed in text, ignoring case.
+    * @param directory Absolute path of the directory to search under.
+    * @param text Text of at least 3 characters.
+    * @param limit Maximum number of paths returned.
+    */
+   List<String> query(final String directory,
+                      final String text,
+                      final int limit) {
+      final String lowerText = lowerCase(text);
+      if (lowerText.length() < 3) {
+         throw new IllegalArgumentException("Text must be at least 3 characters - " + text);
+      }
+
+      // Posting lists of the trigrams of the text, shortest first.
+      final List<int[]> ranges = new ArrayList<>();
+      for (int i = 0; i + 3 <= lowerText.length(); i++) {
+         final int t = findTrigram(trigram(lowerText, i));
+         if (t == -1) {
+            return Collections.emptyList();
+         }
+         ranges.add(new int[] {buffer.getInt(postingOffsetsStart + t * 4),
+            buffer.getInt(postingOffsetsStart + (t + 1) * 4)});
+      }
+      ranges.sort((r1, r2) -> Integer.compare(r1[1] - r1[0], r2[1] - r2[0]));
+
+      final int[] idRange = getIdRange(directory);
+
+      final List<String> results = new ArrayList<>();
+      final int[] shortest = ranges.get(0);
+      for (int p = shortest[0]; p < shortest[1] && results.size() < limit; p++) {
+         final int id = buffer.getInt(postingsStart + p * 4);
+         if (id < idRange[0] || id >= idRange[1] || !inAllPostings(id, ranges)) {
+            continue;
+         }
+
+         final String path = getPath(id);
+         if (lowerCase(getName(path)).contains(lowerText)) {
+            results.add(path);
+         }
+      }
+
+      return results;
+   }
+
+   /**
+    * All paths under the passed in directory, in path order.
+    * @param directory Absolute path of the directory.
+    * @param limit Maximum number of paths returned.
+    */
+   List<String> getPaths(final String directory,
+                         final int limit) {
+      final int[] idRange = getIdRange(directory);
+      final int end = (int) Math.min(idRange[1], (long) idRange[0] + limit);
+      final List<String> paths = new ArrayList<>(Math.max(0, end - idRange[0]));
+      for (int id = idRange[0]; id < end; id++) {
+         paths.add(getPath(id));
+      }
+
+      return paths;
+   }
+
+   /**
+    * First id, and the id after the last, of the paths under the directory.
+    * Paths are sorted, so they are the paths between the directory followed
+    * by a separator, and the directory followed by the next char.
+    */
+   private int[] getIdRange(final String directory) {
+      final String base = directory.endsWith(File.separator)
+         ? directory.substring(0, directory.length() - 1)
+         : directory;
+      return new int[] {lowerBound(base + File.separatorChar), lowerBound(base + (char) (File.separatorChar + 1))};
+   }
+
+   private boolean inAllPostings(final int id,
+                                 final List<int[]> ranges) {
+      for (int r = 1; r < ranges.size(); r++) {
+         int low = ranges.get(r)[0];
+         int high = ranges.get(r)[1] - 1;
+         boolean found = false;
+         while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int value = buffer.getInt(postingsStart + mid * 4);
+            if (value < id) {
+               low = mid + 1;
+            } else if (value > id) {
+               high = mid - 1;
+            } else {
+               found = true;
+               break;
+            }
+         }
+
+         if (!found) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private int findTrigram(final long trigram) {
+      int low = 0;
+      int high = trigramCount - 1;
+      while (low <= high) {
+         final int mid = (low + high) >>> 1;
+         final long value = buffer.getLong(trigramsStart + mid * 8);
+         if (value < trigram) {
+            low = mid + 1;
+         } else if (value > trigram) {
+            high = mid - 1;
+         } else {
+            return mid;
+         }
+      }
+
+      return -1;
+   }
+
+   /**
+    * Id of the first path not less than the passed in path.
+    */
+   private int lowerBound(final String path) {
+      int low = 0;
+      int high = pathCount;
+      while (low < high) {
+         final int mid = (low + high) >>> 1;
+         if (getPath(mid).compareTo(path) < 0) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+
+      return low;
+   }
+
+   private String getPath(final int id) {
+      final int start = buffer.getInt(pathOffsetsStart + id * 4);
+      final int end = buffer.getInt(pathOffsetsStart + (id + 1) * 4);
+      return decode(pathBytesStart + start, end - start);
+   }
+
+   private String decode(final int position,
+                         final int length) {
+      final byte[] bytes = new byte[length];
+      for (int i = 0; i < length; i++) {
+         bytes[i] = buffer.get(position + i);
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   private static String getName(final String path) {
+      return path.substring(path.lastIndexOf(File.separatorChar) + 1);
+   }
+
+   private static long trigram(final String str,
+                               final int index) {
+      return ((long) str.charAt(index) << 32) | ((long) str.charAt(index + 1) << 16) | str.charAt(index + 2);
+   }
+
+   private static String lowerCase(final String str) {
+      return str.toLowerCase(Locale.ROOT);
+   }
+
+   /**
+    * Growable list of ints, to not box the posting lists while building.
+    */
+   private static class IntList {
+      private int[] values = new int[4];
+      private int size;
+
+      void add(final int value) {
+         if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+         }
+         values[size++] = value;
+      }
+   }
+}
@@ -0,0 +1,56 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.event.EventHandler;
+import javafx.scene.input.KeyEvent;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Handler for {@link KeyEvent#KEY_TYPED} events that collects the typed
+ * characters and selects the matching item, so that a file can be found by
+ * typing the start of its name. The typed text is reset when no character
+ * has been typed for {@link #RESET_MS}.
+ */
+final class TypeAheadHandler implements EventHandler<KeyEvent> {
+   private static final long RESET_MS = 1000;
+
+   private final Function<String, Optional<DirectoryListItem>> finder;
+   private final Consumer<DirectoryListItem> selector;
+   private final StringBuilder typed = new StringBuilder();
+
+   private long lastTyped;
+
+   /**
+    * @param finder Finds the item to select for the typed text.
+    * @param selector Selects the found item in the view.
+    */
+   TypeAheadHandler(final Function<String, Optional<DirectoryListItem>> finder,
+                    final Consumer<DirectoryListItem> selector) {
+      this.finder = finder;
+      this.selector = selector;
+   }
+
+   @Override
+   public void handle(final KeyEvent event) {
+      final String character = event.getCharacter();
+      if (character.isEmpty()
+         || Character.isISOControl(character.charAt(0))
+         || event.isControlDown()
+         || event.isMetaDown()
+         || event.isAltDown()) {
+         return;
+      }
+
+      final long now = System.currentTimeMillis();
+      if (now - lastTyped > RESET_MS) {
+         typed.setLength(0);
+      }
+      lastTyped = now;
+
+      typed.append(character);
+      finder.apply(typed.toString()).ifPresent(selector);
+      event.consume();
+   }
+}
@@ -8,6 +8,7 @@ import javafx.scene.control.TreeItem;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
@@ -86,8 +87,11 @@ class UpdateDirectoryTree extends Service<Void> {
                   return;
                }
 
-               if (!dirOnly || path.toFile().isDirectory()) {
-                  final TreeItem<File> treeItem = getTreeItem(path.toFile());
+               // Only directories are taken from the unfiltered stream, so the
+               // directory flag is known and kept with the item.
+               final Boolean isDirectory = dirOnly ? Files.isDirectory(path) : null;
+               if (!dirOnly || isDirectory) {
+                  final TreeItem<File> treeItem = getTreeItem(path.toFile(), isDirectory);
                   itemsToAdd.add(treeItem);
 
                   if (shouldSchedule(itemsToAdd)) {
@@ -99,7 +103,7 @@ class UpdateDirectoryTree extends Service<Void> {
 
             scheduleJavaFx(itemsToAdd);
          } finally {
-            closeStream(dirStream);
+            closeStream(directoryStream);
          }
       }
 
@@ -114,8 +118,9 @@ class UpdateDirectoryTree extends Service<Void> {
          Platform.runLater(() -> itemList.addAll(temp));
       }
 
-      private TreeItem<File> getTreeItem(final File file) {
-         return new DirectoryTreeItem(file, callback, populateFactory);
+      private TreeItem<File> getTreeItem(final File file,
+                                         final Boolean isDirectory) {
+         return new DirectoryTreeItem(file, isDirectory, callback, populateFactory);
       }
 
       private void closeStream(final DirectoryStream<Path> directoryStream) {
@@ -0,0 +1,227 @@
+package com.chainstaysoftware.filechooser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Totals the disk usage of each entry of a directory, for the usage view.
+ * The subtree of each directory is totalled on the pool of
+ * {@link DirectorySizes}, sharing its cache. The size of a file is the one
+ * read with the entry. Partial totals are visible while it runs, through
+ * {@link #snapshot(int)}.
+ * <p>
+ * Only directories hold a {@link DirectorySizes.Progress}, and a snapshot
+ * only creates items for the largest entries, so the cost of watching the
+ * totals grow does not depend on the size of the subtrees, and the entries
+ * of a paged directory are read from its {@link DirectoryEntries} without
+ * creating their items.
+ */
+final class UsageAggregator {
+   private final int count;
+   private final IntFunction<DirectoryListItem> itemAt;
+   private final IntToLongFunction lengthAt;
+   private final IntFunction<File> fileAt;
+   // Entries that are directories, ascending, and their partial totals.
+   private final int[] directories;
+   private final DirectorySizes.Progress[] progress;
+   private final AtomicInteger remainingTasks = new AtomicInteger();
+   private volatile boolean cancelled;
+
+   /**
+    * @param entries Entries of the directory. Call on the thread that owns
+    *                the items, as their type is read here.
+    */
+   UsageAggregator(final List<DirectoryListItem> entries) {
+      final List<DirectoryListItem> copy = new ArrayList<>(entries);
+      this.count = copy.size();
+      this.itemAt = copy::get;
+      this.lengthAt = index -> copy.get(index).length();
+      this.fileAt = index -> copy.get(index).getFile();
+      this.directories = IntStream.range(0, count).filter(index -> copy.get(index).isDirectory()).toArray();
+      this.progress = createProgress(directories.length);
+   }
+
+   /**
+    * @param entries Entries of a paged directory.
+    * @param order Indexes of the entries shown.
+    * @param count Number of indexes used.
+    */
+   UsageAggregator(final DirectoryEntries entries,
+                   final int[] order,
+                   final int count) {
+      this.count = count;
+      this.itemAt = index -> entries.createItem(order[index]);
+      this.lengthAt = index -> entries.getLength(order[index]);
+      this.fileAt = index -> entries.getFile(order[index]);
+      this.directories = IntStream.range(0, count).filter(index -> entries.isDirectory(order[index])).toArray();
+      this.progress = createProgress(directories.length);
+   }
+
+   private static DirectorySizes.Progress[] createProgress(final int count) {
+      final DirectorySizes.Progress[] progress = new DirectorySizes.Progress[count];
+      for (int i = 0; i < count; i++) {
+         progress[i] = new DirectorySizes.Progress();
+      }
+      return progress;
+   }
+
+   void start() {
+      remainingTasks.set(directories.length);
+      for (int i = 0; i < directories.length; i++) {
+         final int directory = i;
+         DirectorySizes.execute(() -> {
+            try {
+               if (!cancelled) {
+                  DirectorySizes.computeSize(fileAt.apply(directories[directory]).toPath(),
+                     () -> cancelled, progress[directory]);
+               }
+            } finally {
+               remainingTasks.decrementAndGet();
+            }
+         });
+      }
+   }
+
+   void cancel() {
+      cancelled = true;
+   }
+
+   /**
+    * True once every entry has been totalled, or the aggregation cancelled.
+    */
+   boolean isDone() {
+      return remainingTasks.get() == 0;
+   }
+
+   /**
+    * Current totals. Safe to call from any thread while the aggregation runs.
+    * @param maxEntries Maximum number of entries listed. The remaining
+    *                   entries are only included in the totals.
+    */
+   Snapshot snapshot(final int maxEntries) {
+      // Read before the totals, so that a snapshot that reports done holds the final totals.
+      final boolean done = isDone();
+
+      // Entries as {index, bytes, files}, the smallest first.
+      final PriorityQueue<long[]> largest = new PriorityQueue<>(Comparator.comparingLong(entry -> entry[1]));
+      long totalBytes = 0;
+      long totalFiles = 0;
+      int directory = 0;
+      for (int i = 0; i < count; i++) {
+         final long bytes;
+         final long files;
+         if (directory < directories.length && directories[directory] == i) {
+            bytes = progress[directory].getBytes();
+            files = progress[directory].getFiles();
+            directory++;
+         } else {
+            bytes = lengthAt.applyAsLong(i);
+            files = 1;
+         }
+
+         totalBytes += bytes;
+         totalFiles += files;
+
+         if (largest.size() < maxEntries) {
+            largest.add(new long[] {i, bytes, files});
+         } else if (maxEntries > 0 && bytes > largest.peek()[1]) {
+            largest.poll();
+            largest.add(new long[] {i, bytes, files});
+         }
+      }
+
+      // Items are only created for the entries listed.
+      final List<Usage> usages = largest.stream()
+         .map(entry -> new Usage(itemAt.apply((int) entry[0]), entry[1], entry[2]))
+         .sorted(Collections.reverseOrder(Comparator.comparingLong(Usage::getBytes)))
+         .collect(Collectors.toList());
+      return new Snapshot(usages, count - usages.size(), totalBytes, totalFiles, done);
+   }
+
+   /**
+    * Disk usage of one entry of the directory.
+    */
+   static final class Usage {
+      private final DirectoryListItem item;
+      private final long bytes;
+      private final long files;
+
+      Usage(final DirectoryListItem item,
+            final long bytes,
+            final long files) {
+         this.item = item;
+         this.bytes = bytes;
+         this.files = files;
+      }
+
+      DirectoryListItem getItem() {
+         return item;
+      }
+
+      long getBytes() {
+         return bytes;
+      }
+
+      long getFiles() {
+         return files;
+      }
+   }
+
+   /**
+    * Totals at one point of the aggregation.
+    */
+   static final class Snapshot {
+      private final List<Usage> largest;
+      private final int otherCount;
+      private final long totalBytes;
+      private final long totalFiles;
+      private final boolean done;
+
+      Snapshot(final List<Usage> largest,
+               final int otherCount,
+               final long totalBytes,
+               final long totalFiles,
+               final boolean done) {
+         this.largest = largest;
+         this.otherCount = otherCount;
+         this.totalBytes = totalBytes;
+         this.totalFiles = totalFiles;
+         this.done = done;
+      }
+
+      /**
+       * The largest entries, the largest first.
+       */
+      List<Usage> getLargest() {
+         return largest;
+      }
+
+      /**
+       * Number of entries not in {@link #getLargest()}.
+       */
+      int getOtherCount() {
+         return otherCount;
+      }
+
+      long getTotalBytes() {
+         return totalBytes;
+      }
+
+      long getTotalFiles() {
+         return totalFiles;
+      }
+
+      boolean isDone() {
+         return done;
+      }
+   }
+}
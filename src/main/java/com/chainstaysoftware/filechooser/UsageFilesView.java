@@ -0,0 +1,321 @@
+package com.chainstaysoftware.filechooser;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.event.EventHandler;
+import javafx.geometry.Pos;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.ResourceBundle;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shows how the disk usage of the current directory is shared between its
+ * entries, as a bar chart of the largest entries, the largest first. The
+ * totals come from a {@link UsageAggregator}, and the chart is redrawn from
+ * a snapshot of its partial totals a few times a second while it runs, so
+ * the largest subtrees show up before the walk has finished.
+ */
+class UsageFilesView extends AbstractFilesView {
+   // Entries charted. The others are only included in the totals.
+   private static final int MAX_ENTRIES = 100;
+   private static final long REFRESH_MS = 250;
+   private static final Duration RESTART_DELAY = Duration.millis(200);
+   private static final int NAME_PREF_WIDTH = 220;
+   private static final int SIZE_PREF_WIDTH = 130;
+
+   // Takes the snapshots, so that their cost is kept off of the JavaFx thread.
+   private static final ScheduledExecutorService scheduler
+      = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+
+   private final ObservableList<UsageAggregator.Usage> usages = FXCollections.observableArrayList();
+   private final ListView<UsageAggregator.Usage> listView = new ListView<>(usages);
+   private final Label statusLabel = new Label();
+   private final BorderPane pane = new BorderPane();
+   private final ResourceBundle resourceBundle = ResourceBundle.getBundle("filechooser");
+   private final FilesViewCallback callback;
+   // The name filter changes the items without an update, so restart when they change.
+   private final PauseTransition restartDelay = new PauseTransition(RESTART_DELAY);
+   private final ListChangeListener<DirectoryListItem> itemsListener = change -> {
+      if (!isUpdating()) {
+         restartDelay.playFromStart();
+      }
+   };
+
+   private EventHandler<? super KeyEvent> keyEventHandler;
+   private DirectoryModel model;
+   private Aggregation current;
+   // Total of the last snapshot shown, that the bars are relative to.
+   private long totalBytes;
+
+   UsageFilesView(final Stage parent,
+                  final PreviewPanePool previewPanePool,
+                  final FilesViewCallback callback) {
+      super(parent, previewPanePool);
+
+      this.callback = callback;
+
+      restartDelay.setOnFinished(event -> start());
+
+      listView.setCellFactory(param -> new UsageCell());
+      listView.setPlaceholder(new Label(""));
+      listView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+         if (newValue != null) {
+            callback.setCurrentSelection(newValue.getItem().getFile());
+         }
+      });
+      listView.setOnMouseClicked(event -> {
+         final UsageAggregator.Usage usage = listView.getSelectionModel().getSelectedItem();
+         if (usage != null && event.getButton().equals(MouseButton.PRIMARY) && event.getClickCount() == 2) {
+            if (usage.getItem().isDirectory()) {
+               callback.requestChangeDirectory(usage.getItem().getFile());
+            } else {
+               callback.fireDoneButton();
+            }
+         }
+      });
+      listView.setOnKeyPressed(event -> {if (keyEventHandler != null) {keyEventHandler.handle(event);}});
+      installTypeAhead(listView);
+
+      statusLabel.setId("usageStatusLabel");
+      statusLabel.getStyleClass().add("searchstatus");
+
+      pane.setId("usagePane");
+      pane.setCenter(listView);
+      pane.setBottom(statusLabel);
+   }
+
+   @Override
+   public Node getNode() {
+      return pane;
+   }
+
+   @Override
+   void attachItems(final DirectoryModel model) {
+      this.model = model;
+      model.getItems().addListener(itemsListener);
+   }
+
+   @Override
+   void detachItems(final DirectoryModel model) {
+      model.getItems().removeListener(itemsListener);
+      this.model = null;
+      cancel();
+   }
+
+   @Override
+   void updateStarted() {
+      cancel();
+      listView.setCursor(Cursor.WAIT);
+   }
+
+   @Override
+   void updateFinished() {
+      listView.setCursor(null);
+      start();
+   }
+
+   /**
+    * The entries are always ordered by their usage.
+    */
+   @Override
+   public void resort() {
+   }
+
+   @Override
+   void select(final DirectoryListItem item) {
+      usages.stream()
+         .filter(usage -> usage.getItem().getFile().equals(item.getFile()))
+         .findFirst()
+         .ifPresent(usage -> {
+            listView.getSelectionModel().select(usage);
+            listView.scrollTo(usage);
+         });
+   }
+
+   void setOnKeyPressed(final EventHandler<? super KeyEvent> eventHandler) {
+      this.keyEventHandler = eventHandler;
+   }
+
+   private boolean isUpdating() {
+      return model != null && model.updatingProperty().get();
+   }
+
+   private void start() {
+      cancel();
+
+      if (model == null || isUpdating()) {
+         return;
+      }
+
+      current = new Aggregation(model.createUsageAggregator());
+      listView.setCursor(Cursor.WAIT);
+      current.start();
+   }
+
+   private void cancel() {
+      restartDelay.stop();
+
+      if (current != null) {
+         current.cancel();
+         current = null;
+      }
+
+      totalBytes = 0;
+      usages.clear();
+      statusLabel.setText("");
+      listView.setCursor(null);
+   }
+
+   private void show(final UsageAggregator.Snapshot snapshot) {
+      final File selected = callback.getCurrentSelection();
+
+      totalBytes = snapshot.getTotalBytes();
+      usages.setAll(snapshot.getLargest());
+      usages.stream()
+         .filter(usage -> usage.getItem().getFile().equals(selected))
+         .findFirst()
+         .ifPresent(usage -> listView.getSelectionModel().select(usage));
+
+      String status = MessageFormat.format(resourceBundle.getString("usageview.total"),
+         FileUtils.byteCountToDisplaySize(snapshot.getTotalBytes()), snapshot.getTotalFiles());
+      if (snapshot.getOtherCount() > 0) {
+         status += " " + MessageFormat.format(resourceBundle.getString("usageview.other"), snapshot.getOtherCount());
+      }
+      if (!snapshot.isDone()) {
+         status += " " + resourceBundle.getString("usageview.computing");
+      }
+      statusLabel.setText(status);
+
+      if (snapshot.isDone()) {
+         listView.setCursor(null);
+      }
+   }
+
+   /**
+    * A single aggregation. Snapshots are taken on the scheduler thread, and
+    * a tick is skipped while the previous snapshot is still waiting to be
+    * shown, so a busy JavaFx thread is not queued more work.
+    */
+   private class Aggregation {
+      private final UsageAggregator aggregator;
+      private final AtomicBoolean showScheduled = new AtomicBoolean();
+      private volatile ScheduledFuture<?> refresh;
+      private volatile boolean finished;
+
+      Aggregation(final UsageAggregator aggregator) {
+         this.aggregator = aggregator;
+      }
+
+      void start() {
+         aggregator.start();
+         refresh = scheduler.scheduleWithFixedDelay(this::refresh, 0, REFRESH_MS, TimeUnit.MILLISECONDS);
+      }
+
+      void cancel() {
+         aggregator.cancel();
+         stopRefresh();
+      }
+
+      private void stopRefresh() {
+         finished = true;
+         if (refresh != null) {
+            refresh.cancel(false);
+         }
+      }
+
+      private void refresh() {
+         if (finished || !showScheduled.compareAndSet(false, true)) {
+            return;
+         }
+
+         final UsageAggregator.Snapshot snapshot = aggregator.snapshot(MAX_ENTRIES);
+         if (snapshot.isDone()) {
+            stopRefresh();
+         }
+
+         Platform.runLater(() -> {
+            showScheduled.set(false);
+
+            // A newer aggregation may have replaced this one since the snapshot was taken.
+            if (current == this) {
+               show(snapshot);
+            }
+         });
+      }
+   }
+
+   /**
+    * Name, a bar for the share of the total, and the size of an entry.
+    */
+   private class UsageCell extends ListCell<UsageAggregator.Usage> {
+      private final Label nameLabel = new Label();
+      private final Region bar = new Region();
+      private final StackPane track = new StackPane(bar);
+      private final Label sizeLabel = new Label();
+      private final HBox hbox = new HBox(nameLabel, track, sizeLabel);
+
+      UsageCell() {
+         nameLabel.setPrefWidth(NAME_PREF_WIDTH);
+         nameLabel.setMinWidth(NAME_PREF_WIDTH);
+         sizeLabel.setPrefWidth(SIZE_PREF_WIDTH);
+         sizeLabel.setMinWidth(SIZE_PREF_WIDTH);
+         sizeLabel.setAlignment(Pos.CENTER_RIGHT);
+
+         bar.getStyleClass().add("usagebar");
+         bar.setMaxWidth(Region.USE_PREF_SIZE);
+         StackPane.setAlignment(bar, Pos.CENTER_LEFT);
+         HBox.setHgrow(track, Priority.ALWAYS);
+         track.setMinWidth(0);
+
+         hbox.setAlignment(Pos.CENTER_LEFT);
+         hbox.getStyleClass().add("usagecell");
+      }
+
+      @Override
+      protected void updateItem(final UsageAggregator.Usage usage,
+                                final boolean empty) {
+         super.updateItem(usage, empty);
+
+         bar.prefWidthProperty().unbind();
+
+         if (empty || usage == null) {
+            setGraphic(null);
+            return;
+         }
+
+         final File file = usage.getItem().getFile();
+         nameLabel.setText(usage.getItem().isDirectory() ? file.getName() + File.separator : file.getName());
+
+         final double share = totalBytes == 0 ? 0 : (double) usage.getBytes() / totalBytes;
+         bar.prefWidthProperty().bind(track.widthProperty().multiply(share));
+         sizeLabel.setText(MessageFormat.format(resourceBundle.getString("usageview.size"),
+            FileUtils.byteCountToDisplaySize(usage.getBytes()), share));
+
+         setGraphic(hbox);
+      }
+   }
+}
@@ -1,5 +1,5 @@
 package com.chainstaysoftware.filechooser;
 
 public enum ViewType {
-   List, ListWithPreview, Icon
+   List, ListWithPreview, Icon, Usage
 }
@@ -1,6 +1,7 @@
 package com.chainstaysoftware.filechooser.os;
 
 import java.io.File;
+import java.util.Objects;
 
 public class Place {
    private final PlaceType type;
@@ -19,6 +20,25 @@ public class Place {
       return path;
    }
 
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+
+      if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+
+      final Place place = (Place) o;
+      return type == place.type && Objects.equals(path, place.path);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(type, path);
+   }
+
    @Override
    public String toString() {
       return "Place{" +
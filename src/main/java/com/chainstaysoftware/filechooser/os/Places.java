@@ -18,18 +18,32 @@ public class Places {
     * Get the default list of {@link Place} to show in the Places list.
     */
    public List<Place> getDefaultPlaces(final boolean showMountPoints) {
-      if (!showMountPoints) {
-         return defaultPlacesProvider.getDefaultPlaces();
-      }
+      return showMountPoints
+         ? getMountPointsProvider().getDefaultPlaces()
+         : defaultPlacesProvider.getDefaultPlaces();
+   }
+
+   /**
+    * Register a listener to be called (on a background thread) when the mount
+    * points may have changed.
+    */
+   public void addListener(final Runnable listener) {
+      getMountPointsProvider().addListener(listener);
+   }
+
+   public void removeListener(final Runnable listener) {
+      getMountPointsProvider().removeListener(listener);
+   }
 
+   private PlacesProvider getMountPointsProvider() {
       if (OsInfo.isLinux()) {
-         return linuxPlacesProvider.getDefaultPlaces();
+         return linuxPlacesProvider;
       }
 
       if (OsInfo.isMac()) {
-         return osxPlacesProvider.getDefaultPlaces();
+         return osxPlacesProvider;
       }
 
-      return defaultPlacesProvider.getDefaultPlaces();
+      return defaultPlacesProvider;
    }
 }
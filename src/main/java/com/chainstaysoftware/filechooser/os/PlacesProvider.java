@@ -8,4 +8,15 @@ public interface PlacesProvider {
     * Return the default list of {@link Place} for the supporting OS instance.
     */
    List<Place> getDefaultPlaces();
+
+   /**
+    * Register a listener to be called (on a background thread) when the list
+    * returned by {@link #getDefaultPlaces()} may have changed. By default the
+    * places are assumed to never change.
+    */
+   default void addListener(Runnable listener) {
+   }
+
+   default void removeListener(Runnable listener) {
+   }
 }
@@ -23,7 +23,6 @@ public class LinuxPlacesProvider implements PlacesProvider {
    private static final List<String> networkFsTypes = Arrays.asList("cifs", "ncpfs", "nfs", "smb", "smbfs");
    private static final List<String> cdFsTypes = Arrays.asList("iso9660");
 
-   private final LinuxFileSystem linuxFileSystem = new LinuxFileSystem();
    /**
     * Return the default list of {@link Place} for the supporting OS instance.
     * Only returns Roots and assumes all are {@link PlaceType#HardDisk}
@@ -31,8 +30,8 @@ public class LinuxPlacesProvider implements PlacesProvider {
    @Override
    public List<Place> getDefaultPlaces() {
       // File.listRoots() only returns "/" on Linux. So, if possible, get the
-      // mounted drives from /proc/mounts
-      final List<MountInfo> mountInfos = linuxFileSystem.getMounts();
+      // mounted drives from the mount table.
+      final List<MountInfo> mountInfos = MountTable.getInstance().getMounts();
       if (mountInfos.isEmpty()) {
          return new DefaultPlacesProvider().getDefaultPlaces();
       }
@@ -43,6 +42,19 @@ public class LinuxPlacesProvider implements PlacesProvider {
          .collect(Collectors.toList());
    }
 
+   /**
+    * Listen for mounts and unmounts.
+    */
+   @Override
+   public void addListener(final Runnable listener) {
+      MountTable.getInstance().addListener(listener);
+   }
+
+   @Override
+   public void removeListener(final Runnable listener) {
+      MountTable.getInstance().removeListener(listener);
+   }
+
    /**
     * Attempt to map a {@link MountInfo} to a {@link PlaceType}
     */
@@ -1,5 +1,7 @@
 package com.chainstaysoftware.filechooser.os.linux;
 
+import java.util.Objects;
+
 /**
  * Adapted from - https://gist.github.com/ikonst/3394662
  */
@@ -68,4 +70,28 @@ public class MountInfo {
    public int getPass() {
       return pass;
    }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+
+      if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+
+      final MountInfo mountInfo = (MountInfo) o;
+      return dump == mountInfo.dump
+         && pass == mountInfo.pass
+         && Objects.equals(device, mountInfo.device)
+         && Objects.equals(mountpoint, mountInfo.mountpoint)
+         && Objects.equals(fs, mountInfo.fs)
+         && Objects.equals(options, mountInfo.options);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(device, mountpoint, fs, options, dump, pass);
+   }
 }
@@ -0,0 +1,255 @@
+package com.chainstaysoftware.filechooser.os.linux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cached view of the Linux mount table, read from /proc/self/mountinfo. The
+ * table is only parsed again when the content of mountinfo has changed. While
+ * listeners are registered, mountinfo is polled in the background so that
+ * mounts and unmounts (e.g. USB or NFS hot plug) are reported without the
+ * caller asking, and the cached table is returned without reading mountinfo.
+ * <p>
+ * If /proc/self/mountinfo cannot be read, /proc/mounts is used instead
+ * (see {@link LinuxFileSystem}).
+ */
+public final class MountTable {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.os.linux.MountTable");
+
+   private static final Path MOUNTINFO = Paths.get("/proc/self/mountinfo");
+   private static final long POLL_INTERVAL_MS = 2000;
+   // Separates the optional fields from the file system type in mountinfo.
+   private static final String SEPARATOR = " - ";
+
+   private static final MountTable instance = new MountTable();
+
+   private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+   private ScheduledExecutorService poller;
+   private ScheduledFuture<?> pollFuture;
+   private byte[] content;
+   private List<MountInfo> mounts = Collections.emptyList();
+   private boolean loaded;
+
+   private MountTable() {}
+
+   public static MountTable getInstance() {
+      return instance;
+   }
+
+   /**
+    * Retrieves the {@link MountInfo} for each mount. While the mount table is
+    * polled, the table read by the last poll is returned, without reading
+    * the mount table. Otherwise the mount table is reread, but only parsed
+    * if it has changed since the last call. An empty list is returned if the
+    * mount table cannot be loaded.
+    */
+   public List<MountInfo> getMounts() {
+      synchronized (this) {
+         if (loaded && pollFuture != null) {
+            return mounts;
+         }
+      }
+
+      refresh();
+      return getCachedMounts();
+   }
+
+   /**
+    * Register a listener to be called when the mount table changes. The
+    * listener is called on a background thread. Polling of the mount table
+    * starts with the first listener and stops when the last is removed.
+    */
+   public synchronized void addListener(final Runnable listener) {
+      listeners.add(listener);
+
+      if (pollFuture == null) {
+         if (poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+               final Thread thread = new Thread(runnable, "MountTable poller");
+               thread.setDaemon(true);
+               return thread;
+            });
+         }
+
+         pollFuture = poller.scheduleWithFixedDelay(this::poll, POLL_INTERVAL_MS, POLL_INTERVAL_MS,
+            TimeUnit.MILLISECONDS);
+      }
+   }
+
+   public synchronized void removeListener(final Runnable listener) {
+      listeners.remove(listener);
+
+      if (listeners.isEmpty() && pollFuture != null) {
+         pollFuture.cancel(false);
+         pollFuture = null;
+      }
+   }
+
+   private void poll() {
+      if (refresh()) {
+         listeners.forEach(Runnable::run);
+      }
+   }
+
+   private synchronized List<MountInfo> getCachedMounts() {
+      return mounts;
+   }
+
+   /**
+    * Reread the mount table and parse it if it changed.
+    * @return true if the mount table changed.
+    */
+   private boolean refresh() {
+      final Optional<byte[]> newContent = read();
+      if (!newContent.isPresent()) {
+         final List<MountInfo> procMounts = new LinuxFileSystem().getMounts();
+         synchronized (this) {
+            final boolean changed = !procMounts.equals(mounts);
+            loaded = true;
+            content = null;
+            mounts = procMounts;
+            return changed;
+         }
+      }
+
+      synchronized (this) {
+         loaded = true;
+         if (Arrays.equals(content, newContent.get())) {
+            return false;
+         }
+
+         content = newContent.get();
+         mounts = Collections.unmodifiableList(parse(new String(content, StandardCharsets.UTF_8)));
+         return true;
+      }
+   }
+
+   private Optional<byte[]> read() {
+      try {
+         return Optional.of(Files.readAllBytes(MOUNTINFO));
+      } catch (IOException e) {
+         logger.log(Level.FINE, "Unable to read " + MOUNTINFO, e);
+         return Optional.empty();
+      }
+   }
+
+   /**
+    * Parse the content of a mountinfo file. See proc(5) for the format.
+    */
+   static List<MountInfo> parse(final String mountinfo) {
+      final List<MountInfo> result = new ArrayList<>();
+
+      int lineStart = 0;
+      while (lineStart < mountinfo.length()) {
+         int lineEnd = mountinfo.indexOf('\n', lineStart);
+         if (lineEnd < 0) {
+            lineEnd = mountinfo.length();
+         }
+
+         parseLine(mountinfo.substring(lineStart, lineEnd)).ifPresent(result::add);
+         lineStart = lineEnd + 1;
+      }
+
+      return result;
+   }
+
+   /**
+    * Parse a single mountinfo line. For example -
+    * 36 35 98:0 /mnt1 /mnt2 rw,noatime master:1 - ext3 /dev/root rw,errors=continue
+    */
+   private static Optional<MountInfo> parseLine(final String line) {
+      final int separator = line.indexOf(SEPARATOR);
+      if (separator < 0) {
+         return Optional.empty();
+      }
+
+      // Mount ID, parent ID, major:minor, root, mount point and mount options.
+      final String[] head = fields(line.substring(0, separator), 6);
+      // File system type, mount source and super options.
+      final String[] tail = fields(line.substring(separator + SEPARATOR.length()), 3);
+      if (head == null || tail == null) {
+         logger.log(Level.FINE, "Unable to parse mountinfo line - " + line);
+         return Optional.empty();
+      }
+
+      return Optional.of(new MountInfo(unescape(tail[1]), unescape(head[4]), tail[0], head[5], 0, 0));
+   }
+
+   /**
+    * Return the first count space separated fields of the passed in string.
+    * Or, null if there are fewer fields.
+    */
+   private static String[] fields(final String str,
+                                  final int count) {
+      final String[] fields = new String[count];
+      int start = 0;
+      for (int i = 0; i < count; i++) {
+         if (start >= str.length()) {
+            return null;
+         }
+
+         int end = str.indexOf(' ', start);
+         if (end < 0) {
+            end = str.length();
+         }
+
+         fields[i] = str.substring(start, end);
+         start = end + 1;
+      }
+
+      return fields;
+   }
+
+   /**
+    * Replace the octal escapes (e.g. \040 for space) the kernel uses for
+    * whitespace and backslash in paths.
+    */
+   static String unescape(final String str) {
+      if (str.indexOf('\\') < 0) {
+         return str;
+      }
+
+      final StringBuilder sb = new StringBuilder(str.length());
+      int i = 0;
+      while (i < str.length()) {
+         final char c = str.charAt(i);
+         if (c == '\\' && i + 3 < str.length() && isOctal(str, i + 1)) {
+            sb.append((char) Integer.parseInt(str.substring(i + 1, i + 4), 8));
+            i += 4;
+         } else {
+            sb.append(c);
+            i++;
+         }
+      }
+
+      return sb.toString();
+   }
+
+   private static boolean isOctal(final String str,
+                                  final int start) {
+      for (int i = start; i < start + 3; i++) {
+         final char c = str.charAt(i);
+         if (c < '0' || c > '7') {
+            return false;
+         }
+      }
+
+      return true;
+   }
+}
@@ -0,0 +1,62 @@
+package com.chainstaysoftware.filechooser.preview;
+
+import java.io.File;
+
+/**
+ * Cache key for data derived from a file's contents. The key includes the
+ * last modified time of the file, so that a cached value is not used after
+ * the file has been changed.
+ */
+public final class FileKey {
+   private final String path;
+   private final long lastModified;
+
+   public FileKey(final String path,
+                  final long lastModified) {
+      this.path = path;
+      this.lastModified = lastModified;
+   }
+
+   /**
+    * Create a key from the current state of the passed in file. Note that
+    * this reads the last modified time from the file system.
+    */
+   public static FileKey of(final File file) {
+      return new FileKey(file.getAbsolutePath(), file.lastModified());
+   }
+
+   public String getPath() {
+      return path;
+   }
+
+   public long getLastModified() {
+      return lastModified;
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+
+      if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+
+      final FileKey fileKey = (FileKey) o;
+      return lastModified == fileKey.lastModified && path.equals(fileKey.path);
+   }
+
+   @Override
+   public int hashCode() {
+      return 31 * path.hashCode() + Long.hashCode(lastModified);
+   }
+
+   @Override
+   public String toString() {
+      return "FileKey{" +
+         "path=" + path +
+         ", lastModified=" + lastModified +
+         '}';
+   }
+}
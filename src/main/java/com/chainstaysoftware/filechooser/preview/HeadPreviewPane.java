@@ -6,19 +6,17 @@ import javafx.scene.layout.Pane;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * {@link PreviewPane} implementation for displaying N number of lines from the
  * head of text file types.
  */
-public class HeadPreviewPane implements PreviewPane {
-   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.HeadPreviewWindow");
-
+public class HeadPreviewPane implements LoadablePreviewPane<String> {
    private static final Charset encoding = Charset.defaultCharset();
    private static final int maxLines = 1000;
 
@@ -39,22 +37,34 @@ public class HeadPreviewPane implements PreviewPane {
    }
 
    /**
-    * Sets the file to display within the Pane.
-    *
-    * @param file
+    * Read the first lines of the file.
     */
    @Override
-   public void setFile(final File file) {
+   public String load(final File file) throws IOException {
       try (Stream<String> stream = Files.lines(file.toPath(), encoding)) {
-         textArea.setText(stream.limit(maxLines).reduce((t, u) -> t + "\r\n" + u).orElse(""));
-      } catch (IOException e) {
-         logger.log(Level.WARNING, "Error reading file - " + file, e);
-         // Error reading file.
+         return stream.limit(maxLines).collect(Collectors.joining("\r\n"));
+      } catch (UncheckedIOException e) {
+         throw e.getCause();
       }
    }
 
+   @Override
+   public void show(final File file, final String content) {
+      textArea.setText(content);
+   }
+
+   @Override
+   public long estimateSize(final String content) {
+      return (long) content.length() * 2;
+   }
+
    @Override
    public Pane getPane() {
       return borderPane;
    }
+
+   @Override
+   public void reset() {
+      textArea.clear();
+   }
 }
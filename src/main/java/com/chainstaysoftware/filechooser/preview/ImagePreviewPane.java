@@ -1,28 +1,38 @@
 package com.chainstaysoftware.filechooser.preview;
 
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
+import javafx.stage.Screen;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Iterator;
 
 /**
  * {@link PreviewPane} implementation for displaying image file types.
  */
-public class ImagePreviewPane implements PreviewPane {
-   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.ImagePreviewPane");
-
+public class ImagePreviewPane implements LoadablePreviewPane<Image> {
    private final HBox hBox;
    private final ImageView imageView;
+   // Images larger than the screen are decoded at the screen size.
+   private final double maxWidth;
+   private final double maxHeight;
 
    public ImagePreviewPane() {
+      final Rectangle2D screenBounds = Screen.getPrimary().getVisualBounds();
+      maxWidth = screenBounds.getWidth();
+      maxHeight = screenBounds.getHeight();
+
       imageView = new ImageView();
       imageView.setId("imagePreviewImageView");
 
@@ -38,20 +48,74 @@ public class ImagePreviewPane implements PreviewPane {
    }
 
    /**
-    * Sets the file to display within the Pane.
+    * Decode the image. The {@link Image} is created with backgroundLoading
+    * disabled so that it is fully decoded when returned. Images larger than the
+    * screen are scaled down while decoding, so that the full resolution image
+    * is never held in memory.
     */
    @Override
-   public void setFile(final File file) {
+   public Image load(final File file) throws IOException {
+      final boolean scale = isLargerThan(file, maxWidth, maxHeight);
+
       try (final InputStream is = new FileInputStream(file)){
-         final Image image = new Image(is);
-         imageView.setImage(image);
-      } catch (IOException e) {
-         logger.log(Level.WARNING, "Error opening - " + file, e);
+         final Image image = scale
+            ? new Image(is, maxWidth, maxHeight, true, true)
+            : new Image(is);
+         if (image.isError()) {
+            throw new IOException("Error decoding image", image.getException());
+         }
+         return image;
+      }
+   }
+
+   /**
+    * Determine if the image is larger than the passed in bounds by reading the
+    * dimensions from the image header. Formats not known to ImageIO are treated as
+    * not larger, as {@link Image} would scale smaller images up to the requested size.
+    */
+   private static boolean isLargerThan(final File file,
+                                       final double width,
+                                       final double height) throws IOException {
+      try (final ImageInputStream iis = ImageIO.createImageInputStream(file)) {
+         if (iis == null) {
+            return false;
+         }
+
+         final Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+         if (!readers.hasNext()) {
+            return false;
+         }
+
+         final ImageReader reader = readers.next();
+         try {
+            reader.setInput(iis, true, true);
+            return reader.getWidth(0) > width || reader.getHeight(0) > height;
+         } finally {
+            reader.dispose();
+         }
       }
    }
 
+   @Override
+   public void show(final File file, final Image image) {
+      imageView.setImage(image);
+   }
+
+   /**
+    * Decoded images are stored as 32 bit pixels.
+    */
+   @Override
+   public long estimateSize(final Image image) {
+      return (long) image.getWidth() * (long) image.getHeight() * 4;
+   }
+
    @Override
    public Pane getPane() {
       return hBox;
    }
+
+   @Override
+   public void reset() {
+      imageView.setImage(null);
+   }
 }
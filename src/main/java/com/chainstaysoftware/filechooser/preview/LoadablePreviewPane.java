@@ -0,0 +1,59 @@
+package com.chainstaysoftware.filechooser.preview;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link PreviewPane} that separates reading the file from displaying it. The
+ * FileChooser calls {@link #load(File)} on a background thread, and then calls
+ * {@link #show(File, Object)} on the JavaFx thread with the result. Loads for
+ * files that are no longer selected are cancelled (the loading thread is interrupted)
+ * and their results are dropped. Loaded content is kept in the
+ * {@link PreviewCache} of the FileChooser, so content must not be modified by
+ * {@link #show(File, Object)}.
+ *
+ * @param <T> Type of the content read from the file.
+ */
+public interface LoadablePreviewPane<T> extends PreviewPane {
+   /**
+    * Read the content to preview from the file. This is NOT called on the
+    * JavaFx thread, and so must not modify the scene graph.
+    * @param file File to read.
+    * @return content to pass to {@link #show(File, Object)}.
+    * @throws IOException on error reading the file.
+    */
+   T load(File file) throws IOException;
+
+   /**
+    * Display content previously returned from {@link #load(File)}. Called on
+    * the JavaFx thread.
+    * @param file File the content was read from.
+    * @param content Content returned from {@link #load(File)}.
+    */
+   void show(File file, T content);
+
+   /**
+    * Estimate the memory used by content returned from {@link #load(File)}. Used
+    * to keep the {@link PreviewCache} within its memory budget.
+    * @return size in bytes, or -1 if unknown. Content of unknown size is not cached.
+    */
+   default long estimateSize(final T content) {
+      return -1;
+   }
+
+   /**
+    * Loads and shows the file on the calling thread. The content is not
+    * cached, as there is no FileChooser to hold the {@link PreviewCache}.
+    */
+   @Override
+   default void setFile(final File file) {
+      try {
+         show(file, load(file));
+      } catch (IOException e) {
+         Logger.getLogger("com.chainstaysoftware.filechooser.preview.LoadablePreviewPane")
+            .log(Level.WARNING, "Error reading file - " + file, e);
+      }
+   }
+}
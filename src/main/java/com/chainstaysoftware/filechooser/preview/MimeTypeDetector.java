@@ -0,0 +1,280 @@
+package com.chainstaysoftware.filechooser.preview;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Determines the mimetype of a file. The file extension is checked first against
+ * a built in table. If the extension is unknown, then the first bytes of the file
+ * are read and compared against known "magic" signatures. If neither approach finds
+ * a match, then {@link Files#probeContentType(Path)} is used so that any installed
+ * {@link java.nio.file.spi.FileTypeDetector} is still honored.
+ */
+public final class MimeTypeDetector {
+   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.preview.MimeTypeDetector");
+
+   /**
+    * Number of bytes read from the head of a file when sniffing content.
+    */
+   static final int HEADER_SIZE = 512;
+
+   private static final Map<String, String> extensionToMimeType = createExtensionTable();
+   private static final List<Signature> signatures = createSignatures();
+
+   private MimeTypeDetector() {}
+
+   /**
+    * Determine the mimetype of the passed in file.
+    * @param path File to determine the mimetype for.
+    * @return mimetype or null if it could not be determined.
+    */
+   public static String detect(final Path path) {
+      final String fromExtension = fromExtension(path);
+      if (fromExtension != null) {
+         return fromExtension;
+      }
+
+      final String fromContent = fromContent(path);
+      if (fromContent != null) {
+         return fromContent;
+      }
+
+      try {
+         return Files.probeContentType(path);
+      } catch (IOException e) {
+         logger.log(Level.FINE, "could not probe content type for - " + path, e);
+         return null;
+      }
+   }
+
+   /**
+    * Lookup the mimetype based only on the extension of the passed in file.
+    * @return mimetype or null if the extension is not known.
+    */
+   public static String fromExtension(final Path path) {
+      final Path fileName = path.getFileName();
+      if (fileName == null) {
+         return null;
+      }
+
+      final String name = fileName.toString();
+      final int dot = name.lastIndexOf('.');
+      if (dot < 0 || dot == name.length() - 1) {
+         return null;
+      }
+
+      return extensionToMimeType.get(name.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+   }
+
+   /**
+    * Determine the mimetype by reading the head of the passed in file.
+    * @return mimetype or null if the file could not be read or the content is
+    * not recognized.
+    */
+   public static String fromContent(final Path path) {
+      final byte[] header = new byte[HEADER_SIZE];
+      final int length = readHeader(path, header);
+      return length <= 0 ? null : fromHeader(header, length);
+   }
+
+   /**
+    * Determine the mimetype from the first length bytes of a file.
+    * @return mimetype or null if the content is not recognized.
+    */
+   public static String fromHeader(final byte[] header, final int length) {
+      for (Signature signature : signatures) {
+         if (signature.matches(header, length)) {
+            return signature.mimeType;
+         }
+      }
+
+      return looksLikeText(header, length) ? "text/plain" : null;
+   }
+
+   /**
+    * Determines if the first length bytes of a file look like text. A file is
+    * treated as binary if it contains a NUL byte, or if more than a small fraction
+    * of the bytes are control characters.
+    */
+   public static boolean looksLikeText(final byte[] header, final int length) {
+      if (length <= 0) {
+         return false;
+      }
+
+      int control = 0;
+      for (int i = 0; i < length; i++) {
+         final int b = header[i] & 0xFF;
+         if (b == 0) {
+            return false;
+         }
+
+         if (b < 0x20 && b != '\n' && b != '\r' && b != '\t' && b != '\f' && b != 0x1B) {
+            control++;
+         }
+      }
+
+      return control * 20 < length;
+   }
+
+   /**
+    * Read up to header.length bytes from the head of the file.
+    * @return number of bytes read, or -1 if the file could not be read.
+    */
+   static int readHeader(final Path path, final byte[] header) {
+      if (!Files.isRegularFile(path)) {
+         return -1;
+      }
+
+      try (InputStream inputStream = Files.newInputStream(path)) {
+         int total = 0;
+         while (total < header.length) {
+            final int read = inputStream.read(header, total, header.length - total);
+            if (read < 0) {
+               break;
+            }
+            total += read;
+         }
+         return total;
+      } catch (IOException e) {
+         logger.log(Level.FINE, "could not read header of - " + path, e);
+         return -1;
+      }
+   }
+
+   private static Map<String, String> createExtensionTable() {
+      final Map<String, String> table = new HashMap<>();
+      table.put("txt", "text/plain");
+      table.put("text", "text/plain");
+      table.put("log", "text/plain");
+      table.put("md", "text/markdown");
+      table.put("csv", "text/csv");
+      table.put("properties", "text/plain");
+      table.put("java", "text/x-java");
+      table.put("c", "text/x-c");
+      table.put("h", "text/x-c");
+      table.put("cpp", "text/x-c");
+      table.put("py", "text/x-python");
+      table.put("sh", "application/x-sh");
+      table.put("css", "text/css");
+      table.put("htm", "text/html");
+      table.put("html", "text/html");
+      table.put("xml", "application/xml");
+      table.put("json", "application/json");
+      table.put("js", "application/javascript");
+      table.put("yaml", "text/yaml");
+      table.put("yml", "text/yaml");
+      table.put("png", "image/png");
+      table.put("jpg", "image/jpeg");
+      table.put("jpeg", "image/jpeg");
+      table.put("gif", "image/gif");
+      table.put("bmp", "image/bmp");
+      table.put("tif", "image/tiff");
+      table.put("tiff", "image/tiff");
+      table.put("svg", "image/svg+xml");
+      table.put("webp", "image/webp");
+      table.put("ico", "image/vnd.microsoft.icon");
+      table.put("pdf", "application/pdf");
+      table.put("ps", "application/postscript");
+      table.put("zip", "application/zip");
+      table.put("jar", "application/java-archive");
+      table.put("gz", "application/gzip");
+      table.put("tar", "application/x-tar");
+      table.put("7z", "application/x-7z-compressed");
+      table.put("doc", "application/msword");
+      table.put("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+      table.put("xls", "application/vnd.ms-excel");
+      table.put("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+      table.put("ppt", "application/vnd.ms-powerpoint");
+      table.put("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+      table.put("mp3", "audio/mpeg");
+      table.put("aac", "audio/aac");
+      table.put("wav", "audio/x-wav");
+      table.put("wma", "audio/x-ms-wma");
+      table.put("ogg", "audio/ogg");
+      table.put("avi", "video/x-msvideo");
+      table.put("mov", "video/quicktime");
+      table.put("mp4", "video/mp4");
+      table.put("exe", "application/x-msdownload");
+      table.put("class", "application/java-vm");
+      return Collections.unmodifiableMap(table);
+   }
+
+   private static List<Signature> createSignatures() {
+      final List<Signature> list = new ArrayList<>();
+      list.add(new Signature("image/png", 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A));
+      list.add(new Signature("image/jpeg", 0, 0xFF, 0xD8, 0xFF));
+      list.add(new Signature("image/gif", 0, "GIF87a"));
+      list.add(new Signature("image/gif", 0, "GIF89a"));
+      list.add(new Signature("image/bmp", 0, "BM"));
+      list.add(new Signature("image/tiff", 0, 'I', 'I', 0x2A, 0x00));
+      list.add(new Signature("image/tiff", 0, 'M', 'M', 0x00, 0x2A));
+      list.add(new Signature("image/webp", 8, "WEBP"));
+      list.add(new Signature("application/pdf", 0, "%PDF-"));
+      list.add(new Signature("application/postscript", 0, "%!PS"));
+      list.add(new Signature("application/zip", 0, 'P', 'K', 0x03, 0x04));
+      list.add(new Signature("application/gzip", 0, 0x1F, 0x8B));
+      list.add(new Signature("application/x-7z-compressed", 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C));
+      list.add(new Signature("application/x-rar-compressed", 0, "Rar!"));
+      list.add(new Signature("application/java-vm", 0, 0xCA, 0xFE, 0xBA, 0xBE));
+      list.add(new Signature("application/x-executable", 0, 0x7F, 'E', 'L', 'F'));
+      list.add(new Signature("application/x-msdownload", 0, "MZ"));
+      list.add(new Signature("audio/mpeg", 0, "ID3"));
+      list.add(new Signature("audio/ogg", 0, "OggS"));
+      list.add(new Signature("audio/x-wav", 8, "WAVE"));
+      list.add(new Signature("video/x-msvideo", 8, "AVI "));
+      list.add(new Signature("video/mp4", 4, "ftyp"));
+      list.add(new Signature("application/xml", 0, "<?xml"));
+      list.add(new Signature("text/html", 0, "<!DOCTYPE html"));
+      list.add(new Signature("text/html", 0, "<html"));
+      return Collections.unmodifiableList(list);
+   }
+
+   /**
+    * Sequence of bytes found at a fixed offset within a file.
+    */
+   private static final class Signature {
+      private final String mimeType;
+      private final int offset;
+      private final byte[] bytes;
+
+      Signature(final String mimeType, final int offset, final int... bytes) {
+         this.mimeType = mimeType;
+         this.offset = offset;
+         this.bytes = new byte[bytes.length];
+         for (int i = 0; i < bytes.length; i++) {
+            this.bytes[i] = (byte) bytes[i];
+         }
+      }
+
+      Signature(final String mimeType, final int offset, final String ascii) {
+         this.mimeType = mimeType;
+         this.offset = offset;
+         this.bytes = ascii.getBytes(StandardCharsets.US_ASCII);
+      }
+
+      boolean matches(final byte[] header, final int length) {
+         if (offset + bytes.length > length) {
+            return false;
+         }
+
+         for (int i = 0; i < bytes.length; i++) {
+            if (header[offset + i] != bytes[i]) {
+               return false;
+            }
+         }
+
+         return true;
+      }
+   }
+}
@@ -0,0 +1,140 @@
+package com.chainstaysoftware.filechooser.preview;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of decoded preview content. Each file chooser has
+ * its own cache, shared by its {@link LoadablePreviewPane} instances, so that
+ * the memory budget and lifetime of one dialog's previews do not affect another
+ * dialog. Entries are keyed on the file path and
+ * last modified time, so a changed file is decoded again. The cache is bounded
+ * by the total estimated size in bytes of the content (see
+ * {@link LoadablePreviewPane#estimateSize(Object)}), not by the number of entries.
+ */
+public final class PreviewCache {
+   // Default maximum number of bytes of content to keep.
+   private static final long DEFAULT_CAPACITY = 32 * 1024 * 1024;
+
+   private final Map<FileKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+   private long capacity;
+   private long size;
+
+   public PreviewCache() {
+      this(DEFAULT_CAPACITY);
+   }
+
+   /**
+    * @param capacity Maximum number of bytes of content to keep.
+    */
+   public PreviewCache(final long capacity) {
+      this.capacity = capacity;
+   }
+
+   /**
+    * Return the cached content for the file, or load it with the passed in
+    * {@link LoadablePreviewPane} and add it to the cache. This reads from the
+    * file system and should not be called on the JavaFx thread.
+    * @param previewPane {@link LoadablePreviewPane} to load the content with on a cache miss.
+    * @param file File to load.
+    * @return the content of the file.
+    * @throws IOException on error reading the file.
+    */
+   @SuppressWarnings("unchecked")
+   public <T> T load(final LoadablePreviewPane<T> previewPane,
+                     final File file) throws IOException {
+      final FileKey key = FileKey.of(file);
+
+      synchronized (this) {
+         final Entry entry = entries.get(key);
+         if (entry != null && entry.previewPaneClass.equals(previewPane.getClass())) {
+            return (T) entry.content;
+         }
+      }
+
+      final T content = previewPane.load(file);
+      put(key, previewPane.getClass(), content, previewPane.estimateSize(content));
+      return content;
+   }
+
+   /**
+    * Determine if there is cached content for the file. The last modified time
+    * is not checked, so this does not access the file system and may be called
+    * from the JavaFx thread.
+    */
+   public synchronized boolean contains(final File file) {
+      final String path = file.getAbsolutePath();
+      return entries.keySet().stream().anyMatch(key -> key.getPath().equals(path));
+   }
+
+   /**
+    * Set the maximum number of bytes of content to keep. Least recently used
+    * entries are released to fit the new capacity.
+    */
+   public synchronized void setCapacity(final long capacity) {
+      this.capacity = capacity;
+      evict();
+   }
+
+   public synchronized long getCapacity() {
+      return capacity;
+   }
+
+   /**
+    * Estimated number of bytes of content currently cached.
+    */
+   public synchronized long size() {
+      return size;
+   }
+
+   /**
+    * Release all cached content.
+    */
+   public synchronized void clear() {
+      entries.clear();
+      size = 0;
+   }
+
+   private synchronized void put(final FileKey key,
+                                 final Class<?> previewPaneClass,
+                                 final Object content,
+                                 final long contentSize) {
+      // Content of unknown size, or larger than the whole cache, is not kept.
+      if (contentSize < 0 || contentSize > capacity) {
+         return;
+      }
+
+      final Entry previous = entries.put(key, new Entry(previewPaneClass, content, contentSize));
+      if (previous != null) {
+         size -= previous.size;
+      }
+      size += contentSize;
+
+      evict();
+   }
+
+   private void evict() {
+      final Iterator<Entry> iterator = entries.values().iterator();
+      while (size > capacity && iterator.hasNext()) {
+         size -= iterator.next().size;
+         iterator.remove();
+      }
+   }
+
+   private static final class Entry {
+      private final Class<?> previewPaneClass;
+      private final Object content;
+      private final long size;
+
+      Entry(final Class<?> previewPaneClass,
+            final Object content,
+            final long size) {
+         this.previewPaneClass = previewPaneClass;
+         this.content = content;
+         this.size = size;
+      }
+   }
+}
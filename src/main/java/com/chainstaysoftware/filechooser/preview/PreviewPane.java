@@ -9,6 +9,10 @@ import java.io.File;
  * Show preview of passed in {@link File}. Note that it is possible that the
  * implementations will read the entire file will memory. So, there is a
  * potential for OutOfMemoryException for large files (and untuned JVMs).
+ * <p>
+ * Instances are pooled and reused for multiple files. Implementations must
+ * support {@link #setFile(File)} being called repeatedly on the same instance,
+ * and should release the content of the previous file in {@link #reset()}.
  */
 public interface PreviewPane {
    /**
@@ -17,4 +21,12 @@ public interface PreviewPane {
    void setFile(File file);
 
    Pane getPane();
+
+   /**
+    * Clear the displayed content so that the instance can be returned to the
+    * pool and later reused for another file. The {@link Pane} returned by
+    * {@link #getPane()} must remain the same instance.
+    */
+   default void reset() {
+   }
 }
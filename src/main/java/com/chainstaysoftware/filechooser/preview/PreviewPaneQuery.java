@@ -1,38 +1,89 @@
 package com.chainstaysoftware.filechooser.preview;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Determine the {@link PreviewPane} to utilize for a specific file.
  */
 public final class PreviewPaneQuery {
-   private static Logger logger = Logger.getLogger("com.chainstaysoftware.filechooser.preview.PreviewPaneQuery");
+   // Maximum number of mimetype lookups to remember.
+   private static final int MAX_CACHE_ENTRIES = 4096;
+   // Stored in the cache when the mimetype of a file could not be determined.
+   private static final String UNKNOWN = "";
+
+   private static final Map<FileKey, String> mimeTypeCache = new LinkedHashMap<FileKey, String>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<FileKey, String> eldest) {
+         return size() > MAX_CACHE_ENTRIES;
+      }
+   };
+
+   private static final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+      final Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+   });
 
    private PreviewPaneQuery() {}
 
    /**
-    * Determine the {@link PreviewPane} to utilize.
+    * Determine the {@link PreviewPane} to utilize. This call may read from the
+    * file system and should not be made on the JavaFx thread. Use
+    * {@link #queryAsync(Map, File)} instead.
     * @param previewHandlers Map of configured {@link PreviewPane} keyed on MimeType.
     * @param file File to return a {@link PreviewPane} for.
     * @return {@link PreviewPane} class to use for the file. Or, null if none found.
     */
    public static Class<? extends PreviewPane> query(final Map<String, Class<? extends PreviewPane>> previewHandlers,
                                                     final File file) {
-      try {
-         if (file.isDirectory()) {
-            return null;
+      if (file.isDirectory()) {
+         return null;
+      }
+
+      final String mimeType = getMimeType(file);
+      return mimeType == null ? null : previewHandlers.get(mimeType);
+   }
+
+   /**
+    * Determine the {@link PreviewPane} to utilize without blocking the caller.
+    * The lookup is run on a background thread. Note that the returned future does
+    * NOT complete on the JavaFx thread.
+    * @param previewHandlers Map of configured {@link PreviewPane} keyed on MimeType.
+    * @param file File to return a {@link PreviewPane} for.
+    * @return future that completes with the {@link PreviewPane} class to use for the file,
+    * or null if none found.
+    */
+   public static CompletableFuture<Class<? extends PreviewPane>> queryAsync(final Map<String, Class<? extends PreviewPane>> previewHandlers,
+                                                                             final File file) {
+      return CompletableFuture.supplyAsync(() -> query(previewHandlers, file), executor);
+   }
+
+   /**
+    * Determine the mimetype of the passed in file. Results are cached by path and
+    * last modified time.
+    * @return mimetype or null if unknown.
+    */
+   public static String getMimeType(final File file) {
+      final FileKey key = FileKey.of(file);
+
+      synchronized (mimeTypeCache) {
+         final String cached = mimeTypeCache.get(key);
+         if (cached != null) {
+            return UNKNOWN.equals(cached) ? null : cached;
          }
+      }
 
-         final String mimeType = Files.probeContentType(file.toPath());
-         return previewHandlers.get(mimeType);
-      } catch (IOException e) {
-         logger.log(Level.WARNING, "could not determine mimetype for - " + file, e);
-         return null;
+      final String mimeType = MimeTypeDetector.detect(file.toPath());
+
+      synchronized (mimeTypeCache) {
+         mimeTypeCache.put(key, mimeType == null ? UNKNOWN : mimeType);
       }
+
+      return mimeType;
    }
 }
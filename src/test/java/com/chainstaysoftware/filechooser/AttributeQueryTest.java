@@ -0,0 +1,117 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+
+public class AttributeQueryTest {
+   private static final long NOW = System.currentTimeMillis();
+
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testIsQuery() {
+      Assert.assertThat(AttributeQuery.isQuery("size>100MB"), equalTo(true));
+      Assert.assertThat(AttributeQuery.isQuery("report -ext:tmp"), equalTo(true));
+      Assert.assertThat(AttributeQuery.isQuery("(type:dir OR name:x)"), equalTo(true));
+      Assert.assertThat(AttributeQuery.isQuery("report"), equalTo(false));
+      Assert.assertThat(AttributeQuery.isQuery("*.txt"), equalTo(false));
+      Assert.assertThat(AttributeQuery.isQuery("size"), equalTo(false));
+   }
+
+   @Test
+   public void testSize() throws IOException {
+      final List<DirectoryListItem> items = createItems();
+      Assert.assertThat(filter(items, "size>1KB"), containsInAnyOrder("big.log", "old.txt"));
+      Assert.assertThat(filter(items, "size>=2kb"), containsInAnyOrder("big.log", "old.txt"));
+      Assert.assertThat(filter(items, "size<1.5K"), containsInAnyOrder("small.log", "empty.txt"));
+      Assert.assertThat(filter(items, "size=0"), containsInAnyOrder("empty.txt"));
+   }
+
+   @Test
+   public void testModified() throws IOException {
+      final List<DirectoryListItem> items = createItems();
+      Assert.assertThat(filter(items, "modified>7d"), containsInAnyOrder("old.txt"));
+      Assert.assertThat(filter(items, "modified<7d type:file"),
+         containsInAnyOrder("big.log", "small.log", "empty.txt"));
+      Assert.assertThat(filter(items, "modified>2000-01-01 ext:txt"), containsInAnyOrder("old.txt", "empty.txt"));
+   }
+
+   @Test
+   public void testExtensionsAndTypes() throws IOException {
+      final List<DirectoryListItem> items = createItems();
+      Assert.assertThat(filter(items, "ext:LOG"), containsInAnyOrder("big.log", "small.log"));
+      Assert.assertThat(filter(items, "ext:.log,txt"), containsInAnyOrder("big.log", "small.log", "old.txt",
+         "empty.txt"));
+      Assert.assertThat(filter(items, "type:dir"), containsInAnyOrder("sub"));
+   }
+
+   @Test
+   public void testTree() throws IOException {
+      final List<DirectoryListItem> items = createItems();
+      Assert.assertThat(filter(items, "ext:log size>1KB OR type:dir"), containsInAnyOrder("big.log", "sub"));
+      Assert.assertThat(filter(items, "ext:log (size>1KB OR name:small)"), containsInAnyOrder("big.log",
+         "small.log"));
+      Assert.assertThat(filter(items, "type:file -ext:log"), containsInAnyOrder("old.txt", "empty.txt"));
+      Assert.assertThat(filter(items, "big ext:log"), containsInAnyOrder("big.log"));
+   }
+
+   @Test
+   public void testInvalid() {
+      for (String text : Arrays.asList("size>lots", "modified<7x", "type:link", "ext:", "(size>1", "type:dir OR",
+         "size>1 )")) {
+         try {
+            AttributeQuery.parse(text, NOW);
+            Assert.fail(text);
+         } catch (IllegalArgumentException e) {
+            // Expected
+         }
+      }
+   }
+
+   private List<String> filter(final List<DirectoryListItem> items,
+                               final String text) {
+      final AttributeQuery query = AttributeQuery.parse(text, NOW);
+      return items.stream()
+         .filter(query)
+         .map(item -> item.getFile().getName())
+         .collect(Collectors.toList());
+   }
+
+   private List<DirectoryListItem> createItems() throws IOException {
+      write("big.log", 4096, 0);
+      write("small.log", 1024, 1);
+      write("old.txt", 2048, 30);
+      write("empty.txt", 0, 0);
+      folder.newFolder("sub");
+
+      final List<DirectoryListItem> items = new ArrayList<>();
+      for (File file : folder.getRoot().listFiles()) {
+         items.add(new DirectoryListItem(file, Files.readAttributes(file.toPath(), BasicFileAttributes.class)));
+      }
+      return items;
+   }
+
+   private void write(final String name,
+                      final int length,
+                      final int daysOld) throws IOException {
+      final File file = folder.newFile(name);
+      Files.write(file.toPath(), new byte[length]);
+      file.setLastModified(NOW - TimeUnit.DAYS.toMillis(daysOld) - TimeUnit.HOURS.toMillis(1));
+   }
+}
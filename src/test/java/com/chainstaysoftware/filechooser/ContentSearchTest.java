@@ -0,0 +1,134 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ContentSearchTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testLinesAndPreviews() throws IOException {
+      final File file = write("app.conf", "# settings\nhost=localhost\n\nPORT = 8080\nport.backup=8081 # port\n");
+
+      final List<ContentMatch> matches = scan(file, "port", ContentSearch.CHUNK_SIZE);
+      Assert.assertThat(lineNumbers(matches), contains(4L, 5L));
+      Assert.assertThat(matches.get(0).getPreview(), equalTo("PORT = 8080"));
+      Assert.assertThat(matches.get(1).getPreview(), equalTo("port.backup=8081 # port"));
+   }
+
+   @Test
+   public void testChunkBoundaries() throws IOException {
+      final StringBuilder text = new StringBuilder();
+      for (int i = 1; i <= 200; i++) {
+         text.append(i % 7 == 0 ? "line with needle " : "line ").append(i).append('\n');
+      }
+      final File file = write("big.txt", text.toString());
+
+      // Chunks much smaller than the file, so matches fall across chunk edges.
+      final List<ContentMatch> matches = scan(file, "needle", 16);
+      Assert.assertThat(matches.size(), equalTo(200 / 7));
+      for (ContentMatch match : matches) {
+         Assert.assertThat(match.getPreview(), equalTo("line with needle " + match.getLineNumber()));
+      }
+   }
+
+   @Test
+   public void testNoMatch() throws IOException {
+      Assert.assertThat(scan(write("a.txt", "nothing here"), "needle", ContentSearch.CHUNK_SIZE), empty());
+      Assert.assertThat(scan(write("b.txt", "ne"), "needle", ContentSearch.CHUNK_SIZE), empty());
+   }
+
+   @Test
+   public void testBinary() throws IOException {
+      Assert.assertThat(ContentSearch.isBinary(ByteBuffer.wrap(new byte[] {(byte) 0x89, 'P', 'N', 'G', 'x'})),
+         equalTo(true));
+      Assert.assertThat(ContentSearch.isBinary(ByteBuffer.wrap(new byte[] {'a', 0, 'b'})), equalTo(true));
+      Assert.assertThat(ContentSearch.isBinary(ByteBuffer.wrap("plain text".getBytes(StandardCharsets.UTF_8))),
+         equalTo(false));
+
+      final File file = folder.newFile("data.bin");
+      Files.write(file.toPath(), new byte[] {'n', 'e', 'e', 'd', 'l', 'e', 0, 0});
+      Assert.assertThat(scan(file, "needle", ContentSearch.CHUNK_SIZE), empty());
+   }
+
+   @Test
+   public void testSearchesSubtree() throws Exception {
+      write("top.txt", "needle\n");
+      folder.newFolder("sub");
+      write("sub/nested.txt", "x\nNeedle\n");
+      write("sub/other.txt", "no match\n");
+
+      final Set<String> found = new TreeSet<>();
+      final CompletableFuture<RecursiveSearch.Outcome> finished = new CompletableFuture<>();
+      new ContentSearch(folder.getRoot(), "needle", item -> true, IgnoreRules.NONE, 32, TimeUnit.SECONDS.toMillis(30),
+         matches -> {
+            synchronized (found) {
+               matches.forEach(match -> found.add(match.getFile().getName() + ":" + match.getLineNumber()));
+            }
+         },
+         finished::complete).start();
+
+      Assert.assertThat(finished.get(10, TimeUnit.SECONDS), equalTo(RecursiveSearch.Outcome.Completed));
+      synchronized (found) {
+         Assert.assertThat(found, contains("nested.txt:2", "top.txt:1"));
+      }
+   }
+
+   @Test
+   public void testSkipsFifo() throws Exception {
+      final File fifo = new File(folder.getRoot(), "pipe");
+      final Process mkfifo;
+      try {
+         mkfifo = new ProcessBuilder("mkfifo", fifo.getPath()).start();
+      } catch (IOException e) {
+         Assume.assumeNoException("mkfifo not available", e);
+         return;
+      }
+      Assume.assumeTrue(mkfifo.waitFor() == 0 && fifo.exists());
+      write("top.txt", "needle\n");
+
+      // Opening the FIFO, which has no writer, would never return, so the search would not finish.
+      final CompletableFuture<RecursiveSearch.Outcome> finished = new CompletableFuture<>();
+      new ContentSearch(folder.getRoot(), "needle", item -> true, IgnoreRules.NONE, 32, TimeUnit.SECONDS.toMillis(30),
+         matches -> { }, finished::complete).start();
+      Assert.assertThat(finished.get(10, TimeUnit.SECONDS), equalTo(RecursiveSearch.Outcome.Completed));
+   }
+
+   private File write(final String name,
+                      final String text) throws IOException {
+      final File file = new File(folder.getRoot(), name);
+      Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+      return file;
+   }
+
+   private static List<ContentMatch> scan(final File file,
+                                          final String text,
+                                          final int chunkSize) throws IOException {
+      return ContentSearch.scan(file, new ContentSearch.Horspool(text.getBytes(StandardCharsets.UTF_8)),
+         chunkSize, () -> false);
+   }
+
+   private static List<Long> lineNumbers(final List<ContentMatch> matches) {
+      return matches.stream().map(ContentMatch::getLineNumber).collect(Collectors.toList());
+   }
+}
@@ -0,0 +1,35 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+public class DirListItemComparatorTest {
+   private final File testDataDir = new File("./src/test/resources/com/chainstaysoftware/filechooser");
+   private final List<File> files = Arrays.asList(new File(testDataDir, "aaa"), new File(testDataDir, "bbb"),
+      new File(testDataDir, "empty.txt"), new File(testDataDir, "empty.xml"), new File(testDataDir, "dir1"),
+      new File(testDataDir, "dir2"));
+
+   @Test
+   public void testSameOrderAsFileMetaDataComparator() {
+      for (OrderBy orderBy : OrderBy.values()) {
+         for (OrderDirection direction : OrderDirection.values()) {
+            final FileMetaDataComparator fileComparator = new FileMetaDataComparator(orderBy, direction);
+            final DirListItemComparator itemComparator = new DirListItemComparator(orderBy, direction);
+
+            for (File f1 : files) {
+               for (File f2 : files) {
+                  Assert.assertThat(orderBy + " " + direction + " " + f1.getName() + " " + f2.getName(),
+                     Integer.signum(itemComparator.compare(new DirectoryListItem(f1), new DirectoryListItem(f2))),
+                     equalTo(Integer.signum(fileComparator.compare(f1, f2))));
+               }
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,102 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DirectoryEntriesTest {
+   private static final File DIRECTORY = new File("dir");
+
+   @Test
+   public void testSortMatchesComparator() {
+      final Random random = new Random(42);
+      final List<DirectoryListItem> items = new ArrayList<>();
+      for (int i = 0; i < 20000; i++) {
+         final boolean directory = random.nextInt(10) == 0;
+         final String name = "f" + random.nextInt(5000) + (directory ? "" : "." + (char) ('a' + random.nextInt(5)));
+         items.add(new DirectoryListItem(new File(DIRECTORY, name), directory, false,
+            random.nextInt(1000), random.nextInt(1000)));
+      }
+
+      final DirectoryEntries entries = new DirectoryEntries(DIRECTORY);
+      items.forEach(entries::add);
+
+      for (OrderBy orderBy : OrderBy.values()) {
+         for (OrderDirection direction : OrderDirection.values()) {
+            final int[] order = IntStream.range(0, entries.size()).toArray();
+            DirectoryEntries.sort(order, order.length, entries.comparator(orderBy, direction));
+
+            // Both sorts are stable, so the orders are the same.
+            final List<String> expected = items.stream()
+               .sorted(new DirListItemComparator(orderBy, direction))
+               .map(item -> item.getFile().getName() + item.lastModified() + item.length())
+               .collect(Collectors.toList());
+            final List<String> actual = IntStream.of(order)
+               .mapToObj(entries::createItem)
+               .map(item -> item.getFile().getName() + item.lastModified() + item.length())
+               .collect(Collectors.toList());
+            Assert.assertThat(orderBy + " " + direction, actual, equalTo(expected));
+         }
+      }
+   }
+
+   @Test
+   public void testFilterMatchesItems() {
+      final List<DirectoryListItem> items = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+         items.add(new DirectoryListItem(new File(DIRECTORY, "f" + i + (i % 3 == 0 ? ".txt" : ".log")),
+            i % 10 == 0, i % 7 == 0, i * 1000L, i));
+      }
+
+      final DirectoryEntries entries = new DirectoryEntries(DIRECTORY);
+      items.forEach(entries::add);
+
+      for (String text : new String[] {"f1", "size>50 ext:txt", "type:dir OR modified<5s"}) {
+         final NameFilter nameFilter = NameFilter.compile(text);
+         final IntPredicate filter = entries.filter(entry -> !entry.isHidden() && nameFilter.test(entry));
+         final List<Integer> expected = IntStream.range(0, items.size())
+            .filter(i -> !items.get(i).isHidden() && nameFilter.test(items.get(i)))
+            .boxed()
+            .collect(Collectors.toList());
+         final List<Integer> actual = IntStream.range(0, entries.size())
+            .filter(filter)
+            .boxed()
+            .collect(Collectors.toList());
+         Assert.assertThat(text, actual, equalTo(expected));
+      }
+   }
+
+   @Test
+   public void testPagedItems() {
+      final DirectoryEntries entries = new DirectoryEntries(DIRECTORY);
+      for (int i = 0; i < 1000; i++) {
+         entries.add(new DirectoryListItem(new File(DIRECTORY, "file" + i), false, false, i, i));
+      }
+
+      final PagedItems pagedItems = new PagedItems();
+      final int[] order = IntStream.range(0, 1000).map(i -> 999 - i).toArray();
+      pagedItems.setAll(entries, order, 500, PagedItems.createNameIndex(entries, order, 500));
+
+      Assert.assertThat(pagedItems.size(), equalTo(500));
+      Assert.assertThat(pagedItems.get(0).getFile(), equalTo(new File(DIRECTORY, "file999")));
+      Assert.assertThat(pagedItems.get(300), sameInstance(pagedItems.get(300)));
+      Assert.assertThat(pagedItems.indexOf(pagedItems.get(300)), equalTo(300));
+      Assert.assertThat(pagedItems.indexOfName("file998"), equalTo(1));
+      Assert.assertThat(pagedItems.indexOfName("file0"), equalTo(-1));
+      // file99 is not shown. The first name starting with the text is file990.
+      Assert.assertThat(pagedItems.find("FILE99").map(DirectoryListItem::length).orElse(-1L), equalTo(990L));
+      Assert.assertThat(pagedItems.find("file5").map(DirectoryListItem::length).orElse(-1L), equalTo(500L));
+      Assert.assertThat(pagedItems.find("file49").isPresent(), equalTo(false));
+      Assert.assertThat(pagedItems.find("zzz").isPresent(), equalTo(false));
+   }
+}
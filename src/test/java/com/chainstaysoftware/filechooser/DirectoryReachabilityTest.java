@@ -0,0 +1,66 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class DirectoryReachabilityTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testReachable() throws IOException, ExecutionException, InterruptedException {
+      final File dir = folder.newFolder("reachable");
+
+      Assert.assertThat("Not cached", DirectoryReachability.getCached(dir), equalTo(Optional.empty()));
+      Assert.assertThat("Reachable", DirectoryReachability.check(dir, 5000).get(), equalTo(true));
+      Assert.assertThat("Cached", DirectoryReachability.getCached(dir), equalTo(Optional.of(true)));
+   }
+
+   @Test
+   public void testUnreachable() throws ExecutionException, InterruptedException {
+      final File dir = new File(folder.getRoot(), "missing");
+
+      Assert.assertThat("Unreachable", DirectoryReachability.check(dir, 5000).get(), equalTo(false));
+      Assert.assertThat("Cached", DirectoryReachability.getCached(dir), equalTo(Optional.of(false)));
+   }
+
+   @Test
+   public void testTimeoutReplacesExpiredResult() throws IOException, ExecutionException, InterruptedException {
+      final File dir = folder.newFolder("hung");
+      DirectoryReachability.cache(dir, true, System.currentTimeMillis() - 60 * 1000);
+
+      final CountDownLatch release = new CountDownLatch(1);
+      try {
+         final boolean reachable = DirectoryReachability.check(dir, 100, directory -> {
+            try {
+               release.await();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            return true;
+         }).get();
+
+         Assert.assertThat("Unreachable", reachable, equalTo(false));
+         Assert.assertThat("Cached", DirectoryReachability.getCached(dir), equalTo(Optional.of(false)));
+      } finally {
+         release.countDown();
+      }
+   }
+
+   @Test
+   public void testFileIsNotReachableDirectory() throws IOException {
+      final File file = folder.newFile("file.txt");
+
+      Assert.assertThat("Not a directory", DirectoryReachability.probe(file), equalTo(false));
+   }
+}
@@ -0,0 +1,70 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DirectorySizesTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testNestedDirectories() throws IOException {
+      final File root = folder.newFolder("root");
+      write(new File(root, "a.txt"), 10);
+      write(new File(root, "sub/b.txt"), 100);
+      write(new File(root, "sub/deeper/c.txt"), 1000);
+      write(new File(root, "sub/deeper/d.txt"), 1);
+      new File(root, "empty").mkdirs();
+
+      final DirectorySize size = DirectorySizes.computeSize(root.toPath(), () -> false);
+      Assert.assertThat(size.getBytes(), equalTo(1111L));
+      Assert.assertThat(size.getFiles(), equalTo(4L));
+
+      final DirectorySize subSize = DirectorySizes.computeSize(new File(root, "sub").toPath(), () -> false);
+      Assert.assertThat(subSize.getBytes(), equalTo(1101L));
+      Assert.assertThat(subSize.getFiles(), equalTo(3L));
+   }
+
+   @Test
+   public void testChangedDirectory() throws IOException {
+      final File root = folder.newFolder("root");
+      write(new File(root, "a.txt"), 10);
+      Assert.assertThat(DirectorySizes.computeSize(root.toPath(), () -> false).getBytes(), equalTo(10L));
+
+      write(new File(root, "b.txt"), 20);
+      // Move the modified time, as it may not change within its resolution.
+      root.setLastModified(root.lastModified() + 2000);
+      Assert.assertThat(DirectorySizes.computeSize(root.toPath(), () -> false).getBytes(), equalTo(30L));
+   }
+
+   @Test
+   public void testCancelled() throws IOException {
+      final File root = folder.newFolder("root");
+      write(new File(root, "sub/a.txt"), 10);
+
+      Assert.assertThat(DirectorySizes.computeSize(root.toPath(), () -> true), nullValue());
+   }
+
+   @Test
+   public void testNotDirectory() throws IOException {
+      final File file = write(new File(folder.getRoot(), "a.txt"), 10);
+
+      Assert.assertThat(DirectorySizes.computeSize(file.toPath(), () -> false).getFiles(), equalTo(0L));
+   }
+
+   private File write(final File file,
+                      final int length) throws IOException {
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), new byte[length]);
+      return file;
+   }
+}
@@ -0,0 +1,56 @@
+package com.chainstaysoftware.filechooser;
+
+import org.apache.commons.io.IOCase;
+import org.apache.commons.io.filefilter.WildcardFileFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ExtensionFilterMatcherTest {
+   private static final List<String> NAMES = Arrays.asList("a.txt", "A.TXT", "b.txt.bak", ".txt", "txt",
+      "c.tar.gz", "d.gz", "readme", "README.md", "e.", "f.Txt", "photo.jpeg", "photo.jpg", "x1.log", "x12.log",
+      "r\u00e9sum\u00e9.PDF", "r\u00e9sum\u00e9.pdf");
+
+   private static final List<List<String>> PATTERNS = Arrays.asList(
+      Collections.emptyList(),
+      Collections.singletonList("*"),
+      Collections.singletonList("*.*"),
+      Arrays.asList("*.txt", "*.md"),
+      Arrays.asList("*.TXT", "*.txt", "*.jpg", "*.jpeg", "*.png", "*.gif", "*.pdf"),
+      Collections.singletonList("*.tar.gz"),
+      Arrays.asList("x?.log", "READ*"),
+      Collections.singletonList("*."),
+      Collections.singletonList("*a*t*"));
+
+   @Test
+   public void testSameAsWildcardFileFilter() {
+      for (boolean caseSensitive : new boolean[] {true, false}) {
+         for (List<String> patterns : PATTERNS) {
+            final ExtensionFilterMatcher matcher = new ExtensionFilterMatcher(patterns, caseSensitive);
+            final WildcardFileFilter filter
+               = new WildcardFileFilter(patterns, caseSensitive ? IOCase.SENSITIVE : IOCase.INSENSITIVE);
+
+            for (String name : NAMES) {
+               Assert.assertThat(patterns + " " + name + " caseSensitive=" + caseSensitive,
+                  matcher.matches(name), equalTo(filter.accept(new File("dir", name))));
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testDirectoryFlag() {
+      final ExtensionFilterMatcher matcher = new ExtensionFilterMatcher(Collections.singletonList("*.txt"), true);
+
+      Assert.assertThat("Path", matcher.matches(Paths.get("dir", "a.txt")), equalTo(true));
+      Assert.assertThat("Directory", matcher.matches(Paths.get("dir"), true), equalTo(true));
+      Assert.assertThat("File", matcher.matches(Paths.get("dir"), false), equalTo(false));
+   }
+}
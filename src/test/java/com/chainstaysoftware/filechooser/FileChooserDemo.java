@@ -22,6 +22,7 @@ public class FileChooserDemo extends Application {
       final HashMap<String, Class<? extends PreviewPane>> previewHandlers = new HashMap<>();
       previewHandlers.put("image/png", ImagePreviewPane.class);
       previewHandlers.put("image/jpg", ImagePreviewPane.class);
+      previewHandlers.put("image/jpeg", ImagePreviewPane.class);
       previewHandlers.put("text/plain", HeadPreviewPane.class);
 
       final TextFlow textFlow = new TextFlow();
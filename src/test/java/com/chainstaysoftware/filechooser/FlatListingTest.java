@@ -0,0 +1,67 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class FlatListingTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testFolders() throws Exception {
+      final File root = folder.newFolder("root");
+      final FlatListing listing = new FlatListing(root);
+
+      final int top = listing.add(item(new File(root, "top.txt"), 10));
+      final int deep = listing.add(item(new File(root, "a/b/deep.txt"), 20));
+      final int sibling = listing.add(item(new File(root, "a/sibling.txt"), 30));
+
+      Assert.assertThat(listing.size(), equalTo(3));
+      Assert.assertThat(listing.getFolder(top), equalTo("."));
+      Assert.assertThat(listing.getFolder(deep), equalTo("a" + File.separator + "b"));
+      Assert.assertThat(listing.getFolder(sibling), equalTo("a"));
+      Assert.assertThat(listing.getName(deep), equalTo("deep.txt"));
+   }
+
+   @Test
+   public void testAttributes() throws Exception {
+      final File root = folder.newFolder("root");
+      final File file = new File(root, "a/b/deep.txt");
+      final FlatListing listing = new FlatListing(root);
+
+      final int index = listing.add(item(file, 42));
+
+      Assert.assertThat(listing.getSize(index), equalTo(42L));
+      Assert.assertThat(listing.getLastModified(index), equalTo(file.lastModified()));
+      Assert.assertThat(listing.getFile(index), equalTo(file));
+      Assert.assertThat(listing.getRoot(), equalTo(root));
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testComplete() throws Exception {
+      final File root = folder.newFolder("root");
+      final FlatListing listing = new FlatListing(root);
+
+      final int deep = listing.add(item(new File(root, "a/b/deep.txt"), 20));
+      listing.complete();
+
+      Assert.assertThat(listing.isComplete(), equalTo(true));
+      Assert.assertThat(listing.getFolder(deep), equalTo("a" + File.separator + "b"));
+      listing.add(item(new File(root, "late.txt"), 10));
+   }
+
+   private DirectoryListItem item(final File file,
+                                  final int length) throws IOException {
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), new byte[length]);
+      return new DirectoryListItem(file);
+   }
+}
@@ -0,0 +1,76 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class FuzzyMatcherTest {
+   private final FuzzyMatcher matcher = new FuzzyMatcher(Arrays.asList(
+      "pom.xml",
+      "src/main/java/com/chainstaysoftware/filechooser/FileChooserFx.java",
+      "src/main/java/com/chainstaysoftware/filechooser/FileChooserFxImpl.java",
+      "src/main/java/com/chainstaysoftware/filechooser/FilesViewCallback.java",
+      "src/test/java/com/chainstaysoftware/filechooser/FileChooserDemo.java",
+      "src/main/resources/filechooser.properties"));
+
+   @Test
+   public void testBestMatchFirst() {
+      Assert.assertThat(paths(matcher.topK("srcmainfcfx", 2)), contains(
+         "src/main/java/com/chainstaysoftware/filechooser/FileChooserFx.java",
+         "src/main/java/com/chainstaysoftware/filechooser/FileChooserFxImpl.java"));
+      Assert.assertThat(paths(matcher.topK("FCFxImpl", 1)), contains(
+         "src/main/java/com/chainstaysoftware/filechooser/FileChooserFxImpl.java"));
+   }
+
+   @Test
+   public void testNameBeatsDirectory() {
+      // "demo" only matches in the name of the test file.
+      Assert.assertThat(paths(matcher.topK("demo", 10)), contains(
+         "src/test/java/com/chainstaysoftware/filechooser/FileChooserDemo.java"));
+      Assert.assertThat(matcher.get(matcher.topK("pom", 10)[0]), equalTo("pom.xml"));
+   }
+
+   @Test
+   public void testLimit() {
+      Assert.assertThat(matcher.topK("java", 3).length, equalTo(3));
+      Assert.assertThat(matcher.topK("java", 100).length, equalTo(4));
+   }
+
+   @Test
+   public void testNoMatch() {
+      Assert.assertThat(matcher.topK("zzz", 10).length, equalTo(0));
+      Assert.assertThat(matcher.topK("", 10).length, equalTo(0));
+      Assert.assertThat(matcher.topK("  ", 10).length, equalTo(0));
+   }
+
+   @Test
+   public void testManyCandidates() {
+      final List<String> candidates = new ArrayList<>();
+      for (int i = 0; i < 10000; i++) {
+         candidates.add("dir" + (i % 100) + "/file" + i + ".txt");
+      }
+      final FuzzyMatcher many = new FuzzyMatcher(candidates);
+
+      Assert.assertThat(paths(many, many.topK("file9999", 1)), contains("dir99/file9999.txt"));
+      Assert.assertThat(many.topK("file", 25).length, equalTo(25));
+   }
+
+   private List<String> paths(final int[] ids) {
+      return paths(matcher, ids);
+   }
+
+   private static List<String> paths(final FuzzyMatcher matcher,
+                                     final int[] ids) {
+      final List<String> paths = new ArrayList<>();
+      for (int id : ids) {
+         paths.add(matcher.get(id));
+      }
+      return paths;
+   }
+}
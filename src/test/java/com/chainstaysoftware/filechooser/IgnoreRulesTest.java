@@ -0,0 +1,86 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class IgnoreRulesTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testNamePatterns() {
+      final IgnoreRules.Scope scope = scope("*.log", "build/", "# comment", "", "tmp?");
+      final Path root = folder.getRoot().toPath();
+
+      Assert.assertThat(scope.isIgnored(root.resolve("a/b/debug.log"), false), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("debug.log.txt"), false), equalTo(false));
+      Assert.assertThat(scope.isIgnored(root.resolve("x/build"), true), equalTo(true));
+      // A trailing slash only matches directories.
+      Assert.assertThat(scope.isIgnored(root.resolve("x/build"), false), equalTo(false));
+      Assert.assertThat(scope.isIgnored(root.resolve("tmp1"), true), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("tmp12"), true), equalTo(false));
+   }
+
+   @Test
+   public void testAnchoredPatterns() {
+      final IgnoreRules.Scope scope = scope("/target", "docs/*.pdf", "**/gen/**", "a/**/z");
+      final Path root = folder.getRoot().toPath();
+
+      Assert.assertThat(scope.isIgnored(root.resolve("target"), true), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("sub/target"), true), equalTo(false));
+      Assert.assertThat(scope.isIgnored(root.resolve("docs/manual.pdf"), false), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("docs/old/manual.pdf"), false), equalTo(false));
+      Assert.assertThat(scope.isIgnored(root.resolve("x/gen/y.java"), false), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("x/gen"), true), equalTo(false));
+      Assert.assertThat(scope.isIgnored(root.resolve("a/z"), true), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("a/b/c/z"), true), equalTo(true));
+   }
+
+   @Test
+   public void testNegation() {
+      final IgnoreRules.Scope scope = scope("*.log", "!keep.log", "[Tt]emp*", "\\!important");
+      final Path root = folder.getRoot().toPath();
+
+      Assert.assertThat(scope.isIgnored(root.resolve("other.log"), false), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("keep.log"), false), equalTo(false));
+      Assert.assertThat(scope.isIgnored(root.resolve("Temp1"), false), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("temp1"), false), equalTo(true));
+      Assert.assertThat(scope.isIgnored(root.resolve("!important"), false), equalTo(true));
+   }
+
+   @Test
+   public void testGitIgnoreOverridesParent() throws IOException {
+      final File sub = folder.newFolder("sub");
+      Files.write(new File(sub, IgnoreRules.GIT_IGNORE).toPath(),
+         Arrays.asList("!*.log", "*.tmp"), StandardCharsets.UTF_8);
+
+      final IgnoreRules rules = new IgnoreRules(Collections.singletonList("*.log"), true);
+      final IgnoreRules.Scope rootScope = rules.forRoot(folder.getRoot().toPath());
+      final IgnoreRules.Scope subScope = rootScope.enter(sub.toPath());
+
+      Assert.assertThat(rootScope.isIgnored(folder.getRoot().toPath().resolve("a.log"), false), equalTo(true));
+      Assert.assertThat(subScope.isIgnored(sub.toPath().resolve("a.log"), false), equalTo(false));
+      Assert.assertThat(subScope.isIgnored(sub.toPath().resolve("a.tmp"), false), equalTo(true));
+
+      // .gitignore files are not read when disabled.
+      final IgnoreRules.Scope noGitIgnore = new IgnoreRules(Collections.singletonList("*.log"), false)
+         .forRoot(folder.getRoot().toPath()).enter(sub.toPath());
+      Assert.assertThat(noGitIgnore.isIgnored(sub.toPath().resolve("a.log"), false), equalTo(true));
+   }
+
+   private IgnoreRules.Scope scope(final String... patterns) {
+      return new IgnoreRules(Arrays.asList(patterns), false).forRoot(folder.getRoot().toPath());
+   }
+}
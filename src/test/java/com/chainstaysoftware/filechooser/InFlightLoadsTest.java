@@ -0,0 +1,73 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class InFlightLoadsTest {
+   private final ExecutorService executor = Executors.newFixedThreadPool(2);
+   private final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+
+   @After
+   public void tearDown() {
+      executor.shutdownNow();
+      timeoutScheduler.shutdownNow();
+   }
+
+   @Test
+   public void testHungLoadIsShared() throws InterruptedException {
+      final InFlightLoads<String, String> loads = new InFlightLoads<>(executor, timeoutScheduler, 100);
+      final CountDownLatch release = new CountDownLatch(1);
+      final AtomicInteger calls = new AtomicInteger();
+
+      final CompletableFuture<String> first = loads.load("key", key -> {
+         calls.incrementAndGet();
+         try {
+            release.await();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         return key;
+      });
+      final CompletableFuture<String> second = loads.load("key", key -> {
+         calls.incrementAndGet();
+         return key;
+      });
+
+      assertTimedOut(first);
+      assertTimedOut(second);
+      Assert.assertThat("Loaded once", calls.get(), equalTo(1));
+      Assert.assertThat("Still running", loads.size(), equalTo(1));
+
+      release.countDown();
+   }
+
+   @Test
+   public void testLoad() throws InterruptedException, ExecutionException {
+      final InFlightLoads<String, Integer> loads = new InFlightLoads<>(executor, timeoutScheduler, 5000);
+
+      Assert.assertThat(loads.load("abc", String::length).get(), equalTo(3));
+      Assert.assertThat(loads.size(), equalTo(0));
+   }
+
+   private static void assertTimedOut(final CompletableFuture<String> future) throws InterruptedException {
+      try {
+         future.get();
+         Assert.fail("Expected a timeout");
+      } catch (ExecutionException e) {
+         Assert.assertThat(e.getCause(), instanceOf(TimeoutException.class));
+      }
+   }
+}
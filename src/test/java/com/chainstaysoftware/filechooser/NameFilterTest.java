@@ -0,0 +1,58 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.regex.PatternSyntaxException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+public class NameFilterTest {
+   @Test
+   public void testSubstring() {
+      final NameFilter filter = NameFilter.compile("port");
+      Assert.assertThat(filter.test("report.pdf"), equalTo(true));
+      Assert.assertThat(filter.test("PORTS"), equalTo(true));
+      Assert.assertThat(filter.test("pot.txt"), equalTo(false));
+   }
+
+   @Test
+   public void testGlob() {
+      final NameFilter filter = NameFilter.compile("*.TXT");
+      Assert.assertThat(filter.test("readme.txt"), equalTo(true));
+      Assert.assertThat(filter.test("readme.txt.bak"), equalTo(false));
+
+      final NameFilter single = NameFilter.compile("file?.log");
+      Assert.assertThat(single.test("file1.log"), equalTo(true));
+      Assert.assertThat(single.test("file10.log"), equalTo(false));
+   }
+
+   @Test
+   public void testRegex() {
+      final NameFilter filter = NameFilter.compile("/^img_\\d+\\.(jpg|png)$/");
+      Assert.assertThat(filter.test("IMG_0042.jpg"), equalTo(true));
+      Assert.assertThat(filter.test("img_x.png"), equalTo(false));
+
+      final NameFilter partial = NameFilter.compile("/\\d{4}/");
+      Assert.assertThat(partial.test("report-2019.pdf"), equalTo(true));
+   }
+
+   @Test
+   public void testSlashIsSubstring() {
+      // A single slash is not a regex.
+      Assert.assertThat(NameFilter.compile("/").test("a/b"), equalTo(true));
+   }
+
+   @Test
+   public void testLiteral() {
+      Assert.assertThat(NameFilter.compile("port").getLiteral(), equalTo(Optional.of("port")));
+      Assert.assertThat(NameFilter.compile("*report*.p?f").getLiteral(), equalTo(Optional.of("report")));
+      Assert.assertThat(NameFilter.compile("/report/").getLiteral(), equalTo(Optional.empty()));
+   }
+
+   @Test(expected = PatternSyntaxException.class)
+   public void testInvalidRegex() {
+      NameFilter.compile("/[a-/");
+   }
+}
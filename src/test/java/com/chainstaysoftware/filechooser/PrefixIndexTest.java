@@ -0,0 +1,65 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+public class PrefixIndexTest {
+   private final PrefixIndex index = new PrefixIndex();
+
+   @Before
+   public void setup() {
+      index.addAll(Arrays.asList(item("readme.txt"), item("Report.pdf"), item("build.xml"),
+         item("report-old.pdf"), item("src")));
+   }
+
+   @Test
+   public void testPrefix() {
+      Assert.assertThat(find("b"), equalTo("build.xml"));
+      Assert.assertThat(find("rep"), equalTo("report-old.pdf"));
+      Assert.assertThat(find("report."), equalTo("Report.pdf"));
+      Assert.assertThat(find("src"), equalTo("src"));
+   }
+
+   @Test
+   public void testCaseInsensitive() {
+      Assert.assertThat(find("READ"), equalTo("readme.txt"));
+      Assert.assertThat(find("rEpOrT."), equalTo("Report.pdf"));
+   }
+
+   @Test
+   public void testSubsequenceFallback() {
+      Assert.assertThat(find("bxml"), equalTo("build.xml"));
+      // First match in name order.
+      Assert.assertThat(find("rpdf"), equalTo("report-old.pdf"));
+      Assert.assertThat(index.find("zzz").isPresent(), equalTo(false));
+   }
+
+   @Test
+   public void testEmpty() {
+      Assert.assertThat(index.find("").isPresent(), equalTo(false));
+      Assert.assertThat(new PrefixIndex().find("a").isPresent(), equalTo(false));
+   }
+
+   @Test
+   public void testSameNameDifferentCase() {
+      index.add(item("README.TXT"));
+      Assert.assertThat(index.size(), equalTo(6));
+   }
+
+   private String find(final String text) {
+      final Optional<DirectoryListItem> item = index.find(text);
+      Assert.assertThat(text, item.isPresent(), equalTo(true));
+      return item.get().getFile().getName();
+   }
+
+   private static DirectoryListItem item(final String name) {
+      return new DirectoryListItem(new File(name), false);
+   }
+}
@@ -0,0 +1,134 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class RecursiveSearchTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   private final Predicate<DirectoryListItem> acceptAll = item -> true;
+
+   @Before
+   public void setup() throws IOException {
+      final File a = folder.newFolder("a");
+      final File b = folder.newFolder("a", "b");
+      final File c = folder.newFolder("a", "b", "c");
+      Assert.assertTrue(new File(folder.getRoot(), "report.txt").createNewFile());
+      Assert.assertTrue(new File(a, "report-a.txt").createNewFile());
+      Assert.assertTrue(new File(b, "notes.txt").createNewFile());
+      Assert.assertTrue(new File(c, "report-c.pdf").createNewFile());
+   }
+
+   @Test
+   public void testFindsNestedMatches() throws Exception {
+      final Set<String> found = new TreeSet<>();
+      final RecursiveSearch.Outcome outcome = search(NameFilter.compile("report"), acceptAll, 32, found);
+
+      Assert.assertThat(outcome, equalTo(RecursiveSearch.Outcome.Completed));
+      Assert.assertThat(found, equalTo(set("report.txt", "report-a.txt", "report-c.pdf")));
+   }
+
+   @Test
+   public void testItemFilter() throws Exception {
+      final Set<String> found = new TreeSet<>();
+      search(NameFilter.compile("report"),
+         item -> item.isDirectory() || item.getFile().getName().endsWith(".txt"), 32, found);
+
+      Assert.assertThat(found, equalTo(set("report.txt", "report-a.txt")));
+   }
+
+   @Test
+   public void testMaxDepth() throws Exception {
+      final Set<String> found = new TreeSet<>();
+      search(NameFilter.compile("report"), acceptAll, 1, found);
+
+      Assert.assertThat(found, equalTo(set("report.txt", "report-a.txt")));
+   }
+
+   @Test
+   public void testLinkLoop() throws Exception {
+      final File c = new File(folder.getRoot(), "a/b/c");
+      try {
+         Files.createSymbolicLink(new File(c, "loop").toPath(), folder.getRoot().toPath());
+      } catch (UnsupportedOperationException | IOException e) {
+         // No symbolic links on this platform.
+         return;
+      }
+
+      final Set<String> found = new TreeSet<>();
+      final RecursiveSearch.Outcome outcome = search(NameFilter.compile("*.pdf"), acceptAll, 1000, found);
+
+      Assert.assertThat(outcome, equalTo(RecursiveSearch.Outcome.Completed));
+      Assert.assertThat(found, equalTo(set("report-c.pdf")));
+   }
+
+   @Test
+   public void testIgnoreRules() throws Exception {
+      final File b = new File(folder.getRoot(), "a/b");
+      Files.write(new File(b, IgnoreRules.GIT_IGNORE).toPath(), "*.txt\n".getBytes(StandardCharsets.UTF_8));
+
+      final Set<String> found = new TreeSet<>();
+      final Set<String> names = Collections.synchronizedSet(found);
+      final CompletableFuture<RecursiveSearch.Outcome> finished = new CompletableFuture<>();
+      final RecursiveSearch search = new RecursiveSearch(folder.getRoot(), NameFilter.compile("*"), acceptAll,
+         new IgnoreRules(Collections.singletonList("c/"), true), 32, 10000,
+         matches -> matches.forEach(item -> names.add(item.getFile().getName())),
+         finished::complete);
+      search.start();
+      finished.get(5, TimeUnit.SECONDS);
+
+      // c is pruned by the global pattern, notes.txt by the .gitignore of b.
+      Assert.assertThat(found, equalTo(set("a", "b", "report.txt", "report-a.txt", IgnoreRules.GIT_IGNORE)));
+      Assert.assertThat(search.getIgnoredCount(), equalTo(2L));
+   }
+
+   @Test
+   public void testCancel() throws Exception {
+      final CompletableFuture<RecursiveSearch.Outcome> finished = new CompletableFuture<>();
+      final RecursiveSearch search = new RecursiveSearch(folder.getRoot(), NameFilter.compile("report"),
+         acceptAll, IgnoreRules.NONE, 32, 10000, matches -> {}, finished::complete);
+      search.cancel();
+      search.start();
+
+      Assert.assertThat(finished.get(5, TimeUnit.SECONDS), equalTo(RecursiveSearch.Outcome.Cancelled));
+   }
+
+   private RecursiveSearch.Outcome search(final NameFilter nameFilter,
+                                          final Predicate<DirectoryListItem> itemFilter,
+                                          final int maxDepth,
+                                          final Set<String> found)
+      throws InterruptedException, ExecutionException, TimeoutException {
+      final Set<String> names = Collections.synchronizedSet(found);
+      final CompletableFuture<RecursiveSearch.Outcome> finished = new CompletableFuture<>();
+      new RecursiveSearch(folder.getRoot(), nameFilter, itemFilter, IgnoreRules.NONE, maxDepth, 10000,
+         matches -> matches.forEach(item -> names.add(item.getFile().getName())),
+         finished::complete).start();
+
+      return finished.get(5, TimeUnit.SECONDS);
+   }
+
+   private static Set<String> set(final String... names) {
+      final Set<String> set = new TreeSet<>();
+      Collections.addAll(set, names);
+      return set;
+   }
+}
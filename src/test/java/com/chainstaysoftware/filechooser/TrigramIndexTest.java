@@ -0,0 +1,121 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TrigramIndexTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   private final String root = path("", "data");
+   private final List<String> paths = Arrays.asList(
+      path(root, "Report.pdf"),
+      path(root, "docs"),
+      path(root, "docs", "annual-report.txt"),
+      path(root, "docs", "notes.txt"),
+      path(root, "docs-old", "report.doc"),
+      path(root, "rep"));
+
+   private TrigramIndex index;
+
+   @Before
+   public void setup() throws IOException {
+      final File file = new File(folder.getRoot(), "index");
+      TrigramIndex.write(file, Collections.singletonList(root), paths);
+      index = TrigramIndex.open(file);
+   }
+
+   @Test
+   public void testHeader() {
+      Assert.assertThat(index.getRoots(), equalTo(Collections.singletonList(root)));
+      Assert.assertThat(index.size(), equalTo(paths.size()));
+   }
+
+   @Test
+   public void testQuery() {
+      Assert.assertThat(index.query(root, "REPORT", 100), containsInAnyOrder(path(root, "Report.pdf"),
+         path(root, "docs", "annual-report.txt"), path(root, "docs-old", "report.doc")));
+      Assert.assertThat(index.query(root, ".txt", 100), containsInAnyOrder(
+         path(root, "docs", "annual-report.txt"), path(root, "docs", "notes.txt")));
+      Assert.assertThat(index.query(root, "xyz", 100), empty());
+   }
+
+   @Test
+   public void testQueryUnderDirectory() {
+      // docs-old is not under docs, though it shares the prefix.
+      Assert.assertThat(index.query(path(root, "docs"), "report", 100),
+         containsInAnyOrder(path(root, "docs", "annual-report.txt")));
+   }
+
+   @Test
+   public void testNameOnly() {
+      // Trigrams of the directories in the path are not indexed.
+      Assert.assertThat(index.query(root, "docs", 100), containsInAnyOrder(path(root, "docs")));
+   }
+
+   @Test
+   public void testLimit() {
+      Assert.assertThat(index.query(root, "report", 2).size(), equalTo(2));
+   }
+
+   @Test
+   public void testGetPaths() {
+      Assert.assertThat(index.getPaths(path(root, "docs"), 100), containsInAnyOrder(
+         path(root, "docs", "annual-report.txt"), path(root, "docs", "notes.txt")));
+      Assert.assertThat(index.getPaths(root, 100).size(), equalTo(paths.size()));
+      Assert.assertThat(index.getPaths(root, 2).size(), equalTo(2));
+      Assert.assertThat(index.getPaths(path("", "other"), 100), empty());
+   }
+
+   @Test
+   public void testGetChildNames() {
+      // docs-old has no path of its own, and its paths sort between docs and its paths.
+      Assert.assertThat(index.getChildNames(root), equalTo(Arrays.asList("Report.pdf", "docs", "rep")));
+      Assert.assertThat(index.getChildNames(path(root, "docs")), equalTo(Arrays.asList("annual-report.txt", "notes.txt")));
+      Assert.assertThat(index.getChildNames(path(root, "rep")), empty());
+   }
+
+   @Test
+   public void testContains() {
+      Assert.assertThat(index.contains(path(root, "docs", "notes.txt")), equalTo(true));
+      Assert.assertThat(index.contains(path(root, "docs", "missing.txt")), equalTo(false));
+   }
+
+   @Test
+   public void testGenerationFiles() throws IOException {
+      final File baseFile = new File(folder.getRoot(), "index");
+      for (long generation : new long[] {10, 1, 2}) {
+         TrigramIndex.write(TrigramIndex.generationFile(baseFile, generation), Collections.singletonList(root), paths);
+      }
+      folder.newFile("index.tmp");
+      folder.newFile("index.2x");
+
+      final List<File> generations = TrigramIndex.generationFiles(baseFile);
+      Assert.assertThat(generations, equalTo(Arrays.asList(new File(folder.getRoot(), "index.1"),
+         new File(folder.getRoot(), "index.2"), new File(folder.getRoot(), "index.10"))));
+      Assert.assertThat(TrigramIndex.getGeneration(baseFile, generations.get(2)), equalTo(10L));
+      Assert.assertThat(TrigramIndex.open(generations.get(2)).size(), equalTo(paths.size()));
+   }
+
+   private static String path(final String first,
+                              final String... more) {
+      String path = first;
+      for (String name : more) {
+         path = path + File.separator + name;
+      }
+      return path;
+   }
+}
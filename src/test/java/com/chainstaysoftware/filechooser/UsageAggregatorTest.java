@@ -0,0 +1,106 @@
+package com.chainstaysoftware.filechooser;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class UsageAggregatorTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testLargestFirst() throws Exception {
+      final File root = folder.newFolder("root");
+      write(new File(root, "small.txt"), 10);
+      write(new File(root, "big/a.bin"), 3000);
+      write(new File(root, "big/deeper/b.bin"), 2000);
+      write(new File(root, "medium/c.bin"), 500);
+      write(new File(root, "tiny.txt"), 1);
+
+      final UsageAggregator.Snapshot snapshot = aggregate(root, 3);
+      Assert.assertThat(names(snapshot), contains("big", "medium", "small.txt"));
+      Assert.assertThat(snapshot.getLargest().get(0).getBytes(), equalTo(5000L));
+      Assert.assertThat(snapshot.getLargest().get(0).getFiles(), equalTo(2L));
+      Assert.assertThat(snapshot.getOtherCount(), equalTo(1));
+      Assert.assertThat(snapshot.getTotalBytes(), equalTo(5511L));
+      Assert.assertThat(snapshot.getTotalFiles(), equalTo(5L));
+   }
+
+   @Test
+   public void testEmpty() throws Exception {
+      final UsageAggregator.Snapshot snapshot = aggregate(folder.newFolder("empty"), 3);
+      Assert.assertThat(snapshot.getLargest().isEmpty(), equalTo(true));
+      Assert.assertThat(snapshot.getTotalBytes(), equalTo(0L));
+   }
+
+   @Test
+   public void testPagedEntries() throws Exception {
+      final File root = folder.newFolder("root");
+      write(new File(root, "small.txt"), 10);
+      write(new File(root, "big/a.bin"), 3000);
+      write(new File(root, "medium.bin"), 500);
+
+      final DirectoryEntries entries = new DirectoryEntries(root);
+      Arrays.stream(root.listFiles()).map(DirectoryListItem::new).forEach(entries::add);
+      // Only the first two entries in the order are shown.
+      final int[] order = {0, 1, 2};
+      final String hidden = entries.getName(2);
+
+      final UsageAggregator aggregator = new UsageAggregator(entries, order, 2);
+      aggregator.start();
+      for (int i = 0; i < 500 && !aggregator.isDone(); i++) {
+         Thread.sleep(10);
+      }
+
+      final UsageAggregator.Snapshot snapshot = aggregator.snapshot(3);
+      Assert.assertThat(snapshot.isDone(), equalTo(true));
+      Assert.assertThat(snapshot.getLargest().size(), equalTo(2));
+      Assert.assertThat(names(snapshot).contains(hidden), equalTo(false));
+      Assert.assertThat(snapshot.getTotalBytes(), equalTo(3510L - lengthOf(root, hidden)));
+   }
+
+   private long lengthOf(final File root,
+                         final String name) {
+      return "big".equals(name) ? 3000 : new File(root, name).length();
+   }
+
+   private UsageAggregator.Snapshot aggregate(final File directory,
+                                              final int maxEntries) throws InterruptedException {
+      final List<DirectoryListItem> entries = Arrays.stream(directory.listFiles())
+         .map(DirectoryListItem::new)
+         .collect(Collectors.toList());
+
+      final UsageAggregator aggregator = new UsageAggregator(entries);
+      aggregator.start();
+      for (int i = 0; i < 500 && !aggregator.isDone(); i++) {
+         Thread.sleep(10);
+      }
+
+      final UsageAggregator.Snapshot snapshot = aggregator.snapshot(maxEntries);
+      Assert.assertThat(snapshot.isDone(), equalTo(true));
+      return snapshot;
+   }
+
+   private List<String> names(final UsageAggregator.Snapshot snapshot) {
+      return snapshot.getLargest().stream()
+         .map(usage -> usage.getItem().getFile().getName())
+         .collect(Collectors.toList());
+   }
+
+   private void write(final File file,
+                      final int length) throws IOException {
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), new byte[length]);
+   }
+}
@@ -0,0 +1,40 @@
+package com.chainstaysoftware.filechooser.os.linux;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class MountTableTest {
+   private static final String MOUNTINFO =
+      "22 1 8:1 / / rw,relatime shared:1 - ext4 /dev/sda1 rw,errors=remount-ro\n"
+      + "36 22 98:0 /mnt1 /mnt2 rw,noatime master:1 - ext3 /dev/root rw,errors=continue\n"
+      + "40 22 8:17 / /media/user/USB\\040Drive rw,nosuid - vfat /dev/sdb1 rw,fmask=0022\n"
+      + "41 22 0:50 / /net/share rw - nfs server:/export rw,vers=4.2\n"
+      + "not a mountinfo line\n";
+
+   @Test
+   public void testParse() {
+      final List<MountInfo> mounts = MountTable.parse(MOUNTINFO);
+      Assert.assertThat("Invalid line skipped", mounts.size(), equalTo(4));
+
+      final MountInfo root = mounts.get(0);
+      Assert.assertThat("Device", root.getDevice(), equalTo("/dev/sda1"));
+      Assert.assertThat("Mount point", root.getMountpoint(), equalTo("/"));
+      Assert.assertThat("File system", root.getFs(), equalTo("ext4"));
+      Assert.assertThat("Options", root.getOptions(), equalTo("rw,relatime"));
+
+      Assert.assertThat("Optional field skipped", mounts.get(1).getFs(), equalTo("ext3"));
+      Assert.assertThat("Space unescaped", mounts.get(2).getMountpoint(), equalTo("/media/user/USB Drive"));
+      Assert.assertThat("Network device", mounts.get(3).getDevice(), equalTo("server:/export"));
+   }
+
+   @Test
+   public void testUnescape() {
+      Assert.assertThat("Tab and backslash", MountTable.unescape("a\\011b\\134c"), equalTo("a\tb\\c"));
+      Assert.assertThat("Not an escape", MountTable.unescape("a\\x"), equalTo("a\\x"));
+      Assert.assertThat("Trailing backslash", MountTable.unescape("a\\04"), equalTo("a\\04"));
+   }
+}
@@ -0,0 +1,61 @@
+package com.chainstaysoftware.filechooser.preview;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MimeTypeDetectorTest {
+   private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testExtension() {
+      Assert.assertThat("txt extension", MimeTypeDetector.fromExtension(new File("a.txt").toPath()), equalTo("text/plain"));
+      Assert.assertThat("Extension is case insensitive", MimeTypeDetector.fromExtension(new File("A.PNG").toPath()), equalTo("image/png"));
+      Assert.assertThat("Unknown extension", MimeTypeDetector.fromExtension(new File("a.bar").toPath()), nullValue());
+      Assert.assertThat("No extension", MimeTypeDetector.fromExtension(new File("aaa").toPath()), nullValue());
+   }
+
+   @Test
+   public void testMagicBytes() throws IOException {
+      final File png = folder.newFile("image_without_extension");
+      Files.write(png.toPath(), PNG_HEADER);
+      Assert.assertThat("PNG found from content", MimeTypeDetector.detect(png.toPath()), equalTo("image/png"));
+
+      final File pdf = folder.newFile("document.unknownext");
+      Files.write(pdf.toPath(), "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII));
+      Assert.assertThat("PDF found from content", MimeTypeDetector.detect(pdf.toPath()), equalTo("application/pdf"));
+   }
+
+   @Test
+   public void testExtensionWinsOverContent() throws IOException {
+      final File txt = folder.newFile("image.txt");
+      Files.write(txt.toPath(), PNG_HEADER);
+      Assert.assertThat("Extension checked first", MimeTypeDetector.detect(txt.toPath()), equalTo("text/plain"));
+   }
+
+   @Test
+   public void testTextContent() throws IOException {
+      final File text = folder.newFile("README");
+      Files.write(text.toPath(), "Some plain text\r\nwith two lines\n".getBytes(StandardCharsets.UTF_8));
+      Assert.assertThat("Text found from content", MimeTypeDetector.fromContent(text.toPath()), equalTo("text/plain"));
+
+      final File binary = folder.newFile("data");
+      Files.write(binary.toPath(), new byte[] {1, 2, 0, 4, 5});
+      Assert.assertThat("Binary content is not text", MimeTypeDetector.fromContent(binary.toPath()), nullValue());
+
+      final File empty = folder.newFile("empty");
+      Assert.assertThat("Empty file is unknown", MimeTypeDetector.fromContent(empty.toPath()), nullValue());
+   }
+}
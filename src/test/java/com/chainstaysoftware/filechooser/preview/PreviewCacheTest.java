@@ -0,0 +1,109 @@
+package com.chainstaysoftware.filechooser.preview;
+
+import javafx.scene.layout.Pane;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class PreviewCacheTest {
+   @Rule
+   public final TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void testHit() throws IOException {
+      final PreviewCache cache = new PreviewCache(100);
+      final CountingPreviewPane previewPane = new CountingPreviewPane();
+      final File file = createFile("a.txt", "aaaa");
+
+      Assert.assertThat("Loaded", cache.load(previewPane, file), equalTo("aaaa"));
+      Assert.assertThat("Cached", cache.load(previewPane, file), equalTo("aaaa"));
+      Assert.assertThat("Loaded once", previewPane.loads, equalTo(1));
+      Assert.assertThat("Size", cache.size(), equalTo(4L));
+      Assert.assertThat("Contains", cache.contains(file), equalTo(true));
+   }
+
+   @Test
+   public void testModifiedFileReloaded() throws IOException {
+      final PreviewCache cache = new PreviewCache(100);
+      final CountingPreviewPane previewPane = new CountingPreviewPane();
+      final File file = createFile("a.txt", "aaaa");
+
+      cache.load(previewPane, file);
+      Files.write(file.toPath(), "bb".getBytes(StandardCharsets.UTF_8));
+      Assert.assertThat("Set mtime", file.setLastModified(file.lastModified() + 10000), equalTo(true));
+
+      Assert.assertThat("Reloaded", cache.load(previewPane, file), equalTo("bb"));
+      Assert.assertThat("Loaded twice", previewPane.loads, equalTo(2));
+   }
+
+   @Test
+   public void testEvictsLeastRecentlyUsedBySize() throws IOException {
+      final PreviewCache cache = new PreviewCache(10);
+      final CountingPreviewPane previewPane = new CountingPreviewPane();
+      final File a = createFile("a.txt", "aaaa");
+      final File b = createFile("b.txt", "bbbb");
+      final File c = createFile("c.txt", "cccc");
+
+      cache.load(previewPane, a);
+      cache.load(previewPane, b);
+      cache.load(previewPane, a);
+      cache.load(previewPane, c);
+
+      Assert.assertThat("Recently used kept", cache.contains(a), equalTo(true));
+      Assert.assertThat("Least recently used evicted", cache.contains(b), equalTo(false));
+      Assert.assertThat("Newest kept", cache.contains(c), equalTo(true));
+      Assert.assertThat("Size", cache.size(), equalTo(8L));
+
+      cache.setCapacity(5);
+      Assert.assertThat("Shrunk", cache.size(), equalTo(4L));
+      Assert.assertThat("Most recent kept", cache.contains(c), equalTo(true));
+   }
+
+   @Test
+   public void testTooLargeNotCached() throws IOException {
+      final PreviewCache cache = new PreviewCache(3);
+      final File file = createFile("a.txt", "aaaa");
+
+      cache.load(new CountingPreviewPane(), file);
+      Assert.assertThat("Not cached", cache.contains(file), equalTo(false));
+      Assert.assertThat("Size", cache.size(), equalTo(0L));
+   }
+
+   private File createFile(final String name, final String content) throws IOException {
+      final File file = folder.newFile(name);
+      Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+      return file;
+   }
+
+   private static class CountingPreviewPane implements LoadablePreviewPane<String> {
+      private int loads;
+
+      @Override
+      public String load(final File file) throws IOException {
+         loads++;
+         return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+      }
+
+      @Override
+      public void show(final File file, final String content) {
+      }
+
+      @Override
+      public long estimateSize(final String content) {
+         return content.length();
+      }
+
+      @Override
+      public Pane getPane() {
+         return null;
+      }
+   }
+}